@@ -0,0 +1,43 @@
+package net.sourceforge.jwbf;
+
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+
+/** Captured api.php responses, enlarged to the size of the pages of a long crawl. */
+public final class ApiResponses {
+
+  private ApiResponses() {
+    // no instances
+  }
+
+  /**
+   * @param pages number of listed pages; the captured response lists one
+   * @return a response of allpages with a continuation
+   */
+  public static String allPagesXml(int pages) {
+    String captured = TestHelper.wikiResponse(MediaWiki.Version.MW1_24, "allPageTitles0.xml");
+    String entry = "<p pageid=\"122\" ns=\"0\" title=\"&quot;\" />";
+    StringBuilder entries = new StringBuilder(entry);
+    for (int i = 1; i < pages; i++) {
+      entries.append("\n      <p pageid=\"").append(1000 + i).append("\" ns=\"0\" title=\"");
+      entries.append("Some &amp; title ").append(i).append("\" />");
+    }
+    return captured.replace(entry, entries);
+  }
+
+  /**
+   * @param pages number of listed pages
+   * @return a response of allpages in json format version 2 with a continuation
+   */
+  public static String allPagesJson(int pages) {
+    StringBuilder json = new StringBuilder("{\"continue\":{\"apcontinue\":\"%\",");
+    json.append("\"continue\":\"-||\"},\"query\":{\"allpages\":[");
+    for (int i = 0; i < pages; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("{\"pageid\":").append(1000 + i).append(",\"ns\":0,\"title\":");
+      json.append("\"Some & title ").append(i).append("\"}");
+    }
+    return json.append("]}}").toString();
+  }
+}
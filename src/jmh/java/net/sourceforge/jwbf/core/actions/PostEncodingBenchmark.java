@@ -0,0 +1,85 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * Builds and writes the body of an edit request, like a bulk edit run does for each page; form
+ * encoded, multipart as before for every post, and as {@link
+ * HttpActionClient#newEntity(ImmutableMultimap, Charset)} chooses by the length of the text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostEncodingBenchmark {
+
+  private static final Charset CHARSET = StandardCharsets.UTF_8;
+
+  /** Length of the article text. */
+  @Param({"352", "880", "2200", "8800"})
+  private int textLength;
+
+  private HttpActionClient client;
+  private ImmutableMultimap<String, Object> edit;
+
+  @Setup
+  public void setup() {
+    client = HttpActionClient.of("http://localhost/");
+    String sentence = "Some wiki text, with [[Links]] and \u00fcmlauts. ";
+    String text = Strings.repeat(sentence, textLength / sentence.length());
+    edit =
+        ImmutableMultimap.<String, Object>builder()
+            .put("text", text)
+            .put("summary", "bulk edit")
+            .put("basetimestamp", "2019-01-01T00:00:00Z")
+            .put("starttimestamp", "2019-01-01T00:00:00Z")
+            .put("bot", "")
+            .put("token", "0123456789abcdef0123456789abcdef+\\")
+            .build();
+  }
+
+  @Benchmark
+  public long form() throws IOException {
+    return write(client.newFormEntity(edit, CHARSET));
+  }
+
+  @Benchmark
+  public long multipart() throws IOException {
+    return write(client.newMultipartEntity(edit, CHARSET));
+  }
+
+  @Benchmark
+  public long newEntity() throws IOException {
+    return write(client.newEntity(edit, CHARSET));
+  }
+
+  /** @return the number of bytes sent */
+  private static long write(HttpEntity entity) throws IOException {
+    CountingOutputStream out = new CountingOutputStream(ByteStreams.nullOutputStream());
+    entity.writeTo(out);
+    return out.getCount();
+  }
+}
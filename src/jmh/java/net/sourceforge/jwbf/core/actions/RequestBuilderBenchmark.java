@@ -0,0 +1,98 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+
+/**
+ * Builds requests like the actions of a bulk run do for each request, and reads the query string
+ * twice, like the client does for the request and its log message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBuilderBenchmark {
+
+  /** A list query with continuation, like AllPageTitles. */
+  @Benchmark
+  public void query(Blackhole blackhole) {
+    HttpAction get =
+        new RequestBuilder("/api.php")
+            .param("action", "query")
+            .param("list", "allpages")
+            .param("apfrom", "Some%20Title")
+            .param("apnamespace", "0")
+            .param("apfilterredir", "nonredirects")
+            .param("aplimit", "500")
+            .param("continue", "-%7C%7C")
+            .param("format", "xml")
+            .buildGet();
+    read(get, blackhole);
+  }
+
+  /** An edit, like PostModifyContent. */
+  @Benchmark
+  public void edit(Blackhole blackhole) {
+    Post post =
+        new RequestBuilder("/api.php")
+            .param("action", "edit")
+            .param("format", "xml")
+            .param("title", "Some%20Title")
+            .postParam("summary", "bulk edit")
+            .postParam("text", "Some wiki text")
+            .postParam("basetimestamp", "2019-01-01T00:00:00Z")
+            .postParam("starttimestamp", "2019-01-01T00:00:00Z")
+            .postParam("bot", "")
+            .postParam("token", "0123456789abcdef0123456789abcdef+\\")
+            .buildPost();
+    read(post, blackhole);
+    blackhole.consume(post.getParams());
+  }
+
+  @Benchmark
+  public void manyParams(Keys keys, Blackhole blackhole) {
+    RequestBuilder builder = new RequestBuilder("/api.php");
+    for (String key : keys.keys) {
+      builder.param(key, "value");
+    }
+    read(builder.buildGet(), blackhole);
+  }
+
+  private static void read(HttpAction action, Blackhole blackhole) {
+    blackhole.consume(action.getRequest());
+    blackhole.consume(action.getRequest());
+  }
+
+  /** Distinct keys of the url params of {@link #manyParams(Keys, Blackhole)}. */
+  @State(Scope.Benchmark)
+  public static class Keys {
+
+    @Param({"8", "32", "128"})
+    private int count;
+
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+      keys = new String[count];
+      for (int i = 0; i < count; i++) {
+        keys[i] = "key" + i;
+      }
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package net.sourceforge.jwbf.mapper;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import net.sourceforge.jwbf.ApiResponses;
+
+/**
+ * Reads the titles of an allpages response; with a document and {@link XmlElement} wrappers, like
+ * the list queries did before, and with {@link XmlConverter#mapChildren(String,
+ * com.google.common.base.Function, String, String...)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlListBenchmark {
+
+  /** Number of listed pages; 500 is the limit of a user, 5000 of a bot. */
+  @Param({"1", "500", "5000"})
+  private int pages;
+
+  private String xml;
+
+  @Setup
+  public void setup() {
+    xml = ApiResponses.allPagesXml(pages);
+  }
+
+  @Benchmark
+  public ImmutableList<String> document() {
+    ImmutableList.Builder<String> titles = ImmutableList.builder();
+    Optional<XmlElement> child = XmlConverter.getChildOpt(xml, "query", "allpages");
+    if (child.isPresent()) {
+      for (XmlElement pageElement : child.get().getChildren("p")) {
+        titles.add(pageElement.getAttributeValue("title"));
+      }
+    }
+    return titles.build();
+  }
+
+  @Benchmark
+  public ImmutableList<String> stream() {
+    return XmlConverter.mapChildren(
+        xml, XmlAttributes.toAttributeValue("title"), "query", "allpages", "p");
+  }
+}
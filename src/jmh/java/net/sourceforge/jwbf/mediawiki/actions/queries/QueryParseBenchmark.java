@@ -0,0 +1,72 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.jwbf.ApiResponses;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+
+/**
+ * Parses a response of {@link AllPageTitles} in one pass, like {@link BaseQuery.QueryAction} does,
+ * and with {@link BaseQuery#parseElements(String)} and {@link BaseQuery#parseHasMore(String)},
+ * like it did before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryParseBenchmark {
+
+  /** Format of the response; json for MW1_25 and higher. */
+  @Param({"xml", "json"})
+  private String format;
+
+  /** Number of listed pages; 500 is the limit of a user, 5000 of a bot. */
+  @Param({"1", "500", "5000"})
+  private int pages;
+
+  private AllPageTitles query;
+  private String response;
+
+  @Setup
+  public void setup() {
+    MediaWikiBot bot = mock(MediaWikiBot.class);
+    if ("json".equals(format)) {
+      when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+      response = ApiResponses.allPagesJson(pages);
+    } else {
+      when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_24);
+      response = ApiResponses.allPagesXml(pages);
+    }
+    query = new AllPageTitles(bot);
+  }
+
+  @Benchmark
+  public BaseQuery.Page<String> onePass() {
+    return query.parsePage(response);
+  }
+
+  @Benchmark
+  public void twoPasses(Blackhole blackhole) {
+    blackhole.consume(query.parseElements(response));
+    blackhole.consume(query.parseHasMore(response));
+  }
+}
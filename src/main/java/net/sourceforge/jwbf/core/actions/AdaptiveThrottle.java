@@ -0,0 +1,235 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.utils.DateUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * Limits the requests of one or more {@link HttpActionClient}s and adapts the rate to the load of
+ * the server. Requests to <code>api.php</code> get a <a
+ * href="https://www.mediawiki.org/wiki/Manual:Maxlag_parameter">maxlag</a> parameter. If the server
+ * answers with a maxlag error or with status 429 or 503, all requests pause for the time given by
+ * <code>Retry-After</code> plus some jitter, the rate is halved and the request is repeated. Every
+ * successful response raises the rate again, up to its maximum.
+ */
+@Beta
+public class AdaptiveThrottle {
+
+  private static final Logger log = LoggerFactory.getLogger(AdaptiveThrottle.class);
+
+  static final String DATABASE_LAG = "X-Database-Lag";
+
+  private final double minRate;
+  private final double maxRate;
+  private final double rampUpFactor;
+  private final int maxlagSeconds;
+  private final int maxRetries;
+  private final long defaultBackoffMillis;
+  private final RateLimiter limiter;
+  private final AtomicLong pausedUntilNanos = new AtomicLong();
+  private final Ticker ticker;
+  private final Random random;
+
+  AdaptiveThrottle(Builder builder, Ticker ticker, Random random) {
+    this.minRate = builder.minRate;
+    this.maxRate = builder.maxRate;
+    this.rampUpFactor = builder.rampUpFactor;
+    this.maxlagSeconds = builder.maxlagSeconds;
+    this.maxRetries = builder.maxRetries;
+    this.defaultBackoffMillis = builder.defaultBackoffMillis;
+    this.limiter = RateLimiter.create(builder.maxRate);
+    this.ticker = ticker;
+    this.random = random;
+    pausedUntilNanos.set(ticker.read());
+  }
+
+  /** Blocks until a request is allowed. */
+  void acquire() {
+    long waitNanos = pausedUntilNanos.get() - ticker.read();
+    while (waitNanos > 0) {
+      Uninterruptibles.sleepUninterruptibly(waitNanos, TimeUnit.NANOSECONDS);
+      waitNanos = pausedUntilNanos.get() - ticker.read();
+    }
+    limiter.acquire();
+  }
+
+  /**
+   * Like {@link #acquire()}, but never blocks.
+   *
+   * @return 0 if a request is allowed now; otherwise the nanos to wait before asking again
+   */
+  long tryAcquire() {
+    long waitNanos = pausedUntilNanos.get() - ticker.read();
+    if (waitNanos > 0) {
+      return waitNanos;
+    }
+    if (limiter.tryAcquire()) {
+      return 0;
+    }
+    return Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / limiter.getRate()));
+  }
+
+  /** @return the request with a maxlag parameter, if it is an api request */
+  String withMaxlag(String request) {
+    if (maxlagSeconds <= 0 || !request.contains("api.php") || request.contains("maxlag=")) {
+      return request;
+    }
+    final String separator;
+    if (request.contains("?")) {
+      separator = "&";
+    } else {
+      separator = "?";
+    }
+    return request + separator + "maxlag=" + maxlagSeconds;
+  }
+
+  /** @return true if the server asks to retry the request later */
+  static boolean isThrottled(HttpResponse res) {
+    int code = res.getStatusLine().getStatusCode();
+    return code == HttpStatus.SC_SERVICE_UNAVAILABLE
+        || code == 429
+        || res.containsHeader(DATABASE_LAG);
+  }
+
+  int getMaxRetries() {
+    return maxRetries;
+  }
+
+  void onSuccess() {
+    double rate = limiter.getRate();
+    if (rate < maxRate) {
+      limiter.setRate(Math.min(maxRate, rate * rampUpFactor));
+    }
+  }
+
+  /**
+   * Lowers the rate and pauses all requests.
+   *
+   * @param attempt starts with 1 for the first throttled response of a request
+   */
+  void onThrottled(HttpResponse res, int attempt) {
+    limiter.setRate(Math.max(minRate, limiter.getRate() / 2));
+    long pauseMillis = pauseMillis(retryAfterMillis(res), attempt);
+    long until = ticker.read() + TimeUnit.MILLISECONDS.toNanos(pauseMillis);
+    long current = pausedUntilNanos.get();
+    while (until > current && !pausedUntilNanos.compareAndSet(current, until)) {
+      current = pausedUntilNanos.get();
+    }
+    log.info(
+        "server is busy ({}); pause {}ms and continue with {} requests per second",
+        res.getStatusLine(),
+        pauseMillis,
+        limiter.getRate());
+  }
+
+  @VisibleForTesting
+  long pauseMillis(Optional<Long> retryAfterMillis, int attempt) {
+    long base = retryAfterMillis.or(defaultBackoffMillis << Math.min(attempt - 1, 10));
+    long jitter = (long) (base * 0.25 * random.nextDouble());
+    return base + jitter;
+  }
+
+  @VisibleForTesting
+  static Optional<Long> retryAfterMillis(HttpResponse res) {
+    Header header = res.getFirstHeader("Retry-After");
+    if (header == null) {
+      return Optional.absent();
+    }
+    String value = header.getValue().trim();
+    Long seconds = Longs.tryParse(value);
+    if (seconds != null) {
+      return Optional.of(TimeUnit.SECONDS.toMillis(Math.max(0, seconds)));
+    }
+    Date date = DateUtils.parseDate(value);
+    if (date != null) {
+      return Optional.of(Math.max(0, date.getTime() - System.currentTimeMillis()));
+    }
+    return Optional.absent();
+  }
+
+  /** @return requests per second */
+  public double getRate() {
+    return limiter.getRate();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private double minRate = 0.1;
+    private double maxRate = 10;
+    private double rampUpFactor = 1.1;
+    private int maxlagSeconds = 5;
+    private int maxRetries = 5;
+    private long defaultBackoffMillis = TimeUnit.SECONDS.toMillis(5);
+
+    /** @param maxRate requests per second; defaults to 10 */
+    public Builder withMaxRate(double maxRate) {
+      Preconditions.checkArgument(maxRate > 0, "maxRate must be positive");
+      this.maxRate = maxRate;
+      this.minRate = Math.min(minRate, maxRate);
+      return this;
+    }
+
+    /** @param minRate requests per second, the rate is never lowered below; defaults to 0.1 */
+    public Builder withMinRate(double minRate) {
+      Preconditions.checkArgument(minRate > 0, "minRate must be positive");
+      this.minRate = minRate;
+      this.maxRate = Math.max(minRate, maxRate);
+      return this;
+    }
+
+    /** @param rampUpFactor the rate is multiplied with after each success; defaults to 1.1 */
+    public Builder withRampUpFactor(double rampUpFactor) {
+      Preconditions.checkArgument(rampUpFactor >= 1, "rampUpFactor must not be lower than 1");
+      this.rampUpFactor = rampUpFactor;
+      return this;
+    }
+
+    /** @param maxlagSeconds appended to api requests; defaults to 5, 0 disables it */
+    public Builder withMaxlag(int maxlagSeconds) {
+      Preconditions.checkArgument(maxlagSeconds >= 0, "maxlag must not be negative");
+      this.maxlagSeconds = maxlagSeconds;
+      return this;
+    }
+
+    /** @param maxRetries of one request, if the server is busy; defaults to 5 */
+    public Builder withMaxRetries(int maxRetries) {
+      Preconditions.checkArgument(maxRetries >= 0, "maxRetries must not be negative");
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    /** Pause if the server sends no Retry-After; doubled for each retry; defaults to 5s. */
+    public Builder withDefaultBackoff(long duration, TimeUnit unit) {
+      Preconditions.checkArgument(duration >= 0, "duration must not be negative");
+      this.defaultBackoffMillis = Checked.nonNull(unit, "unit").toMillis(duration);
+      return this;
+    }
+
+    public AdaptiveThrottle build() {
+      return new AdaptiveThrottle(this, Ticker.systemTicker(), new Random());
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.IOException;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import com.google.common.annotations.Beta;
+
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/** The default {@link HttpTransport}, backed by an Apache {@link HttpClient}. */
+@Beta
+public class ApacheTransport implements HttpTransport {
+
+  private final HttpClient client;
+
+  public ApacheTransport(HttpClient client) {
+    this.client = Checked.nonNull(client, "client");
+  }
+
+  @Override
+  public HttpResponse execute(HttpUriRequest request) throws IOException {
+    return client.execute(request);
+  }
+
+  @Override
+  public String toString() {
+    return "ApacheTransport " + client;
+  }
+}
@@ -0,0 +1,24 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * A {@link HttpTransport}, that sends requests without blocking a thread until the response
+ * arrives.
+ *
+ * @see Http2Transport
+ */
+@Beta
+public interface AsyncHttpTransport extends HttpTransport {
+
+  /**
+   * @return a future of the response, which fails with an {@link java.io.IOException} if the
+   *     request could not be sent; its entity must not be decoded
+   */
+  CompletableFuture<HttpResponse> executeAsync(HttpUriRequest request);
+}
@@ -0,0 +1,93 @@
+package net.sourceforge.jwbf.core.actions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Ticker;
+
+/**
+ * Fails fast while a host is down. After a number of consecutive failures the breaker opens and
+ * rejects all requests; after a while one trial request is allowed (half open). Its success closes
+ * the breaker, its failure opens it again.
+ */
+@Beta
+public class CircuitBreaker {
+
+  private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  interface StateListener {
+    void stateChanged(String host, State from, State to);
+  }
+
+  private final String host;
+  private final int failureThreshold;
+  private final long openNanos;
+  private final Ticker ticker;
+  private final StateListener listener;
+
+  private State state = State.CLOSED;
+  private int failures = 0;
+  private long openedAt = 0;
+  private boolean trialInFlight = false;
+
+  CircuitBreaker(
+      String host, int failureThreshold, long openNanos, Ticker ticker, StateListener listener) {
+    this.host = host;
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openNanos;
+    this.ticker = ticker;
+    this.listener = listener;
+  }
+
+  /** @return false if the request must not be sent */
+  synchronized boolean allowRequest() {
+    if (state == State.OPEN) {
+      if (ticker.read() - openedAt < openNanos) {
+        return false;
+      }
+      transition(State.HALF_OPEN);
+    }
+    if (state == State.HALF_OPEN) {
+      if (trialInFlight) {
+        return false;
+      }
+      trialInFlight = true;
+    }
+    return true;
+  }
+
+  synchronized void onSuccess() {
+    failures = 0;
+    trialInFlight = false;
+    if (state != State.CLOSED) {
+      transition(State.CLOSED);
+    }
+  }
+
+  synchronized void onFailure() {
+    failures++;
+    trialInFlight = false;
+    if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+      openedAt = ticker.read();
+      transition(State.OPEN);
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  private void transition(State to) {
+    State from = state;
+    state = to;
+    log.warn("circuit breaker for {} changed from {} to {}", host, from, to);
+    listener.stateChanged(host, from, to);
+  }
+}
@@ -0,0 +1,177 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * A pool of http connections. One pool can be shared by many {@link HttpActionClient}s, e.g. for
+ * bots working on different wikis of a farm.
+ *
+ * <pre>
+ * ConnectionPool pool = ConnectionPool.builder().withMaxTotal(40).build();
+ * HttpActionClient a = HttpActionClient.builder().withUrl(urlA).withConnectionPool(pool).build();
+ * HttpActionClient b = HttpActionClient.builder().withUrl(urlB).withConnectionPool(pool).build();
+ * </pre>
+ */
+@Beta
+public class ConnectionPool implements Closeable {
+
+  private static final ScheduledExecutorService EVICTOR =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder() //
+              .setDaemon(true) //
+              .setNameFormat("jwbf-connection-evictor-%d") //
+              .build());
+
+  private final PoolingHttpClientConnectionManager manager;
+  private final ScheduledFuture<?> eviction;
+
+  ConnectionPool(Builder builder) {
+    manager =
+        new PoolingHttpClientConnectionManager(builder.timeToLiveMillis, TimeUnit.MILLISECONDS);
+    manager.setMaxTotal(builder.maxTotal);
+    manager.setDefaultMaxPerRoute(builder.maxPerRoute);
+    manager.setValidateAfterInactivity(builder.validateAfterInactivityMillis);
+    if (builder.maxIdleMillis > 0) {
+      eviction = Eviction.schedule(manager, builder.maxIdleMillis);
+    } else {
+      eviction = null;
+    }
+  }
+
+  HttpClientConnectionManager getManager() {
+    return manager;
+  }
+
+  @VisibleForTesting
+  int getMaxTotal() {
+    return manager.getMaxTotal();
+  }
+
+  int getMaxPerRoute() {
+    return manager.getDefaultMaxPerRoute();
+  }
+
+  @VisibleForTesting
+  boolean isEvicting() {
+    return eviction != null && !eviction.isDone();
+  }
+
+  /** Closes all connections of this pool; clients using it can not perform any further request. */
+  @Override
+  public void close() {
+    if (eviction != null) {
+      eviction.cancel(false);
+    }
+    manager.shutdown();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private int maxTotal = 20;
+    private int maxPerRoute = 5;
+    private long timeToLiveMillis = -1;
+    private long maxIdleMillis = TimeUnit.SECONDS.toMillis(30);
+    private int validateAfterInactivityMillis = 2000;
+
+    /** @param maxTotal of open connections to all hosts; defaults to 20 */
+    public Builder withMaxTotal(int maxTotal) {
+      Preconditions.checkArgument(maxTotal > 0, "maxTotal must be positive");
+      this.maxTotal = maxTotal;
+      return this;
+    }
+
+    /** @param maxPerRoute of open connections to one host; defaults to 5 */
+    public Builder withMaxPerRoute(int maxPerRoute) {
+      Preconditions.checkArgument(maxPerRoute > 0, "maxPerRoute must be positive");
+      this.maxPerRoute = maxPerRoute;
+      return this;
+    }
+
+    /** Connections are never reused when they are older than the given time; default is forever. */
+    public Builder withTimeToLive(long duration, TimeUnit unit) {
+      this.timeToLiveMillis = toMillis(duration, unit);
+      return this;
+    }
+
+    /** Connections idle for longer than the given time are closed; defaults to 30 seconds. */
+    public Builder withMaxIdleTime(long duration, TimeUnit unit) {
+      this.maxIdleMillis = toMillis(duration, unit);
+      return this;
+    }
+
+    /** Turns off the closing of idle connections. */
+    public Builder withoutIdleEviction() {
+      this.maxIdleMillis = 0;
+      return this;
+    }
+
+    /** Connections idle for longer than the given time are checked before reuse; default 2s. */
+    public Builder withValidateAfterInactivity(long duration, TimeUnit unit) {
+      this.validateAfterInactivityMillis = (int) toMillis(duration, unit);
+      return this;
+    }
+
+    public ConnectionPool build() {
+      return new ConnectionPool(this);
+    }
+
+    private static long toMillis(long duration, TimeUnit unit) {
+      Preconditions.checkArgument(duration > 0, "duration must be positive");
+      return Checked.nonNull(unit, "unit").toMillis(duration);
+    }
+  }
+
+  /**
+   * Closes expired and idle connections. A pool that is no longer referenced by any client stops
+   * its eviction, because only a weak reference is kept.
+   */
+  private static class Eviction implements Runnable {
+
+    private final WeakReference<PoolingHttpClientConnectionManager> managerRef;
+    private final long maxIdleMillis;
+    private volatile ScheduledFuture<?> future;
+
+    private Eviction(PoolingHttpClientConnectionManager manager, long maxIdleMillis) {
+      this.managerRef = new WeakReference<>(manager);
+      this.maxIdleMillis = maxIdleMillis;
+    }
+
+    static ScheduledFuture<?> schedule(PoolingHttpClientConnectionManager manager, long maxIdle) {
+      Eviction eviction = new Eviction(manager, maxIdle);
+      long period = Math.max(maxIdle / 2, 100);
+      eviction.future =
+          EVICTOR.scheduleWithFixedDelay(eviction, period, period, TimeUnit.MILLISECONDS);
+      return eviction.future;
+    }
+
+    @Override
+    public void run() {
+      PoolingHttpClientConnectionManager manager = managerRef.get();
+      if (manager == null) {
+        future.cancel(false);
+      } else {
+        manager.closeExpiredConnections();
+        manager.closeIdleConnections(maxIdleMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+}
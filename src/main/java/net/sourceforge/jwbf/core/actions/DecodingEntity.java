@@ -0,0 +1,83 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.entity.DeflateInputStream;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import com.google.common.io.CountingInputStream;
+
+/**
+ * Decodes a gzip or deflate encoded entity while it is read and counts the bytes before and after
+ * decoding.
+ */
+class DecodingEntity extends HttpEntityWrapper {
+
+  private CountingInputStream wire;
+  private CountingInputStream decoded;
+
+  DecodingEntity(HttpEntity wrappedEntity) {
+    super(wrappedEntity);
+  }
+
+  /** @return always the same stream, so it can be closed after it was read */
+  @Override
+  public InputStream getContent() throws IOException {
+    if (decoded == null) {
+      wire = new CountingInputStream(wrappedEntity.getContent());
+      decoded = new CountingInputStream(decode(wire));
+    }
+    return decoded;
+  }
+
+  private InputStream decode(InputStream in) throws IOException {
+    String encoding = encodingOf(wrappedEntity.getContentEncoding());
+    if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+      return new GZIPInputStream(in);
+    } else if (encoding.equals("deflate")) {
+      return new DeflateInputStream(in);
+    } else if (encoding.isEmpty() || encoding.equals("identity")) {
+      return in;
+    } else {
+      throw new IllegalStateException("unsupported content encoding: " + encoding);
+    }
+  }
+
+  private static String encodingOf(Header header) {
+    if (header == null) {
+      return "";
+    }
+    return header.getValue().trim().toLowerCase(Locale.ROOT);
+  }
+
+  @Override
+  public Header getContentEncoding() {
+    return null;
+  }
+
+  @Override
+  public long getContentLength() {
+    return -1;
+  }
+
+  /** @return number of bytes read from the connection */
+  long getWireBytes() {
+    if (wire == null) {
+      return 0;
+    }
+    return wire.getCount();
+  }
+
+  /** @return number of bytes after decoding */
+  long getDecodedBytes() {
+    if (decoded == null) {
+      return 0;
+    }
+    return decoded.getCount();
+  }
+}
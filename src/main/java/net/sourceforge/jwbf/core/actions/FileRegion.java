@@ -0,0 +1,63 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.File;
+import java.util.Objects;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Preconditions;
+
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * A part of a file, e.g. one chunk of a large upload. As a post parameter it is sent like a {@link
+ * File}, but only the given bytes are read, with a small buffer, while the request is written.
+ */
+@Beta
+public class FileRegion {
+
+  private final File file;
+  private final long offset;
+  private final long length;
+
+  public FileRegion(File file, long offset, long length) {
+    this.file = Checked.nonNull(file, "file");
+    Preconditions.checkArgument(offset >= 0, "offset must not be negative");
+    Preconditions.checkArgument(length >= 0, "length must not be negative");
+    this.offset = offset;
+    this.length = length;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  public long getLength() {
+    return length;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(file, offset, length);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof FileRegion) {
+      FileRegion that = (FileRegion) obj;
+      return Objects.equals(this.file, that.file)
+          && this.offset == that.offset
+          && this.length == that.length;
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return file + "[" + offset + "+" + length + "]";
+  }
+}
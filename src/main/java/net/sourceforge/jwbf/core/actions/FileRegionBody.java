@@ -0,0 +1,59 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+/** Writes a {@link FileRegion} with a bounded buffer, so chunks of any size keep memory flat. */
+class FileRegionBody extends AbstractContentBody {
+
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  private final FileRegion region;
+
+  FileRegionBody(FileRegion region) {
+    super(ContentType.DEFAULT_BINARY);
+    this.region = region;
+  }
+
+  @Override
+  public String getFilename() {
+    return region.getFile().getName();
+  }
+
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(region.getFile().toPath(), StandardOpenOption.READ)) {
+      long position = region.getOffset();
+      long end = position + region.getLength();
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, region.getLength()));
+      while (position < end) {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), end - position));
+        int read = channel.read(buffer, position);
+        if (read < 0) {
+          throw new IOException("unexpected end of " + region);
+        }
+        out.write(buffer.array(), 0, read);
+        position += read;
+      }
+    }
+  }
+
+  @Override
+  public String getTransferEncoding() {
+    return MIME.ENC_BINARY;
+  }
+
+  @Override
+  public long getContentLength() {
+    return region.getLength();
+  }
+}
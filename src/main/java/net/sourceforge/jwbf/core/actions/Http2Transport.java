@@ -0,0 +1,116 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+
+import net.sourceforge.jwbf.JWBF;
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * Builds a transport, that multiplexes all requests to a host over one HTTP/2 connection. So
+ * concurrent requests share one TLS handshake and are not limited by the connections per client,
+ * that a server accepts. Servers without HTTP/2 are requested with HTTP/1.1. Requests in flight
+ * hold no thread, see {@link AsyncHttpTransport}.
+ *
+ * <p>The transport is backed by the {@code java.net.http} client of Java 11 or higher; it is
+ * compiled separately and loaded only if {@link #isAvailable()}. Cookies are kept by the
+ * transport, so a login is shared by all clients of one transport. Form bodies are sent from
+ * memory; other request bodies, like multipart posts and uploads, are streamed by a small shared
+ * pool of daemon threads.
+ */
+@Beta
+public final class Http2Transport {
+
+  private static final String IMPLEMENTATION =
+      "net.sourceforge.jwbf.core.actions.JavaNetHttpTransport";
+
+  private Http2Transport() {
+    // do nothing
+  }
+
+  /** @return true if the runtime is Java 11 or higher and the implementation is present */
+  public static boolean isAvailable() {
+    try {
+      Class.forName("java.net.http.HttpClient");
+      Class.forName(IMPLEMENTATION);
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private long connectTimeoutMillis = TimeUnit.SECONDS.toMillis(10);
+    private long requestTimeoutMillis = TimeUnit.SECONDS.toMillis(60);
+    private boolean compression = true;
+    private String userAgent = "JWBF/" + JWBF.getVersion(Http2Transport.class);
+
+    /** Time to establish a connection; defaults to 10 seconds. */
+    public Builder withConnectTimeout(long duration, TimeUnit unit) {
+      this.connectTimeoutMillis = toMillis(duration, unit);
+      return this;
+    }
+
+    /** Max time until the headers of a response arrive; defaults to 60 seconds. */
+    public Builder withRequestTimeout(long duration, TimeUnit unit) {
+      this.requestTimeoutMillis = toMillis(duration, unit);
+      return this;
+    }
+
+    /** @see HttpActionClient.Builder#withCompression(boolean) */
+    public Builder withCompression(boolean compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    public Builder withUserAgent(String userAgent) {
+      Preconditions.checkArgument(
+          !Strings.isNullOrEmpty(Checked.nonNull(userAgent, "userAgent")),
+          "userAgent must not be empty");
+      this.userAgent = userAgent;
+      return this;
+    }
+
+    long getConnectTimeoutMillis() {
+      return connectTimeoutMillis;
+    }
+
+    long getRequestTimeoutMillis() {
+      return requestTimeoutMillis;
+    }
+
+    boolean isCompression() {
+      return compression;
+    }
+
+    String getUserAgent() {
+      return userAgent;
+    }
+
+    /** @throws IllegalStateException if the transport is not {@link #isAvailable() available} */
+    public AsyncHttpTransport build() {
+      if (!isAvailable()) {
+        throw new IllegalStateException("the HTTP/2 transport requires Java 11 or higher");
+      }
+      try {
+        return (AsyncHttpTransport)
+            Class.forName(IMPLEMENTATION).getDeclaredConstructor(Builder.class).newInstance(this);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private static long toMillis(long duration, TimeUnit unit) {
+      Preconditions.checkArgument(duration > 0, "duration must be positive");
+      return Checked.nonNull(unit, "unit").toMillis(duration);
+    }
+  }
+}
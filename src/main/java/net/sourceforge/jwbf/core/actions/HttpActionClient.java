@@ -24,29 +24,49 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 
 import javax.annotation.Nonnull;
 
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.NameValuePair;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.RequestAcceptEncoding;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.VersionInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,13 +76,14 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicates;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.io.CharStreams;
-import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import net.sourceforge.jwbf.JWBF;
 import net.sourceforge.jwbf.core.Transform;
@@ -79,16 +100,63 @@ public class HttpActionClient {
 
   private static final Logger log = LoggerFactory.getLogger(HttpActionClient.class);
 
-  private final HttpClient client;
+  /**
+   * Threads of the default executor of clients with a custom transport, whose connection limit is
+   * not known; like the max connections per route of the default {@link ConnectionPool}. Clients
+   * with a pool of this library get an executor with as many threads as connections per route,
+   * because a client requests one host and more blocked requests would only wait for a connection.
+   * Default executors are shared by all clients with the same number of threads, so short lived
+   * clients never leave executors behind.
+   */
+  @VisibleForTesting static final int DEFAULT_ASYNC_THREADS = 5;
+
+  /** Max connections per route of the pool of an {@link HttpClientBuilder} without settings. */
+  @VisibleForTesting static final int APACHE_DEFAULT_MAX_PER_ROUTE = 2;
+
+  /**
+   * Max chars of all texts of a form encoded post. Percent encoding enlarges markup and non ascii
+   * chars up to three times and is slower than copying them; so longer texts are written as
+   * multipart, like the api documentation recommends.
+   */
+  @VisibleForTesting static final int FORM_MAX_CHARS = 1024;
+
+  private static final Map<Integer, ThreadPoolExecutor> DEFAULT_EXECUTORS = new HashMap<>();
+
+  @VisibleForTesting
+  static final ThreadPoolExecutor DEFAULT_EXECUTOR = defaultExecutor(DEFAULT_ASYNC_THREADS);
+
+  /** Delays retries and throttled requests of an {@link AsyncHttpTransport} without a thread. */
+  private static final ScheduledThreadPoolExecutor SCHEDULER = newScheduler();
+
+  private final HttpTransport transport;
 
   private final String path;
 
   private final HttpHost host;
 
-  private final Optional<RateLimiter> rateLimiter;
+  private final Optional<AdaptiveThrottle> throttle;
+
+  private final RetryPolicy retryPolicy;
+
+  private final Optional<ResponseCache> cache;
 
   private final URL url;
 
+  private final Executor executor;
+
+  private final TrafficCounter trafficCounter = new TrafficCounter();
+
+  private final SessionCookies sessionCookies = new SessionCookies();
+
+  private final Function<HttpRequestBase, HttpResponse> sendFunction =
+      new NonnullFunction<HttpRequestBase, HttpResponse>() {
+        @Nonnull
+        @Override
+        protected HttpResponse applyNonnull(@Nonnull HttpRequestBase input) {
+          return send(input);
+        }
+      };
+
   public HttpActionClient(final URL url) {
     this(HttpClientBuilder.create(), url);
   }
@@ -98,17 +166,68 @@ public class HttpActionClient {
     this.url = url;
     path = pathOf(url);
     host = newHost(url);
-    rateLimiter = Optional.absent();
-    this.client = clientBuilder.build();
+    throttle = Optional.absent();
+    retryPolicy = RetryPolicy.none();
+    cache = Optional.absent();
+    executor = defaultExecutor(APACHE_DEFAULT_MAX_PER_ROUTE);
+    this.transport = new ApacheTransport(clientBuilder.build());
   }
 
   public HttpActionClient(Builder builder) {
+    this(builder, builder.executor.or(DEFAULT_EXECUTOR));
+  }
+
+  private HttpActionClient(Builder builder, Executor executor) {
     this.url = Checked.nonNull(builder.url, "url");
     host = newHost(builder.url);
     path = pathOf(builder.url);
-    rateLimiter = builder.rateLimiter;
+    throttle = builder.throttle;
+    retryPolicy = builder.retryPolicy;
+    cache = builder.cache;
+    this.executor = executor;
 
-    this.client = builder.client;
+    this.transport = builder.transport;
+  }
+
+  /** @return the shared default executor with the given number of threads */
+  @VisibleForTesting
+  static synchronized ThreadPoolExecutor defaultExecutor(int threads) {
+    ThreadPoolExecutor executor = DEFAULT_EXECUTORS.get(threads);
+    if (executor == null) {
+      executor = newDefaultExecutor(threads);
+      DEFAULT_EXECUTORS.put(threads, executor);
+    }
+    return executor;
+  }
+
+  private static ThreadPoolExecutor newDefaultExecutor(int threads) {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactoryBuilder() //
+                .setDaemon(true) //
+                .setNameFormat("jwbf-http-%d") //
+                .build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private static ScheduledThreadPoolExecutor newScheduler() {
+    ScheduledThreadPoolExecutor scheduler =
+        new ScheduledThreadPoolExecutor(
+            1,
+            new ThreadFactoryBuilder() //
+                .setDaemon(true) //
+                .setNameFormat("jwbf-scheduler-%d") //
+                .build());
+    scheduler.setKeepAliveTime(60, TimeUnit.SECONDS);
+    scheduler.allowCoreThreadTimeOut(true);
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
   }
 
   private HttpHost newHost(final URL url) {
@@ -124,9 +243,14 @@ public class HttpActionClient {
     }
   }
 
-  /** @return message, never null */
+  /**
+   * Performs all messages of the given action in the calling thread. This client holds no lock,
+   * so many threads can perform their own actions at the same time.
+   *
+   * @return message, never null
+   */
   @Nonnull
-  public synchronized String performAction(ContentProcessable contentProcessable) {
+  public String performAction(ContentProcessable contentProcessable) {
     String out = "";
     while (contentProcessable.hasMoreMessages()) {
       HttpAction httpAction = contentProcessable.getNextMessage();
@@ -136,8 +260,88 @@ public class HttpActionClient {
     return out;
   }
 
+  /**
+   * Performs all messages of the given action without blocking the calling thread. The response of
+   * each message is processed when it arrives; only then the next message is requested from the
+   * action, so the state of the action is never touched by two threads at once.
+   *
+   * <p>A blocking transport holds a thread of the executor per request in flight; so the executor
+   * bounds the number of concurrent requests, by default to the max connections per route of the
+   * pool. Further actions wait in its queue. An {@link AsyncHttpTransport} holds no thread while a
+   * request is in flight, waits for retries and for the throttle on a timer, and uses the executor
+   * only to process the responses. Cached GET requests are performed on the executor like with a
+   * blocking transport.
+   *
+   * @return a future of the processed text of the last message
+   */
   @Beta
-  public synchronized void performAction(ActionHandler actionHandler) {
+  @Nonnull
+  public CompletableFuture<String> performActionAsync(ContentProcessable contentProcessable) {
+    CompletableFuture<String> result = new CompletableFuture<>();
+    performNextAsync(contentProcessable, result, "");
+    return result;
+  }
+
+  private void performNextAsync(
+      final ContentProcessable contentProcessable,
+      final CompletableFuture<String> result,
+      String out) {
+    try {
+      if (contentProcessable.hasMoreMessages()) {
+        final HttpAction httpAction = contentProcessable.getNextMessage();
+        if (transport instanceof AsyncHttpTransport
+            && !(cache.isPresent() && httpAction instanceof Get)) {
+          sendAndProcessAsync(httpAction, contentProcessable, result);
+          return;
+        }
+        executor.execute(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  String answer = processAction(httpAction, contentProcessable);
+                  performNextAsync(contentProcessable, result, answer);
+                } catch (RuntimeException e) {
+                  result.completeExceptionally(e);
+                }
+              }
+            });
+      } else {
+        result.complete(out);
+      }
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  private void sendAndProcessAsync(
+      final HttpAction httpAction,
+      final ContentProcessable contentProcessable,
+      final CompletableFuture<String> result) {
+    sendAsync(newRequest(httpAction), 0)
+        .thenApplyAsync(
+            new java.util.function.Function<HttpResponse, String>() {
+              @Override
+              public String apply(HttpResponse res) {
+                return process(res, contentProcessable, httpAction);
+              }
+            },
+            executor)
+        .whenComplete(
+            new BiConsumer<String, Throwable>() {
+              @Override
+              public void accept(String answer, Throwable failure) {
+                if (failure != null) {
+                  result.completeExceptionally(unwrap(failure));
+                } else {
+                  performNextAsync(contentProcessable, result, answer);
+                }
+              }
+            });
+  }
+
+  @Beta
+  public void performAction(ActionHandler actionHandler) {
     while (actionHandler.hasMoreActions()) {
       HttpAction httpAction = actionHandler.popAction();
       processAction(httpAction, new ResponseHandler(actionHandler));
@@ -146,21 +350,35 @@ public class HttpActionClient {
 
   @VisibleForTesting
   protected String processAction(HttpAction httpAction, ReturningTextProcessor answerParser) {
+    HttpRequestBase httpRequest = newRequest(httpAction);
+    if (httpAction instanceof Get) {
+      return get(httpRequest, answerParser, httpAction);
+    }
+    return executeAndProcess(httpRequest, answerParser, httpAction);
+  }
+
+  private HttpRequestBase newRequest(HttpAction httpAction) {
     final String requestString = makeRequestString(httpAction);
     log.debug(requestString);
-    URI uri = JWBF.toUri(host.toURI() + requestString);
+    URI uri = JWBF.toUri(host.toURI() + withMaxlag(requestString));
     if (httpAction instanceof Get) {
-      HttpRequestBase httpRequest = new HttpGet(uri);
-
-      return get(httpRequest, answerParser, httpAction);
+      return new HttpGet(uri);
     } else if (httpAction instanceof Post) {
-      HttpRequestBase httpRequest = new HttpPost(uri);
-
-      return post(httpRequest, answerParser, httpAction);
+      Post post = (Post) httpAction;
+      HttpPost httpRequest = new HttpPost(uri);
+      httpRequest.setEntity(newEntity(post.getParams(), Charset.forName(post.getCharset())));
+      return httpRequest;
     }
     throw new IllegalArgumentException("httpAction should be GET or POST");
   }
 
+  private String withMaxlag(String requestString) {
+    if (throttle.isPresent()) {
+      return throttle.get().withMaxlag(requestString);
+    }
+    return requestString;
+  }
+
   private String makeRequestString(HttpAction httpAction) {
     final String requestString;
     if (path.length() > 1) {
@@ -183,14 +401,56 @@ public class HttpActionClient {
       HttpAction ha) {
     Post post = (Post) ha;
     Charset charset = Charset.forName(post.getCharset());
+    ((HttpPost) requestBase).setEntity(newEntity(post.getParams(), charset));
+
+    return executeAndProcess(requestBase, contentProcessable, ha);
+  }
+
+  /**
+   * @return a form encoded entity, which is smaller and cheaper to build for short texts, or a
+   *     multipart entity if a file is uploaded or the texts exceed {@value #FORM_MAX_CHARS} chars
+   */
+  @VisibleForTesting
+  HttpEntity newEntity(ImmutableMultimap<String, Object> postParams, Charset charset) {
+    if (isFormEncodable(postParams.values())) {
+      return newFormEntity(postParams, charset);
+    }
+    return newMultipartEntity(postParams, charset);
+  }
+
+  private static boolean isFormEncodable(Collection<Object> values) {
+    long chars = 0;
+    for (Object value : values) {
+      if (value instanceof File || value instanceof FileRegion) {
+        return false;
+      } else if (value instanceof String) {
+        chars += ((String) value).length();
+      }
+    }
+    return chars <= FORM_MAX_CHARS;
+  }
+
+  @VisibleForTesting
+  HttpEntity newMultipartEntity(ImmutableMultimap<String, Object> postParams, Charset charset) {
     MultipartEntityBuilder entityBuilder = MultipartEntityBuilder.create();
-    ImmutableMultimap<String, Object> postParams = post.getParams();
     for (Map.Entry<String, Collection<Object>> entry : postParams.asMap().entrySet()) {
       applyToEntityBuilder(entry.getKey(), entry.getValue(), charset, entityBuilder);
     }
-    ((HttpPost) requestBase).setEntity(entityBuilder.build());
+    return entityBuilder.build();
+  }
 
-    return executeAndProcess(requestBase, contentProcessable, ha);
+  @VisibleForTesting
+  HttpEntity newFormEntity(ImmutableMultimap<String, Object> postParams, Charset charset) {
+    List<NameValuePair> pairs = new ArrayList<>(postParams.size());
+    for (Map.Entry<String, Object> entry : postParams.entries()) {
+      Object content = entry.getValue();
+      if (content instanceof String) {
+        pairs.add(new BasicNameValuePair(entry.getKey(), (String) content));
+      } else if (content != null) {
+        throw unsupported(content);
+      }
+    }
+    return new UrlEncodedFormEntity(pairs, charset);
   }
 
   @VisibleForTesting
@@ -206,17 +466,23 @@ public class HttpActionClient {
       } else if (content instanceof File) {
         File file = (File) content;
         entityBuilder.addBinaryBody(key, file);
+      } else if (content instanceof FileRegion) {
+        entityBuilder.addPart(key, new FileRegionBody((FileRegion) content));
       } else {
-        String canonicalName = content.getClass().getCanonicalName();
-        throw new UnsupportedOperationException(
-            "No Handler found for "
-                + canonicalName
-                + ". Only String or File is accepted, "
-                + "because http parameters knows no other types.");
+        throw unsupported(content);
       }
     }
   }
 
+  private static UnsupportedOperationException unsupported(Object content) {
+    String canonicalName = content.getClass().getCanonicalName();
+    return new UnsupportedOperationException(
+        "No Handler found for "
+            + canonicalName
+            + ". Only String, File or FileRegion is accepted, "
+            + "because http parameters knows no other types.");
+  }
+
   @Nonnull
   public String get(Get get) {
     return get(new HttpGet(get.getRequest()), null, get);
@@ -246,17 +512,51 @@ public class HttpActionClient {
             + //
             "\n\t queryPath: {}",
         debug(requestBase, ha, cp));
-    HttpResponse res = execute(requestBase);
+    return process(execute(requestBase), cp, ha);
+  }
 
-    final String out = writeToString(ha, res);
+  private String process(HttpResponse res, ReturningTextProcessor cp, HttpAction ha) {
+    DecodingEntity entity = new DecodingEntity(res.getEntity());
+    res.setEntity(entity);
     try {
-      if (cp != null) {
-        return cp.processReturningText(out, ha);
-      } else {
-        return out;
+      if (cp instanceof ReturningStreamProcessor) {
+        return processStream(ha, res, (ReturningStreamProcessor) cp);
+      }
+
+      final String out = writeToString(ha, res);
+      try {
+        if (cp != null) {
+          return cp.processReturningText(out, ha);
+        } else {
+          return out;
+        }
+      } finally {
+        consume(res);
       }
     } finally {
-      consume(res);
+      count(entity, cp, ha);
+    }
+  }
+
+  private void count(DecodingEntity entity, ReturningTextProcessor cp, HttpAction ha) {
+    Class<?> actionClass = ha.getClass();
+    if (cp != null) {
+      actionClass = cp.getClass();
+    }
+    long compressed = entity.getWireBytes();
+    long uncompressed = entity.getDecodedBytes();
+    log.debug("{} received {} bytes, {} uncompressed", actionClass, compressed, uncompressed);
+    trafficCounter.add(actionClass, compressed, uncompressed);
+  }
+
+  @VisibleForTesting
+  String processStream(HttpAction ha, HttpResponse res, ReturningStreamProcessor processor) {
+    Charset charSet = Charset.forName(ha.getCharset());
+    try (InputStream content = res.getEntity().getContent();
+        Reader reader = new BufferedReader(new InputStreamReader(content, charSet))) {
+      return processor.processReturningStream(reader, ha);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
     }
   }
 
@@ -281,15 +581,227 @@ public class HttpActionClient {
 
   @VisibleForTesting
   HttpResponse execute(HttpRequestBase requestBase) {
-    if (rateLimiter.isPresent()) {
-      rateLimiter.get().acquire();
+    if (cache.isPresent() && requestBase.getMethod().equals(HttpGet.METHOD_NAME)) {
+      return cache.get().execute(requestBase, sessionCookies.key(), sendFunction);
     }
-    HttpResponse res;
-    try {
-      res = client.execute(requestBase);
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
+    return send(requestBase);
+  }
+
+  /**
+   * Each attempt asks the retry policy once and always reports its outcome, so a half open
+   * circuit breaker is closed or opened again. A throttled response comes from a live host and
+   * counts as success for the breaker.
+   */
+  private HttpResponse send(HttpRequestBase requestBase) {
+    String hostKey = host.toHostString();
+    int failed = 0;
+    while (true) {
+      if (!retryPolicy.allowRequest(hostKey)) {
+        throw new IllegalStateException(
+            "circuit breaker is open for " + hostKey + "; for " + requestBase.getURI());
+      }
+      HttpResponse res;
+      try {
+        res = executeThrottled(requestBase);
+        sessionCookies.update(res);
+      } catch (IOException e) {
+        failed++;
+        if (retryPolicy.retryAfter(hostKey, requestBase, e, failed)) {
+          continue;
+        }
+        throw new IllegalStateException(e);
+      } catch (RuntimeException e) {
+        retryPolicy.onFailure(hostKey);
+        throw e;
+      }
+      if (throttle.isPresent() && AdaptiveThrottle.isThrottled(res)) {
+        retryPolicy.onSuccess(hostKey);
+        return checkStatus(requestBase, res);
+      }
+      int code = res.getStatusLine().getStatusCode();
+      if (retryPolicy.isRetryStatus(code)) {
+        failed++;
+        if (retryPolicy.retryAfter(hostKey, requestBase, code, failed)) {
+          consume(res);
+          continue;
+        }
+        return checkStatus(requestBase, res);
+      }
+      retryPolicy.onSuccess(hostKey);
+      if (throttle.isPresent()) {
+        throttle.get().onSuccess();
+      }
+      return checkStatus(requestBase, res);
+    }
+  }
+
+  /**
+   * Like {@link #send(HttpRequestBase)} on an {@link AsyncHttpTransport}; pauses are waited on
+   * the scheduler, so no thread is blocked.
+   *
+   * @param failed attempts of this request so far
+   */
+  private CompletableFuture<HttpResponse> sendAsync(
+      final HttpRequestBase requestBase, final int failed) {
+    final String hostKey = host.toHostString();
+    if (!retryPolicy.allowRequest(hostKey)) {
+      return failedFuture(
+          new IllegalStateException(
+              "circuit breaker is open for " + hostKey + "; for " + requestBase.getURI()));
+    }
+    return executeThrottledAsync(requestBase, 0)
+        .handle(
+            new BiFunction<HttpResponse, Throwable, CompletableFuture<HttpResponse>>() {
+              @Override
+              public CompletableFuture<HttpResponse> apply(HttpResponse res, Throwable failure) {
+                try {
+                  if (failure != null) {
+                    return onFailureAsync(requestBase, unwrap(failure), failed + 1);
+                  }
+                  sessionCookies.update(res);
+                  return onResponseAsync(requestBase, res, failed + 1);
+                } catch (RuntimeException e) {
+                  return failedFuture(e);
+                }
+              }
+            })
+        .thenCompose(
+            java.util.function.Function.<CompletableFuture<HttpResponse>>identity());
+  }
+
+  private CompletableFuture<HttpResponse> onFailureAsync(
+      HttpRequestBase requestBase, Throwable failure, int attempt) {
+    String hostKey = host.toHostString();
+    if (failure instanceof IOException) {
+      Optional<Long> pause =
+          retryPolicy.retryPause(hostKey, requestBase, (IOException) failure, attempt);
+      if (pause.isPresent()) {
+        return retryAsync(requestBase, pause.get(), attempt);
+      }
+      return failedFuture(new IllegalStateException(failure));
+    }
+    retryPolicy.onFailure(hostKey);
+    return failedFuture(failure);
+  }
+
+  private CompletableFuture<HttpResponse> onResponseAsync(
+      HttpRequestBase requestBase, HttpResponse res, int attempt) {
+    String hostKey = host.toHostString();
+    if (throttle.isPresent() && AdaptiveThrottle.isThrottled(res)) {
+      retryPolicy.onSuccess(hostKey);
+      return CompletableFuture.completedFuture(checkStatus(requestBase, res));
+    }
+    int code = res.getStatusLine().getStatusCode();
+    if (retryPolicy.isRetryStatus(code)) {
+      Optional<Long> pause = retryPolicy.retryPause(hostKey, requestBase, code, attempt);
+      if (pause.isPresent()) {
+        consume(res);
+        return retryAsync(requestBase, pause.get(), attempt);
+      }
+      return CompletableFuture.completedFuture(checkStatus(requestBase, res));
+    }
+    retryPolicy.onSuccess(hostKey);
+    if (throttle.isPresent()) {
+      throttle.get().onSuccess();
+    }
+    return CompletableFuture.completedFuture(checkStatus(requestBase, res));
+  }
+
+  private CompletableFuture<HttpResponse> retryAsync(
+      final HttpRequestBase requestBase, long pauseMillis, final int failed) {
+    return delay(TimeUnit.MILLISECONDS.toNanos(pauseMillis))
+        .thenCompose(
+            new java.util.function.Function<Void, CompletableFuture<HttpResponse>>() {
+              @Override
+              public CompletableFuture<HttpResponse> apply(Void ignored) {
+                return sendAsync(requestBase, failed);
+              }
+            });
+  }
+
+  /** @see #executeThrottled(HttpRequestBase) */
+  private CompletableFuture<HttpResponse> executeThrottledAsync(
+      final HttpRequestBase requestBase, final int throttled) {
+    if (throttle.isPresent()) {
+      long waitNanos = throttle.get().tryAcquire();
+      if (waitNanos > 0) {
+        return delay(waitNanos)
+            .thenCompose(
+                new java.util.function.Function<Void, CompletableFuture<HttpResponse>>() {
+                  @Override
+                  public CompletableFuture<HttpResponse> apply(Void ignored) {
+                    return executeThrottledAsync(requestBase, throttled);
+                  }
+                });
+      }
     }
+    return ((AsyncHttpTransport) transport)
+        .executeAsync(requestBase)
+        .thenCompose(
+            new java.util.function.Function<HttpResponse, CompletableFuture<HttpResponse>>() {
+              @Override
+              public CompletableFuture<HttpResponse> apply(HttpResponse res) {
+                if (throttle.isPresent()
+                    && AdaptiveThrottle.isThrottled(res)
+                    && throttled < throttle.get().getMaxRetries()) {
+                  consume(res);
+                  throttle.get().onThrottled(res, throttled + 1);
+                  return executeThrottledAsync(requestBase, throttled + 1);
+                }
+                return CompletableFuture.completedFuture(res);
+              }
+            });
+  }
+
+  private static CompletableFuture<Void> delay(long nanos) {
+    final CompletableFuture<Void> timer = new CompletableFuture<>();
+    SCHEDULER.schedule(
+        new Runnable() {
+          @Override
+          public void run() {
+            timer.complete(null);
+          }
+        },
+        nanos,
+        TimeUnit.NANOSECONDS);
+    return timer;
+  }
+
+  private static <T> CompletableFuture<T> failedFuture(Throwable failure) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(failure);
+    return future;
+  }
+
+  /** @return the cause of a failure, that was wrapped by a dependent stage */
+  private static Throwable unwrap(Throwable failure) {
+    if (failure instanceof CompletionException && failure.getCause() != null) {
+      return failure.getCause();
+    }
+    return failure;
+  }
+
+  /** @return the first response, which is not throttled, or the last one, if retries ran out */
+  private HttpResponse executeThrottled(HttpRequestBase requestBase) throws IOException {
+    int throttled = 0;
+    while (true) {
+      if (throttle.isPresent()) {
+        throttle.get().acquire();
+      }
+      HttpResponse res = transport.execute(requestBase);
+      if (throttle.isPresent()
+          && AdaptiveThrottle.isThrottled(res)
+          && throttled < throttle.get().getMaxRetries()) {
+        throttled++;
+        consume(res);
+        throttle.get().onThrottled(res, throttled);
+        continue;
+      }
+      return res;
+    }
+  }
+
+  private HttpResponse checkStatus(HttpRequestBase requestBase, HttpResponse res) {
     StatusLine statusLine = res.getStatusLine();
     int code = statusLine.getStatusCode();
     if (code >= HttpStatus.SC_BAD_REQUEST) {
@@ -329,6 +841,11 @@ public class HttpActionClient {
     }
   }
 
+  @VisibleForTesting
+  Executor getExecutor() {
+    return executor;
+  }
+
   /** @return like http://localhost */
   String getHostUrl() {
     return host.toURI();
@@ -339,6 +856,17 @@ public class HttpActionClient {
     return url.toExternalForm();
   }
 
+  /**
+   * Compressed sizes are only known when the Apache client does not decode the responses itself,
+   * which is the case for clients created with {@link Builder#build()}.
+   *
+   * @return response sizes per action class
+   */
+  @Beta
+  public TrafficCounter getTrafficCounter() {
+    return trafficCounter;
+  }
+
   public static class Builder {
 
     private static final Function<UserAgentPart, String> TO_STRING =
@@ -356,8 +884,20 @@ public class HttpActionClient {
           }
         };
 
-    private Optional<RateLimiter> rateLimiter = Optional.absent();
-    private HttpClient client;
+    private Optional<AdaptiveThrottle> throttle = Optional.absent();
+    private RetryPolicy retryPolicy = RetryPolicy.none();
+    private Optional<ResponseCache> cache = Optional.absent();
+    private Optional<Executor> executor = Optional.absent();
+    private HttpTransport transport;
+    private ConnectionPool connectionPool;
+    private final ConnectionPool.Builder poolBuilder = ConnectionPool.builder();
+    private boolean poolBuilderChanged = false;
+    private ConnectionKeepAliveStrategy keepAliveStrategy =
+        new MaxKeepAliveStrategy(TimeUnit.SECONDS.toMillis(60));
+    private int connectTimeoutMillis = (int) TimeUnit.SECONDS.toMillis(10);
+    private int socketTimeoutMillis = (int) TimeUnit.SECONDS.toMillis(60);
+    private int connectionRequestTimeoutMillis = (int) TimeUnit.SECONDS.toMillis(30);
+    private boolean compression = true;
     private URL url;
     @VisibleForTesting List<UserAgentPart> userAgentParts = Lists.newArrayList();
 
@@ -378,18 +918,56 @@ public class HttpActionClient {
     }
 
     public HttpActionClient build() {
-      if (client == null) {
+      Executor clientExecutor = executor.or(DEFAULT_EXECUTOR);
+      if (transport == null) {
         if (userAgentParts.isEmpty()) {
           withUserAgent("Unknown", "Unknown");
         }
         withUserAgent("JWBF", trimAndReplaceWhitespace(getJwbfVersion()));
         HttpClientBuilder httpClientBuilder = HttpClientBuilder.create();
         httpClientBuilder.setUserAgent(makeUserAgentString(userAgentParts));
+        ConnectionPool pool = applyConnectionSettings(httpClientBuilder);
+        if (!executor.isPresent()) {
+          clientExecutor = defaultExecutor(pool.getMaxPerRoute());
+        }
         withClient(httpClientBuilder.build());
       } else {
         log.warn("a User-Agent must be set in your client");
+        if (connectionPool != null || poolBuilderChanged) {
+          throw new IllegalStateException("pool settings can not be applied to a custom transport");
+        }
+      }
+      return new HttpActionClient(this, clientExecutor);
+    }
+
+    /** @return the pool of the client */
+    private ConnectionPool applyConnectionSettings(HttpClientBuilder httpClientBuilder) {
+      final boolean shared = connectionPool != null;
+      if (shared && poolBuilderChanged) {
+        throw new IllegalStateException(
+            "pool settings must be applied to the shared connection pool");
       }
-      return new HttpActionClient(this);
+      ConnectionPool pool = connectionPool;
+      if (!shared) {
+        pool = poolBuilder.build();
+      }
+      RequestConfig requestConfig =
+          RequestConfig.custom() //
+              .setConnectTimeout(connectTimeoutMillis) //
+              .setSocketTimeout(socketTimeoutMillis) //
+              .setConnectionRequestTimeout(connectionRequestTimeoutMillis) //
+              .build();
+      // responses are decoded by HttpActionClient to count the compressed bytes
+      httpClientBuilder.disableContentCompression();
+      if (compression) {
+        httpClientBuilder.addInterceptorLast(new RequestAcceptEncoding());
+      }
+      httpClientBuilder //
+          .setConnectionManager(pool.getManager()) //
+          .setConnectionManagerShared(shared) //
+          .setKeepAliveStrategy(keepAliveStrategy) //
+          .setDefaultRequestConfig(requestConfig);
+      return pool;
     }
 
     @VisibleForTesting
@@ -406,8 +984,21 @@ public class HttpActionClient {
       return userAgent.trim();
     }
 
+    /**
+     * Connection, timeout and compression settings of this builder are not applied to the given
+     * client.
+     */
     public Builder withClient(HttpClient client) {
-      this.client = client;
+      return withTransport(new ApacheTransport(client));
+    }
+
+    /**
+     * @param transport sends the requests instead of the default Apache client; connection,
+     *     timeout and compression settings of this builder are not applied to it
+     */
+    @Beta
+    public Builder withTransport(HttpTransport transport) {
+      this.transport = Checked.nonNull(transport, "transport");
       return this;
     }
 
@@ -420,15 +1011,142 @@ public class HttpActionClient {
       return withUrl(JWBF.newURL(url));
     }
 
+    /**
+     * A fixed rate without retries; a busy server fails the request at once. Use {@link
+     * #withThrottle(AdaptiveThrottle)} to retry busy responses.
+     */
     public Builder withRequestsPerUnit(double requestsPer, TimeUnit unit) {
       long seconds = TimeUnit.SECONDS.convert(1, unit);
-      return withRateLimiter(RateLimiter.create(requestsPer / seconds));
+      double rate = requestsPer / seconds;
+      return withThrottle(
+          AdaptiveThrottle.builder() //
+              .withMaxRate(rate)
+              .withMinRate(rate)
+              .withMaxlag(0)
+              .withMaxRetries(0)
+              .build());
     }
 
-    Builder withRateLimiter(RateLimiter rateLimiter) {
-      this.rateLimiter = Optional.of(rateLimiter);
+    /**
+     * @param throttle adapts the rate of requests to the load of the server; can be shared by many
+     *     clients of the same wiki
+     */
+    public Builder withThrottle(AdaptiveThrottle throttle) {
+      this.throttle = Optional.of(Checked.nonNull(throttle, "throttle"));
       return this;
     }
+
+    /**
+     * @param retryPolicy repeats requests after transient failures; can be shared by many clients;
+     *     defaults to {@link RetryPolicy#none()}
+     */
+    public Builder withRetryPolicy(RetryPolicy retryPolicy) {
+      this.retryPolicy = Checked.nonNull(retryPolicy, "retry policy");
+      return this;
+    }
+
+    /**
+     * @param cache answers repeated GET requests; can be shared by many clients, because entries
+     *     are kept apart by the cookies, that each client received
+     */
+    @Beta
+    public Builder withCache(ResponseCache cache) {
+      this.cache = Optional.of(Checked.nonNull(cache, "cache"));
+      return this;
+    }
+
+    /**
+     * @param executor runs the requests of {@link HttpActionClient#performActionAsync}, one thread
+     *     per request in flight; defaults to daemon threads as many as the max connections per
+     *     route of the connection pool, or to {@value HttpActionClient#DEFAULT_ASYNC_THREADS}
+     *     daemon threads with a custom transport; default executors are shared by all clients with
+     *     the same number of threads and are never shut down, so pass an own executor to give a
+     *     client threads of its own
+     */
+    public Builder withExecutor(Executor executor) {
+      this.executor = Optional.of(Checked.nonNull(executor, "executor"));
+      return this;
+    }
+
+    /**
+     * Use one pool for many clients, e.g. one per wiki of a farm. Pool settings of this builder can
+     * not be combined with a shared pool.
+     */
+    public Builder withConnectionPool(ConnectionPool connectionPool) {
+      this.connectionPool = Checked.nonNull(connectionPool, "connection pool");
+      return this;
+    }
+
+    /** @see ConnectionPool.Builder#withMaxPerRoute(int) */
+    public Builder withMaxConnectionsPerRoute(int maxPerRoute) {
+      poolBuilder.withMaxPerRoute(maxPerRoute);
+      poolBuilderChanged = true;
+      return this;
+    }
+
+    /** @see ConnectionPool.Builder#withMaxTotal(int) */
+    public Builder withMaxConnectionsTotal(int maxTotal) {
+      poolBuilder.withMaxTotal(maxTotal);
+      poolBuilderChanged = true;
+      return this;
+    }
+
+    /** @see ConnectionPool.Builder#withTimeToLive(long, TimeUnit) */
+    public Builder withConnectionTimeToLive(long duration, TimeUnit unit) {
+      poolBuilder.withTimeToLive(duration, unit);
+      poolBuilderChanged = true;
+      return this;
+    }
+
+    /** @see ConnectionPool.Builder#withMaxIdleTime(long, TimeUnit) */
+    public Builder withMaxIdleTime(long duration, TimeUnit unit) {
+      poolBuilder.withMaxIdleTime(duration, unit);
+      poolBuilderChanged = true;
+      return this;
+    }
+
+    /** Keep connections alive as long as the server allows it, but not longer; default 60s. */
+    public Builder withMaxKeepAlive(long duration, TimeUnit unit) {
+      return withKeepAliveStrategy(new MaxKeepAliveStrategy(toMillis(duration, unit)));
+    }
+
+    public Builder withKeepAliveStrategy(ConnectionKeepAliveStrategy keepAliveStrategy) {
+      this.keepAliveStrategy = Checked.nonNull(keepAliveStrategy, "keep alive strategy");
+      return this;
+    }
+
+    /**
+     * @param compression if true, gzip or deflate encoded responses are requested; enabled by
+     *     default, because the default {@link HttpClientBuilder} of former versions requested them
+     *     too. Encoded responses are decoded while they are read.
+     */
+    public Builder withCompression(boolean compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    /** Time to establish a connection; defaults to 10 seconds. */
+    public Builder withConnectTimeout(long duration, TimeUnit unit) {
+      this.connectTimeoutMillis = toMillis(duration, unit);
+      return this;
+    }
+
+    /** Max time of inactivity between two data packets; defaults to 60 seconds. */
+    public Builder withSocketTimeout(long duration, TimeUnit unit) {
+      this.socketTimeoutMillis = toMillis(duration, unit);
+      return this;
+    }
+
+    /** Time to wait for a free connection of the pool; defaults to 30 seconds. */
+    public Builder withConnectionRequestTimeout(long duration, TimeUnit unit) {
+      this.connectionRequestTimeoutMillis = toMillis(duration, unit);
+      return this;
+    }
+
+    private static int toMillis(long duration, TimeUnit unit) {
+      Preconditions.checkArgument(duration > 0, "duration must be positive");
+      return (int) Math.min(Checked.nonNull(unit, "unit").toMillis(duration), Integer.MAX_VALUE);
+    }
   }
 
   private static String trimAndRemoveWhitespace(String in) {
@@ -498,6 +1216,26 @@ public class HttpActionClient {
     }
   }
 
+  /** Honors the Keep-Alive header of a response, but never keeps a connection longer than max. */
+  @VisibleForTesting
+  static class MaxKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+    private final long maxMillis;
+
+    MaxKeepAliveStrategy(long maxMillis) {
+      this.maxMillis = maxMillis;
+    }
+
+    @Override
+    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+      long duration =
+          DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+      if (duration <= 0 || duration > maxMillis) {
+        return maxMillis;
+      }
+      return duration;
+    }
+  }
+
   @VisibleForTesting
   static class UserAgentPart {
     final String name;
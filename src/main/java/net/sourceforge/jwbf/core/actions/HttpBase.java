@@ -1,15 +1,24 @@
 package net.sourceforge.jwbf.core.actions;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import com.google.common.base.Optional;
 
 abstract class HttpBase {
 
+  private static final AtomicLong NEXT_REQUEST_ID = new AtomicLong();
+
   private final Optional<ParamJoiner> joiner;
+  private final long requestId = NEXT_REQUEST_ID.incrementAndGet();
 
   public HttpBase(Optional<ParamJoiner> joiner) {
     this.joiner = joiner;
   }
 
+  public long getRequestId() {
+    return requestId;
+  }
+
   public RequestBuilder toBuilder() {
     if (joiner.isPresent()) {
       return joiner.get().toBuilder();
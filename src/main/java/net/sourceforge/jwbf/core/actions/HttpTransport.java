@@ -0,0 +1,25 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.IOException;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Sends the requests of a {@link HttpActionClient}. Requests and responses are modeled with the
+ * types of Apache HttpCore, but an implementation can use any client, e.g. one that multiplexes
+ * many requests over one HTTP/2 connection. Implementations must be thread safe.
+ *
+ * @see ApacheTransport
+ */
+@Beta
+public interface HttpTransport {
+
+  /**
+   * @return the response; its entity must not be decoded, because {@link HttpActionClient} decodes
+   *     and counts it
+   */
+  HttpResponse execute(HttpUriRequest request) throws IOException;
+}
@@ -2,62 +2,101 @@ package net.sourceforge.jwbf.core.actions;
 
 import static java.util.Map.Entry;
 
-import javax.annotation.Nonnull;
+import java.util.Arrays;
 
-import com.google.common.base.Function;
-import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
-import com.google.common.collect.FluentIterable;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMultimap;
-import com.google.common.collect.Ordering;
-
-import net.sourceforge.jwbf.core.internal.NonnullFunction;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Multimap;
 
 class ParamJoiner implements Supplier<String> {
 
-  private static final Function<Entry<String, Supplier<String>>, String> TO_KEY_VALUE_PAIR = //
-      new NonnullFunction<Entry<String, Supplier<String>>, String>() {
+  private final String path;
+  private final ImmutableListMultimap<String, Supplier<String>> params;
+  private final ImmutableListMultimap<String, Supplier<Object>> postParams;
 
-        @Nonnull
-        @Override
-        public String applyNonnull(@Nonnull Entry<String, Supplier<String>> input) {
-          return input.getKey() + "=" + input.getValue().get();
-        }
-      };
+  private final Optional<ParamTuple<String>> extra;
 
-  private final String path;
-  private final ImmutableMultimap.Builder<String, Supplier<String>> params;
-  private final ImmutableMultimap.Builder<String, Supplier<Object>> postParams;
+  // "request" does not need to be volatile; joining twice yields the same string
+  private String request;
 
   ParamJoiner(
       String path, //
-      ImmutableMultimap.Builder<String, Supplier<String>> params, //
-      ImmutableMultimap.Builder<String, Supplier<Object>> postParams) {
+      Multimap<String, Supplier<String>> params, //
+      Multimap<String, Supplier<Object>> postParams) {
     this.path = path;
-    this.params = params;
-    this.postParams = postParams;
+    this.params = ImmutableListMultimap.copyOf(params);
+    this.postParams = ImmutableListMultimap.copyOf(postParams);
+    this.extra = Optional.absent();
+  }
+
+  /** A joiner of the base params and one extra param, that were already joined to "request". */
+  private ParamJoiner(ParamJoiner base, ParamTuple<String> extra, String request) {
+    this.path = base.path;
+    this.params = base.params;
+    this.postParams = base.postParams;
+    this.extra = Optional.of(extra);
+    this.request = request;
+  }
+
+  ParamJoiner withJoined(String key, String value, String joinedRequest) {
+    return new ParamJoiner(this, new ParamTuple<>(key, value), joinedRequest);
   }
 
   RequestBuilder toBuilder() {
-    return RequestBuilder.of(path).params(params).postParams(postParams);
+    RequestBuilder builder = RequestBuilder.of(path).params(params).postParams(postParams);
+    if (extra.isPresent()) {
+      builder.param(extra.get());
+    }
+    return builder;
   }
 
+  /** The params are sorted and joined only once, because their values are fixed after reading. */
   @Override
   public String get() {
-    ImmutableMultimap<String, Supplier<String>> build = params.build();
-    if (!build.isEmpty()) {
-      ImmutableList<String> values =
-          FluentIterable.from(build.entries()) //
-              .transform(TO_KEY_VALUE_PAIR) //
-              .toSortedList(Ordering.natural()) //
-          ;
-      return path + "?" + Joiner.on("&").join(values);
+    String result = request;
+    if (result == null) {
+      result = join();
+      request = result;
+    }
+    return result;
+  }
+
+  private String join() {
+    if (params.isEmpty()) {
+      return path;
+    }
+    String[] pairs = sortedPairs();
+    int length = path.length() + pairs.length;
+    for (String pair : pairs) {
+      length += pair.length();
     }
+    StringBuilder builder = new StringBuilder(length).append(path).append('?');
+    for (int j = 0; j < pairs.length; j++) {
+      if (j > 0) {
+        builder.append('&');
+      }
+      builder.append(pairs[j]);
+    }
+    return builder.toString();
+  }
+
+  /** @return "key=value" of all params in the order of the joined request */
+  String[] sortedPairs() {
+    String[] pairs = new String[params.size()];
+    int i = 0;
+    for (Entry<String, Supplier<String>> entry : params.entries()) {
+      pairs[i++] = entry.getKey() + "=" + entry.getValue().get();
+    }
+    Arrays.sort(pairs);
+    return pairs;
+  }
+
+  String path() {
     return path;
   }
 
-  ImmutableMultimap.Builder<String, Supplier<Object>> postParams() {
+  ImmutableListMultimap<String, Supplier<Object>> postParams() {
     return postParams;
   }
 }
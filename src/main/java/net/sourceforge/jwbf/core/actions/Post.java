@@ -60,10 +60,9 @@ public class Post extends HttpBase implements HttpAction {
     super(joiner);
     this.req = req;
     this.charset = charset;
+    this.params = ImmutableMultimap.builder();
     if (joiner.isPresent()) {
-      this.params = joiner.get().postParams();
-    } else {
-      this.params = ImmutableMultimap.builder();
+      this.params.putAll(joiner.get().postParams());
     }
   }
 
@@ -113,7 +112,8 @@ public class Post extends HttpBase implements HttpAction {
 
   @Override
   public int hashCode() {
-    return Objects.hash(getRequest(), getCharset(), getParams());
+    // params are not hashed, because they are copied for each call of getParams()
+    return Objects.hash(getRequest(), getCharset());
   }
 
   @Override
@@ -121,6 +121,12 @@ public class Post extends HttpBase implements HttpAction {
     return getRequest() + " " + getCharset() + " " + getParams();
   }
 
+  /**
+   * Posts are equal by value, not by {@link #getRequestId()}: that id is unique for each instance,
+   * which would make this an identity check, but callers and tests compare posts, that were built
+   * separately. Responses are correlated with their action by id instead. The params are
+   * evaluated and copied only if request and charset are equal.
+   */
   @Override
   public boolean equals(Object obj) {
     if (obj == null) {
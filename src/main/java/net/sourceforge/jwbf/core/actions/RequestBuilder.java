@@ -2,17 +2,21 @@ package net.sourceforge.jwbf.core.actions;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.List;
 import java.util.Locale;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Charsets;
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
-import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.MultimapBuilder;
 
 import net.sourceforge.jwbf.core.internal.Checked;
 
@@ -20,10 +24,10 @@ public class RequestBuilder {
 
   private static Logger log = LoggerFactory.getLogger(RequestBuilder.class);
 
-  private final ImmutableMultimap.Builder<String, Supplier<String>> params =
-      ImmutableMultimap.builder();
-  private final ImmutableMultimap.Builder<String, Supplier<Object>> postParams =
-      ImmutableMultimap.builder();
+  private final ListMultimap<String, Supplier<String>> params =
+      MultimapBuilder.linkedHashKeys().arrayListValues().build();
+  private final ListMultimap<String, Supplier<Object>> postParams =
+      MultimapBuilder.linkedHashKeys().arrayListValues().build();
   private final String path;
 
   public RequestBuilder(String path) {
@@ -36,35 +40,57 @@ public class RequestBuilder {
   }
 
   public RequestBuilder param(String key, Supplier<String> stringSupplier) {
-    return applyKeyValueTo(key, stringSupplier, params);
+    if (Strings.isNullOrEmpty(key)) {
+      return this;
+    }
+    return applyKeyValueTo(key, memoize(stringSupplier), params);
   }
 
   public RequestBuilder param(ParamTuple<String> paramTuple) {
     return param(paramTuple.key, paramTuple.valueSupplier);
   }
 
+  /** Values of the same key are compared; duplicates are skipped. */
   private <T> RequestBuilder applyKeyValueTo(
-      String key,
-      Supplier<?> stringSupplier,
-      ImmutableMultimap.Builder<String, Supplier<T>> toParams) {
+      String key, Supplier<?> supplier, ListMultimap<String, Supplier<T>> toParams) {
     if (!Strings.isNullOrEmpty(key)) {
-      Checked.nonNull(stringSupplier, "stringSupplier");
-
-      Supplier<?> memoize = new HashCodeEqualsMemoizingSupplier<>(stringSupplier);
-      if (!toParams.build().containsEntry(key, memoize)) {
-        toParams.put(key, (Supplier<T>) memoize);
+      List<Supplier<T>> values = toParams.get(key);
+      if (!contains(values, supplier)) {
+        values.add((Supplier<T>) supplier);
       }
     }
     return this;
   }
 
-  RequestBuilder postParams(ImmutableMultimap.Builder<String, Supplier<Object>> all) {
-    postParams.putAll(all.build());
+  private static boolean contains(List<? extends Supplier<?>> values, Supplier<?> supplier) {
+    Object delegate = delegateOf(supplier);
+    for (Supplier<?> value : values) {
+      if (delegateOf(value).equals(delegate)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Object delegateOf(Supplier<?> supplier) {
+    if (supplier instanceof HashCodeEqualsMemoizingSupplier) {
+      return ((HashCodeEqualsMemoizingSupplier<?>) supplier).delegate;
+    }
+    return supplier;
+  }
+
+  /** Values of foreign suppliers are fixed when they are read for the first time. */
+  private static <T> Supplier<T> memoize(Supplier<T> supplier) {
+    return new HashCodeEqualsMemoizingSupplier<>(Checked.nonNull(supplier, "stringSupplier"));
+  }
+
+  RequestBuilder postParams(Multimap<String, Supplier<Object>> all) {
+    postParams.putAll(all);
     return this;
   }
 
-  RequestBuilder params(ImmutableMultimap.Builder<String, Supplier<String>> params) {
-    this.params.putAll(params.build());
+  RequestBuilder params(Multimap<String, Supplier<String>> params) {
+    this.params.putAll(params);
     return this;
   }
 
@@ -99,9 +125,16 @@ public class RequestBuilder {
     return postParam(key, (Object) value);
   }
 
+  public RequestBuilder postParam(String key, FileRegion value) {
+    return postParam(key, (Object) value);
+  }
+
   public RequestBuilder postParam(ParamTuple<?> paramTuple) {
+    if (Strings.isNullOrEmpty(paramTuple.key)) {
+      return this;
+    }
     Supplier<? extends Object> val = paramTuple.valueSupplier;
-    return applyKeyValueTo(paramTuple.key, val, postParams);
+    return applyKeyValueTo(paramTuple.key, memoize(val), postParams);
   }
 
   public RequestBuilder param(String key, boolean value) {
@@ -109,32 +142,40 @@ public class RequestBuilder {
   }
 
   public RequestBuilder param(String key) {
-    if (!Strings.isNullOrEmpty(key)) {
-      param(key, Suppliers.ofInstance(""));
-    }
-    return this;
+    return applyKeyValueTo(key, Suppliers.ofInstance(""), params);
   }
 
   public RequestBuilder param(String key, String value) {
     if (!Strings.isNullOrEmpty(key)) {
       if (Strings.isNullOrEmpty(value)) {
-        param(key, Suppliers.ofInstance("None"));
+        applyKeyValueTo(key, Suppliers.ofInstance("None"), params);
         log.warn("Empty string for GET param \"" + key + "\" was transformed to \"None\"");
       } else {
-        param(key, Suppliers.ofInstance(value));
+        applyKeyValueTo(key, Suppliers.ofInstance(value), params);
       }
     }
     return this;
   }
 
   public Post buildPost() {
-    return new Post(lazy(), Charsets.UTF_8, Optional.of(lazy()));
+    ParamJoiner joiner = lazy();
+    return new Post(joiner, Charsets.UTF_8, Optional.of(joiner));
   }
 
   public Get buildGet() {
     return new Get(lazy());
   }
 
+  /**
+   * @return a template of the current params; all suppliers are read now
+   * @see RequestTemplate
+   */
+  @Beta
+  public RequestTemplate buildTemplate() {
+    return new RequestTemplate(lazy());
+  }
+
+  /** @return a snapshot of the current params; later changes of this builder are not visible */
   ParamJoiner lazy() {
     return new ParamJoiner(path, params, postParams);
   }
@@ -0,0 +1,78 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.util.Arrays;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * An immutable GET request, whose params are sorted and joined only once. Paginated queries send
+ * many requests that differ only in one continuation param; this param is inserted into the
+ * already joined request, instead of joining all params again for each page.
+ *
+ * @see RequestBuilder#buildTemplate()
+ */
+@Beta
+public final class RequestTemplate {
+
+  private final ParamJoiner joiner;
+  private final String request;
+  private final String[] pairs;
+  private final int[] offsets;
+
+  RequestTemplate(ParamJoiner joiner) {
+    this.joiner = joiner;
+    this.request = joiner.get();
+    this.pairs = joiner.sortedPairs();
+    this.offsets = new int[pairs.length];
+    int offset = joiner.path().length() + 1;
+    for (int i = 0; i < pairs.length; i++) {
+      offsets[i] = offset;
+      offset += pairs[i].length() + 1;
+    }
+  }
+
+  /** @return the request without an additional param */
+  public Get buildGet() {
+    return new Get(joiner);
+  }
+
+  /**
+   * @param key of the additional param, e.g. a continuation param
+   * @param value of the additional param, must be url encoded
+   * @return the request with the additional param
+   */
+  public Get buildGet(String key, String value) {
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(key), "key must not be empty");
+    Preconditions.checkArgument(
+        !Strings.isNullOrEmpty(Checked.nonNull(value, "value")), "value must not be empty");
+    String pair = key + "=" + value;
+    int index = Arrays.binarySearch(pairs, pair);
+    if (index >= 0) {
+      return buildGet();
+    }
+    int insertAt = -index - 1;
+    StringBuilder builder = new StringBuilder(request.length() + pair.length() + 1);
+    if (pairs.length == 0) {
+      builder.append(request).append('?').append(pair);
+    } else if (insertAt == pairs.length) {
+      builder.append(request).append('&').append(pair);
+    } else {
+      int offset = offsets[insertAt];
+      builder
+          .append(request, 0, offset)
+          .append(pair)
+          .append('&')
+          .append(request, offset, request.length());
+    }
+    return new Get(joiner.withJoined(key, value, builder.toString()));
+  }
+
+  @Override
+  public String toString() {
+    return request;
+  }
+}
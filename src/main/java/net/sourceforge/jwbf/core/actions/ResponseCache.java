@@ -0,0 +1,614 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Longs;
+
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * Caches the responses of GET requests of one or more {@link HttpActionClient}s in memory and
+ * optionally on disk. Freshness is taken from <code>Cache-Control</code> and <code>Expires</code>
+ * ; stale responses with an <code>ETag</code> or <code>Last-Modified</code> are revalidated with a
+ * conditional request. Responses are stored as received, so compressed responses stay small.
+ *
+ * <p>Entries are keyed by url and by the session of the client, which is identified by the
+ * cookies, that the client received (see {@link HttpActionClient}); so a cache is safe to share by
+ * clients with different logins. Clients with a session also store <code>private</code> responses
+ * and responses that vary by <code>Cookie</code> or <code>Authorization</code>, which most
+ * responses of the MediaWiki API of a logged in user are. Clients without a session never store
+ * them, because cookies of a custom client are not known to the cache. Responses to requests with
+ * an <code>Authorization</code> header are never stored.
+ */
+@Beta
+public class ResponseCache {
+
+  private static final Logger log = LoggerFactory.getLogger(ResponseCache.class);
+
+  /** Temporary files of this age are left over by a crashed write. */
+  private static final long STALE_TMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private static final ImmutableSet<String> SESSION_HEADERS =
+      ImmutableSet.of("cookie", "authorization");
+
+  private static final ImmutableSet<String> STORED_HEADERS =
+      ImmutableSet.of(
+          HttpHeaders.CONTENT_TYPE,
+          HttpHeaders.CONTENT_ENCODING,
+          HttpHeaders.ETAG,
+          HttpHeaders.LAST_MODIFIED,
+          HttpHeaders.CACHE_CONTROL,
+          HttpHeaders.EXPIRES);
+
+  private final long maxEntryBytes;
+  private final Optional<File> directory;
+  private final long maxDiskBytes;
+  private final Clock clock;
+  private final Cache<String, Entry> memory;
+  // file names by least recent use and their total length; guarded by this
+  private final Map<String, Long> diskIndex = new LinkedHashMap<>(16, 0.75f, true);
+  private long diskBytes = 0;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong revalidations = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  ResponseCache(Builder builder, Clock clock) {
+    this.maxEntryBytes = builder.maxEntryBytes;
+    this.directory = builder.directory;
+    this.maxDiskBytes = builder.maxDiskBytes;
+    this.clock = clock;
+    this.memory =
+        CacheBuilder.newBuilder() //
+            .concurrencyLevel(1) // one segment, to keep the byte bound exact
+            .maximumWeight(builder.maxMemoryBytes)
+            .weigher(
+                new Weigher<String, Entry>() {
+                  @Override
+                  public int weigh(String key, Entry value) {
+                    return value.weight();
+                  }
+                })
+            .build();
+    if (directory.isPresent()) {
+      indexDisk();
+    }
+  }
+
+  /** Reads the files of earlier runs once; afterwards the index follows all writes and reads. */
+  private void indexDisk() {
+    File[] files = directory.get().listFiles();
+    if (files == null) {
+      return;
+    }
+    Arrays.sort(
+        files,
+        new Comparator<File>() {
+          @Override
+          public int compare(File o1, File o2) {
+            return Long.compare(o1.lastModified(), o2.lastModified());
+          }
+        });
+    long now = clock.millis();
+    for (File file : files) {
+      if (file.getName().endsWith(".tmp")) {
+        // another cache on this directory may still write it
+        if (now - file.lastModified() > STALE_TMP_MILLIS) {
+          file.delete();
+        }
+      } else {
+        diskIndex.put(file.getName(), file.length());
+        diskBytes += file.length();
+      }
+    }
+  }
+
+  /** Like {@link #execute(HttpRequestBase, String, Function)} without a session. */
+  HttpResponse execute(HttpRequestBase request, Function<HttpRequestBase, HttpResponse> network) {
+    return execute(request, "", network);
+  }
+
+  /**
+   * @param session identifies the session of the client, e.g. a hash of its cookies; empty without
+   *     a session
+   * @param network sends the request, e.g. with retries
+   * @return a cached or the network response
+   */
+  HttpResponse execute(
+      HttpRequestBase request, String session, Function<HttpRequestBase, HttpResponse> network) {
+    boolean hasSession = !session.isEmpty();
+    String key = request.getURI().toString();
+    if (hasSession) {
+      key += " " + session;
+    }
+    Optional<Entry> cached = lookup(key);
+    if (cached.isPresent()) {
+      Entry entry = cached.get();
+      if (entry.isFresh(clock.millis())) {
+        hits.incrementAndGet();
+        return entry.toResponse();
+      }
+      entry.addValidators(request);
+    }
+    HttpResponse res = network.apply(request);
+    int code = res.getStatusLine().getStatusCode();
+    if (code == HttpStatus.SC_NOT_MODIFIED && cached.isPresent()) {
+      EntityUtils.consumeQuietly(res.getEntity());
+      revalidations.incrementAndGet();
+      Entry entry = cached.get().revalidated(res, clock.millis());
+      put(key, entry);
+      return entry.toResponse();
+    }
+    misses.incrementAndGet();
+    if (code == HttpStatus.SC_OK
+        && !request.containsHeader(HttpHeaders.AUTHORIZATION)
+        && isCacheable(res, hasSession, clock.millis())) {
+      return store(key, res);
+    }
+    return res;
+  }
+
+  private Optional<Entry> lookup(String key) {
+    Entry entry = memory.getIfPresent(key);
+    if (entry == null && directory.isPresent()) {
+      entry = readFromDisk(key);
+      if (entry != null) {
+        memory.put(key, entry);
+      }
+    }
+    return Optional.fromNullable(entry);
+  }
+
+  private HttpResponse store(String key, HttpResponse res) {
+    HttpEntity entity = res.getEntity();
+    if (entity == null || entity.getContentLength() > maxEntryBytes) {
+      return res;
+    }
+    try {
+      InputStream content = entity.getContent();
+      byte[] body = ByteStreams.toByteArray(ByteStreams.limit(content, maxEntryBytes + 1));
+      if (body.length > maxEntryBytes) {
+        InputStream rest = new SequenceInputStream(new ByteArrayInputStream(body), content);
+        res.setEntity(newEntity(rest, -1, entity.getContentType(), entity.getContentEncoding()));
+        return res;
+      }
+      content.close();
+      Entry entry = Entry.of(key, res, entity, body, clock.millis());
+      put(key, entry);
+      return entry.toResponse();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void put(String key, Entry entry) {
+    memory.put(key, entry);
+    if (directory.isPresent()) {
+      writeToDisk(key, entry);
+    }
+  }
+
+  /**
+   * @param session if the entry is keyed by a session
+   * @param now the time of the cache, if the response has no <code>Date</code>
+   */
+  @VisibleForTesting
+  static boolean isCacheable(HttpResponse res, boolean session, long now) {
+    if (hasDirective(res, "no-store") || variesBy(res, "*")) {
+      return false;
+    }
+    if (!session && (hasDirective(res, "private") || variesBySession(res))) {
+      return false;
+    }
+    return res.containsHeader(HttpHeaders.ETAG)
+        || res.containsHeader(HttpHeaders.LAST_MODIFIED)
+        || freshnessMillis(res, now) > 0;
+  }
+
+  /** @param now the time of the cache, if the response has no <code>Date</code> */
+  @VisibleForTesting
+  static long freshnessMillis(HttpResponse res, long now) {
+    if (hasDirective(res, "no-cache")) {
+      return 0;
+    }
+    Optional<String> maxAge = directive(res, "max-age");
+    if (maxAge.isPresent()) {
+      Long seconds = Longs.tryParse(maxAge.get());
+      if (seconds == null) {
+        return 0;
+      }
+      return TimeUnit.SECONDS.toMillis(Math.max(0, seconds - age(res)));
+    }
+    Date expires = dateOf(res, HttpHeaders.EXPIRES);
+    if (expires != null) {
+      Date date = dateOf(res, HttpHeaders.DATE);
+      if (date != null) {
+        now = date.getTime();
+      }
+      return Math.max(0, expires.getTime() - now);
+    }
+    return 0;
+  }
+
+  private static long age(HttpResponse res) {
+    Header age = res.getFirstHeader(HttpHeaders.AGE);
+    if (age == null) {
+      return 0;
+    }
+    Long seconds = Longs.tryParse(age.getValue().trim());
+    if (seconds == null) {
+      return 0;
+    }
+    return seconds;
+  }
+
+  private static Date dateOf(HttpResponse res, String name) {
+    Header header = res.getFirstHeader(name);
+    if (header == null) {
+      return null;
+    }
+    return DateUtils.parseDate(header.getValue());
+  }
+
+  private static boolean variesBySession(HttpResponse res) {
+    for (String name : SESSION_HEADERS) {
+      if (variesBy(res, name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean variesBy(HttpResponse res, String name) {
+    for (Header header : res.getHeaders(HttpHeaders.VARY)) {
+      for (HeaderElement element : header.getElements()) {
+        if (element.getName().equalsIgnoreCase(name)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean hasDirective(HttpResponse res, String name) {
+    for (Header header : res.getHeaders(HttpHeaders.CACHE_CONTROL)) {
+      for (HeaderElement element : header.getElements()) {
+        if (element.getName().equalsIgnoreCase(name)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static Optional<String> directive(HttpResponse res, String name) {
+    for (Header header : res.getHeaders(HttpHeaders.CACHE_CONTROL)) {
+      for (HeaderElement element : header.getElements()) {
+        if (element.getName().equalsIgnoreCase(name)) {
+          return Optional.fromNullable(element.getValue());
+        }
+      }
+    }
+    return Optional.absent();
+  }
+
+  private static HttpEntity newEntity(
+      InputStream content, long length, Header contentType, Header contentEncoding) {
+    BasicHttpEntity entity = new BasicHttpEntity();
+    entity.setContent(content);
+    entity.setContentLength(length);
+    entity.setContentType(contentType);
+    entity.setContentEncoding(contentEncoding);
+    return entity;
+  }
+
+  private File fileOf(String key) {
+    String name = Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString();
+    return new File(directory.get(), name);
+  }
+
+  private Entry readFromDisk(String key) {
+    File file = fileOf(key);
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      Entry entry = Entry.read(in);
+      if (!entry.key.equals(key)) {
+        return null;
+      }
+      file.setLastModified(clock.millis());
+      touchOnDisk(file.getName());
+      return entry;
+    } catch (FileNotFoundException e) {
+      return null;
+    } catch (IOException e) {
+      log.warn("could not read cache file {}: {}", file, e.toString());
+      return null;
+    }
+  }
+
+  /** Each write has its own temporary file, so concurrent writes of one key never mix. */
+  private void writeToDisk(String key, Entry entry) {
+    File file = fileOf(key);
+    File tmp;
+    try {
+      tmp = File.createTempFile(file.getName(), ".tmp", directory.get());
+    } catch (IOException e) {
+      log.warn("could not write cache file {}: {}", file, e.toString());
+      return;
+    }
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+      entry.write(out);
+    } catch (IOException e) {
+      log.warn("could not write cache file {}: {}", file, e.toString());
+      tmp.delete();
+      return;
+    }
+    if (!tmp.renameTo(file)) {
+      file.delete();
+      if (!tmp.renameTo(file)) {
+        tmp.delete();
+      }
+    }
+    addToDisk(file.getName(), file.length());
+  }
+
+  private synchronized void touchOnDisk(String name) {
+    diskIndex.get(name);
+  }
+
+  /** Evicts the least recently used files, while the total exceeds the max. */
+  private synchronized void addToDisk(String name, long length) {
+    Long previous = diskIndex.put(name, length);
+    if (previous != null) {
+      diskBytes -= previous;
+    }
+    diskBytes += length;
+    Iterator<Map.Entry<String, Long>> eldest = diskIndex.entrySet().iterator();
+    while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+      Map.Entry<String, Long> entry = eldest.next();
+      File file = new File(directory.get(), entry.getKey());
+      if (file.delete() || !file.exists()) {
+        diskBytes -= entry.getValue();
+        eldest.remove();
+      }
+    }
+  }
+
+  /** @return number of responses served without a request */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /** @return number of responses served after a <code>304 Not Modified</code> */
+  public long getRevalidations() {
+    return revalidations.get();
+  }
+
+  /** @return number of GET requests answered with a full response */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /** Removes all entries from memory and disk. */
+  public synchronized void clear() {
+    memory.invalidateAll();
+    diskIndex.clear();
+    diskBytes = 0;
+    if (directory.isPresent()) {
+      File[] files = directory.get().listFiles();
+      if (files != null) {
+        for (File file : files) {
+          file.delete();
+        }
+      }
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @VisibleForTesting
+  static class Entry {
+    private final String key;
+    private final ImmutableList<Header> headers;
+    private final byte[] body;
+    private final long freshUntilMillis;
+
+    Entry(String key, ImmutableList<Header> headers, byte[] body, long freshUntilMillis) {
+      this.key = key;
+      this.headers = headers;
+      this.body = body;
+      this.freshUntilMillis = freshUntilMillis;
+    }
+
+    static Entry of(String key, HttpResponse res, HttpEntity entity, byte[] body, long now) {
+      ImmutableList.Builder<Header> headers = ImmutableList.builder();
+      for (Header header : res.getAllHeaders()) {
+        if (STORED_HEADERS.contains(header.getName())) {
+          headers.add(new BasicHeader(header.getName(), header.getValue()));
+        }
+      }
+      Header encoding = entity.getContentEncoding();
+      if (encoding != null && !res.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+        headers.add(encoding);
+      }
+      return new Entry(key, headers.build(), body, now + freshnessMillis(res, now));
+    }
+
+    boolean isFresh(long now) {
+      return now < freshUntilMillis;
+    }
+
+    void addValidators(HttpRequestBase request) {
+      for (Header header : headers) {
+        if (header.getName().equals(HttpHeaders.ETAG)) {
+          request.setHeader(HttpHeaders.IF_NONE_MATCH, header.getValue());
+        } else if (header.getName().equals(HttpHeaders.LAST_MODIFIED)) {
+          request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, header.getValue());
+        }
+      }
+    }
+
+    /** @param notModified may update validators and freshness */
+    Entry revalidated(HttpResponse notModified, long now) {
+      ImmutableList.Builder<Header> updated = ImmutableList.builder();
+      for (Header header : headers) {
+        if (!notModified.containsHeader(header.getName())
+            || header.getName().equals(HttpHeaders.CONTENT_ENCODING)
+            || header.getName().equals(HttpHeaders.CONTENT_TYPE)) {
+          updated.add(header);
+        }
+      }
+      for (Header header : notModified.getAllHeaders()) {
+        if (STORED_HEADERS.contains(header.getName())
+            && !header.getName().equals(HttpHeaders.CONTENT_ENCODING)
+            && !header.getName().equals(HttpHeaders.CONTENT_TYPE)) {
+          updated.add(new BasicHeader(header.getName(), header.getValue()));
+        }
+      }
+      return new Entry(key, updated.build(), body, now + freshnessMillis(notModified, now));
+    }
+
+    HttpResponse toResponse() {
+      BasicHttpResponse res = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+      Header contentType = null;
+      Header contentEncoding = null;
+      for (Header header : headers) {
+        res.addHeader(header);
+        if (header.getName().equals(HttpHeaders.CONTENT_TYPE)) {
+          contentType = header;
+        } else if (header.getName().equals(HttpHeaders.CONTENT_ENCODING)) {
+          contentEncoding = header;
+        }
+      }
+      res.setEntity(
+          newEntity(new ByteArrayInputStream(body), body.length, contentType, contentEncoding));
+      return res;
+    }
+
+    int weight() {
+      int weight = key.length() * 2 + body.length;
+      for (Header header : headers) {
+        weight += (header.getName().length() + header.getValue().length()) * 2;
+      }
+      return weight;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      out.writeUTF(key);
+      out.writeLong(freshUntilMillis);
+      out.writeInt(headers.size());
+      for (Header header : headers) {
+        out.writeUTF(header.getName());
+        out.writeUTF(header.getValue());
+      }
+      out.writeInt(body.length);
+      out.write(body);
+    }
+
+    static Entry read(DataInputStream in) throws IOException {
+      String key = in.readUTF();
+      long freshUntilMillis = in.readLong();
+      int headerCount = in.readInt();
+      ImmutableList.Builder<Header> headers = ImmutableList.builder();
+      for (int i = 0; i < headerCount; i++) {
+        headers.add(new BasicHeader(in.readUTF(), in.readUTF()));
+      }
+      byte[] body = new byte[in.readInt()];
+      in.readFully(body);
+      return new Entry(key, headers.build(), body, freshUntilMillis);
+    }
+  }
+
+  public static class Builder {
+
+    private long maxMemoryBytes = 32 * 1024 * 1024;
+    private long maxEntryBytes = 1024 * 1024;
+    private Optional<File> directory = Optional.absent();
+    private long maxDiskBytes = 0;
+
+    /** @param maxBytes of all responses in memory; defaults to 32 MiB */
+    public Builder withMaxMemoryBytes(long maxBytes) {
+      Preconditions.checkArgument(maxBytes > 0, "maxBytes must be positive");
+      this.maxMemoryBytes = maxBytes;
+      return this;
+    }
+
+    /** @param maxBytes of one response; larger responses are not cached; defaults to 1 MiB */
+    public Builder withMaxEntryBytes(long maxBytes) {
+      Preconditions.checkArgument(maxBytes > 0, "maxBytes must be positive");
+      this.maxEntryBytes = maxBytes;
+      return this;
+    }
+
+    /**
+     * Keeps responses on disk, too, e.g. for later runs of the same job. The least recently used
+     * files are deleted if the directory exceeds the given size.
+     */
+    public Builder withDirectory(File directory, long maxBytes) {
+      Preconditions.checkArgument(maxBytes > 0, "maxBytes must be positive");
+      File nonNullDirectory = Checked.nonNull(directory, "directory");
+      Preconditions.checkArgument(
+          nonNullDirectory.isDirectory() || nonNullDirectory.mkdirs(),
+          "no directory: " + nonNullDirectory);
+      this.directory = Optional.of(nonNullDirectory);
+      this.maxDiskBytes = maxBytes;
+      return this;
+    }
+
+    public ResponseCache build() {
+      return new ResponseCache(this, Clock.systemUTC());
+    }
+  }
+}
@@ -0,0 +1,291 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * Repeats requests of a {@link HttpActionClient} after transient failures, e.g. an {@link
+ * IOException} or a 5xx status. GET requests are repeated with exponential backoff. POST requests
+ * are only repeated if they were never sent, because the connection could not be established,
+ * unless {@link Builder#withPostRetries(boolean)} is set. A {@link CircuitBreaker} per host fails
+ * fast while a wiki is down.
+ *
+ * <p>One policy can be shared by many clients; its counters are the metrics of all of them.
+ */
+@Beta
+public class RetryPolicy {
+
+  private static final Logger log = LoggerFactory.getLogger(RetryPolicy.class);
+
+  private final int maxRetries;
+  private final long backoffMillis;
+  private final long maxBackoffMillis;
+  private final boolean postRetries;
+  private final ImmutableSet<Integer> retryStatusCodes;
+  private final int failureThreshold;
+  private final long openNanos;
+  private final Ticker ticker;
+  private final Random random = new Random();
+
+  private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final Map<CircuitBreaker.State, AtomicLong> stateChanges =
+      new EnumMap<>(CircuitBreaker.State.class);
+
+  private final CircuitBreaker.StateListener stateListener =
+      new CircuitBreaker.StateListener() {
+        @Override
+        public void stateChanged(String host, CircuitBreaker.State from, CircuitBreaker.State to) {
+          stateChanges.get(to).incrementAndGet();
+        }
+      };
+
+  RetryPolicy(Builder builder, Ticker ticker) {
+    this.maxRetries = builder.maxRetries;
+    this.backoffMillis = builder.backoffMillis;
+    this.maxBackoffMillis = builder.maxBackoffMillis;
+    this.postRetries = builder.postRetries;
+    this.retryStatusCodes = builder.retryStatusCodes;
+    this.failureThreshold = builder.failureThreshold;
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(builder.openMillis);
+    this.ticker = ticker;
+    for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+      stateChanges.put(state, new AtomicLong());
+    }
+  }
+
+  /** @return a policy without retries and without circuit breaker */
+  public static RetryPolicy none() {
+    return builder().withMaxRetries(0).withoutCircuitBreaker().build();
+  }
+
+  /** @return false if the circuit breaker of the host rejects the request */
+  boolean allowRequest(String host) {
+    if (failureThreshold <= 0 || breakerOf(host).allowRequest()) {
+      return true;
+    }
+    rejected.incrementAndGet();
+    return false;
+  }
+
+  void onSuccess(String host) {
+    if (failureThreshold > 0) {
+      breakerOf(host).onSuccess();
+    }
+  }
+
+  /**
+   * Records the failure and waits, if the request should be repeated.
+   *
+   * @param attempt starts with 1 for the first failure of a request
+   * @return true if the request should be repeated
+   */
+  boolean retryAfter(String host, HttpRequest request, IOException e, int attempt) {
+    return sleep(retryPause(host, request, e, attempt));
+  }
+
+  /** @see #retryAfter(String, HttpRequest, IOException, int) */
+  boolean retryAfter(String host, HttpRequest request, int statusCode, int attempt) {
+    return sleep(retryPause(host, request, statusCode, attempt));
+  }
+
+  /**
+   * Records the failure like {@link #retryAfter(String, HttpRequest, IOException, int)}, but does
+   * not wait.
+   *
+   * @return the pause in millis before the request is repeated; absent if it is not repeated
+   */
+  Optional<Long> retryPause(String host, HttpRequest request, IOException e, int attempt) {
+    onFailure(host);
+    if (attempt > maxRetries || !(isSafe(request) || wasNotSent(e))) {
+      return Optional.absent();
+    }
+    return Optional.of(retry(host, request, attempt, e.toString()));
+  }
+
+  /** @see #retryPause(String, HttpRequest, IOException, int) */
+  Optional<Long> retryPause(String host, HttpRequest request, int statusCode, int attempt) {
+    onFailure(host);
+    if (attempt > maxRetries || !isSafe(request)) {
+      return Optional.absent();
+    }
+    return Optional.of(retry(host, request, attempt, "status " + statusCode));
+  }
+
+  boolean isRetryStatus(int statusCode) {
+    return retryStatusCodes.contains(statusCode);
+  }
+
+  private long retry(String host, HttpRequest request, int attempt, String cause) {
+    long pause = backoffMillis(attempt);
+    log.warn(
+        "retry {} of {} {} in {}ms after {}",
+        attempt,
+        request.getRequestLine().getMethod(),
+        host,
+        pause,
+        cause);
+    retries.incrementAndGet();
+    return pause;
+  }
+
+  private static boolean sleep(Optional<Long> pause) {
+    if (pause.isPresent()) {
+      Uninterruptibles.sleepUninterruptibly(pause.get(), TimeUnit.MILLISECONDS);
+      return true;
+    }
+    return false;
+  }
+
+  void onFailure(String host) {
+    if (failureThreshold > 0) {
+      breakerOf(host).onFailure();
+    }
+  }
+
+  @VisibleForTesting
+  long backoffMillis(int attempt) {
+    long exponential = backoffMillis << Math.min(attempt - 1, 20);
+    long capped = Math.min(maxBackoffMillis, exponential);
+    // half fixed, half random to spread the retries of many clients
+    return capped / 2 + (long) (random.nextDouble() * (capped / 2 + 1));
+  }
+
+  private boolean isSafe(HttpRequest request) {
+    String method = request.getRequestLine().getMethod();
+    return postRetries || method.equals("GET") || method.equals("HEAD");
+  }
+
+  private static boolean wasNotSent(IOException e) {
+    return e instanceof ConnectException
+        || e instanceof ConnectTimeoutException
+        || e instanceof NoRouteToHostException;
+  }
+
+  private CircuitBreaker breakerOf(String host) {
+    CircuitBreaker breaker = breakers.get(host);
+    if (breaker == null) {
+      CircuitBreaker newBreaker =
+          new CircuitBreaker(host, failureThreshold, openNanos, ticker, stateListener);
+      breaker = breakers.putIfAbsent(host, newBreaker);
+      if (breaker == null) {
+        breaker = newBreaker;
+      }
+    }
+    return breaker;
+  }
+
+  /** @return number of repeated requests */
+  public long getRetries() {
+    return retries.get();
+  }
+
+  /** @return number of requests rejected by an open circuit breaker */
+  public long getRejected() {
+    return rejected.get();
+  }
+
+  /** @return how often circuit breakers changed to the given state */
+  public long getStateChanges(CircuitBreaker.State to) {
+    return stateChanges.get(to).get();
+  }
+
+  /** @return the circuit breaker states keyed by host */
+  public ImmutableMap<String, CircuitBreaker.State> getCircuitStates() {
+    ImmutableMap.Builder<String, CircuitBreaker.State> builder = ImmutableMap.builder();
+    for (Map.Entry<String, CircuitBreaker> entry : breakers.entrySet()) {
+      builder.put(entry.getKey(), entry.getValue().getState());
+    }
+    return builder.build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private int maxRetries = 3;
+    private long backoffMillis = 500;
+    private long maxBackoffMillis = TimeUnit.SECONDS.toMillis(30);
+    private boolean postRetries = false;
+    private ImmutableSet<Integer> retryStatusCodes = ImmutableSet.of(500, 502, 503, 504);
+    private int failureThreshold = 5;
+    private long openMillis = TimeUnit.SECONDS.toMillis(30);
+
+    /** @param maxRetries of one request; defaults to 3 */
+    public Builder withMaxRetries(int maxRetries) {
+      Preconditions.checkArgument(maxRetries >= 0, "maxRetries must not be negative");
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    /** First pause, doubled for each retry up to max; defaults to 500ms and 30s. */
+    public Builder withBackoff(long initial, long max, TimeUnit unit) {
+      Preconditions.checkArgument(initial > 0, "initial backoff must be positive");
+      Preconditions.checkArgument(max >= initial, "max backoff must not be lower than initial");
+      TimeUnit nonNullUnit = Checked.nonNull(unit, "unit");
+      this.backoffMillis = nonNullUnit.toMillis(initial);
+      this.maxBackoffMillis = nonNullUnit.toMillis(max);
+      return this;
+    }
+
+    /** @param postRetries if true, all POSTs are treated as safe to repeat; defaults to false */
+    public Builder withPostRetries(boolean postRetries) {
+      this.postRetries = postRetries;
+      return this;
+    }
+
+    /** @param statusCodes that are treated as transient; defaults to 500, 502, 503 and 504 */
+    public Builder withRetryStatusCodes(Integer... statusCodes) {
+      this.retryStatusCodes = ImmutableSet.copyOf(statusCodes);
+      return this;
+    }
+
+    /**
+     * @param failureThreshold consecutive failures that open the breaker of a host; defaults to 5
+     * @param openDuration time until a trial request is allowed; defaults to 30s
+     */
+    public Builder withCircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+      Preconditions.checkArgument(failureThreshold > 0, "failureThreshold must be positive");
+      Preconditions.checkArgument(openDuration > 0, "openDuration must be positive");
+      this.failureThreshold = failureThreshold;
+      this.openMillis = Checked.nonNull(unit, "unit").toMillis(openDuration);
+      return this;
+    }
+
+    public Builder withoutCircuitBreaker() {
+      this.failureThreshold = 0;
+      return this;
+    }
+
+    public RetryPolicy build() {
+      return new RetryPolicy(this, Ticker.systemTicker());
+    }
+  }
+}
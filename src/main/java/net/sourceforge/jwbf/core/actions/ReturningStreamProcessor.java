@@ -0,0 +1,24 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.google.common.annotations.Beta;
+
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+
+/**
+ * A {@link ReturningTextProcessor} that is able to parse the response body while it is read. If an
+ * action implements this interface, {@link HttpActionClient} passes the body as a {@link Reader}
+ * instead of copying it to a String first.
+ */
+@Beta
+public interface ReturningStreamProcessor extends ReturningTextProcessor {
+
+  /**
+   * @param reader of the response body, decoded with the charset of the action; it is closed by
+   *     the caller
+   * @return the returning text or a modification of it
+   */
+  String processReturningStream(Reader reader, HttpAction action) throws IOException;
+}
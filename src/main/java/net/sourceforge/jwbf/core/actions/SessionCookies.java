@@ -0,0 +1,52 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+
+import com.google.common.base.Joiner;
+import com.google.common.hash.Hashing;
+
+/**
+ * The cookies, which a client received, by name. Any transport keeps its own cookie store, but all
+ * responses pass the client, so their <code>Set-Cookie</code> headers identify its session for a
+ * {@link ResponseCache}. A changed cookie starts a new session; old entries are not reused.
+ */
+class SessionCookies {
+
+  // guarded by this
+  private final Map<String, String> cookies = new TreeMap<>();
+  private volatile String key = "";
+
+  void update(HttpResponse res) {
+    Header[] headers = res.getHeaders("Set-Cookie");
+    if (headers.length == 0) {
+      return;
+    }
+    synchronized (this) {
+      for (Header header : headers) {
+        String pair = header.getValue();
+        int end = pair.indexOf(';');
+        if (end >= 0) {
+          pair = pair.substring(0, end);
+        }
+        int separator = pair.indexOf('=');
+        if (separator > 0) {
+          cookies.put(pair.substring(0, separator).trim(), pair.substring(separator + 1).trim());
+        }
+      }
+      if (!cookies.isEmpty()) {
+        String joined = Joiner.on(';').withKeyValueSeparator("=").join(cookies);
+        key = Hashing.sha256().hashString(joined, StandardCharsets.UTF_8).toString();
+      }
+    }
+  }
+
+  /** @return a hash of all received cookies; empty before the first one */
+  String key() {
+    return key;
+  }
+}
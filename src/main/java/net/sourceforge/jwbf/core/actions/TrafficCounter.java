@@ -0,0 +1,97 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * Counts the response bytes of a {@link HttpActionClient} per action class, as they were received
+ * (compressed) and after decoding (uncompressed).
+ */
+@Beta
+public class TrafficCounter {
+
+  private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+  void add(Class<?> actionClass, long compressedBytes, long uncompressedBytes) {
+    String key = actionClass.getName();
+    Counter counter = counters.get(key);
+    if (counter == null) {
+      Counter newCounter = new Counter();
+      counter = counters.putIfAbsent(key, newCounter);
+      if (counter == null) {
+        counter = newCounter;
+      }
+    }
+    counter.add(compressedBytes, uncompressedBytes);
+  }
+
+  /** @return the traffic of all responses processed by the given action class */
+  public Traffic get(Class<?> actionClass) {
+    Counter counter = counters.get(actionClass.getName());
+    if (counter == null) {
+      return new Traffic(0, 0, 0);
+    }
+    return counter.toTraffic();
+  }
+
+  /** @return the traffic keyed by action class name */
+  public ImmutableSortedMap<String, Traffic> snapshot() {
+    ImmutableSortedMap.Builder<String, Traffic> builder = ImmutableSortedMap.naturalOrder();
+    for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+      builder.put(entry.getKey(), entry.getValue().toTraffic());
+    }
+    return builder.build();
+  }
+
+  private static class Counter {
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong compressed = new AtomicLong();
+    private final AtomicLong uncompressed = new AtomicLong();
+
+    void add(long compressedBytes, long uncompressedBytes) {
+      responses.incrementAndGet();
+      compressed.addAndGet(compressedBytes);
+      uncompressed.addAndGet(uncompressedBytes);
+    }
+
+    Traffic toTraffic() {
+      return new Traffic(responses.get(), compressed.get(), uncompressed.get());
+    }
+  }
+
+  public static class Traffic {
+    private final long responses;
+    private final long compressedBytes;
+    private final long uncompressedBytes;
+
+    Traffic(long responses, long compressedBytes, long uncompressedBytes) {
+      this.responses = responses;
+      this.compressedBytes = compressedBytes;
+      this.uncompressedBytes = uncompressedBytes;
+    }
+
+    public long getResponses() {
+      return responses;
+    }
+
+    /** @return bytes as received from the server */
+    public long getCompressedBytes() {
+      return compressedBytes;
+    }
+
+    /** @return bytes after decoding */
+    public long getUncompressedBytes() {
+      return uncompressedBytes;
+    }
+
+    @Override
+    public String toString() {
+      return responses + " responses, " + compressedBytes + "/" + uncompressedBytes + " bytes";
+    }
+  }
+}
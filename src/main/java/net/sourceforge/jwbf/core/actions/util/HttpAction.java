@@ -7,4 +7,14 @@ public interface HttpAction {
 
   /** @return like uft-8 */
   String getCharset();
+
+  /**
+   * Actions of this library assign their own ids; other implementations get one on first call.
+   *
+   * @return an id, that is unique for each action in this JVM; it is cheaper to correlate a
+   *     response with its action by this id than by comparing requests
+   */
+  default long getRequestId() {
+    return RequestIds.of(this);
+  }
 }
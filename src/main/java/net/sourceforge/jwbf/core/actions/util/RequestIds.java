@@ -0,0 +1,35 @@
+package net.sourceforge.jwbf.core.actions.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Ids for actions, which do not assign their own. They are negative, so they never meet the
+ * positive ids of Get and Post, and they are held weakly by identity of their action.
+ */
+final class RequestIds {
+
+  private static final AtomicLong LAST_ID = new AtomicLong();
+
+  private static final LoadingCache<HttpAction, Long> IDS =
+      CacheBuilder.newBuilder() //
+          .weakKeys() //
+          .build(
+              new CacheLoader<HttpAction, Long>() {
+                @Override
+                public Long load(HttpAction action) {
+                  return LAST_ID.decrementAndGet();
+                }
+              });
+
+  private RequestIds() {
+    // no instances
+  }
+
+  static long of(HttpAction action) {
+    return IDS.getUnchecked(action);
+  }
+}
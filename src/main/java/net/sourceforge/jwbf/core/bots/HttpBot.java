@@ -19,6 +19,7 @@
 package net.sourceforge.jwbf.core.bots;
 
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
 
 import net.sourceforge.jwbf.core.actions.ContentProcessable;
 import net.sourceforge.jwbf.core.actions.GetPage;
@@ -48,10 +49,15 @@ public class HttpBot {
   }
 
   /** @return http raw content */
-  public synchronized String performAction(final ContentProcessable a) {
+  public String performAction(final ContentProcessable a) {
     return actionClient.performAction(a);
   }
 
+  /** @return future of http raw content */
+  public CompletableFuture<String> performActionAsync(final ContentProcessable a) {
+    return actionClient.performActionAsync(a);
+  }
+
   public static String getPage(final HttpActionClient client) {
     GetPage gp = new GetPage(client.getUrl());
     new HttpBot(client).performAction(gp);
@@ -11,9 +11,10 @@ public class Checked {
     // do nothing
   }
 
+  /** The message is only formatted on failure; so checks in loops allocate nothing. */
   @Nonnull
   public static <T> T nonNull(@Nullable T t, String msg) {
-    return Preconditions.checkNotNull(t, String.valueOf(msg) + " must not be null");
+    return Preconditions.checkNotNull(t, "%s must not be null", msg);
   }
 
   @Nonnull
@@ -1,20 +1,43 @@
 package net.sourceforge.jwbf.mapper;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharStreams;
 
 import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 
 public class JsonMapper {
 
+  private static final JacksonToJsonFunction SHARED_JACKSON = new JacksonToJsonFunction();
+
   private final ToJsonFunction transfomer;
 
+  /** Uses a Jackson mapping, which is shared by all instances to reuse its caches. */
   public JsonMapper() {
-    this(new JacksonToJsonFunction());
+    this(SHARED_JACKSON);
   }
 
   public <T> JsonMapper(ToJsonFunction transfomer) {
@@ -26,13 +49,94 @@ public class JsonMapper {
     return (T) Checked.nonNull(transfomer.toJson(nonNullJson, clazz), "a json mapping result");
   }
 
+  /** Like {@link #get(String, Class)}, but the json is mapped while it is read. */
+  public <T> T read(Reader json, Class<T> clazz) {
+    Reader nonNullJson = Checked.nonNull(json, "json");
+    return (T) Checked.nonNull(transfomer.toJson(nonNullJson, clazz), "a json mapping result");
+  }
+
+  /** Like {@link #read(Reader, Class)}, but the json is encoded as utf-8. */
+  public <T> T read(InputStream json, Class<T> clazz) {
+    InputStream nonNullJson = Checked.nonNull(json, "json");
+    return (T) Checked.nonNull(transfomer.toJson(nonNullJson, clazz), "a json mapping result");
+  }
+
+  /** Like {@link #get(String, Class)}, but the json is encoded as utf-8. */
+  public <T> T read(byte[] json, Class<T> clazz) {
+    byte[] nonNullJson = Checked.nonNull(json, "json");
+    return (T) Checked.nonNull(transfomer.toJson(nonNullJson, clazz), "a json mapping result");
+  }
+
+  /**
+   * Streams the json once and collects the values of all paths. The json is always read with
+   * Jackson, also if this mapper was created with another {@link ToJsonFunction}.
+   *
+   * @throws ApiException if the root object contains an error
+   * @throws IllegalArgumentException if the json is invalid or two paths have the same keys
+   */
+  @Beta
+  public void stream(String json, JsonPath<?>... paths) {
+    jackson().stream(Checked.nonNull(json, "json"), distinct(paths));
+  }
+
+  /** Like {@link #stream(String, JsonPath...)}, but the json is mapped while it is read. */
+  @Beta
+  public void stream(Reader json, JsonPath<?>... paths) {
+    jackson().stream(Checked.nonNull(json, "json"), distinct(paths));
+  }
+
+  /** A value is read once, so it could only be collected by one of two paths with the same keys. */
+  private static ImmutableList<JsonPath<?>> distinct(JsonPath<?>... paths) {
+    Set<List<String>> names = new HashSet<>();
+    for (JsonPath<?> path : paths) {
+      if (!names.add(path.names())) {
+        throw new IllegalArgumentException("duplicate json path " + path.names());
+      }
+    }
+    return ImmutableList.copyOf(paths);
+  }
+
+  private JacksonToJsonFunction jackson() {
+    if (transfomer instanceof JacksonToJsonFunction) {
+      return (JacksonToJsonFunction) transfomer;
+    }
+    return SHARED_JACKSON;
+  }
+
   public interface ToJsonFunction {
     @Nonnull
     Object toJson(@Nonnull String jsonString, Class<?> clazz);
+
+    /** Reads the whole text; implementations should override this to map while reading. */
+    @Nonnull
+    default Object toJson(@Nonnull Reader json, Class<?> clazz) {
+      try {
+        return toJson(CharStreams.toString(json), clazz);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    /** Decodes the text; implementations should override this to map the bytes directly. */
+    @Nonnull
+    default Object toJson(@Nonnull byte[] json, Class<?> clazz) {
+      return toJson(new String(json, StandardCharsets.UTF_8), clazz);
+    }
+
+    /** Decodes the text; implementations should override this to map the bytes directly. */
+    @Nonnull
+    default Object toJson(@Nonnull InputStream json, Class<?> clazz) {
+      return toJson(new InputStreamReader(json, StandardCharsets.UTF_8), clazz);
+    }
   }
 
   static class JacksonToJsonFunction implements ToJsonFunction {
 
+    // a configured ObjectMapper and its ObjectReaders are thread-safe; the readers keep the
+    // deserializers of their class, so they are reused for all responses
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private ObjectMapper mapper;
+
     ObjectMapper newObjectMapper() {
       ObjectMapper mapper = new ObjectMapper();
       // TODO: find a better way to do this
@@ -40,12 +144,132 @@ public class JsonMapper {
       return mapper;
     }
 
+    @VisibleForTesting
+    ObjectReader readerOf(Class<?> clazz) {
+      ObjectReader reader = readers.get(clazz);
+      if (reader == null) {
+        ObjectReader newReader = mapper().readerFor(clazz);
+        reader = readers.putIfAbsent(clazz, newReader);
+        if (reader == null) {
+          reader = newReader;
+        }
+      }
+      return reader;
+    }
+
+    void stream(String json, ImmutableList<JsonPath<?>> paths) {
+      try {
+        stream(mapper().getFactory().createParser(json), paths);
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+
+    void stream(Reader json, ImmutableList<JsonPath<?>> paths) {
+      try {
+        stream(mapper().getFactory().createParser(json), paths);
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+
+    private void stream(JsonParser jsonParser, ImmutableList<JsonPath<?>> paths)
+        throws IOException {
+      try (JsonParser parser = jsonParser) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+          throw new IllegalArgumentException("json must be an object");
+        }
+        readObject(parser, new ArrayList<String>(), paths);
+      }
+    }
+
+    /** @param parser stands at the start of an object, which is found at the path */
+    private void readObject(JsonParser parser, List<String> path, ImmutableList<JsonPath<?>> paths)
+        throws IOException {
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        path.add(parser.getCurrentName());
+        JsonToken value = parser.nextToken();
+        if (path.size() == 1 && path.get(0).equals("error") && value == JsonToken.START_OBJECT) {
+          throw toApiException(readerOf(Map.class).<Map<String, Object>>readValue(parser));
+        }
+        JsonPath<?> matching = matching(path, paths);
+        if (matching != null) {
+          matching.read(parser, readerOf(matching.type()));
+        } else if (value == JsonToken.START_OBJECT && continues(path, paths)) {
+          readObject(parser, path, paths);
+        } else {
+          parser.skipChildren();
+        }
+        path.remove(path.size() - 1);
+      }
+    }
+
+    @CheckForNull
+    private static JsonPath<?> matching(List<String> path, ImmutableList<JsonPath<?>> paths) {
+      for (JsonPath<?> jsonPath : paths) {
+        if (jsonPath.matches(path)) {
+          return jsonPath;
+        }
+      }
+      return null;
+    }
+
+    private static boolean continues(List<String> path, ImmutableList<JsonPath<?>> paths) {
+      for (JsonPath<?> jsonPath : paths) {
+        if (jsonPath.continues(path)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static ApiException toApiException(Map<String, Object> error) {
+      return new ApiException(
+          String.valueOf(error.get("code")), String.valueOf(error.get("info")));
+    }
+
+    private synchronized ObjectMapper mapper() {
+      if (mapper == null) {
+        mapper = newObjectMapper();
+      }
+      return mapper;
+    }
+
     @Nonnull
     @Override
     public Object toJson(@Nonnull String jsonString, Class<?> clazz) {
       try {
-        // ObjectMapper stores mutable data so each mapping uses a fresh instance
-        return newObjectMapper().readValue(jsonString, clazz);
+        return readerOf(clazz).readValue(jsonString);
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+
+    @Nonnull
+    @Override
+    public Object toJson(@Nonnull Reader json, Class<?> clazz) {
+      try {
+        return readerOf(clazz).readValue(json);
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+
+    @Nonnull
+    @Override
+    public Object toJson(@Nonnull byte[] json, Class<?> clazz) {
+      try {
+        return readerOf(clazz).readValue(json);
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+
+    @Nonnull
+    @Override
+    public Object toJson(@Nonnull InputStream json, Class<?> clazz) {
+      try {
+        return readerOf(clazz).readValue(json);
       } catch (IOException e) {
         throw new IllegalArgumentException(e);
       }
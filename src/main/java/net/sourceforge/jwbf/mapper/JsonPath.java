@@ -0,0 +1,85 @@
+package net.sourceforge.jwbf.mapper;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableList;
+
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * Collects the values at a path of object keys, while a document is streamed by {@link
+ * JsonMapper#stream(String, JsonPath...)}. If the value is an array, each element is mapped on its
+ * own; no tree of the whole document is built. An instance collects the values of one read only.
+ */
+@Beta
+public final class JsonPath<T> {
+
+  private final ImmutableList<String> names;
+  private final Class<T> type;
+  private final ImmutableList.Builder<T> values = ImmutableList.builder();
+
+  private JsonPath(ImmutableList<String> names, Class<T> type) {
+    this.names = names;
+    this.type = type;
+  }
+
+  /**
+   * @param type of the value or of each element, if the value is an array
+   * @param first key in the root object
+   * @param keys of the following objects
+   */
+  public static <T> JsonPath<T> of(Class<T> type, String first, String... keys) {
+    ImmutableList<String> names =
+        ImmutableList.<String>builder() //
+            .add(Checked.nonNull(first, "first")) //
+            .add(keys) //
+            .build();
+    return new JsonPath<>(names, Checked.nonNull(type, "type"));
+  }
+
+  boolean matches(List<String> path) {
+    return names.equals(path);
+  }
+
+  /** @return true if the path leads to the values of this, but does not reach them yet */
+  boolean continues(List<String> path) {
+    if (names.size() <= path.size()) {
+      return false;
+    }
+    for (int i = 0; i < path.size(); i++) {
+      if (!names.get(i).equals(path.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  ImmutableList<String> names() {
+    return names;
+  }
+
+  Class<T> type() {
+    return type;
+  }
+
+  /** @param parser stands at the first token of the value */
+  void read(JsonParser parser, ObjectReader reader) throws IOException {
+    if (parser.currentToken() == JsonToken.START_ARRAY) {
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        values.add(reader.<T>readValue(parser));
+      }
+    } else if (parser.currentToken() != JsonToken.VALUE_NULL) {
+      values.add(reader.<T>readValue(parser));
+    }
+  }
+
+  /** @return the mapped values at this path in document order */
+  public ImmutableList<T> values() {
+    return values.build();
+  }
+}
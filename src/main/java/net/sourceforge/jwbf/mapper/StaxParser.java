@@ -0,0 +1,90 @@
+package net.sourceforge.jwbf.mapper;
+
+import java.io.Reader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+
+/**
+ * Reads the attributes of elements at paths in one pass with a StAX parser; no document is built.
+ */
+final class StaxParser {
+
+  private static final Logger log = LoggerFactory.getLogger(StaxParser.class);
+
+  private static final XMLInputFactory FACTORY = newFactory();
+
+  private StaxParser() {
+    // do nothing
+  }
+
+  private static XMLInputFactory newFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+
+  /**
+   * Collects the values of all paths in one pass.
+   *
+   * @throws ApiException if the root element has an error element
+   * @throws IllegalArgumentException if the xml is invalid
+   */
+  static void read(Reader xml, ImmutableList<XmlPath<?>> paths) {
+    XMLStreamReader reader = null;
+    try {
+      reader = FACTORY.createXMLStreamReader(xml);
+      XmlAttributes attributes = new XmlAttributes(reader);
+      int depth = 0;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          String name = reader.getLocalName();
+          if (depth == 2 && name.equals("error")) {
+            throw toApiException(attributes);
+          }
+          for (XmlPath<?> path : paths) {
+            path.startElement(depth, name, attributes);
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          for (XmlPath<?> path : paths) {
+            path.endElement(depth);
+          }
+          depth--;
+        }
+      }
+    } catch (XMLStreamException e) {
+      throw new IllegalArgumentException("no valid xml", e);
+    } finally {
+      close(reader);
+    }
+  }
+
+  private static ApiException toApiException(XmlAttributes error) {
+    ApiException exception =
+        new ApiException(error.getAttributeValue("code"), error.getAttributeValue("info"));
+    log.error(exception.getCode() + ": " + exception.getValue());
+    return exception;
+  }
+
+  private static void close(XMLStreamReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        log.debug("could not close reader", e);
+      }
+    }
+  }
+}
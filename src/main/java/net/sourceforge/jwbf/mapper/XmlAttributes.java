@@ -0,0 +1,58 @@
+package net.sourceforge.jwbf.mapper;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamReader;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+
+import net.sourceforge.jwbf.core.internal.NonnullFunction;
+
+/**
+ * The attributes of the element, where a streaming parser currently stands. Unlike {@link
+ * XmlElement} no document is built; so an instance is only valid while it is passed to a mapping
+ * function.
+ *
+ * @see XmlConverter#mapChildren(String, Function, String, String...)
+ */
+@Beta
+public final class XmlAttributes {
+
+  private final XMLStreamReader reader;
+
+  XmlAttributes(XMLStreamReader reader) {
+    this.reader = reader;
+  }
+
+  public String getQualifiedName() {
+    return reader.getLocalName();
+  }
+
+  @CheckForNull
+  public String getAttributeValue(String name) {
+    return reader.getAttributeValue(null, name);
+  }
+
+  public Optional<String> getAttributeValueOpt(String name) {
+    return Optional.fromNullable(getAttributeValue(name));
+  }
+
+  public String getAttributeValueNonNull(String name) {
+    return Preconditions.checkNotNull(
+        getAttributeValue(name), "attribute value for key: %s must not be null", name);
+  }
+
+  /** @return a function, that reads the value of the named attribute */
+  public static Function<XmlAttributes, String> toAttributeValue(final String name) {
+    return new NonnullFunction<XmlAttributes, String>() {
+      @Nonnull
+      @Override
+      protected String applyNonnull(@Nonnull XmlAttributes input) {
+        return input.getAttributeValueNonNull(name);
+      }
+    };
+  }
+}
@@ -2,22 +2,22 @@ package net.sourceforge.jwbf.mapper;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.jdom2.Document;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.InputSource;
+import org.w3c.dom.Node;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
@@ -27,7 +27,6 @@ import com.google.common.collect.Iterables;
 import net.sourceforge.jwbf.core.Optionals;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
-import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 
 public final class XmlConverter {
@@ -64,29 +63,117 @@ public final class XmlConverter {
     String xmlTrimmedInCauseOfMediawikiProblem = xml.trim();
     Optional<String> xmlStringOpt = Optionals.absentIfEmpty(xmlTrimmedInCauseOfMediawikiProblem);
     if (xmlStringOpt.isPresent()) {
-      SAXBuilder builder = new SAXBuilder();
-      org.jdom2.Element root;
       try {
         byte[] bytes = xmlTrimmedInCauseOfMediawikiProblem.getBytes(Charsets.UTF_8);
-        Document doc = builder.build(new ByteArrayInputStream(bytes));
-
-        root = doc.getRootElement();
-
+        return Optional.of(toRootElement(new SAXBuilder().build(new ByteArrayInputStream(bytes))));
       } catch (JDOMException e) {
         log.error(xml);
         return Optional.absent();
       } catch (IOException e) {
         throw new IllegalArgumentException(e);
       }
-      if (root == null) {
-        throw new ActionException("no root element found");
-      }
-      return Optional.of(new XmlElement(root));
     } else {
       return Optional.absent();
     }
   }
 
+  /**
+   * Like {@link #getRootElementWithError(String)}, but the document is parsed while it is read, so
+   * the raw text is never held in memory.
+   */
+  @Nonnull
+  public static XmlElement getRootElementWithError(final Reader xml) {
+    return Optionals.getOrThrow(getRootElementWithErrorOpt(xml), "Invalid XML");
+  }
+
+  static Optional<XmlElement> getRootElementWithErrorOpt(Reader xml) {
+    try {
+      PushbackReader reader = new PushbackReader(xml);
+      if (skipWhitespaceInCauseOfMediawikiProblem(reader)) {
+        return Optional.of(toRootElement(new SAXBuilder().build(reader)));
+      } else {
+        return Optional.absent();
+      }
+    } catch (JDOMException e) {
+      log.error("invalid xml", e);
+      return Optional.absent();
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * Maps the attributes of all elements at the path in one pass, without building a document like
+   * {@link #getChildOpt(String, String, String...)}; this is cheaper for large lists, where only a
+   * few attributes per element are read.
+   *
+   * @param mapper gets each element at the path in document order
+   * @param first name of the first child below the root element
+   * @param childNames of the following children
+   * @throws ApiException if the response contains an error
+   */
+  @Beta
+  public static <T> ImmutableList<T> mapChildren(
+      String xml, Function<XmlAttributes, T> mapper, String first, String... childNames) {
+    return mapChildren(new StringReader(xml), mapper, first, childNames);
+  }
+
+  /** @see #mapChildren(String, Function, String, String...) */
+  @Beta
+  public static <T> ImmutableList<T> mapChildren(
+      Reader xml, Function<XmlAttributes, T> mapper, String first, String... childNames) {
+    XmlPath<T> path = XmlPath.of(mapper, first, childNames);
+    read(xml, path);
+    return path.values();
+  }
+
+  /**
+   * Streams the document once and collects the values of all paths.
+   *
+   * @throws ApiException if the response contains an error
+   */
+  @Beta
+  public static void read(String xml, XmlPath<?>... paths) {
+    read(new StringReader(xml), paths);
+  }
+
+  /** @see #read(String, XmlPath...) */
+  @Beta
+  public static void read(Reader xml, XmlPath<?>... paths) {
+    try {
+      PushbackReader reader = new PushbackReader(xml);
+      if (skipWhitespaceInCauseOfMediawikiProblem(reader)) {
+        StaxParser.read(reader, ImmutableList.copyOf(paths));
+      } else {
+        throw new IllegalArgumentException("no valid xml");
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /** @return false if the reader has no more characters */
+  private static boolean skipWhitespaceInCauseOfMediawikiProblem(PushbackReader reader)
+      throws IOException {
+    int c = reader.read();
+    while (c != -1 && Character.isWhitespace(c)) {
+      c = reader.read();
+    }
+    if (c == -1) {
+      return false;
+    }
+    reader.unread(c);
+    return true;
+  }
+
+  private static XmlElement toRootElement(Document doc) {
+    org.jdom2.Element root = doc.getRootElement();
+    if (root == null) {
+      throw new ActionException("no root element found");
+    }
+    return new XmlElement(root);
+  }
+
   /**
    * Determines if the given XML Document contains an error message which then would printed by the
    * logger.
@@ -109,24 +196,53 @@ public final class XmlConverter {
     if (!rootXmlElement.isPresent()) {
       throw new IllegalArgumentException("\"" + xml + "\" is no valid xml");
     }
+    return failOnError(rootXmlElement.get());
+  }
+
+  /** @see #getRootElementWithError(Reader) */
+  @Nonnull
+  public static XmlElement getRootElement(Reader xml) {
+    Optional<XmlElement> rootXmlElement = getRootElementWithErrorOpt(xml);
+    if (!rootXmlElement.isPresent()) {
+      throw new IllegalArgumentException("no valid xml");
+    }
+    return failOnError(rootXmlElement.get());
+  }
+
+  private static XmlElement failOnError(XmlElement rootXmlElement) {
     Optional<ApiException> apiException =
-        getErrorElement(rootXmlElement.get()) //
+        getErrorElement(rootXmlElement) //
             .transform(toApiException());
     if (apiException.isPresent()) {
       throw apiException.get();
     }
-    return rootXmlElement.get();
+    return rootXmlElement;
   }
 
   public static String evaluateXpath(String xml, String xpath) {
-    XPath parser = XPathFactory.newInstance().newXPath();
+    return evaluateXpath(toXpathNode(xml), xpath);
+  }
+
+  /**
+   * Parses the xml once for several calls of {@link #evaluateXpath(Node, String)}.
+   *
+   * @throws IllegalArgumentException if the xml is invalid
+   */
+  @Beta
+  public static Node toXpathNode(String xml) {
+    return Xpaths.parse(xml);
+  }
+
+  /**
+   * Compiled expressions are cached, so evaluating the same expression again is cheap.
+   *
+   * @throws IllegalArgumentException if the expression is invalid
+   */
+  @Beta
+  public static String evaluateXpath(Node node, String xpath) {
     try {
-      XPathExpression titleParser = parser.compile(xpath);
-      ByteArrayInputStream byteStream //
-          = new ByteArrayInputStream(xml.getBytes(MediaWiki.getCharset()));
-      InputSource in = new InputSource(byteStream);
-      return titleParser.evaluate(in);
-    } catch (XPathExpressionException | UnsupportedEncodingException e) {
+      return Xpaths.compile(xpath).evaluate(node);
+    } catch (XPathExpressionException e) {
       throw new IllegalArgumentException(e);
     }
   }
@@ -139,8 +255,25 @@ public final class XmlConverter {
     return Optional.fromNullable(child);
   }
 
+  public static Optional<XmlElement> getChildOpt(
+      XmlElement rootElement, String first, String... childNames) {
+    XmlElement child = getChild(rootElement, first, childNames);
+    if (XmlElement.NULL_XML == child) {
+      return Optional.absent();
+    }
+    return Optional.fromNullable(child);
+  }
+
   @CheckForNull
   static XmlElement getChild(String xml, String first, String... childNames) {
+    if (first == null) {
+      return null;
+    }
+    return getChild(getRootElement(xml), first, childNames);
+  }
+
+  @CheckForNull
+  private static XmlElement getChild(XmlElement rootElement, String first, String... childNames) {
     if (first == null) {
       return null;
     }
@@ -149,8 +282,6 @@ public final class XmlConverter {
             .add(first) //
             .addAll(ImmutableList.copyOf(childNames)) //
             .build();
-
-    XmlElement rootElement = getRootElement(xml);
     return getChild(rootElement, names);
   }
 
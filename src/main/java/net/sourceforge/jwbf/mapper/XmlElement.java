@@ -7,10 +7,10 @@ import javax.annotation.Nullable;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
-import net.sourceforge.jwbf.core.internal.Checked;
 
 public class XmlElement {
 
@@ -45,7 +45,8 @@ public class XmlElement {
   }
 
   public String getAttributeValueNonNull(String name) {
-    return Checked.nonNull(getAttributeValue(name), "attribute value for key: " + name);
+    return Preconditions.checkNotNull(
+        getAttributeValue(name), "attribute value for key: %s must not be null", name);
   }
 
   @Deprecated
@@ -0,0 +1,64 @@
+package net.sourceforge.jwbf.mapper;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * Collects the mapped attributes of all elements at a path below the root element, while a
+ * document is streamed by {@link XmlConverter#read(String, XmlPath...)}. Several paths can be
+ * collected in the same pass. An instance collects the values of one read only.
+ */
+@Beta
+public final class XmlPath<T> {
+
+  private final ImmutableList<String> names;
+  private final Function<XmlAttributes, T> mapper;
+  private final ImmutableList.Builder<T> values = ImmutableList.builder();
+
+  // number of names, that match the current element or its ancestors
+  private int matched = 0;
+
+  private XmlPath(ImmutableList<String> names, Function<XmlAttributes, T> mapper) {
+    this.names = names;
+    this.mapper = mapper;
+  }
+
+  /**
+   * @param mapper gets each element at the path in document order
+   * @param first name of the first child below the root element
+   * @param childNames of the following children
+   */
+  public static <T> XmlPath<T> of(
+      Function<XmlAttributes, T> mapper, String first, String... childNames) {
+    ImmutableList<String> names =
+        ImmutableList.<String>builder() //
+            .add(Checked.nonNull(first, "first")) //
+            .add(childNames) //
+            .build();
+    return new XmlPath<>(names, Checked.nonNull(mapper, "mapper"));
+  }
+
+  /** @param depth of the element; the root element has depth 1 */
+  void startElement(int depth, String name, XmlAttributes attributes) {
+    if (depth - 2 == matched && matched < names.size() && name.equals(names.get(matched))) {
+      matched++;
+      if (matched == names.size()) {
+        values.add(mapper.apply(attributes));
+      }
+    }
+  }
+
+  void endElement(int depth) {
+    if (matched > 0 && depth - 1 == matched) {
+      matched--;
+    }
+  }
+
+  /** @return the mapped attributes of all elements at this path in document order */
+  public ImmutableList<T> values() {
+    return values.build();
+  }
+}
@@ -0,0 +1,91 @@
+package net.sourceforge.jwbf.mapper;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.ExecutionException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Compiled xpath expressions and document builders for {@link XmlConverter}. Factory lookups go
+ * through the service loader and are slow; so they happen once per thread. Neither the factories
+ * nor the compiled expressions are thread-safe, so each thread has its own.
+ */
+final class Xpaths {
+
+  /** Max number of compiled expressions per thread. */
+  static final int MAX_EXPRESSIONS = 64;
+
+  private static final ThreadLocal<LoadingCache<String, XPathExpression>> EXPRESSIONS =
+      new ThreadLocal<LoadingCache<String, XPathExpression>>() {
+        @Override
+        protected LoadingCache<String, XPathExpression> initialValue() {
+          final XPath xpath = XPathFactory.newInstance().newXPath();
+          return CacheBuilder.newBuilder() //
+              .maximumSize(MAX_EXPRESSIONS) //
+              .build(
+                  new CacheLoader<String, XPathExpression>() {
+                    @Override
+                    public XPathExpression load(String expression)
+                        throws XPathExpressionException {
+                      return xpath.compile(expression);
+                    }
+                  });
+        }
+      };
+
+  private static final ThreadLocal<DocumentBuilder> BUILDERS =
+      new ThreadLocal<DocumentBuilder>() {
+        @Override
+        protected DocumentBuilder initialValue() {
+          DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+          factory.setExpandEntityReferences(false);
+          try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            return factory.newDocumentBuilder();
+          } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      };
+
+  private Xpaths() {
+    // do nothing
+  }
+
+  /** @return the compiled expression of the current thread */
+  static XPathExpression compile(String xpath) {
+    try {
+      return EXPRESSIONS.get().get(xpath);
+    } catch (ExecutionException e) {
+      throw new IllegalArgumentException(e.getCause());
+    }
+  }
+
+  static Node parse(String xml) {
+    try {
+      DocumentBuilder builder = BUILDERS.get();
+      builder.reset();
+      builder.setErrorHandler(new DefaultHandler());
+      return builder.parse(new InputSource(new StringReader(xml)));
+    } catch (SAXException | IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+}
@@ -31,6 +31,47 @@ public class ApiRequestBuilder extends RequestBuilder {
     return this;
   }
 
+  /**
+   * https://www.mediawiki.org/wiki/API:JSON_version_2
+   *
+   * <p>Booleans are true/false and texts are plain values instead of "*" keys. Versions lower
+   * than MW1_25 ignore the formatversion and answer in the default json layout; so use it only for
+   * responses, whose decoders are independent of these differences.
+   */
+  public ApiRequestBuilder formatJsonVersion2() {
+    formatJson();
+    param("formatversion", 2);
+    return this;
+  }
+
+  /**
+   * Requests {@link #formatJsonVersion2()} from versions, that answer in its layout, and xml from
+   * older ones.
+   *
+   * @see #isJsonVersion2(MediaWiki.Version)
+   */
+  public ApiRequestBuilder formatJsonVersion2OrXml(@CheckForNull MediaWiki.Version version) {
+    return formatJsonVersion2OrXml(isJsonVersion2(version));
+  }
+
+  /** @param jsonVersion2 like {@link #isJsonVersion2(MediaWiki.Version)} */
+  @SuppressWarnings("deprecation")
+  public ApiRequestBuilder formatJsonVersion2OrXml(boolean jsonVersion2) {
+    if (jsonVersion2) {
+      return formatJsonVersion2();
+    }
+    return formatXml();
+  }
+
+  /**
+   * @return true if the version is MW1_25 or higher; released versions newer than the known ones
+   *     are {@link MediaWiki.Version#DEVELOPMENT}, like {@link
+   *     net.sourceforge.jwbf.mediawiki.actions.meta.GetVersion#getVersion()} detects them
+   */
+  public static boolean isJsonVersion2(@CheckForNull MediaWiki.Version version) {
+    return version != null && version.greaterEqThen(MediaWiki.Version.MW1_25);
+  }
+
   /**
    * https://www.mediawiki.org/wiki/API:Query#Continuing_queries
    *
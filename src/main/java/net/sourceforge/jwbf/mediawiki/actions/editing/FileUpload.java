@@ -19,13 +19,18 @@
 package net.sourceforge.jwbf.mediawiki.actions.editing;
 
 import java.util.Deque;
+import java.util.Iterator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Queues;
 
+import net.sourceforge.jwbf.core.actions.FileRegion;
+import net.sourceforge.jwbf.core.actions.ParamTuple;
 import net.sourceforge.jwbf.core.actions.Post;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
@@ -48,6 +53,10 @@ import net.sourceforge.jwbf.mediawiki.contentRep.SimpleFile;
  * $wgEnableUploads = true;
  * </pre>
  *
+ * <p>Files larger than the chunk size are sent in chunks to the upload stash and published when the
+ * last chunk arrived. If a chunk fails, e.g. because of a network error, perform this action again
+ * to resume the upload with the failed chunk.
+ *
  * @author Justus Bisser
  * @author Thomas Stock
  * @see <a href="http://www.mediawiki.org/wiki/Help:Configuration_settings#Uploads" >Upload
@@ -57,10 +66,19 @@ public class FileUpload extends MWAction {
 
   private static final Logger log = LoggerFactory.getLogger(FileUpload.class);
 
+  /** Files larger than this are uploaded in chunks by default. */
+  public static final long DEFAULT_CHUNK_SIZE = 5 * 1024 * 1024;
+
   private final Deque<HttpAction> actions;
   private UploadAction actionHandler;
 
   public FileUpload(final SimpleFile simpleFile, MediaWikiBot bot) {
+    this(simpleFile, bot, DEFAULT_CHUNK_SIZE);
+  }
+
+  /** @param chunkSize in bytes; larger files are sent in chunks of this size */
+  public FileUpload(final SimpleFile simpleFile, MediaWikiBot bot, long chunkSize) {
+    Preconditions.checkArgument(chunkSize > 0, "chunkSize must be positive");
     if (!simpleFile.isFile() || !simpleFile.canRead()) {
       throw new IllegalArgumentException("no such file " + simpleFile.getFile());
     }
@@ -71,7 +89,12 @@ public class FileUpload extends MWAction {
     if (!simpleFile.exists()) {
       throw new IllegalArgumentException("file not found " + simpleFile.getFile());
     }
-    actionHandler = new ApiUpload(simpleFile, bot.getVersion());
+    long fileSize = simpleFile.length();
+    if (fileSize > chunkSize) {
+      actionHandler = new ChunkedUpload(simpleFile, fileSize, chunkSize);
+    } else {
+      actionHandler = new ApiUpload(simpleFile, bot.getVersion());
+    }
     actions = actionHandler.getActions();
   }
 
@@ -79,10 +102,10 @@ public class FileUpload extends MWAction {
     this(new SimpleFile(filename), bot);
   }
 
-  /** {@inheritDoc} */
+  /** The message is only removed after its response was processed, to repeat failed messages. */
   @Override
   public HttpAction getNextMessage() {
-    return actions.pop();
+    return actions.element();
   }
 
   /** {@inheritDoc} */
@@ -93,7 +116,24 @@ public class FileUpload extends MWAction {
 
   @Override
   public String processReturningText(String xml, HttpAction hm) {
-    return actionHandler.handleResponse(xml, hm);
+    String result = actionHandler.handleResponse(xml, hm);
+    Iterator<HttpAction> iterator = actions.iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().getRequestId() == hm.getRequestId()) {
+        iterator.remove();
+        break;
+      }
+    }
+    return result;
+  }
+
+  private static void failOnError(XmlElement doc) {
+    Optional<ApiException> exceptionOptional =
+        doc.getErrorElement() //
+            .transform(XmlConverter.toApiException());
+    if (exceptionOptional.isPresent()) {
+      throw exceptionOptional.get();
+    }
   }
 
   private static class ApiUpload implements UploadAction {
@@ -118,30 +158,118 @@ public class FileUpload extends MWAction {
     public String handleResponse(String xml, HttpAction hm) {
       log.debug("{}", xml);
       XmlElement doc = XmlConverter.getRootElementWithError(xml);
-      Optional<ApiException> exceptionOptional =
-          doc.getErrorElement() //
-              .transform(XmlConverter.toApiException());
-      if (exceptionOptional.isPresent()) {
-        throw exceptionOptional.get();
-      } else {
-        if (uploadTokenAction != null) {
-          uploadTokenAction.processReturningText(xml, hm);
-          RequestBuilder requestBuilder =
-              new ApiRequestBuilder() //
-                  .action("upload") //
-                  .formatXml() //
-                  .param("filename", MediaWiki.urlEncode(simpleFile.getTitle())) //
-                  .postParam("text", simpleFile.getText())
-                  .postParam(uploadTokenAction.get().token()) //
-                  .param("ignorewarnings", true) //
-                  .postParam("file", simpleFile.getFile());
-          Post upload = requestBuilder.buildPost();
-          actions.add(upload);
-          uploadTokenAction = null; // XXX
+      failOnError(doc);
+      if (uploadTokenAction != null) {
+        uploadTokenAction.processReturningText(xml, hm);
+        RequestBuilder requestBuilder =
+            new ApiRequestBuilder() //
+                .action("upload") //
+                .formatXml() //
+                .param("filename", MediaWiki.urlEncode(simpleFile.getTitle())) //
+                .postParam("text", simpleFile.getText())
+                .postParam(uploadTokenAction.get().token()) //
+                .param("ignorewarnings", true) //
+                .postParam("file", simpleFile.getFile());
+        Post upload = requestBuilder.buildPost();
+        actions.add(upload);
+        uploadTokenAction = null; // XXX
+      }
+      // file upload requires enabled uploads, upload rights and filesystem permisions
+      return xml;
+    }
+  }
+
+  /**
+   * Sends the file in chunks to the upload stash (<code>stash=1</code>, <code>offset</code>,
+   * <code>filekey</code>) and publishes it from the stash after the last chunk.
+   */
+  @VisibleForTesting
+  static class ChunkedUpload implements UploadAction {
+    private final Deque<HttpAction> actions = Queues.newArrayDeque();
+    private final SimpleFile simpleFile;
+    private final long fileSize;
+    private final long chunkSize;
+    private GetApiToken uploadTokenAction;
+    private ParamTuple<String> token;
+    private Optional<String> filekey = Optional.absent();
+    private long offset = 0;
+    private boolean stashed = false;
+
+    ChunkedUpload(SimpleFile simpleFile, long fileSize, long chunkSize) {
+      this.simpleFile = simpleFile;
+      this.fileSize = fileSize;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public Deque<HttpAction> getActions() {
+      uploadTokenAction = new GetApiToken(Intoken.EDIT, simpleFile.getTitle());
+      actions.add(uploadTokenAction.popAction());
+      return actions;
+    }
+
+    @Override
+    public String handleResponse(String xml, HttpAction hm) {
+      log.debug("{}", xml);
+      XmlElement doc = XmlConverter.getRootElementWithError(xml);
+      failOnError(doc);
+      if (uploadTokenAction != null) {
+        uploadTokenAction.processReturningText(xml, hm);
+        token = uploadTokenAction.get().token();
+        uploadTokenAction = null;
+        actions.add(nextChunk());
+      } else if (!stashed) {
+        XmlElement upload = doc.getChild("upload");
+        String result = upload.getAttributeValueNonNull("result");
+        filekey = Optional.of(upload.getAttributeValueNonNull("filekey"));
+        if (result.equals("Continue")) {
+          offset = Long.parseLong(upload.getAttributeValueNonNull("offset"));
+          actions.add(nextChunk());
+        } else if (result.equals("Success")) {
+          offset = fileSize;
+          stashed = true;
+          actions.add(publish());
+        } else {
+          throw new ActionException("unexpected upload result: " + result);
         }
-        // file upload requires enabled uploads, upload rights and filesystem permisions
-        return xml;
       }
+      return xml;
+    }
+
+    @VisibleForTesting
+    long getOffset() {
+      return offset;
+    }
+
+    private Post nextChunk() {
+      long length = Math.min(chunkSize, fileSize - offset);
+      log.debug("upload chunk {}+{} of {}", offset, length, fileSize);
+      RequestBuilder requestBuilder =
+          newUploadRequest() //
+              .param("stash", 1) //
+              .param("filesize", Long.toString(fileSize)) //
+              .param("offset", Long.toString(offset)) //
+              .postParam("chunk", new FileRegion(simpleFile.getFile(), offset, length));
+      if (filekey.isPresent()) {
+        requestBuilder.param("filekey", filekey.get());
+      }
+      return requestBuilder.buildPost();
+    }
+
+    private Post publish() {
+      return newUploadRequest() //
+          .param("filekey", filekey.get()) //
+          .postParam("text", simpleFile.getText())
+          .buildPost();
+    }
+
+    private RequestBuilder newUploadRequest() {
+      return new ApiRequestBuilder() //
+          .action("upload") //
+          .formatXml() //
+          .param("filename", MediaWiki.urlEncode(simpleFile.getTitle())) //
+          .postParam(token) //
+          .param("ignorewarnings", true);
     }
   }
 
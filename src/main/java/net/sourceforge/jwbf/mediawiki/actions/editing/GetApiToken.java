@@ -1,19 +1,28 @@
 package net.sourceforge.jwbf.mediawiki.actions.editing;
 
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 
 import net.sourceforge.jwbf.core.Optionals;
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.ParamTuple;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
+import net.sourceforge.jwbf.mapper.JsonMapper;
+import net.sourceforge.jwbf.mapper.JsonPath;
 import net.sourceforge.jwbf.mapper.XmlConverter;
 import net.sourceforge.jwbf.mapper.XmlElement;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
@@ -21,7 +30,8 @@ import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.DequeMWAction;
 
 /**
- * This class get the token for some actions like delete or edit.
+ * This class get the token for some actions like delete or edit. Versions from MW1_25 on are
+ * requested in json format version 2, older and unknown ones in xml.
  *
  * @author Max Gensthaler
  * @author Thomas Stock
@@ -84,33 +94,53 @@ public class GetApiToken extends DequeMWAction<GetApiToken.TokenResponse> {
     IMPORT
   }
 
-  private static final ImmutableMap<Intoken, Function<XmlElement, String>> TOKEN_FUNCTIONS =
-      ImmutableMap.<Intoken, Function<XmlElement, String>>builder() //
-          .put(Intoken.DELETE, tokenFunctionOf("deletetoken")) //
-          .put(Intoken.EDIT, tokenFunctionOf("edittoken")) //
-          .put(Intoken.MOVE, tokenFunctionOf("movetoken")) //
-          .put(Intoken.PROTECT, tokenFunctionOf("protecttoken")) //
-          .put(Intoken.EMAIL, tokenFunctionOf("emailtoken")) //
-          .put(Intoken.BLOCK, tokenFunctionOf("blocktoken")) //
-          .put(Intoken.UNBLOCK, tokenFunctionOf("unblocktoken")) //
-          .put(Intoken.IMPORT, tokenFunctionOf("IMPORT")) //
+  private static final ImmutableMap<Intoken, String> TOKEN_KEYS =
+      ImmutableMap.<Intoken, String>builder() //
+          .put(Intoken.DELETE, "deletetoken") //
+          .put(Intoken.EDIT, "edittoken") //
+          .put(Intoken.MOVE, "movetoken") //
+          .put(Intoken.PROTECT, "protecttoken") //
+          .put(Intoken.EMAIL, "emailtoken") //
+          .put(Intoken.BLOCK, "blocktoken") //
+          .put(Intoken.UNBLOCK, "unblocktoken") //
+          .put(Intoken.IMPORT, "IMPORT") //
           .build();
 
+  private static final JsonMapper JSON_MAPPER = new JsonMapper();
+
   private Optional<String> token = Optional.absent();
 
   private final Intoken intoken;
 
+  private final boolean jsonVersion2;
+
   private final HttpAction msg;
 
   /**
-   * Constructs a new <code>GetToken</code> action.
+   * Constructs a new <code>GetToken</code> action for an unknown version.
    *
    * @param intoken type to get the token for
    * @param title title of the article to generate the token for
    */
   public GetApiToken(Intoken intoken, String title) {
-    super(generateTokenRequest(intoken, title));
+    this(intoken, title, null);
+  }
+
+  /**
+   * Constructs a new <code>GetToken</code> action.
+   *
+   * @param intoken type to get the token for
+   * @param title title of the article to generate the token for
+   * @param version of the wiki, which selects the response format
+   */
+  public GetApiToken(Intoken intoken, String title, @CheckForNull MediaWiki.Version version) {
+    this(intoken, title, ApiRequestBuilder.isJsonVersion2(version));
+  }
+
+  private GetApiToken(Intoken intoken, String title, boolean jsonVersion2) {
+    super(generateTokenRequest(intoken, title, jsonVersion2));
     this.intoken = intoken;
+    this.jsonVersion2 = jsonVersion2;
     msg = actions.getFirst(); // XXX realy nesessary?
   }
 
@@ -120,10 +150,10 @@ public class GetApiToken extends DequeMWAction<GetApiToken.TokenResponse> {
    * @param intoken type to get the urlEncodedToken for
    * @param title title of the article to generate the urlEncodedToken for
    */
-  private static Get generateTokenRequest(Intoken intoken, String title) {
+  private static Get generateTokenRequest(Intoken intoken, String title, boolean jsonVersion2) {
     return new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .formatJsonVersion2OrXml(jsonVersion2) //
         .param("prop", "info") //
         .param("intoken", intoken.toString().toLowerCase()) //
         .param("titles", MediaWiki.urlEncode(title)) //
@@ -133,11 +163,15 @@ public class GetApiToken extends DequeMWAction<GetApiToken.TokenResponse> {
   /** {@inheritDoc} */
   @Override
   public void processReturningText(String s, HttpAction hm) {
-    if (hm.getRequest().equals(msg.getRequest())) {
+    if (hm.getRequestId() == msg.getRequestId()) {
       log.debug("Got returning text: \"{}\"", s);
       try {
-        Optional<XmlElement> elem = XmlConverter.getChildOpt(s, "query", "pages", "page");
-        token = elem.transform(TOKEN_FUNCTIONS.get(intoken));
+        if (jsonVersion2) {
+          token = parseJson(s, TOKEN_KEYS.get(intoken));
+        } else {
+          Optional<XmlElement> elem = XmlConverter.getChildOpt(s, "query", "pages", "page");
+          token = elem.transform(tokenFunctionOf(TOKEN_KEYS.get(intoken)));
+        }
         // TODO check intoken from tokenfunc for null
 
         log.debug("urlEncodedToken = {} for: {}", token, msg.getRequest());
@@ -155,6 +189,15 @@ public class GetApiToken extends DequeMWAction<GetApiToken.TokenResponse> {
     }
   }
 
+  private static Optional<String> parseJson(String json, String key) {
+    JsonPath<TokenPage> pages = JsonPath.of(TokenPage.class, "query", "pages");
+    JSON_MAPPER.stream(json, pages);
+    if (pages.values().isEmpty()) {
+      return Optional.absent();
+    }
+    return Optional.fromNullable(pages.values().get(0).tokens.get(key));
+  }
+
   private static Function<XmlElement, String> tokenFunctionOf(final String key) {
     return new NonnullFunction<XmlElement, String>() {
 
@@ -165,4 +208,33 @@ public class GetApiToken extends DequeMWAction<GetApiToken.TokenResponse> {
       }
     };
   }
+
+  /** The tokens of a page of a json response by their keys, like "edittoken". */
+  private static final class TokenPage {
+    private final ImmutableMap<String, String> tokens;
+
+    private TokenPage(ImmutableMap<String, String> tokens) {
+      this.tokens = tokens;
+    }
+
+    @JsonCreator
+    private static TokenPage of(
+        @JsonProperty("deletetoken") String deleteToken,
+        @JsonProperty("edittoken") String editToken,
+        @JsonProperty("movetoken") String moveToken,
+        @JsonProperty("protecttoken") String protectToken,
+        @JsonProperty("emailtoken") String emailToken,
+        @JsonProperty("blocktoken") String blockToken,
+        @JsonProperty("unblocktoken") String unblockToken) {
+      Map<String, String> tokens = Maps.newHashMap();
+      tokens.put("deletetoken", deleteToken);
+      tokens.put("edittoken", editToken);
+      tokens.put("movetoken", moveToken);
+      tokens.put("protecttoken", protectToken);
+      tokens.put("emailtoken", emailToken);
+      tokens.put("blocktoken", blockToken);
+      tokens.put("unblocktoken", unblockToken);
+      return new TokenPage(ImmutableMap.copyOf(Maps.filterValues(tokens, Predicates.notNull())));
+    }
+  }
 }
@@ -18,20 +18,30 @@
  */
 package net.sourceforge.jwbf.mediawiki.actions.editing;
 
+import java.io.Reader;
 import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.CheckForNull;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 import net.sourceforge.jwbf.core.actions.Get;
+import net.sourceforge.jwbf.core.actions.ReturningStreamProcessor;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.mapper.JsonMapper;
+import net.sourceforge.jwbf.mapper.JsonPath;
 import net.sourceforge.jwbf.mapper.XmlConverter;
 import net.sourceforge.jwbf.mapper.XmlElement;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
@@ -40,14 +50,17 @@ import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 
 /**
- * Reads the content of a given article.
+ * Reads the content of a given article. Versions from MW1_25 on are requested in json format
+ * version 2, older and unknown ones in xml.
  *
  * @author Thomas Stock
  */
-public class GetRevision extends MWAction {
+public class GetRevision extends MWAction implements ReturningStreamProcessor {
 
   private static final Logger log = LoggerFactory.getLogger(GetRevision.class);
 
+  private static final JsonMapper JSON_MAPPER = new JsonMapper();
+
   private List<SimpleArticle> articles = Lists.newArrayList();
   private List<Optional<SimpleArticle>> articlesOpt = Lists.newArrayList();
   private final ImmutableList<String> names;
@@ -64,21 +77,30 @@ public class GetRevision extends MWAction {
 
   private final int properties;
 
+  private final boolean jsonVersion2;
+
   private final Get msg;
 
   /** TODO follow redirects. TODO change constructor field ordering; bot */
-  public GetRevision(Version v, String articlename, int properties) {
-    this(ImmutableList.of(articlename), properties);
+  public GetRevision(@CheckForNull Version v, String articlename, int properties) {
+    this(v, ImmutableList.of(articlename), properties);
   }
 
+  /** Like {@link #GetRevision(Version, ImmutableList, int)} for an unknown version. */
   public GetRevision(ImmutableList<String> names, int properties) {
+    this(null, names, properties);
+  }
+
+  /** @param v of the wiki, which selects the response format */
+  public GetRevision(@CheckForNull Version v, ImmutableList<String> names, int properties) {
     this.properties = properties;
     this.names = names;
+    this.jsonVersion2 = ApiRequestBuilder.isJsonVersion2(v);
     // TODO continue=-||
     msg =
         new ApiRequestBuilder() //
             .action("query") //
-            .formatXml() //
+            .formatJsonVersion2OrXml(jsonVersion2) //
             .param("prop", "revisions") //
             .param("titles", MediaWiki.urlEncode(MediaWiki.pipeJoined(names))) //
             .param("rvprop", getDataProperties(properties) + getReversion(properties)) //
@@ -89,8 +111,29 @@ public class GetRevision extends MWAction {
   /** {@inheritDoc} */
   @Override
   public String processReturningText(final String s, HttpAction ha) {
-    if (msg.getRequest().equals(ha.getRequest())) {
-      parse(s);
+    if (msg.getRequestId() == ha.getRequestId()) {
+      if (jsonVersion2) {
+        JsonPath<RevisionPage> pages = JsonPath.of(RevisionPage.class, "query", "pages");
+        JSON_MAPPER.stream(s, pages);
+        parse(pages.values());
+      } else {
+        parse(XmlConverter.getRootElement(s));
+      }
+    }
+    return "";
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String processReturningStream(Reader reader, HttpAction ha) {
+    if (msg.getRequestId() == ha.getRequestId()) {
+      if (jsonVersion2) {
+        JsonPath<RevisionPage> pages = JsonPath.of(RevisionPage.class, "query", "pages");
+        JSON_MAPPER.stream(reader, pages);
+        parse(pages.values());
+      } else {
+        parse(XmlConverter.getRootElement(reader));
+      }
     }
     return "";
   }
@@ -133,40 +176,58 @@ public class GetRevision extends MWAction {
     }
   }
 
-  private void parse(final String xml) {
+  private void parse(final XmlElement root) {
 
-    Optional<XmlElement> childOpt = XmlConverter.getChildOpt(xml, "query", "pages");
+    Optional<XmlElement> childOpt = XmlConverter.getChildOpt(root, "query", "pages");
     if (childOpt.isPresent()) {
       List<XmlElement> pages = childOpt.get().getChildren("page");
       for (XmlElement page : pages) {
-
-        SimpleArticle sa = new SimpleArticle();
-        sa.setTitle(page.getAttributeValue("title"));
+        Optional<Revision> revision = Optional.absent();
         Optional<XmlElement> revOpt = page.getChild("revisions").getChildOpt("rev");
         if (revOpt.isPresent()) {
           XmlElement rev = revOpt.get();
-          sa.setText(rev.getText());
-          sa.setRevisionId(rev.getAttributeValueOpt("revid").or(""));
-          sa.setEditSummary(rev.getAttributeValueOpt("comment").or(""));
-          sa.setEditor(rev.getAttributeValueOpt("user").or(""));
-          if (hasMarker(properties, TIMESTAMP)) {
-            sa.setEditTimestamp(rev.getAttributeValueOpt("timestamp").or(""));
-          }
-          if (hasMarker(properties, FLAGS)) {
-            if (rev.hasAttribute("minor")) {
-              sa.setMinorEdit(true);
-            } else {
-              sa.setMinorEdit(false);
-            }
-          }
-          articlesOpt.add(Optional.of(sa));
-        } else {
-          log.warn("Article '{}' is missing", sa.getTitle());
-          articlesOpt.add(Optional.<SimpleArticle>absent());
+          revision =
+              Optional.of(
+                  new Revision(
+                      rev.getText(),
+                      rev.getAttributeValueOpt("revid").or(""),
+                      rev.getAttributeValueOpt("comment").or(""),
+                      rev.getAttributeValueOpt("user").or(""),
+                      rev.getAttributeValueOpt("timestamp").or(""),
+                      rev.hasAttribute("minor")));
         }
-        articles.add(sa);
+        add(page.getAttributeValue("title"), revision);
+      }
+    }
+  }
+
+  private void parse(ImmutableList<RevisionPage> pages) {
+    for (RevisionPage page : pages) {
+      add(page.title, page.revision);
+    }
+  }
+
+  private void add(String title, Optional<Revision> revision) {
+    SimpleArticle sa = new SimpleArticle();
+    sa.setTitle(title);
+    if (revision.isPresent()) {
+      Revision rev = revision.get();
+      sa.setText(rev.text);
+      sa.setRevisionId(rev.revisionId);
+      sa.setEditSummary(rev.comment);
+      sa.setEditor(rev.user);
+      if (hasMarker(properties, TIMESTAMP)) {
+        sa.setEditTimestamp(rev.timestamp);
       }
+      if (hasMarker(properties, FLAGS)) {
+        sa.setMinorEdit(rev.minor);
+      }
+      articlesOpt.add(Optional.of(sa));
+    } else {
+      log.warn("Article '{}' is missing", sa.getTitle());
+      articlesOpt.add(Optional.<SimpleArticle>absent());
     }
+    articles.add(sa);
   }
 
   public SimpleArticle getArticle() {
@@ -190,4 +251,68 @@ public class GetRevision extends MWAction {
   public HttpAction getNextMessage() {
     return msg;
   }
+
+  /** A page of a json response; its revision is absent, if the page is missing. */
+  private static final class RevisionPage {
+    private final String title;
+    private final Optional<Revision> revision;
+
+    private RevisionPage(String title, Optional<Revision> revision) {
+      this.title = title;
+      this.revision = revision;
+    }
+
+    @JsonCreator
+    private static RevisionPage of(
+        @JsonProperty("title") String title,
+        @JsonProperty("revisions") List<Revision> revisions) {
+      Optional<Revision> revision = Optional.absent();
+      if (revisions != null && !revisions.isEmpty()) {
+        revision = Optional.of(revisions.get(0));
+      }
+      return new RevisionPage(title, revision);
+    }
+  }
+
+  /** The properties of a revision, which are read from both formats. */
+  private static final class Revision {
+    private final String text;
+    private final String revisionId;
+    private final String comment;
+    private final String user;
+    private final String timestamp;
+    private final boolean minor;
+
+    Revision(
+        String text,
+        String revisionId,
+        String comment,
+        String user,
+        String timestamp,
+        boolean minor) {
+      this.text = text;
+      this.revisionId = revisionId;
+      this.comment = comment;
+      this.user = user;
+      this.timestamp = timestamp;
+      this.minor = minor;
+    }
+
+    @JsonCreator
+    private static Revision of(
+        @JsonProperty("content") String content,
+        @JsonProperty("revid") Long revisionId,
+        @JsonProperty("comment") String comment,
+        @JsonProperty("user") String user,
+        @JsonProperty("timestamp") String timestamp,
+        @JsonProperty("minor") boolean minor) {
+      return new Revision(
+          Strings.nullToEmpty(content),
+          Objects.toString(revisionId, ""),
+          Strings.nullToEmpty(comment),
+          Strings.nullToEmpty(user),
+          Strings.nullToEmpty(timestamp),
+          minor);
+    }
+  }
 }
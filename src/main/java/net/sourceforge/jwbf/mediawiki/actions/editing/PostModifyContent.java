@@ -122,7 +122,7 @@ public class PostModifyContent extends MWAction {
 
   /** TODO only for testing */
   GetApiToken newTokenRequest() {
-    return new GetApiToken(GetApiToken.Intoken.EDIT, a.getTitle());
+    return new GetApiToken(GetApiToken.Intoken.EDIT, a.getTitle(), bot.getVersion());
   }
 
   /** {@inheritDoc} */
@@ -134,10 +134,10 @@ public class PostModifyContent extends MWAction {
   /** {@inheritDoc} */
   @Override
   public String processReturningText(String xml, HttpAction hm) {
-    String request = hm.getRequest();
-    if (request.equals(apiGet.getRequest())) {
+    long requestId = hm.getRequestId();
+    if (apiGet != null && requestId == apiGet.getRequestId()) {
       editTokeAction.processReturningText(xml, hm);
-    } else if (request.equals(editRequest.getRequest())) {
+    } else if (editRequest != null && requestId == editRequest.getRequestId()) {
       // FIXME feels very strage
       XmlConverter.getRootElement(xml);
     } else {
@@ -19,25 +19,40 @@
  */
 package net.sourceforge.jwbf.mediawiki.actions.login;
 
+import javax.annotation.CheckForNull;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import net.sourceforge.jwbf.core.actions.Post;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.actions.util.PermissionException;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mapper.JsonMapper;
+import net.sourceforge.jwbf.mapper.JsonPath;
 import net.sourceforge.jwbf.mapper.XmlConverter;
 import net.sourceforge.jwbf.mapper.XmlElement;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.contentRep.LoginData;
 
-/** @author Thomas Stock */
+/**
+ * Versions from MW1_25 on are requested in json format version 2, older and unknown ones in xml.
+ *
+ * @author Thomas Stock
+ */
 public class PostLogin extends MWAction {
 
   private static final Logger log = LoggerFactory.getLogger(PostLogin.class);
 
+  private static final JsonMapper JSON_MAPPER = new JsonMapper();
+
   private Post msg;
 
   private final String success = "Success";
@@ -50,17 +65,35 @@ public class PostLogin extends MWAction {
   private final String username;
   private final String pw;
   private final String domain;
+  private final boolean jsonVersion2;
 
   /**
+   * Like {@link #PostLogin(String, String, String, MediaWiki.Version)} for an unknown version.
+   *
    * @param username the
    * @param pw password
    * @param domain a
    */
   public PostLogin(final String username, final String pw, final String domain) {
+    this(username, pw, domain, null);
+  }
+
+  /**
+   * @param username the
+   * @param pw password
+   * @param domain a
+   * @param version of the wiki, which selects the response format
+   */
+  public PostLogin(
+      final String username,
+      final String pw,
+      final String domain,
+      @CheckForNull MediaWiki.Version version) {
     this.login = new LoginData();
     this.username = username;
     this.pw = pw;
     this.domain = domain;
+    this.jsonVersion2 = ApiRequestBuilder.isJsonVersion2(version);
     msg = getLoginMsg(username, pw, domain, null);
   }
 
@@ -69,7 +102,7 @@ public class PostLogin extends MWAction {
     RequestBuilder loginRequest =
         new ApiRequestBuilder() //
             .action("login") //
-            .formatXml() //
+            .formatJsonVersion2OrXml(jsonVersion2) //
             .postParam("lgname", username) //
             .postParam("lgpassword", pw);
     if (domain != null) {
@@ -84,22 +117,42 @@ public class PostLogin extends MWAction {
   /** {@inheritDoc} */
   @Override
   public String processAllReturningText(final String s) {
-    XmlElement root = XmlConverter.getRootElement(s);
-    findContent(root);
+    if (jsonVersion2) {
+      findContent(parseJson(s));
+    } else {
+      XmlElement root = XmlConverter.getRootElement(s);
+      findContent(root);
+    }
 
     return s;
   }
 
+  private static Login parseJson(String json) {
+    JsonPath<Login> login = JsonPath.of(Login.class, "login");
+    JSON_MAPPER.stream(json, login);
+    if (login.values().isEmpty()) {
+      throw new IllegalArgumentException("a login response must contain a login");
+    }
+    return login.values().get(0);
+  }
+
   /** @param startXmlElement the, where the search begins */
   private void findContent(final XmlElement startXmlElement) {
+    findContent(
+        startXmlElement.getChildAttributeValue("login", "result"),
+        startXmlElement.getChildAttributeValue("login", "lgusername"),
+        startXmlElement.getChildAttributeValue("login", "token"));
+  }
+
+  private void findContent(Login login) {
+    findContent(login.result, login.lgusername, login.token);
+  }
 
-    String result = startXmlElement.getChildAttributeValue("login", "result");
+  private void findContent(String result, String lgusername, String token) {
     if (result.equalsIgnoreCase(success)) {
-      login.setup(startXmlElement.getChildAttributeValue("login", "lgusername"), true);
+      login.setup(lgusername, true);
     } else if (result.equalsIgnoreCase(needToken) && reTryLimit) {
-      msg =
-          getLoginMsg(
-              username, pw, domain, startXmlElement.getChildAttributeValue("login", "token"));
+      msg = getLoginMsg(username, pw, domain, token);
       reTry = true;
       reTryLimit = false;
     } else if (result.equalsIgnoreCase(wrongPass)) {
@@ -127,4 +180,25 @@ public class PostLogin extends MWAction {
   public LoginData getLoginData() {
     return login;
   }
+
+  /** The login of a json response. */
+  private static final class Login {
+    private final String result;
+    private final String lgusername;
+    private final String token;
+
+    private Login(String result, String lgusername, String token) {
+      this.result = result;
+      this.lgusername = lgusername;
+      this.token = token;
+    }
+
+    @JsonCreator
+    private static Login of(
+        @JsonProperty("result") String result,
+        @JsonProperty("lgusername") String lgusername,
+        @JsonProperty("token") String token) {
+      return new Login(Checked.nonNull(result, "login result"), lgusername, token);
+    }
+  }
 }
@@ -20,11 +20,16 @@
 package net.sourceforge.jwbf.mediawiki.actions.meta;
 
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
 import com.google.common.collect.Sets;
 
 import net.sourceforge.jwbf.JWBF;
@@ -59,6 +64,12 @@ public class GetVersion extends MWAction {
     GENERATOR_EXT.add("wmf");
   }
 
+  /** Like "1.35" of "MediaWiki 1.35.0". */
+  private static final Pattern GENERATOR_NUMBER = Pattern.compile("(\\d+)\\.(\\d+)");
+
+  // the highest numbered version, including not released ones like MW1_25
+  private static final int LATEST_KNOWN_NUMBER = latestKnownNumber();
+
   /** Create the request. */
   public GetVersion() {
     msg =
@@ -69,7 +80,7 @@ public class GetVersion extends MWAction {
             .buildGet();
   }
 
-  private void parse(final String xml) {
+  protected void parse(final String xml) {
     XmlElement rootElement = XmlConverter.getRootElementWithError(xml);
     // XXX ignore errors here => fallback to unknown version
     findContent(rootElement);
@@ -97,6 +108,10 @@ public class GetVersion extends MWAction {
     return theCase;
   }
 
+  /**
+   * @return the version of the generator; versions newer than the latest known, like "MediaWiki
+   *     1.35.0", are {@link Version#DEVELOPMENT}, because they have at least its features
+   */
   public Version getVersion() {
     for (String generatorFragment : GENERATOR_EXT) {
       if (getGenerator().contains(generatorFragment)) {
@@ -104,9 +119,17 @@ public class GetVersion extends MWAction {
       }
     }
 
-    for (Version version : Version.values()) {
-      if (getGenerator().contains(version.getNumber())) {
-        return version;
+    Matcher matcher = GENERATOR_NUMBER.matcher(getGenerator());
+    if (matcher.find()) {
+      String number = Integer.parseInt(matcher.group(1)) + "." + Integer.parseInt(matcher.group(2));
+      for (Version version : Version.values()) {
+        if (version.getNumber().equals(number)) {
+          return version;
+        }
+      }
+      if (toNumber(matcher) > LATEST_KNOWN_NUMBER) {
+        log.debug("Version {} is newer than the known versions; using DEVELOPMENT", number);
+        return Version.DEVELOPMENT;
       }
     }
     if (log.isDebugEnabled()) {
@@ -124,6 +147,22 @@ public class GetVersion extends MWAction {
     return Version.UNKNOWN;
   }
 
+  private static int latestKnownNumber() {
+    int latest = 0;
+    for (Version version : Version.values()) {
+      Matcher matcher = GENERATOR_NUMBER.matcher(version.getNumber());
+      if (matcher.matches()) {
+        latest = Math.max(latest, toNumber(matcher));
+      }
+    }
+    return latest;
+  }
+
+  /** @return like 1035 for 1.35 */
+  private static int toNumber(Matcher majorMinor) {
+    return Integer.parseInt(majorMinor.group(1)) * 1000 + Integer.parseInt(majorMinor.group(2));
+  }
+
   /** @return the MediaWiki Generator, like "MediaWiki 1.16alpha" */
   public String getGenerator() {
     return generator;
@@ -151,9 +190,51 @@ public class GetVersion extends MWAction {
     }
   }
 
+  /** @param general of a siteinfo response in json format */
+  void findGeneral(final General general) {
+    mainpage = general.mainpage;
+    base = general.base;
+    sitename = general.sitename;
+    generator = general.generator;
+    theCase = general.theCase;
+  }
+
   /** {@inheritDoc} */
   @Override
   public HttpAction getNextMessage() {
     return msg;
   }
+
+  /** The general siteinfo of a json response; absent values are empty like in xml. */
+  static final class General {
+    private final String mainpage;
+    private final String base;
+    private final String sitename;
+    private final String generator;
+    private final String theCase;
+
+    private General(
+        String mainpage, String base, String sitename, String generator, String theCase) {
+      this.mainpage = mainpage;
+      this.base = base;
+      this.sitename = sitename;
+      this.generator = generator;
+      this.theCase = theCase;
+    }
+
+    @JsonCreator
+    private static General of(
+        @JsonProperty("mainpage") String mainpage,
+        @JsonProperty("base") String base,
+        @JsonProperty("sitename") String sitename,
+        @JsonProperty("generator") String generator,
+        @JsonProperty("case") String theCase) {
+      return new General(
+          Strings.nullToEmpty(mainpage),
+          Strings.nullToEmpty(base),
+          Strings.nullToEmpty(sitename),
+          Strings.nullToEmpty(generator),
+          Strings.nullToEmpty(theCase));
+    }
+  }
 }
@@ -1,25 +1,40 @@
 package net.sourceforge.jwbf.mediawiki.actions.meta;
 
+import java.util.List;
 import java.util.Map;
 
+import javax.annotation.CheckForNull;
+
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mapper.JsonMapper;
+import net.sourceforge.jwbf.mapper.JsonPath;
 import net.sourceforge.jwbf.mapper.XmlElement;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 
 /**
- * Gets details from the given MediaWiki installation like installed version.
+ * Gets details from the given MediaWiki installation like installed version. If the version is
+ * known, versions from MW1_25 on are requested in json format version 2, all others in xml.
  *
  * @author Thomas Stock
  * @see Siteinfo
  */
 public class Siteinfo extends GetVersion {
 
+  private static final JsonMapper JSON_MAPPER = new JsonMapper();
+
   private final Get msg;
+  private final boolean jsonVersion2;
   private final Map<Integer, String> namespaces = Maps.newHashMap();
   private final Map<String, String> interwiki = Maps.newHashMap();
 
@@ -48,11 +63,29 @@ public class Siteinfo extends GetVersion {
 
   /** @param types the, see {@link #GENERAL}, {@link #INTERWIKIMAP}, ... */
   public Siteinfo(String... types) {
+    this((MediaWiki.Version) null, types);
+  }
+
+  /**
+   * Like {@link #Siteinfo()}.
+   *
+   * @param version of the wiki, which selects the response format
+   */
+  public Siteinfo(@CheckForNull MediaWiki.Version version) {
+    this(version, GENERAL, NAMESPACES, INTERWIKIMAP);
+  }
+
+  /**
+   * @param version of the wiki, which selects the response format
+   * @param types the, see {@link #GENERAL}, {@link #INTERWIKIMAP}, ...
+   */
+  public Siteinfo(@CheckForNull MediaWiki.Version version, String... types) {
     String result = MediaWiki.pipeJoined(types);
+    jsonVersion2 = ApiRequestBuilder.isJsonVersion2(version);
     msg =
         new ApiRequestBuilder() //
             .action("query") //
-            .formatXml() //
+            .formatJsonVersion2OrXml(jsonVersion2) //
             .param("meta", "siteinfo") //
             .param("siprop", MediaWiki.urlEncode(result)) //
             .buildGet();
@@ -64,6 +97,31 @@ public class Siteinfo extends GetVersion {
     return msg;
   }
 
+  @Override
+  protected void parse(final String s) {
+    if (!jsonVersion2) {
+      super.parse(s);
+      return;
+    }
+    JsonPath<General> general = JsonPath.of(General.class, "query", "general");
+    JsonPath<Namespaces> namespacesById = JsonPath.of(Namespaces.class, "query", "namespaces");
+    JsonPath<Interwiki> interwikimap = JsonPath.of(Interwiki.class, "query", "interwikimap");
+    JSON_MAPPER.stream(s, general, namespacesById, interwikimap);
+    for (General generalValues : general.values()) {
+      findGeneral(generalValues);
+    }
+    for (Namespaces byId : namespacesById.values()) {
+      for (Namespace namespace : byId.namespaces) {
+        namespaces.put(namespace.id, namespace.name);
+      }
+    }
+    for (Interwiki iw : interwikimap.values()) {
+      if (iw.prefix != null) {
+        interwiki.put(iw.prefix, iw.url);
+      }
+    }
+  }
+
   @Override
   protected void findContent(final XmlElement root) {
     super.findContent(root);
@@ -94,4 +152,46 @@ public class Siteinfo extends GetVersion {
   public ImmutableMap<String, String> getInterwikis() {
     return ImmutableMap.copyOf(interwiki);
   }
+
+  /** The namespaces of a json response, which are keyed by their ids. */
+  private static final class Namespaces {
+    private final List<Namespace> namespaces = Lists.newArrayList();
+
+    @JsonAnySetter
+    private void put(String id, Namespace namespace) {
+      namespaces.add(namespace);
+    }
+  }
+
+  private static final class Namespace {
+    private final int id;
+    private final String name;
+
+    private Namespace(int id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    @JsonCreator
+    private static Namespace of(
+        @JsonProperty("id") Integer id, @JsonProperty("name") String name) {
+      return new Namespace(Checked.nonNull(id, "namespace id"), Strings.nullToEmpty(name));
+    }
+  }
+
+  private static final class Interwiki {
+    private final String prefix;
+    private final String url;
+
+    private Interwiki(String prefix, String url) {
+      this.prefix = prefix;
+      this.url = url;
+    }
+
+    @JsonCreator
+    private static Interwiki of(
+        @JsonProperty("prefix") String prefix, @JsonProperty("url") String url) {
+      return new Interwiki(prefix, Strings.nullToEmpty(url));
+    }
+  }
 }
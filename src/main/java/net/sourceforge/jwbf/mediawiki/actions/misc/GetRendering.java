@@ -1,11 +1,13 @@
 package net.sourceforge.jwbf.mediawiki.actions.misc;
 
+import java.io.Reader;
 import java.util.NoSuchElementException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sourceforge.jwbf.core.actions.Get;
+import net.sourceforge.jwbf.core.actions.ReturningStreamProcessor;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.actions.util.ProcessException;
@@ -23,7 +25,7 @@ import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
  * @see <a href="http://www.mediawiki.org/wiki/API:Expanding_templates_and_rendering#parse">
  *     API:Parsing wikitext</a>
  */
-public class GetRendering extends MWAction {
+public class GetRendering extends MWAction implements ReturningStreamProcessor {
 
   private static final Logger log = LoggerFactory.getLogger(GetRendering.class);
 
@@ -63,11 +65,22 @@ public class GetRendering extends MWAction {
   /** {@inheritDoc} */
   @Override
   public String processAllReturningText(String s) {
-    html = findElement("text", s).getText();
+    setHtml(findElement("text", s));
+    return "";
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String processReturningStream(Reader reader, HttpAction action) {
+    setHtml(findContent(XmlConverter.getRootElement(reader), "text"));
+    return "";
+  }
+
+  private void setHtml(XmlElement text) {
+    html = text.getText();
     html = html.replace("\n", "");
     int last = html.lastIndexOf("<!--");
     html = html.substring(0, last);
-    return "";
   }
 
   protected XmlElement findElement(String elementName, String xml) {
@@ -30,9 +30,10 @@ import com.google.common.collect.ImmutableList;
 
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.RequestTemplate;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.XmlAttributes;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
@@ -61,6 +62,8 @@ public class AllPageTitles extends BaseQuery<String> {
 
   private final RedirectFilter rf;
 
+  private RequestTemplate template;
+
   /**
    * The public constructor. It will have an MediaWiki-request generated, which is then added to
    * msgs. When it is answered, the method processAllReturningText will be called (from outside this
@@ -98,26 +101,31 @@ public class AllPageTitles extends BaseQuery<String> {
    */
   protected Get generateRequest(
       Optional<String> from, String prefix, RedirectFilter rf, String namespace) {
+    RequestBuilder requestBuilder = newRequestBuilder(prefix, rf, namespace);
+    if (from.isPresent()) {
+      requestBuilder.param("apfrom", MediaWiki.urlEncode(from.get()));
+    }
+    return requestBuilder.buildGet();
+  }
+
+  private RequestBuilder newRequestBuilder(String prefix, RedirectFilter rf, String namespace) {
     RequestBuilder requestBuilder =
         new ApiRequestBuilder() //
             .action("query") //
             .paramNewContinue(bot().getVersion()) //
-            .formatXml() //
+            .formatJsonVersion2OrXml(isJsonVersion2()) //
             .param("list", "allpages") //
             .param("apfilterredir", findRedirectFilterValue(rf)) //
-            .param("aplimit", LIMIT) //
+            .param("aplimit", limitOr(LIMIT)) //
         ;
 
-    if (from.isPresent()) {
-      requestBuilder.param("apfrom", MediaWiki.urlEncode(from.get()));
-    }
     if (!Strings.isNullOrEmpty(prefix)) {
       requestBuilder.param("apprefix", MediaWiki.urlEncode(prefix));
     }
     if (!Strings.isNullOrEmpty(namespace)) {
       requestBuilder.param("apnamespace", MediaWiki.urlEncode(namespace));
     }
-    return requestBuilder.buildGet();
+    return requestBuilder;
   }
 
   protected String findRedirectFilterValue(RedirectFilter rf) {
@@ -138,16 +146,16 @@ public class AllPageTitles extends BaseQuery<String> {
    */
   @Override
   protected ImmutableList<String> parseElements(String s) {
-    ImmutableList.Builder<String> titles = ImmutableList.builder();
-    Optional<XmlElement> child = XmlConverter.getChildOpt(s, "query", "allpages");
-    if (child.isPresent()) {
-      for (XmlElement pageElement : child.get().getChildren("p")) {
-        String title = pageElement.getAttributeValue("title");
-        log.debug("Found article title: \"{}\"", title);
-        titles.add(title);
-      }
+    final ImmutableList<String> titles;
+    if (isJsonVersion2()) {
+      titles = parsePage(s).getElements();
+    } else {
+      titles =
+          XmlConverter.mapChildren(
+              s, XmlAttributes.toAttributeValue("title"), "query", "allpages", "p");
     }
-    return titles.build();
+    log.debug("Found article titles: {}", titles);
+    return titles;
   }
 
   /**
@@ -159,13 +167,35 @@ public class AllPageTitles extends BaseQuery<String> {
    */
   @Override
   protected Optional<String> parseHasMore(final String xml) {
+    if (isJsonVersion2()) {
+      return parsePage(xml).getNextPageInfo();
+    }
     return parseXmlHasMore(xml, "allpages", "apfrom", "apcontinue");
   }
 
+  @Override
+  protected Page<String> parsePage(String s) {
+    if (isJsonVersion2()) {
+      return parseJsonPage(
+          s, "allpages", ListItem.class, ListItem.TO_TITLE, "apfrom", "apcontinue");
+    }
+    return parseXmlPage(
+        s, "allpages", "p", XmlAttributes.toAttributeValue("title"), "apfrom", "apcontinue");
+  }
+
   /** {@inheritDoc} */
   @Override
   protected HttpAction prepareNextRequest() {
-    return generateRequest(nextPageInfoOpt(), prefix, rf, MWAction.createNsString(namespaces));
+    if (template == null) {
+      template =
+          newRequestBuilder(prefix, rf, MWAction.createNsString(namespaces)).buildTemplate();
+    }
+    Optional<String> apfrom = nextPageInfoOpt();
+    if (apfrom.isPresent()) {
+      return template.buildGet("apfrom", MediaWiki.urlEncode(apfrom.get()));
+    } else {
+      return template.buildGet();
+    }
   }
 
   /** {@inheritDoc} */
@@ -20,7 +20,6 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import java.util.Iterator;
-import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,12 +27,12 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 
-import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.RequestTemplate;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.Checked;
 import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.XmlAttributes;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
@@ -59,6 +58,8 @@ public class BacklinkTitles extends BaseQuery<String> {
   private final RedirectFilter redirectFilter;
   private final ImmutableList<Integer> namespaces;
 
+  private RequestTemplate template;
+
   BacklinkTitles(
       MediaWikiBot bot,
       String articleName,
@@ -109,9 +110,27 @@ public class BacklinkTitles extends BaseQuery<String> {
    */
   @Override
   protected Optional<String> parseHasMore(final String xml) {
+    if (isJsonVersion2()) {
+      return parsePage(xml).getNextPageInfo();
+    }
     return parseXmlHasMore(xml, "backlinks", "blcontinue", "blcontinue");
   }
 
+  @Override
+  protected Page<String> parsePage(String xml) {
+    if (isJsonVersion2()) {
+      return parseJsonPage(
+          xml, "backlinks", ListItem.class, ListItem.TO_TITLE, "blcontinue", "blcontinue");
+    }
+    return parseXmlPage(
+        xml,
+        "backlinks",
+        "bl",
+        XmlAttributes.toAttributeValue("title"),
+        "blcontinue",
+        "blcontinue");
+  }
+
   /**
    * picks the article name from a MediaWiki api response.
    *
@@ -119,15 +138,11 @@ public class BacklinkTitles extends BaseQuery<String> {
    */
   @Override
   protected ImmutableList<String> parseElements(String xml) {
-    Optional<XmlElement> child = XmlConverter.getChildOpt(xml, "query", "backlinks");
-    ImmutableList.Builder<String> titleCollection = ImmutableList.builder();
-    if (child.isPresent()) {
-      List<XmlElement> backlinks = child.get().getChildren("bl");
-      for (XmlElement backlink : backlinks) {
-        titleCollection.add(backlink.getAttributeValue("title"));
-      }
+    if (isJsonVersion2()) {
+      return parsePage(xml).getElements();
     }
-    return titleCollection.build();
+    return XmlConverter.mapChildren(
+        xml, XmlAttributes.toAttributeValue("title"), "query", "backlinks", "bl");
   }
 
   private RequestBuilder newRequestBuilder(
@@ -137,9 +152,9 @@ public class BacklinkTitles extends BaseQuery<String> {
         new ApiRequestBuilder() //
             .action("query") //
             .paramNewContinue(bot.getVersion()) //
-            .formatXml() //
+            .formatJsonVersion2OrXml(isJsonVersion2()) //
             .param("list", "backlinks") //
-            .param("bllimit", backlinksPerRequestLimit) //
+            .param("bllimit", limitOr(backlinksPerRequestLimit)) //
             .param("bltitle", MediaWiki.urlEncode(title)) //
             .param("blfilterredir", MediaWiki.urlEncode(redirectFilter.toString()));
 
@@ -150,29 +165,15 @@ public class BacklinkTitles extends BaseQuery<String> {
     return builder;
   }
 
-  private Get newInitialRequest(
-      String articleName, RedirectFilter redirectFilter, ImmutableList<Integer> namespace) {
-    RequestBuilder requestBuilder = newRequestBuilder(articleName, redirectFilter, namespace);
-
-    return requestBuilder.buildGet();
-  }
-
-  private Get newContinueRequest(
-      String articleName,
-      RedirectFilter redirectFilter,
-      ImmutableList<Integer> namespaces,
-      String blcontinue) {
-    return newRequestBuilder(articleName, redirectFilter, namespaces) //
-        .param("blcontinue", MediaWiki.urlEncode(blcontinue)) //
-        .buildGet();
-  }
-
   @Override
   protected HttpAction prepareNextRequest() {
+    if (template == null) {
+      template = newRequestBuilder(articleName, redirectFilter, namespaces).buildTemplate();
+    }
     if (hasNextPageInfo()) {
-      return newContinueRequest(articleName, redirectFilter, namespaces, getNextPageInfo());
+      return template.buildGet("blcontinue", MediaWiki.urlEncode(getNextPageInfo()));
     } else {
-      return newInitialRequest(articleName, redirectFilter, namespaces);
+      return template.buildGet();
     }
   }
 }
@@ -1,20 +1,40 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.annotation.Nonnull;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import net.sourceforge.jwbf.core.Optionals;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.core.internal.NonnullFunction;
+import net.sourceforge.jwbf.mapper.JsonMapper;
+import net.sourceforge.jwbf.mapper.JsonPath;
+import net.sourceforge.jwbf.mapper.XmlAttributes;
 import net.sourceforge.jwbf.mapper.XmlConverter;
 import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.XmlPath;
+import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 
@@ -26,12 +46,31 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
 
   private static final Logger log = LoggerFactory.getLogger(BaseQuery.class);
 
+  /**
+   * Threads of the default prefetch executor; each iterator occupies at most one of them at a time.
+   */
+  @VisibleForTesting static final int PREFETCH_THREADS = 20;
+
+  /**
+   * Waiting requests of the default prefetch executor; if it is full, the consumer performs its
+   * request by itself.
+   */
+  @VisibleForTesting static final int PREFETCH_QUEUE = 100;
+
+  @VisibleForTesting
+  static final ThreadPoolExecutor PREFETCH_EXECUTOR = newPrefetchExecutor();
+
+  private static final JsonMapper JSON_MAPPER = new JsonMapper();
+
   private Iterator<T> titleIterator = ImmutableList.<T>of().iterator();
   private final QueryAction inner;
   private final MediaWikiBot bot;
   private ImmutableList<T> oldTitlesForLogging = ImmutableList.of();
 
   private Optional<String> nextPageInfo = Optional.absent();
+  private Optional<String> limit = Optional.absent();
+  // the response format; resolved once with the first request
+  private volatile Boolean jsonVersion2;
 
   protected final String setNextPageInfo(String nextPageInfo) {
     this.nextPageInfo = Optionals.absentIfEmpty(nextPageInfo);
@@ -59,11 +98,134 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
     return new QueryAction();
   }
 
+  /**
+   * Sets the number of elements per request; set it before the iteration starts. Iterators of this
+   * query use the same limit.
+   *
+   * @param limit must not exceed the limit of the api module for the account, usually 500 or 5000
+   *     with the apihighlimits right
+   */
+  @Beta
+  public BaseQuery<T> withLimit(int limit) {
+    Preconditions.checkArgument(limit > 0, "limit must be positive");
+    this.limit = Optional.of(Integer.toString(limit));
+    return this;
+  }
+
+  /**
+   * Requests as many elements per request as the api module allows for the account of the bot,
+   * e.g. 5000 instead of 500 with the apihighlimits right. The api resolves the limit itself, so no
+   * extra request for the rights of the account is needed.
+   *
+   * @see #withLimit(int)
+   */
+  @Beta
+  public BaseQuery<T> withMaxLimit() {
+    this.limit = Optional.of("max");
+    return this;
+  }
+
+  /** @return the configured limit or the given default for the limit parameter of a request */
+  protected final String limitOr(int defaultLimit) {
+    return limitOr(Integer.toString(defaultLimit));
+  }
+
+  protected final String limitOr(String defaultLimit) {
+    return limit.or(defaultLimit);
+  }
+
   @Beta
   public Iterable<T> lazy() {
     return this;
   }
 
+  /**
+   * Like {@link #lazy()}, but each iterator requests the following pages in the background, while
+   * the elements of the current page are consumed. So the network round trip of a page and the
+   * processing of the previous one overlap. The requests of one iterator are performed one after
+   * another, because each depends on the continuation of its predecessor.
+   *
+   * @param executor performs the requests
+   * @param depth max number of pages, that are requested ahead of the consumer
+   */
+  @Beta
+  public Iterable<T> prefetching(final Executor executor, final int depth) {
+    Checked.nonNull(executor, "executor");
+    Preconditions.checkArgument(depth > 0, "depth must be positive");
+    return new Iterable<T>() {
+      @Override
+      public Iterator<T> iterator() {
+        return new PrefetchIterator<>(queryCopy(), executor, depth);
+      }
+    };
+  }
+
+  private static ThreadPoolExecutor newPrefetchExecutor() {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            PREFETCH_THREADS,
+            PREFETCH_THREADS,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(PREFETCH_QUEUE),
+            new ThreadFactoryBuilder() //
+                .setDaemon(true) //
+                .setNameFormat("jwbf-prefetch-%d") //
+                .build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Like {@link #prefetching(Executor, int)} with a shared executor of {@value #PREFETCH_THREADS}
+   * daemon threads. If more than {@value #PREFETCH_QUEUE} requests wait for a thread, a request is
+   * performed by the thread, which schedules it.
+   */
+  @Beta
+  public Iterable<T> prefetching(int depth) {
+    return prefetching(PREFETCH_EXECUTOR, depth);
+  }
+
+  /** @return a new query with the settings of this, which has read no page yet */
+  @SuppressWarnings("unchecked")
+  BaseQuery<T> queryCopy() {
+    Iterator<T> copy = iterator();
+    if (copy instanceof BaseQuery) {
+      return (BaseQuery<T>) copy;
+    }
+    throw new IllegalStateException("copy must return a query, but was " + copy.getClass());
+  }
+
+  /**
+   * A sequential stream of all elements; pages are requested while the stream is consumed.
+   *
+   * @see #parallelStream()
+   */
+  @Beta
+  public Stream<T> stream() {
+    return StreamSupport.stream(new PageSpliterator<>(queryCopy()), false);
+  }
+
+  /**
+   * A parallel stream of all elements, which hands each fetched page to another worker. The pages
+   * are still requested one after another, but the processing of their elements runs on many
+   * cores.
+   */
+  @Beta
+  public Stream<T> parallelStream() {
+    return StreamSupport.stream(new PageSpliterator<>(queryCopy()), true);
+  }
+
+  /**
+   * A publisher of all elements; each subscription reads its own copy of this query. Pages are
+   * requested without blocking and only when subscribers signal demand.
+   */
+  @Beta
+  public QueryPublisher<T> publisher() {
+    return new QueryPublisher<>(this);
+  }
+
   @Beta
   public ImmutableList<T> getCopyOf(int count) {
     return ImmutableList.copyOf(Iterables.limit(lazy(), count));
@@ -72,7 +234,11 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
   /** {@inheritDoc} */
   @Override
   public final Iterator<T> iterator() {
-    return copy();
+    Iterator<T> copy = copy();
+    if (copy instanceof BaseQuery) {
+      ((BaseQuery<?>) copy).limit = limit;
+    }
+    return copy;
   }
 
   protected abstract Iterator<T> copy();
@@ -112,6 +278,96 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
     }
   }
 
+  /**
+   * Reads the elements of a list and the continuation of a response in one pass.
+   *
+   * @param elementName of the list, like "allpages"
+   * @param childName of each element in the list, like "p"
+   * @param mapper gets each element of the list
+   * @see #parseXmlHasMore(String, String, String, String)
+   */
+  @Beta
+  protected Page<T> parseXmlPage(
+      String xml,
+      String elementName,
+      String childName,
+      Function<XmlAttributes, T> mapper,
+      String attributeKey,
+      String newContinueKey) {
+    XmlPath<T> elements = XmlPath.of(mapper, "query", elementName, childName);
+    XmlPath<Optional<String>> aContinue =
+        XmlPath.of(toAttributeValueOpt(newContinueKey), "continue");
+    XmlPath<Optional<String>> queryContinue =
+        XmlPath.of(toAttributeValueOpt(attributeKey), "query-continue", elementName);
+    XmlConverter.read(xml, elements, aContinue, queryContinue);
+
+    ImmutableList<Optional<String>> continues = aContinue.values();
+    if (continues.isEmpty()) {
+      // XXX fallback for < MW1_19
+      continues = queryContinue.values();
+    }
+    return new Page<>(elements.values(), Iterables.getFirst(continues, Optional.<String>absent()));
+  }
+
+  /**
+   * Reads the elements of a list and the continuation of a json response in one pass, like {@link
+   * #parseXmlPage(String, String, String, Function, String, String)}.
+   *
+   * @param listName like "allpages"
+   * @param type of each element in the list
+   * @param mapper gets each element of the list
+   * @param attributeKey of the continuation in "query-continue", which is returned instead of
+   *     "continue" by versions without new continuation
+   */
+  @Beta
+  protected <E> Page<T> parseJsonPage(
+      String json,
+      String listName,
+      Class<E> type,
+      Function<? super E, T> mapper,
+      String attributeKey,
+      String newContinueKey) {
+    JsonPath<E> elements = JsonPath.of(type, "query", listName);
+    JsonPath<String> aContinue = JsonPath.of(String.class, "continue", newContinueKey);
+    JsonPath<String> queryContinue =
+        JsonPath.of(String.class, "query-continue", listName, attributeKey);
+    JSON_MAPPER.stream(json, elements, aContinue, queryContinue);
+
+    ImmutableList<String> continues = aContinue.values();
+    if (continues.isEmpty()) {
+      continues = queryContinue.values();
+    }
+    ImmutableList<T> mapped = FluentIterable.from(elements.values()).transform(mapper).toList();
+    return new Page<>(mapped, Optional.fromNullable(Iterables.getFirst(continues, null)));
+  }
+
+  /**
+   * The format is resolved from the version of the wiki, when it is first needed, usually while
+   * the first request is built; this query and its parsers keep it from then on.
+   *
+   * @return true if the requests of this query are answered in json format version 2
+   * @see ApiRequestBuilder#formatJsonVersion2OrXml(boolean)
+   */
+  protected final boolean isJsonVersion2() {
+    Boolean json = jsonVersion2;
+    if (json == null) {
+      json = ApiRequestBuilder.isJsonVersion2(bot.getVersion());
+      jsonVersion2 = json;
+    }
+    return json;
+  }
+
+  private static Function<XmlAttributes, Optional<String>> toAttributeValueOpt(
+      final String name) {
+    return new NonnullFunction<XmlAttributes, Optional<String>>() {
+      @Nonnull
+      @Override
+      protected Optional<String> applyNonnull(@Nonnull XmlAttributes input) {
+        return input.getAttributeValueOpt(name);
+      }
+    };
+  }
+
   /**
    * @return the first and all following requests; depends on {@link #parseHasMore(String)}. Its
    *     implementation may ask {@link #nextPageInfoOpt()} for continuation value.
@@ -119,13 +375,43 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
   protected abstract HttpAction prepareNextRequest();
 
   private void doCollection() {
+    while (inner.init || (!titleIterator.hasNext() && hasNextPageInfo())) {
+      titleIterator = fetchPage().getElements().iterator();
+    }
+  }
 
-    if (inner.init || (!titleIterator.hasNext() && hasNextPageInfo())) {
-      inner.init = false;
-      inner.setHasMoreMessages(true);
-      inner.msg = prepareNextRequest();
-      bot.getPerformedAction(inner);
+  /** @return the next page or absent, if all pages were read */
+  Optional<Page<T>> nextPage() {
+    if (inner.init || hasNextPageInfo()) {
+      return Optional.of(fetchPage());
     }
+    return Optional.absent();
+  }
+
+  /**
+   * Like {@link #nextPage()}, but the request is performed without blocking the calling thread.
+   *
+   * @return a future of the action, which holds the next page, or absent, if all pages were read
+   */
+  Optional<CompletableFuture<QueryAction>> nextPageAsync() {
+    if (inner.init || hasNextPageInfo()) {
+      prepareFetch();
+      return Optional.of(bot.getPerformedActionAsync(inner));
+    }
+    return Optional.absent();
+  }
+
+  private Page<T> fetchPage() {
+    prepareFetch();
+    bot.getPerformedAction(inner);
+    return inner.page;
+  }
+
+  private void prepareFetch() {
+    inner.init = false;
+    inner.page = new Page<>(ImmutableList.<T>of(), Optional.<String>absent());
+    inner.setHasMoreMessages(true);
+    inner.msg = prepareNextRequest();
   }
 
   /**
@@ -141,6 +427,36 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
    */
   protected abstract Optional<String> parseHasMore(final String s);
 
+  /**
+   * Parses a response into its elements and its continuation. Override it to read both in one
+   * pass; by default {@link #parseElements(String)} and {@link #parseHasMore(String)} read the
+   * response one after the other.
+   *
+   * @param s content form the remote api; maybe xml or json.
+   */
+  protected Page<T> parsePage(String s) {
+    return new Page<>(parseElements(s), parseHasMore(s));
+  }
+
+  /** The elements and the continuation of one response. */
+  protected static final class Page<E> {
+    private final ImmutableList<E> elements;
+    private final Optional<String> nextPageInfo;
+
+    public Page(ImmutableList<E> elements, Optional<String> nextPageInfo) {
+      this.elements = Checked.nonNull(elements, "elements");
+      this.nextPageInfo = Checked.nonNull(nextPageInfo, "nextPageInfo");
+    }
+
+    public ImmutableList<E> getElements() {
+      return elements;
+    }
+
+    public Optional<String> getNextPageInfo() {
+      return nextPageInfo;
+    }
+  }
+
   protected MediaWikiBot bot() {
     return bot;
   }
@@ -149,6 +465,7 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
 
     private HttpAction msg;
     private boolean init = true;
+    private Page<T> page;
 
     /** {@inheritDoc} */
     @Override
@@ -156,11 +473,17 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
       return msg;
     }
 
+    /** @return the page of the last response */
+    Page<T> getPage() {
+      return page;
+    }
+
     /** {@inheritDoc} */
     @Override
     public final String processAllReturningText(final String s) {
-      ImmutableList<T> newTitles = parseElements(s);
-      setNextPageInfo(parseHasMore(s).orNull());
+      Page<T> page = parsePage(s);
+      ImmutableList<T> newTitles = page.getElements();
+      setNextPageInfo(page.getNextPageInfo().orNull());
       if (log.isWarnEnabled()) {
         if (oldTitlesForLogging.equals(newTitles) && !oldTitlesForLogging.isEmpty()) {
           log.warn("previous response has same payload");
@@ -169,7 +492,7 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
         oldTitlesForLogging = newTitles;
       }
 
-      titleIterator = newTitles.iterator();
+      this.page = page;
       return "";
     }
   }
@@ -25,14 +25,17 @@ import javax.annotation.Nonnull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.RequestTemplate;
 import net.sourceforge.jwbf.core.internal.Checked;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
+import net.sourceforge.jwbf.mapper.XmlAttributes;
 import net.sourceforge.jwbf.mapper.XmlConverter;
 import net.sourceforge.jwbf.mapper.XmlElement;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
@@ -59,6 +62,8 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
   private final String namespaceStr;
   final ImmutableList<Integer> namespace;
 
+  private RequestTemplate template;
+
   protected CategoryMembers(
       MediaWikiBot bot, String categoryName, ImmutableList<Integer> namespaces) {
     super(bot);
@@ -73,8 +78,7 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
    * @return a
    */
   Get generateFirstRequest() {
-    return newRequestBuilder() //
-        .buildGet();
+    return template().buildGet();
   }
 
   /**
@@ -85,9 +89,14 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
    * @return a
    */
   Get generateContinueRequest(String cmcontinue) {
-    return newRequestBuilder() //
-        .param("cmcontinue", MediaWiki.urlEncode(cmcontinue)) //
-        .buildGet();
+    return template().buildGet("cmcontinue", MediaWiki.urlEncode(cmcontinue));
+  }
+
+  private RequestTemplate template() {
+    if (template == null) {
+      template = newRequestBuilder().buildTemplate();
+    }
+    return template;
   }
 
   /**
@@ -98,9 +107,38 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
    */
   @Override
   public Optional<String> parseHasMore(final String xml) {
+    if (isJsonVersion2()) {
+      return parsePage(xml).getNextPageInfo();
+    }
     return parseXmlHasMore(xml, "categorymembers", "cmcontinue", "cmcontinue");
   }
 
+  @Override
+  protected Page<CategoryItem> parsePage(String xml) {
+    if (isJsonVersion2()) {
+      return parseJsonPage(
+          xml,
+          "categorymembers",
+          ListItem.class,
+          ListItem.TO_CATEGORY_ITEM,
+          "cmcontinue",
+          "cmcontinue");
+    }
+    return parseXmlPage(xml, "categorymembers", "cm", TO_CATEGORY_ITEM, "cmcontinue", "cmcontinue");
+  }
+
+  private static final Function<XmlAttributes, CategoryItem> TO_CATEGORY_ITEM =
+      new NonnullFunction<XmlAttributes, CategoryItem>() {
+        @Nonnull
+        @Override
+        protected CategoryItem applyNonnull(@Nonnull XmlAttributes input) {
+          String title = input.getAttributeValueNonNull("title");
+          int namespace = Integer.parseInt(input.getAttributeValueNonNull("ns"));
+          int pageId = Integer.parseInt(input.getAttributeValueNonNull("pageid"));
+          return new CategoryItem(title, namespace, pageId);
+        }
+      };
+
   /**
    * picks the article name from a MediaWiki api response.
    *
@@ -108,6 +146,9 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
    */
   @Override
   public ImmutableList<CategoryItem> parseElements(String xml) {
+    if (isJsonVersion2()) {
+      return parsePage(xml).getElements();
+    }
     return parseArticles(xml, toCategoryItem());
   }
 
@@ -142,10 +183,10 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
 
     return requestBuilder //
         .action("query") //
-        .formatXml() //
+        .formatJsonVersion2OrXml(isJsonVersion2()) //
         .paramNewContinue(bot().getVersion()) //
         .param("list", "categorymembers") //
-        .param("cmlimit", LIMIT) //
+        .param("cmlimit", limitOr(LIMIT)) //
         .param("cmtitle", "Category:" + MediaWiki.urlEncode(categoryName)) //
     // TODO: do not add Category: - instead, change other methods' descs (e.g.
     // in MediaWikiBot)
@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
+import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
@@ -35,6 +36,7 @@ import net.sourceforge.jwbf.core.internal.NonnullFunction;
 import net.sourceforge.jwbf.mapper.XmlElement;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import net.sourceforge.jwbf.mediawiki.contentRep.CategoryItem;
 
 /**
  * A specialization of {@link CategoryMembers} with contains {@link String}s.
@@ -81,6 +83,11 @@ public class CategoryMembersSimple extends BaseQuery<String> {
 
   @Override
   protected ImmutableList<String> parseElements(String s) {
+    if (isJsonVersion2()) {
+      return FluentIterable.from(cm.parseElements(s))
+          .transform(CategoryItem.toTitleStringFunction())
+          .toList();
+    }
     return cm.parseArticles(s, toTitleFunction());
   }
 
@@ -0,0 +1,267 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.annotations.Beta;
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mapper.JsonMapper;
+import net.sourceforge.jwbf.mapper.JsonPath;
+import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.actions.util.VersionException;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+
+/**
+ * Reads the pages of a {@link Generator} together with the content and the metadata of their
+ * latest revision; so each request returns a page of articles, without a further request per
+ * title like {@link net.sourceforge.jwbf.mediawiki.actions.editing.GetRevision}.
+ *
+ * <p>If the revisions of a batch of generated pages exceed the size of a response, the api
+ * continues the revisions first, while the generator stays at its batch. The revisions of all
+ * responses of a batch are merged, and the articles of a batch are returned, when it is complete.
+ *
+ * <p>Works with MW1_25 or higher, because the response is read in json format version 2; with an
+ * older wiki the constructor throws a {@link VersionException}. An {@link
+ * MediaWiki.Version#UNKNOWN} version is tried, because its generator is not known to be older.
+ *
+ * @see <a href="https://www.mediawiki.org/wiki/API:Query#Generators">API documentation</a>
+ */
+@Beta
+public class GeneratedArticles extends BaseQuery<SimpleArticle> {
+
+  /** Value for the limit param of the generator. */
+  private static final int LIMIT = 50;
+
+  private static final String RVPROP =
+      MediaWiki.urlEncode(
+          MediaWiki.pipeJoined("ids", "timestamp", "user", "comment", "flags", "content"));
+
+  private final JsonMapper mapper = new JsonMapper();
+  private final Generator generator;
+  // articles of the current batch by title; the revisions of a batch may span many responses
+  private final Map<String, SimpleArticle> batch = Maps.newLinkedHashMap();
+
+  /** @throws VersionException if the wiki is known to be older than MW1_25 */
+  public GeneratedArticles(MediaWikiBot bot, Generator generator) {
+    super(bot);
+    this.generator = Checked.nonNull(generator, "generator");
+    MediaWiki.Version version = bot.getVersion();
+    if (version != MediaWiki.Version.UNKNOWN && !ApiRequestBuilder.isJsonVersion2(version)) {
+      throw new VersionException(
+          "generated articles require " + MediaWiki.Version.MW1_25 + " or higher, but was "
+              + version);
+    }
+  }
+
+  @Override
+  protected HttpAction prepareNextRequest() {
+    ApiRequestBuilder builder = new ApiRequestBuilder();
+    builder
+        .action("query") //
+        .formatJsonVersion2() //
+        .param("prop", "revisions") //
+        .param("rvprop", RVPROP) //
+        .param("rvslots", "main");
+    generator.applyTo(builder, limitOr(LIMIT));
+    if (hasNextPageInfo()) {
+      Map<String, String> continues =
+          Splitter.on('&').withKeyValueSeparator('=').split(getNextPageInfo());
+      for (Map.Entry<String, String> param : continues.entrySet()) {
+        builder.param(param.getKey(), param.getValue());
+      }
+    } else {
+      builder.param(ApiRequestBuilder.NEW_CONTINUE);
+    }
+    return builder.buildGet();
+  }
+
+  /**
+   * @return the articles of a batch, if this response completes it; otherwise an empty page,
+   *     whose continuation requests the remaining revisions of the batch
+   */
+  @Override
+  protected Page<SimpleArticle> parsePage(String json) {
+    JsonPath<GeneratedPage> pages = JsonPath.of(GeneratedPage.class, "query", "pages");
+    JsonPath<Boolean> batchComplete = JsonPath.of(Boolean.class, "batchcomplete");
+    JsonPath<Continue> aContinue = JsonPath.of(Continue.class, "continue");
+    mapper.stream(json, pages, batchComplete, aContinue);
+
+    for (GeneratedPage page : pages.values()) {
+      SimpleArticle article = batch.get(page.title);
+      if (article == null) {
+        article = new SimpleArticle(page.title);
+        batch.put(page.title, article);
+      }
+      page.applyTo(article);
+    }
+    Optional<String> nextPageInfo = Optional.absent();
+    if (!aContinue.values().isEmpty()) {
+      nextPageInfo = Optional.of(Iterables.getOnlyElement(aContinue.values()).encoded());
+    }
+    if (batchComplete.values().contains(Boolean.TRUE) || !nextPageInfo.isPresent()) {
+      ImmutableList<SimpleArticle> articles = ImmutableList.copyOf(batch.values());
+      batch.clear();
+      return new Page<>(articles, nextPageInfo);
+    }
+    return new Page<>(ImmutableList.<SimpleArticle>of(), nextPageInfo);
+  }
+
+  /** @return the articles of this response only, without the revisions of other responses */
+  @Override
+  protected ImmutableList<SimpleArticle> parseElements(String json) {
+    JsonPath<GeneratedPage> pages = JsonPath.of(GeneratedPage.class, "query", "pages");
+    mapper.stream(json, pages);
+    ImmutableList.Builder<SimpleArticle> articles = ImmutableList.builder();
+    for (GeneratedPage page : pages.values()) {
+      SimpleArticle article = new SimpleArticle(page.title);
+      page.applyTo(article);
+      articles.add(article);
+    }
+    return articles.build();
+  }
+
+  @Override
+  protected Optional<String> parseHasMore(String json) {
+    JsonPath<Continue> aContinue = JsonPath.of(Continue.class, "continue");
+    mapper.stream(json, aContinue);
+    if (aContinue.values().isEmpty()) {
+      return Optional.absent();
+    }
+    return Optional.of(Iterables.getOnlyElement(aContinue.values()).encoded());
+  }
+
+  @Override
+  protected Iterator<SimpleArticle> copy() {
+    return new GeneratedArticles(bot(), generator);
+  }
+
+  /** A generated page; its revisions are absent, if they are continued in a later response. */
+  private static final class GeneratedPage {
+    private final String title;
+    private final Optional<Revision> revision;
+
+    private GeneratedPage(String title, Optional<Revision> revision) {
+      this.title = title;
+      this.revision = revision;
+    }
+
+    @JsonCreator
+    private static GeneratedPage of(
+        @JsonProperty("title") String title,
+        @JsonProperty("revisions") List<Revision> revisions) {
+      Optional<Revision> revision = Optional.absent();
+      if (revisions != null) {
+        revision = Optional.fromNullable(Iterables.getFirst(revisions, null));
+      }
+      return new GeneratedPage(title, revision);
+    }
+
+    void applyTo(SimpleArticle article) {
+      if (revision.isPresent()) {
+        revision.get().applyTo(article);
+      }
+    }
+  }
+
+  private static final class Revision {
+    private final long revisionId;
+    private final String user;
+    private final String timestamp;
+    private final String comment;
+    private final boolean minor;
+    private final String content;
+
+    private Revision(
+        long revisionId,
+        String user,
+        String timestamp,
+        String comment,
+        boolean minor,
+        String content) {
+      this.revisionId = revisionId;
+      this.user = user;
+      this.timestamp = timestamp;
+      this.comment = comment;
+      this.minor = minor;
+      this.content = content;
+    }
+
+    /** @param slots of MW1_32 or higher; older versions return the content at the revision */
+    @JsonCreator
+    private static Revision of(
+        @JsonProperty("revid") long revisionId,
+        @JsonProperty("user") String user,
+        @JsonProperty("timestamp") String timestamp,
+        @JsonProperty("comment") String comment,
+        @JsonProperty("minor") boolean minor,
+        @JsonProperty("content") String content,
+        @JsonProperty("slots") Map<String, Slot> slots) {
+      String text = content;
+      if (slots != null && slots.containsKey("main")) {
+        text = slots.get("main").content;
+      }
+      return new Revision(revisionId, user, timestamp, comment, minor, text);
+    }
+
+    void applyTo(SimpleArticle article) {
+      article.setRevisionId(Long.toString(revisionId));
+      article.setEditor(nullToEmpty(user));
+      article.setEditSummary(nullToEmpty(comment));
+      article.setMinorEdit(minor);
+      article.setText(nullToEmpty(content));
+      if (timestamp != null) {
+        article.setEditTimestamp(timestamp);
+      }
+    }
+
+    private static String nullToEmpty(String value) {
+      return Optional.fromNullable(value).or("");
+    }
+  }
+
+  private static final class Slot {
+    private final String content;
+
+    private Slot(String content) {
+      this.content = content;
+    }
+
+    @JsonCreator
+    private static Slot of(@JsonProperty("content") String content) {
+      return new Slot(content);
+    }
+  }
+
+  /** All params of a continuation; they are sent back unchanged with the next request. */
+  private static final class Continue {
+    private final Map<String, String> params = Maps.newLinkedHashMap();
+
+    @JsonAnySetter
+    private void put(String key, String value) {
+      params.put(key, value);
+    }
+
+    /** @return the params with url encoded values, joined like a query */
+    String encoded() {
+      Map<String, String> encoded = Maps.newLinkedHashMap();
+      for (Map.Entry<String, String> param : params.entrySet()) {
+        encoded.put(param.getKey(), MediaWiki.urlEncode(param.getValue()));
+      }
+      return Joiner.on('&').withKeyValueSeparator("=").join(encoded);
+    }
+  }
+}
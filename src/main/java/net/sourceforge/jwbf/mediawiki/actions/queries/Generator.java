@@ -0,0 +1,82 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.util.Map;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+
+/**
+ * A list module of the api, which generates the pages of a {@link GeneratedArticles} query.
+ *
+ * @see <a href="https://www.mediawiki.org/wiki/API:Query#Generators">API documentation</a>
+ */
+@Beta
+public final class Generator {
+
+  private final String module;
+  private final String prefix;
+  private final ImmutableMap<String, String> params;
+
+  private Generator(String module, String prefix, ImmutableMap<String, String> params) {
+    this.module = module;
+    this.prefix = prefix;
+    this.params = params;
+  }
+
+  /** Like {@link CategoryMembersSimple}; the category name is given without "Category:". */
+  public static Generator categoryMembers(String categoryName, int... namespaces) {
+    String title = "Category:" + Checked.nonNull(categoryName, "categoryName").replace(" ", "_");
+    return of("categorymembers", "cm", title, namespaces);
+  }
+
+  /** Like {@link AllPageTitles} for non redirects. */
+  public static Generator allPages(int... namespaces) {
+    ImmutableMap.Builder<String, String> params = ImmutableMap.builder();
+    params.put("filterredir", "nonredirects");
+    putNamespaces(params, namespaces);
+    return new Generator("allpages", "ap", params.build());
+  }
+
+  /** Like {@link BacklinkTitles}. */
+  public static Generator backlinks(String title, int... namespaces) {
+    return of("backlinks", "bl", Checked.nonNull(title, "title"), namespaces);
+  }
+
+  /** Like {@link TemplateUserTitles}. */
+  public static Generator embeddedIn(String title, int... namespaces) {
+    return of("embeddedin", "ei", Checked.nonNull(title, "title"), namespaces);
+  }
+
+  private static Generator of(String module, String prefix, String title, int... namespaces) {
+    ImmutableMap.Builder<String, String> params = ImmutableMap.builder();
+    params.put("title", MediaWiki.urlEncode(title));
+    putNamespaces(params, namespaces);
+    return new Generator(module, prefix, params.build());
+  }
+
+  private static void putNamespaces(ImmutableMap.Builder<String, String> params, int... ns) {
+    ImmutableList<Integer> namespaces = MediaWiki.nullSafeCopyOf(ns);
+    if (!namespaces.isEmpty()) {
+      params.put("namespace", MediaWiki.urlEncodedNamespace(namespaces));
+    }
+  }
+
+  /** Adds the generator and its params, which are prefixed with "g" and the module prefix. */
+  void applyTo(RequestBuilder builder, String limit) {
+    builder.param("generator", module);
+    builder.param("g" + prefix + "limit", limit);
+    for (Map.Entry<String, String> param : params.entrySet()) {
+      builder.param("g" + prefix + param.getKey(), param.getValue());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return module + params;
+  }
+}
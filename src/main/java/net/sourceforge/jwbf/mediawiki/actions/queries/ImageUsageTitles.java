@@ -108,7 +108,7 @@ public class ImageUsageTitles extends BaseQuery<String> {
             .formatXml() //
             .param("iutitle", MediaWiki.urlEncode(imageName)) //
             .param("list", "imageusage") //
-            .param("iulimit", limit) //
+            .param("iulimit", limitOr(limit)) //
             .param("iunamespace", MediaWiki.urlEncodedNamespace(namespaces));
 
     Optional<String> ilcontinue = nextPageInfoOpt();
@@ -0,0 +1,69 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import javax.annotation.Nonnull;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Function;
+
+import net.sourceforge.jwbf.core.internal.NonnullFunction;
+import net.sourceforge.jwbf.mediawiki.contentRep.CategoryItem;
+import net.sourceforge.jwbf.mediawiki.contentRep.LogItem;
+
+/**
+ * An element of a list in a json response, like a page of "allpages" or an event of "logevents";
+ * properties, that a list does not return, are null or 0.
+ */
+final class ListItem {
+
+  static final Function<ListItem, String> TO_TITLE =
+      new NonnullFunction<ListItem, String>() {
+        @Nonnull
+        @Override
+        protected String applyNonnull(@Nonnull ListItem input) {
+          return input.title;
+        }
+      };
+
+  static final Function<ListItem, CategoryItem> TO_CATEGORY_ITEM =
+      new NonnullFunction<ListItem, CategoryItem>() {
+        @Nonnull
+        @Override
+        protected CategoryItem applyNonnull(@Nonnull ListItem input) {
+          return new CategoryItem(input.title, input.namespace, input.pageId);
+        }
+      };
+
+  static final Function<ListItem, LogItem> TO_LOG_ITEM =
+      new NonnullFunction<ListItem, LogItem>() {
+        @Nonnull
+        @Override
+        protected LogItem applyNonnull(@Nonnull ListItem input) {
+          return new LogItem(input.title, input.type, input.user);
+        }
+      };
+
+  private final String title;
+  private final int namespace;
+  private final int pageId;
+  private final String type;
+  private final String user;
+
+  private ListItem(String title, int namespace, int pageId, String type, String user) {
+    this.title = title;
+    this.namespace = namespace;
+    this.pageId = pageId;
+    this.type = type;
+    this.user = user;
+  }
+
+  @JsonCreator
+  private static ListItem of(
+      @JsonProperty("title") String title,
+      @JsonProperty("ns") int namespace,
+      @JsonProperty("pageid") int pageId,
+      @JsonProperty("type") String type,
+      @JsonProperty("user") String user) {
+    return new ListItem(title, namespace, pageId, type, user);
+  }
+}
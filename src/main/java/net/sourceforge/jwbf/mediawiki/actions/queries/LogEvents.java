@@ -19,7 +19,6 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import java.util.Iterator;
-import java.util.List;
 
 import javax.annotation.Nonnull;
 
@@ -32,10 +31,11 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.RequestTemplate;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
 import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.XmlAttributes;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
@@ -72,6 +72,8 @@ public class LogEvents extends BaseQuery<LogItem> {
    */
   private final ImmutableList<String> type;
 
+  private RequestTemplate template;
+
   /**
    * information necessary to get the next api page.
    *
@@ -128,9 +130,9 @@ public class LogEvents extends BaseQuery<LogItem> {
         new ApiRequestBuilder() //
             .action("query") //
             .paramNewContinue(bot().getVersion()) //
-            .formatXml() //
+            .formatJsonVersion2OrXml(isJsonVersion2()) //
             .param("list", "logevents") //
-            .param("lelimit", limit) //
+            .param("lelimit", limitOr(limit)) //
         ;
 
     if (logtypes.size() > 0) {
@@ -141,24 +143,41 @@ public class LogEvents extends BaseQuery<LogItem> {
 
   @Override
   protected ImmutableList<LogItem> parseElements(String xml) {
+    if (isJsonVersion2()) {
+      return parsePage(xml).getElements();
+    }
+    return XmlConverter.mapChildren(xml, TO_LOG_ITEM, "query", "logevents", "item");
+  }
 
-    ImmutableList.Builder<LogItem> builder = ImmutableList.builder();
-    Optional<XmlElement> child = XmlConverter.getChildOpt(xml, "query", "logevents");
-    if (child.isPresent()) {
-      List<XmlElement> items = child.get().getChildren("item");
-      for (XmlElement item : items) {
-        String title = item.getAttributeValue("title");
-        String typeOf = item.getAttributeValue("type");
-        String user = item.getAttributeValue("user");
-        builder.add(new LogItem(title, typeOf, user));
-      }
+  private static final Function<XmlAttributes, LogItem> TO_LOG_ITEM =
+      new NonnullFunction<XmlAttributes, LogItem>() {
+        @Nonnull
+        @Override
+        protected LogItem applyNonnull(@Nonnull XmlAttributes item) {
+          String title = item.getAttributeValue("title");
+          String typeOf = item.getAttributeValue("type");
+          String user = item.getAttributeValue("user");
+          return new LogItem(title, typeOf, user);
+        }
+      };
+
+  @Override
+  protected Page<LogItem> parsePage(String xml) {
+    if (isJsonVersion2()) {
+      return parseJsonPage(
+          xml, "logevents", ListItem.class, ListItem.TO_LOG_ITEM, "lestart", "lecontinue");
+    } else if (bot().getVersion().greaterEqThen(MediaWiki.Version.MW1_23)) {
+      return parseXmlPage(xml, "logevents", "item", TO_LOG_ITEM, "lestart", "lecontinue");
+    } else {
+      return super.parsePage(xml);
     }
-    return builder.build();
   }
 
   @Override
   protected Optional<String> parseHasMore(final String s) {
-    if (bot().getVersion().greaterEqThen(MediaWiki.Version.MW1_23)) {
+    if (isJsonVersion2()) {
+      return parsePage(s).getNextPageInfo();
+    } else if (bot().getVersion().greaterEqThen(MediaWiki.Version.MW1_23)) {
       return parseXmlHasMore(s, "logevents", "lestart", "lecontinue");
     } else {
       log.warn("continuation is not supported");
@@ -168,12 +187,13 @@ public class LogEvents extends BaseQuery<LogItem> {
 
   @Override
   protected HttpAction prepareNextRequest() {
+    if (template == null) {
+      template = generateRequest(type).buildTemplate();
+    }
     if (hasNextPageInfo()) {
-      return generateRequest(type) //
-          .param("lecontinue", MediaWiki.urlEncode(getNextPageInfo())) //
-          .buildGet();
+      return template.buildGet("lecontinue", MediaWiki.urlEncode(getNextPageInfo()));
     } else {
-      return generateRequest(type).buildGet();
+      return template.buildGet();
     }
   }
 
@@ -63,7 +63,7 @@ public class OldreviewedPagesTitles extends BaseQuery<String> {
             .action("query") //
             .formatXml() //
             .param("list", "oldreviewedpages") //
-            .param("orlimit", LIMIT) //
+            .param("orlimit", limitOr(LIMIT)) //
         ;
     if (namespace != null) {
       String ornamespace = MediaWiki.urlEncode(MWAction.createNsString(namespace));
@@ -0,0 +1,90 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import com.google.common.base.Optional;
+
+import net.sourceforge.jwbf.mediawiki.actions.queries.BaseQuery.Page;
+
+/**
+ * Splits the elements of a query at page boundaries. Each split is one fetched page, which is
+ * {@link #SIZED} and {@link #SUBSIZED}; so parallel workers process whole pages, while the pages
+ * are requested one after another by the splitting thread.
+ *
+ * @see BaseQuery#stream()
+ */
+final class PageSpliterator<T> implements Spliterator<T> {
+
+  private final BaseQuery<T> query;
+  private Spliterator<T> current = Spliterators.emptySpliterator();
+  private boolean lastPageFetched = false;
+
+  PageSpliterator(BaseQuery<T> query) {
+    this.query = query;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    while (!current.tryAdvance(action)) {
+      if (!fetch()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super T> action) {
+    do {
+      current.forEachRemaining(action);
+    } while (fetch());
+  }
+
+  /** @return the remaining elements of the current page or the next page */
+  @Override
+  public Spliterator<T> trySplit() {
+    if (current.estimateSize() == 0 && !fetch()) {
+      return null;
+    }
+    Spliterator<T> page = current;
+    current = Spliterators.emptySpliterator();
+    return page;
+  }
+
+  /**
+   * Never fetches a page; the size of a query is unknown until its last page was fetched.
+   *
+   * @return the remaining size of the current page, or {@link Long#MAX_VALUE} if it is exhausted
+   *     and more pages may follow
+   */
+  @Override
+  public long estimateSize() {
+    long size = current.estimateSize();
+    if (size == 0 && !lastPageFetched) {
+      return Long.MAX_VALUE;
+    }
+    return size;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL;
+  }
+
+  /** @return true, if a page was fetched; it may be empty */
+  private boolean fetch() {
+    if (lastPageFetched) {
+      return false;
+    }
+    Optional<Page<T>> page = query.nextPage();
+    if (page.isPresent()) {
+      current = page.get().getElements().spliterator();
+      lastPageFetched = !query.hasNextPageInfo();
+      return true;
+    }
+    lastPageFetched = true;
+    return false;
+  }
+}
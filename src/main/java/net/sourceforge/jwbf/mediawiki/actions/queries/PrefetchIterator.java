@@ -0,0 +1,157 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+
+import net.sourceforge.jwbf.mediawiki.actions.queries.BaseQuery.Page;
+
+/**
+ * Iterates the elements of a query, while its following pages are requested in the background. A
+ * page is requested as soon as the previous one arrived, until {@code depth} pages wait for the
+ * consumer. No thread ever waits for the consumer; so an abandoned iterator requests at most
+ * {@code depth} pages and holds no thread.
+ *
+ * @see BaseQuery#prefetching(Executor, int)
+ */
+final class PrefetchIterator<T> extends AbstractIterator<T> {
+
+  // only touched by fetch tasks, which run one after another
+  private final BaseQuery<T> query;
+  private final Executor executor;
+  private final int depth;
+  private final BlockingQueue<Fetched<T>> fetched = new LinkedBlockingQueue<>();
+  private final Runnable fetchTask =
+      new Runnable() {
+        @Override
+        public void run() {
+          fetch();
+        }
+      };
+
+  private final Object lock = new Object();
+  // guarded by lock
+  private int buffered = 0;
+  private boolean running = false;
+  private boolean finished = false;
+
+  // only touched by the consumer
+  private Iterator<T> current = ImmutableList.<T>of().iterator();
+  private boolean lastPageTaken = false;
+
+  PrefetchIterator(BaseQuery<T> query, Executor executor, int depth) {
+    this.query = query;
+    this.executor = executor;
+    this.depth = depth;
+  }
+
+  @Override
+  protected T computeNext() {
+    while (!current.hasNext()) {
+      if (lastPageTaken) {
+        return endOfData();
+      }
+      schedule();
+      Fetched<T> next = take();
+      if (next.page.isPresent()) {
+        synchronized (lock) {
+          buffered--;
+        }
+        schedule();
+      }
+      if (next.failure.isPresent()) {
+        throw next.failure.get();
+      } else if (next.page.isPresent()) {
+        current = next.page.get().getElements().iterator();
+      } else {
+        lastPageTaken = true;
+      }
+    }
+    return current.next();
+  }
+
+  private Fetched<T> take() {
+    try {
+      return fetched.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while waiting for the next page", e);
+    }
+  }
+
+  /** Starts the next request, if none is running and less than depth pages are waiting. */
+  private void schedule() {
+    synchronized (lock) {
+      if (running || finished || buffered >= depth) {
+        return;
+      }
+      running = true;
+    }
+    try {
+      executor.execute(fetchTask);
+    } catch (RejectedExecutionException e) {
+      finish(Fetched.<T>failed(e));
+    }
+  }
+
+  private void fetch() {
+    Fetched<T> result;
+    try {
+      Optional<Page<T>> page = query.nextPage();
+      if (page.isPresent()) {
+        result = Fetched.of(page.get());
+      } else {
+        result = Fetched.end();
+      }
+    } catch (RuntimeException e) {
+      result = Fetched.failed(e);
+    }
+    if (result.page.isPresent()) {
+      synchronized (lock) {
+        running = false;
+        buffered++;
+      }
+      fetched.add(result);
+      schedule();
+    } else {
+      finish(result);
+    }
+  }
+
+  private void finish(Fetched<T> result) {
+    synchronized (lock) {
+      running = false;
+      finished = true;
+    }
+    fetched.add(result);
+  }
+
+  /** A page, the end of all pages or a failure. */
+  private static final class Fetched<T> {
+    private final Optional<Page<T>> page;
+    private final Optional<RuntimeException> failure;
+
+    private Fetched(Optional<Page<T>> page, Optional<RuntimeException> failure) {
+      this.page = page;
+      this.failure = failure;
+    }
+
+    static <T> Fetched<T> of(Page<T> page) {
+      return new Fetched<>(Optional.of(page), Optional.<RuntimeException>absent());
+    }
+
+    static <T> Fetched<T> end() {
+      return new Fetched<>(Optional.<Page<T>>absent(), Optional.<RuntimeException>absent());
+    }
+
+    static <T> Fetched<T> failed(RuntimeException failure) {
+      return new Fetched<>(Optional.<Page<T>>absent(), Optional.of(failure));
+    }
+  }
+}
@@ -0,0 +1,234 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mediawiki.actions.queries.BaseQuery.Page;
+
+/**
+ * Publishes the elements of a query to subscribers with backpressure. A page is requested only
+ * when a subscriber has signaled demand, that the current page cannot satisfy; a canceled
+ * subscription requests no further pages. Requests are performed without blocking, so no thread
+ * is held while a subscriber waits.
+ *
+ * <p>If {@code onNext} of a subscriber throws, its subscription is canceled and the exception is
+ * signaled with {@code onError}. Exceptions of {@code onError} and {@code onComplete} are only
+ * logged.
+ *
+ * <p>A canceled subscription ignores the response of a request in flight; the request itself is
+ * not aborted, because the underlying transports cannot abort an exchange once it was sent.
+ *
+ * <p>{@code org.reactivestreams.FlowAdapters} turns it into a {@code java.util.concurrent.Flow}
+ * publisher.
+ *
+ * @see BaseQuery#publisher()
+ */
+@Beta
+public final class QueryPublisher<T> implements Publisher<T> {
+
+  private static final Logger log = LoggerFactory.getLogger(QueryPublisher.class);
+
+  private final BaseQuery<T> query;
+
+  QueryPublisher(BaseQuery<T> query) {
+    this.query = query;
+  }
+
+  /** Subscribes to all elements of a new copy of the query. */
+  @Override
+  public void subscribe(Subscriber<? super T> subscriber) {
+    Checked.nonNull(subscriber, "subscriber");
+    QuerySubscription<T> subscription =
+        new QuerySubscription<T>(query.queryCopy(), subscriber);
+    subscriber.onSubscribe(subscription);
+  }
+
+  private static final class QuerySubscription<T> implements Subscription {
+
+    private final BaseQuery<T> query;
+    private final Subscriber<? super T> subscriber;
+
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger drains = new AtomicInteger();
+    private volatile boolean canceled = false;
+    // published by a fetch, taken by drain
+    private volatile Optional<Page<T>> fetched;
+    private volatile Throwable failure;
+    private volatile CompletableFuture<?> pending;
+
+    // only touched in drain
+    private Iterator<T> elements = ImmutableList.<T>of().iterator();
+    private boolean fetching = false;
+    private boolean lastPage = false;
+    private boolean done = false;
+
+    QuerySubscription(BaseQuery<T> query, Subscriber<? super T> subscriber) {
+      this.query = query;
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        failure = new IllegalArgumentException("demand must be positive, but was " + n);
+      } else {
+        addDemand(n);
+      }
+      drain();
+    }
+
+    private void addDemand(long n) {
+      long current;
+      long next;
+      do {
+        current = demand.get();
+        next = current + n;
+        if (next < 0) {
+          next = Long.MAX_VALUE;
+        }
+      } while (!demand.compareAndSet(current, next));
+    }
+
+    /**
+     * Drops a fetched page, that is not taken yet, and cancels the future of a fetch in flight;
+     * its HTTP request is completed, but the response is discarded.
+     */
+    @Override
+    public void cancel() {
+      canceled = true;
+      fetched = null;
+      CompletableFuture<?> inFlight = pending;
+      if (inFlight != null) {
+        inFlight.cancel(false);
+      }
+    }
+
+    /** Emits in one thread at a time; a concurrent call makes the running one loop again. */
+    private void drain() {
+      if (drains.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        try {
+          emit();
+        } finally {
+          missed = drains.addAndGet(-missed);
+        }
+      } while (missed != 0);
+    }
+
+    private void emit() {
+      while (!canceled && !done) {
+        if (failure != null) {
+          done = true;
+          signalError(failure);
+        } else if (fetched != null) {
+          takeFetched();
+        } else if (elements.hasNext()) {
+          if (demand.get() == 0) {
+            return;
+          }
+          if (demand.get() != Long.MAX_VALUE) {
+            demand.decrementAndGet();
+          }
+          onNext(elements.next());
+        } else if (fetching) {
+          return;
+        } else if (lastPage) {
+          done = true;
+          signalComplete();
+        } else if (demand.get() == 0) {
+          return;
+        } else {
+          fetching = true;
+          fetch();
+        }
+      }
+    }
+
+    private void onNext(T item) {
+      try {
+        subscriber.onNext(item);
+      } catch (RuntimeException e) {
+        cancel();
+        done = true;
+        signalError(e);
+      }
+    }
+
+    private void signalError(Throwable throwable) {
+      try {
+        subscriber.onError(throwable);
+      } catch (RuntimeException e) {
+        log.warn("onError of " + subscriber + " failed", e);
+      }
+    }
+
+    private void signalComplete() {
+      try {
+        subscriber.onComplete();
+      } catch (RuntimeException e) {
+        log.warn("onComplete of " + subscriber + " failed", e);
+      }
+    }
+
+    private void takeFetched() {
+      Optional<Page<T>> page = fetched;
+      fetched = null;
+      fetching = false;
+      if (page.isPresent()) {
+        elements = page.get().getElements().iterator();
+        lastPage = !page.get().getNextPageInfo().isPresent();
+      } else {
+        lastPage = true;
+      }
+    }
+
+    private void fetch() {
+      try {
+        Optional<CompletableFuture<BaseQuery<T>.QueryAction>> next = query.nextPageAsync();
+        if (next.isPresent()) {
+          pending = next.get();
+          next.get().whenComplete(
+              new BiConsumer<BaseQuery<T>.QueryAction, Throwable>() {
+                @Override
+                public void accept(BaseQuery<T>.QueryAction action, Throwable throwable) {
+                  pending = null;
+                  if (canceled) {
+                    return;
+                  }
+                  if (throwable instanceof CompletionException) {
+                    failure = throwable.getCause();
+                  } else if (throwable != null) {
+                    failure = throwable;
+                  } else {
+                    fetched = Optional.of(action.getPage());
+                  }
+                  drain();
+                }
+              });
+        } else {
+          fetched = Optional.absent();
+        }
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+  }
+}
@@ -1,24 +1,23 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.core.internal.NonnullFunction;
+import net.sourceforge.jwbf.core.internal.TimeConverter;
+import net.sourceforge.jwbf.mapper.XmlAttributes;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import net.sourceforge.jwbf.mediawiki.contentRep.RecentChange;
 
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.Iterator;
-import java.util.List;
+
+import javax.annotation.Nonnull;
 
 import static org.apache.commons.lang3.math.NumberUtils.toInt;
 import static org.apache.commons.lang3.math.NumberUtils.toLong;
@@ -28,6 +27,8 @@ import static org.apache.commons.lang3.math.NumberUtils.toLong;
  * (paging timestamp), rcto (flt), rcnamespace (flt), rcminor (flt), rcusertype (dflt=not|bot),
  * rcdirection (dflt=older), rclimit (dflt=10, max=500/5000) F api.php ? action=query &amp;
  * list=recentchanges - List last 10 changes
+ *
+ * <p>Versions from MW1_25 on are requested in json format version 2, older ones in xml.
  */
 public class RecentChanges extends BaseQuery<RecentChange> {
 
@@ -36,6 +37,32 @@ public class RecentChanges extends BaseQuery<RecentChange> {
    */
   private static final int LIMIT = 50;
 
+  private static final Function<XmlAttributes, RecentChange> TO_RECENT_CHANGE =
+      new NonnullFunction<XmlAttributes, RecentChange>() {
+        @Nonnull
+        @Override
+        protected RecentChange applyNonnull(@Nonnull XmlAttributes rc) {
+          return RecentChange.builder()
+              .type(RecentChange.ChangeType.parse(rc.getAttributeValue("type")))
+              .namespace(toInt(rc.getAttributeValue("ns")))
+              .title(rc.getAttributeValue("title"))
+              .pageId(toLong(rc.getAttributeValue("pageid")))
+              .revisionId(toLong(rc.getAttributeValue("revid")))
+              .oldRevisionId(toLong(rc.getAttributeValue("old_revid")))
+              .rcId(toLong(rc.getAttributeValue("rcid")))
+              .user(rc.getAttributeValue("user"))
+              .userId(toLong(rc.getAttributeValue("userid")))
+              .oldLength(toLong(rc.getAttributeValue("oldlen")))
+              .newLength(toLong(rc.getAttributeValue("newlen")))
+              .timestamp(
+                  TimeConverter.from(
+                          rc.getAttributeValue("timestamp"), TimeConverter.YYYYMMDD_T_HHMMSS_Z)
+                      .orNull())
+              .comment(rc.getAttributeValue("comment"))
+              .build();
+        }
+      };
+
   private final MediaWikiBot bot;
 
   private final int[] namespaces;
@@ -45,33 +72,29 @@ public class RecentChanges extends BaseQuery<RecentChange> {
    *
    * @param namespace the namespace(s) that will be searched for links, as a string of numbers
    *                  separated by '|'; if null, this parameter is omitted
-   * @param rcstart   timestamp
    */
-  private HttpAction generateRequest(int[] namespace, String rcstart) {
+  private HttpAction generateRequest(int[] namespace) {
 
     RequestBuilder requestBuilder =
         new ApiRequestBuilder() //
             .action("query") //
-            .formatXml() //
+            .paramNewContinue(bot.getVersion()) //
+            .formatJsonVersion2OrXml(isJsonVersion2()) //
             .param("list", "recentchanges") //
-            .param("rclimit", LIMIT) //
+            .param("rclimit", limitOr(LIMIT)) //
             .param("rcprop", "user%7Cuserid%7Ccomment%7Cflags%7Ctimestamp%7C" + //
                 "title%7Cids%7Csizes%7Cflags") //
         ;
     if (namespace != null) {
       requestBuilder.param("rcnamespace", MediaWiki.urlEncode(MWAction.createNsString(namespace)));
     }
-    if (rcstart.length() > 0) {
-      requestBuilder.param("rcstart", rcstart);
+    if (hasNextPageInfo()) {
+      requestBuilder.param("rccontinue", MediaWiki.urlEncode(getNextPageInfo()));
     }
 
     return requestBuilder.buildGet();
   }
 
-  private HttpAction generateRequest(int[] namespace) {
-    return generateRequest(namespace, "");
-  }
-
   /**
    *
    */
@@ -89,68 +112,41 @@ public class RecentChanges extends BaseQuery<RecentChange> {
   }
 
   /**
-   * picks the article name from a MediaWiki api response.
+   * picks the recent changes from a MediaWiki api response.
    *
    * @param s text for parsing
    */
   @Override
   protected ImmutableList<RecentChange> parseElements(String s) {
-    XmlElement root = XmlConverter.getRootElement(s);
-    List<RecentChange> recentChanges = Lists.newArrayList();
-    findContent(root, recentChanges);
-    return ImmutableList.copyOf(recentChanges);
+    return parsePage(s).getElements();
   }
 
-  private void findContent(XmlElement root, List<RecentChange> recentChanges) {
-    DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssX");
-    for (XmlElement xmlElement : root.getChildren()) {
-      if (xmlElement.getQualifiedName().equalsIgnoreCase("rc")) {
-        Date timestamp = null;
-        try {
-          timestamp = dateFormat.parse(xmlElement.getAttributeValue("timestamp"));
-        } catch (ParseException e) {
-          e.printStackTrace();
-        }
-        RecentChange change = RecentChange.builder()
-            .type(RecentChange.ChangeType.parse(xmlElement.getAttributeValue("type")))
-            .namespace(toInt(xmlElement.getAttributeValue("ns")))
-            .title(xmlElement.getAttributeValue("title"))
-            .pageId(toInt(xmlElement.getAttributeValue("pageid")))
-            .revisionId(toLong(xmlElement.getAttributeValue("revid")))
-            .oldRevisionId(toLong(xmlElement.getAttributeValue("old_revid")))
-            .oldRevisionId(toLong(xmlElement.getAttributeValue("old_revid")))
-            .rcId(toLong(xmlElement.getAttributeValue("rcid")))
-            .user(xmlElement.getAttributeValue("user"))
-            .userId(toLong(xmlElement.getAttributeValue("userid")))
-            .oldLength(toLong(xmlElement.getAttributeValue("oldlen")))
-            .newLength(toLong(xmlElement.getAttributeValue("newlen")))
-            .timestamp(timestamp)
-            .comment(xmlElement.getAttributeValue("comment"))
-            .build();
-        recentChanges.add(change);
-        setNextPageInfo(xmlElement.getAttributeValue("timestamp"));
-      } else {
-        findContent(xmlElement, recentChanges);
-      }
-    }
+  @Override
+  protected Optional<String> parseHasMore(String s) {
+    return parsePage(s).getNextPageInfo();
   }
 
   @Override
-  protected HttpAction prepareNextRequest() {
-    if (hasNextPageInfo()) {
-      return generateRequest(namespaces, getNextPageInfo());
-    } else {
-      return generateRequest(namespaces);
+  protected Page<RecentChange> parsePage(String s) {
+    if (isJsonVersion2()) {
+      return parseJsonPage(
+          s,
+          "recentchanges",
+          RecentChange.class,
+          Functions.<RecentChange>identity(),
+          "rccontinue",
+          "rccontinue");
     }
+    return parseXmlPage(s, "recentchanges", "rc", TO_RECENT_CHANGE, "rccontinue", "rccontinue");
   }
 
   @Override
-  protected Iterator<RecentChange> copy() {
-    return new RecentChanges(bot, namespaces);
+  protected HttpAction prepareNextRequest() {
+    return generateRequest(namespaces);
   }
 
   @Override
-  protected Optional<String> parseHasMore(String s) {
-    return Optional.absent();
+  protected Iterator<RecentChange> copy() {
+    return new RecentChanges(bot, namespaces);
   }
 }
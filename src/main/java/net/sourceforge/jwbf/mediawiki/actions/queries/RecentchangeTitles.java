@@ -70,7 +70,7 @@ public class RecentchangeTitles extends BaseQuery<String> {
             .action("query") //
             .formatXml() //
             .param("list", "recentchanges") //
-            .param("rclimit", LIMIT) //
+            .param("rclimit", limitOr(LIMIT)) //
         ;
     if (namespace != null) {
       requestBuilder.param("rcnamespace", MediaWiki.urlEncode(MWAction.createNsString(namespace)));
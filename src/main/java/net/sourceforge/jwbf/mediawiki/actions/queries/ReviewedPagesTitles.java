@@ -63,7 +63,7 @@ public class ReviewedPagesTitles extends BaseQuery<String> {
             .action("query") //
             .formatXml() //
             .param("list", "reviewedpages") //
-            .param("rplimit", LIMIT) //
+            .param("rplimit", limitOr(LIMIT)) //
         ;
     if (namespace != null) {
       String rpnamespace = MediaWiki.urlEncode(MWAction.createNsString(namespace));
@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
 
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
@@ -17,6 +18,7 @@ import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.contentRep.SearchResult;
 import net.sourceforge.jwbf.core.contentRep.SearchResultList;
 import net.sourceforge.jwbf.mapper.JsonMapper;
+import net.sourceforge.jwbf.mapper.JsonPath;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
@@ -86,7 +88,8 @@ public class Search extends BaseQuery<SearchResult> {
 
   private final ImmutableList<Integer> namespaces;
 
-  private SearchResultList resultList;
+  private int totalHits;
+  private String suggestion;
 
   /**
    * Create a search request
@@ -144,7 +147,7 @@ public class Search extends BaseQuery<SearchResult> {
             .param("srwhat", joinParam(what)) //
             .param("srinfo", joinParam(searchInfo)) //
             .param("srprop", joinParam(props)) //
-            .param("srlimit", LIMIT);
+            .param("srlimit", limitOr(LIMIT));
 
     if (hasNextPageInfo()) {
       requestBuilder.param("sroffset", getNextPageInfo());
@@ -158,14 +161,37 @@ public class Search extends BaseQuery<SearchResult> {
     return MediaWiki.urlEncode(PARAM_JOINER.join(params));
   }
 
+  @Override
+  protected Page<SearchResult> parsePage(String json) {
+    JsonPath<SearchResult> results = JsonPath.of(SearchResult.class, "query", "search");
+    JsonPath<Integer> totalHitsPath =
+        JsonPath.of(Integer.class, "query", "searchinfo", "totalhits");
+    JsonPath<String> suggestionPath =
+        JsonPath.of(String.class, "query", "searchinfo", "suggestion");
+    JsonPath<Integer> offset = JsonPath.of(Integer.class, "continue", "sroffset");
+    JsonPath<String> continueToken = JsonPath.of(String.class, "continue", "continue");
+    mapper.stream(json, results, totalHitsPath, suggestionPath, offset, continueToken);
+
+    this.totalHits = Iterables.getFirst(totalHitsPath.values(), 0);
+    this.suggestion = Iterables.getFirst(suggestionPath.values(), null);
+    Optional<String> nextPageInfo = Optional.absent();
+    if (!continueToken.values().isEmpty() && !offset.values().isEmpty()) {
+      nextPageInfo = Optional.of(Integer.toString(offset.values().get(0)));
+    }
+    return new Page<>(results.values(), nextPageInfo);
+  }
+
   @Override
   protected ImmutableList<SearchResult> parseElements(String json) {
-    this.resultList = mapper.get(json, SearchResultList.class);
+    SearchResultList resultList = mapper.get(json, SearchResultList.class);
+    this.totalHits = resultList.getTotalHits();
+    this.suggestion = resultList.getSuggestion();
     return ImmutableList.copyOf(resultList.getResults());
   }
 
   @Override
-  protected Optional<String> parseHasMore(String s) {
+  protected Optional<String> parseHasMore(String json) {
+    SearchResultList resultList = mapper.get(json, SearchResultList.class);
     if (resultList.canContinue()) {
       return Optional.of(Integer.toString(resultList.getOffset()));
     } else {
@@ -174,10 +200,10 @@ public class Search extends BaseQuery<SearchResult> {
   }
 
   public int getTotalHits() {
-    return resultList.getTotalHits();
+    return totalHits;
   }
 
   public String getSuggestion() {
-    return resultList.getSuggestion();
+    return suggestion;
   }
 }
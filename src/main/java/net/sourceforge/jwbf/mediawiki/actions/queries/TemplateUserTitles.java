@@ -29,9 +29,10 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.RequestTemplate;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.XmlAttributes;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
@@ -55,6 +56,8 @@ public class TemplateUserTitles extends BaseQuery<String> {
   private final ImmutableList<Integer> namespaces;
   private final int limit;
 
+  private RequestTemplate template;
+
   public TemplateUserTitles(MediaWikiBot bot, String templateName, int... namespaces) {
     this(bot, 50, templateName, MWAction.nullSafeCopyOf(namespaces));
   }
@@ -80,27 +83,43 @@ public class TemplateUserTitles extends BaseQuery<String> {
   }
 
   @Override
-  protected ImmutableList<String> parseElements(String xml) {
-    Optional<XmlElement> children = XmlConverter.getChildOpt(xml, "query", "embeddedin");
-    ImmutableList.Builder<String> titleCollection = ImmutableList.builder();
-    if (children.isPresent()) {
-      for (XmlElement e : children.get().getChildren("ei")) {
-        titleCollection.add(e.getAttributeValue("title"));
-      }
-    }
+  protected Page<String> parsePage(String xml) {
+    return parseXmlPage(
+        xml,
+        "embeddedin",
+        "ei",
+        XmlAttributes.toAttributeValue("title"),
+        "eicontinue",
+        "eicontinue");
+  }
 
-    return titleCollection.build();
+  @Override
+  protected ImmutableList<String> parseElements(String xml) {
+    return XmlConverter.mapChildren(
+        xml, XmlAttributes.toAttributeValue("title"), "query", "embeddedin", "ei");
   }
 
   @Override
   protected HttpAction prepareNextRequest() {
+    if (template == null) {
+      template = newRequestBuilder().buildTemplate();
+    }
+    Optional<String> eicontinue = nextPageInfoOpt();
+    if (eicontinue.isPresent()) {
+      return template.buildGet("eicontinue", MediaWiki.urlEncode(eicontinue.get()));
+    } else {
+      return template.buildGet();
+    }
+  }
+
+  private RequestBuilder newRequestBuilder() {
     RequestBuilder requestBuilder =
         new ApiRequestBuilder() //
             .action("query") //
             .paramNewContinue(bot.getVersion()) //
             .formatXml() //
             .param("list", "embeddedin") //
-            .param("eilimit", limit) //
+            .param("eilimit", limitOr(limit)) //
             .param("eititle", MediaWiki.urlEncode(templateName)) //
         ;
 
@@ -108,13 +127,7 @@ public class TemplateUserTitles extends BaseQuery<String> {
     if (!Strings.isNullOrEmpty(namespacesValue)) {
       requestBuilder.param("einamespace", MediaWiki.urlEncode(namespacesValue));
     }
-
-    Optional<String> eicontinue = nextPageInfoOpt();
-    if (eicontinue.isPresent()) {
-      requestBuilder.param("eicontinue", MediaWiki.urlEncode(eicontinue.get()));
-    }
-
-    return requestBuilder.buildGet();
+    return requestBuilder;
   }
 
   @Override
@@ -63,7 +63,7 @@ public class UnreviewedPagesTitles extends BaseQuery<String> {
             .action("query") //
             .formatXml() //
             .param("list", "unreviewedpages") //
-            .param("urlimit", LIMIT) //
+            .param("urlimit", limitOr(LIMIT)) //
         ;
     if (namespace != null) {
       String urnamespace = MediaWiki.urlEncode(MWAction.createNsString(namespace));
@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.Ints;
 
@@ -16,6 +17,7 @@ import net.sourceforge.jwbf.core.actions.util.ActionException;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.TimeConverter;
 import net.sourceforge.jwbf.mapper.JsonMapper;
+import net.sourceforge.jwbf.mapper.JsonPath;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
@@ -129,8 +131,6 @@ class WatchList extends BaseQuery<WatchResponse> {
   private final boolean showAnonymous;
   private final boolean showMinor;
 
-  private WatchListResults responseList;
-
   private WatchList(Builder builder) {
     super(builder.bot);
     if (!bot().isLoggedIn()) {
@@ -205,10 +205,11 @@ class WatchList extends BaseQuery<WatchResponse> {
     }
     requestBuilder.param("wlshow", createShowParamValue());
 
+    // a limit of the query itself takes precedence over the one of the builder
     if (limit.isPresent()) {
-      requestBuilder.param("wllimit", limit.get());
+      requestBuilder.param("wllimit", limitOr(limit.get()));
     } else {
-      requestBuilder.param("wllimit", "max");
+      requestBuilder.param("wllimit", limitOr("max"));
     }
     if (hasNextPageInfo()) {
       requestBuilder.param("wlcontinue", getNextPageInfo());
@@ -237,14 +238,25 @@ class WatchList extends BaseQuery<WatchResponse> {
     return joinedAndEncodedParams(shows);
   }
 
+  @Override
+  protected Page<WatchResponse> parsePage(String json) {
+    JsonPath<WatchResponse> results = JsonPath.of(WatchResponse.class, "query", "watchlist");
+    JsonPath<String> continueToken = JsonPath.of(String.class, "continue", "wlcontinue");
+    mapper.stream(json, results, continueToken);
+    Optional<String> nextPageInfo =
+        Optional.fromNullable(Iterables.getFirst(continueToken.values(), null));
+    return new Page<>(results.values(), nextPageInfo);
+  }
+
   @Override
   protected ImmutableList<WatchResponse> parseElements(String json) {
-    this.responseList = mapper.get(json, WatchListResults.class);
+    WatchListResults responseList = mapper.get(json, WatchListResults.class);
     return ImmutableList.copyOf(responseList.getResults());
   }
 
   @Override
-  protected Optional<String> parseHasMore(String s) {
+  protected Optional<String> parseHasMore(String json) {
+    WatchListResults responseList = mapper.get(json, WatchListResults.class);
     if (responseList.canContinue()) {
       return Optional.of(responseList.getContinueToken());
     } else {
@@ -278,7 +290,10 @@ class WatchList extends BaseQuery<WatchResponse> {
       this.bot = bot;
     }
 
-    /** How many results to return per request. Do not set it to return the maximum. */
+    /**
+     * How many results to return per request. Do not set it to return the maximum. Overridden by
+     * {@link BaseQuery#withLimit(int)} and {@link BaseQuery#withMaxLimit()} of the built query.
+     */
     public Builder withLimit(int limit) {
       this.limit = Optional.of(limit);
       return this;
@@ -1,6 +1,8 @@
 package net.sourceforge.jwbf.mediawiki.bots;
 
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
@@ -57,6 +59,11 @@ import net.sourceforge.jwbf.mediawiki.contentRep.LoginData;
  * Thus the correct wikiurl is: <code>http://www.mediawiki.org/w/</code> Since MediaWiki 1.20, the
  * wikiurl can be found on the wiki's Special:Version page.
  *
+ * <p>One instance can be shared by many threads. Actions are performed concurrently; only the
+ * session state (login, {@link Userinfo} and {@link Version}) is guarded, but no lock is held
+ * during a request. So threads, which need the version or the userinfo at the same time for the
+ * first time, may request it concurrently.
+ *
  * @author Thomas Stock
  * @author Tobias Knerr
  * @author Justus Bisser
@@ -65,13 +72,19 @@ public class MediaWikiBot implements WikiBot {
 
   private static final Logger log = LoggerFactory.getLogger(MediaWikiBot.class);
 
-  private LoginData login = null;
+  private final Object sessionLock = new Object();
+
+  private volatile LoginData login = null;
 
-  private Version version = null;
-  private Userinfo ui = null;
+  // null, if it must be requested
+  private volatile Version version = null;
+  private volatile Userinfo ui = null;
 
-  private boolean loginChangeUserInfo = false;
-  private boolean loginChangeVersion = false;
+  /**
+   * Incremented by each login, which resets the values of the session; so a value, that was
+   * requested before, is not published. Changed with sessionLock.
+   */
+  private volatile long sessionGeneration = 0;
 
   @Inject private HttpBot bot;
 
@@ -136,10 +149,17 @@ public class MediaWikiBot implements WikiBot {
    * @see PostLogin
    */
   public void login(String username, String passwd, String domain) {
-    this.login = getPerformedAction(new PostLogin(username, passwd, domain)).getLoginData();
-    loginChangeUserInfo = true;
-    if (getVersion() == Version.UNKNOWN) {
-      loginChangeVersion = true;
+    Version anonymousVersion = getVersion();
+    LoginData loginData =
+        getPerformedAction(new PostLogin(username, passwd, domain, anonymousVersion))
+            .getLoginData();
+    synchronized (sessionLock) {
+      this.login = loginData;
+      sessionGeneration++;
+      ui = null;
+      if (anonymousVersion == Version.UNKNOWN) {
+        version = null;
+      }
     }
   }
 
@@ -177,7 +197,7 @@ public class MediaWikiBot implements WikiBot {
 
   // TODO 'data' is not very descriptive
   SimpleArticle readData(int properties, String name) {
-    return getPerformedAction(new GetRevision(null, name, properties)).getArticle();
+    return getPerformedAction(new GetRevision(getVersion(), name, properties)).getArticle();
   }
 
   // TODO 'data' is not very descriptive
@@ -187,7 +207,8 @@ public class MediaWikiBot implements WikiBot {
 
   // TODO 'data' is not very descriptive
   public ImmutableList<SimpleArticle> readData(ImmutableList<String> names) {
-    return getPerformedAction(new GetRevision(names, DEFAULT_READ_PROPERTIES)).asList();
+    return getPerformedAction(new GetRevision(getVersion(), names, DEFAULT_READ_PROPERTIES))
+        .asList();
   }
 
   /** {@inheritDoc} */
@@ -204,12 +225,14 @@ public class MediaWikiBot implements WikiBot {
 
   // TODO 'data' is not very descriptive
   public ImmutableList<Optional<SimpleArticle>> readDataOpt(ImmutableList<String> names) {
-    return getPerformedAction(new GetRevision(names, DEFAULT_READ_PROPERTIES)).asListOpt();
+    return getPerformedAction(new GetRevision(getVersion(), names, DEFAULT_READ_PROPERTIES))
+        .asListOpt();
   }
 
   // TODO 'data' is not very descriptive
   public Optional<SimpleArticle> readDataOpt(String name) {
-    return getPerformedAction(new GetRevision(null, name, DEFAULT_READ_PROPERTIES)).getArticleOpt();
+    return getPerformedAction(new GetRevision(getVersion(), name, DEFAULT_READ_PROPERTIES))
+        .getArticleOpt();
   }
 
   /**
@@ -255,11 +278,17 @@ public class MediaWikiBot implements WikiBot {
   /** {@inheritDoc} */
   @Override
   public Userinfo getUserinfo() {
-    if (ui == null || loginChangeUserInfo) {
-      ui = getPerformedAction(GetUserinfo.class);
-      loginChangeUserInfo = false;
+    Userinfo current = ui;
+    if (current == null) {
+      long generation = sessionGeneration;
+      current = getPerformedAction(GetUserinfo.class);
+      synchronized (sessionLock) {
+        if (generation == sessionGeneration) {
+          ui = current;
+        }
+      }
     }
-    return ui;
+    return current;
   }
 
   /** {@inheritDoc} */
@@ -275,7 +304,7 @@ public class MediaWikiBot implements WikiBot {
 
   /** @deprecated use {@link #getPerformedAction(ContentProcessable)} instead */
   @Deprecated
-  synchronized String performAction(ContentProcessable a) {
+  String performAction(ContentProcessable a) {
     if (a.isSelfExecuter()) {
       throw new ActionException(
           "this is a selfexcecuting action, " + "please do not perform this action manually");
@@ -289,6 +318,27 @@ public class MediaWikiBot implements WikiBot {
     return answer;
   }
 
+  /**
+   * Like {@link #getPerformedAction(ContentProcessable)}, but the calling thread is not blocked.
+   *
+   * @return a future that completes with the given action after all of its messages were processed
+   */
+  public <T extends ContentProcessable> CompletableFuture<T> getPerformedActionAsync(
+      final T answer) {
+    if (answer.isSelfExecuter()) {
+      throw new ActionException(
+          "this is a selfexcecuting action, " + "please do not perform this action manually");
+    }
+    return bot().performActionAsync(answer) //
+        .thenApply(
+            new Function<String, T>() {
+              @Override
+              public T apply(String ignored) {
+                return answer;
+              }
+            });
+  }
+
   public <T extends ContentProcessable> T getPerformedAction(Class<T> clazz) {
     T answer;
     try {
@@ -313,13 +363,18 @@ public class MediaWikiBot implements WikiBot {
   /** @see #getSiteinfo() */
   @Nonnull
   public Version getVersion() {
-    if (version == null || loginChangeVersion) {
-      GetVersion gs = getPerformedAction(GetVersion.class);
-      version = gs.getVersion();
-      loginChangeVersion = false;
-      log.debug("Version is: {}", version.name());
+    Version current = version;
+    if (current == null) {
+      long generation = sessionGeneration;
+      current = getPerformedAction(GetVersion.class).getVersion();
+      log.debug("Version is: {}", current.name());
+      synchronized (sessionLock) {
+        if (generation == sessionGeneration) {
+          version = current;
+        }
+      }
     }
-    return version;
+    return current;
   }
 
   /**
@@ -329,7 +384,7 @@ public class MediaWikiBot implements WikiBot {
   @Nonnull
   public Siteinfo getSiteinfo() {
     // TODO cache value see getVersion
-    return getPerformedAction(Siteinfo.class);
+    return getPerformedAction(new Siteinfo(getVersion()));
   }
 
   /** {@inheritDoc} */
@@ -3,6 +3,9 @@ package net.sourceforge.jwbf.mediawiki.contentRep;
 import java.util.Date;
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 /**
  * Represents an item that was recently changed in a wiki.
  */
@@ -67,6 +70,25 @@ public class RecentChange {
     this.comment = comment;
   }
 
+  @JsonCreator
+  private static RecentChange of(
+      @JsonProperty("type") String type,
+      @JsonProperty("ns") int namespace,
+      @JsonProperty("title") String title,
+      @JsonProperty("pageid") long pageId,
+      @JsonProperty("revid") long revisionId,
+      @JsonProperty("old_revid") long oldRevisionId,
+      @JsonProperty("rcid") long rcId,
+      @JsonProperty("user") String user,
+      @JsonProperty("userid") long userId,
+      @JsonProperty("oldlen") long oldLength,
+      @JsonProperty("newlen") long newLength,
+      @JsonProperty("timestamp") Date timestamp,
+      @JsonProperty("comment") String comment) {
+    return new RecentChange(ChangeType.parse(type), namespace, title, pageId, revisionId,
+        oldRevisionId, rcId, user, userId, oldLength, newLength, timestamp, comment);
+  }
+
   public ChangeType getType() {
     return type;
   }
@@ -78,6 +78,11 @@ public class SimpleFile extends SimpleArticle {
     return getFile().exists();
   }
 
+  /** @return the size of the file in bytes */
+  public long length() {
+    return getFile().length();
+  }
+
   public String getPath() {
     return file.getPath();
   }
@@ -0,0 +1,313 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+
+import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * The {@link Http2Transport} on the {@code java.net.http} client. This class is compiled for Java
+ * 11 and only loaded by {@link Http2Transport.Builder#build()}.
+ */
+final class JavaNetHttpTransport implements AsyncHttpTransport {
+
+  private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+  // set by the client itself; java.net.http of Java 11 rejects them
+  private static final Set<String> RESTRICTED_HEADERS =
+      new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+  static {
+    RESTRICTED_HEADERS.addAll(
+        Arrays.asList(
+            HttpHeaders.CONNECTION,
+            HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.DATE,
+            HttpHeaders.EXPECT,
+            HttpHeaders.FROM,
+            HttpHeaders.HOST,
+            "Origin",
+            HttpHeaders.REFERER,
+            HttpHeaders.UPGRADE,
+            HttpHeaders.VIA,
+            HttpHeaders.WARNING));
+  }
+
+  /**
+   * Threads, that write streamed request bodies of all transports. Further bodies wait in the
+   * queue; the client reads them, when a thread is free.
+   */
+  private static final int BODY_WRITER_THREADS = 8;
+
+  private static final ThreadPoolExecutor BODY_WRITERS = newBodyWriters();
+
+  private final HttpClient client;
+  private final Duration requestTimeout;
+  private final boolean compression;
+  private final String userAgent;
+
+  JavaNetHttpTransport(Http2Transport.Builder builder) {
+    this.client =
+        HttpClient.newBuilder() //
+            .version(HttpClient.Version.HTTP_2) //
+            .followRedirects(HttpClient.Redirect.NORMAL) //
+            .connectTimeout(Duration.ofMillis(builder.getConnectTimeoutMillis())) //
+            .cookieHandler(new CookieManager(null, CookiePolicy.ACCEPT_ALL)) //
+            .build();
+    this.requestTimeout = Duration.ofMillis(builder.getRequestTimeoutMillis());
+    this.compression = builder.isCompression();
+    this.userAgent = builder.getUserAgent();
+  }
+
+  private static ThreadPoolExecutor newBodyWriters() {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            BODY_WRITER_THREADS,
+            BODY_WRITER_THREADS,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactoryBuilder() //
+                .setDaemon(true) //
+                .setNameFormat("jwbf-request-body-%d") //
+                .build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  @Override
+  public HttpResponse execute(HttpUriRequest request) throws IOException {
+    Queue<InputStream> bodies = new ConcurrentLinkedQueue<>();
+    try {
+      return toResponse(client.send(toRequest(request, bodies), BodyHandlers.ofInputStream()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for " + request.getURI());
+    } finally {
+      closeAll(bodies);
+    }
+  }
+
+  @Override
+  public CompletableFuture<HttpResponse> executeAsync(HttpUriRequest request) {
+    final Queue<InputStream> bodies = new ConcurrentLinkedQueue<>();
+    HttpRequest javaRequest;
+    try {
+      javaRequest = toRequest(request, bodies);
+    } catch (IOException | RuntimeException e) {
+      CompletableFuture<HttpResponse> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+    return client
+        .sendAsync(javaRequest, BodyHandlers.ofInputStream())
+        .whenComplete(
+            new BiConsumer<java.net.http.HttpResponse<InputStream>, Throwable>() {
+              @Override
+              public void accept(java.net.http.HttpResponse<InputStream> response, Throwable t) {
+                closeAll(bodies);
+              }
+            })
+        .thenApply(
+            new Function<java.net.http.HttpResponse<InputStream>, HttpResponse>() {
+              @Override
+              public HttpResponse apply(java.net.http.HttpResponse<InputStream> response) {
+                return toResponse(response);
+              }
+            });
+  }
+
+  /** @param bodies collects the opened request bodies, which are closed after the exchange */
+  private HttpRequest toRequest(HttpUriRequest request, Queue<InputStream> bodies)
+      throws IOException {
+    HttpRequest.Builder builder =
+        HttpRequest.newBuilder(request.getURI()) //
+            .timeout(requestTimeout) //
+            .header(HttpHeaders.USER_AGENT, userAgent);
+    if (compression) {
+      builder.header(HttpHeaders.ACCEPT_ENCODING, "gzip,deflate");
+    }
+    for (Header header : request.getAllHeaders()) {
+      if (!RESTRICTED_HEADERS.contains(header.getName())) {
+        builder.setHeader(header.getName(), header.getValue());
+      }
+    }
+    HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+    if (request instanceof HttpEntityEnclosingRequest) {
+      HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+      if (entity != null) {
+        body = toBody(entity, bodies);
+        if (entity.getContentType() != null) {
+          builder.setHeader(HttpHeaders.CONTENT_TYPE, entity.getContentType().getValue());
+        }
+      }
+    }
+    return builder.method(request.getMethod(), body).build();
+  }
+
+  /**
+   * Streams the entity to the client instead of buffering it. Form bodies are in memory anyway
+   * and read directly; others like file uploads are written by an {@link EntityWriter}. The
+   * client opens the body again, if it has to resend it.
+   */
+  private static HttpRequest.BodyPublisher toBody(
+      final HttpEntity entity, final Queue<InputStream> bodies) {
+    HttpRequest.BodyPublisher body =
+        HttpRequest.BodyPublishers.ofInputStream(
+            new Supplier<InputStream>() {
+              @Override
+              public InputStream get() {
+                try {
+                  InputStream content;
+                  if (entity instanceof StringEntity || entity instanceof ByteArrayEntity) {
+                    content = entity.getContent();
+                  } else {
+                    content = EntityWriter.start(entity, BODY_WRITERS);
+                  }
+                  bodies.add(content);
+                  return content;
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              }
+            });
+    long length = entity.getContentLength();
+    if (length >= 0) {
+      return HttpRequest.BodyPublishers.fromPublisher(body, length);
+    }
+    return body;
+  }
+
+  /** Stops the writers of bodies, which the client did not read to the end. */
+  private static void closeAll(Queue<InputStream> bodies) {
+    for (InputStream body = bodies.poll(); body != null; body = bodies.poll()) {
+      Closeables.closeQuietly(body);
+    }
+  }
+
+  private static HttpResponse toResponse(java.net.http.HttpResponse<InputStream> response) {
+    ProtocolVersion version = HttpVersion.HTTP_1_1;
+    if (response.version() == HttpClient.Version.HTTP_2) {
+      version = HTTP_2;
+    }
+    BasicHttpResponse result = new BasicHttpResponse(version, response.statusCode(), "");
+    for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+      if (!header.getKey().startsWith(":")) {
+        for (String value : header.getValue()) {
+          result.addHeader(header.getKey(), value);
+        }
+      }
+    }
+    BasicHttpEntity entity = new BasicHttpEntity();
+    entity.setContent(response.body());
+    Optional<String> length = response.headers().firstValue(HttpHeaders.CONTENT_LENGTH);
+    if (length.isPresent()) {
+      entity.setContentLength(Long.parseLong(length.get()));
+    } else {
+      entity.setContentLength(-1);
+    }
+    entity.setContentType(result.getFirstHeader(HttpHeaders.CONTENT_TYPE));
+    entity.setContentEncoding(result.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+    result.setEntity(entity);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "Http2Transport " + client.version();
+  }
+
+  /**
+   * Writes an entity through a pipe on a thread of the executor, while the client reads the other
+   * end. A failed write fails the read, so the client never sends a truncated body; closing the
+   * read end ends the writer.
+   */
+  private static final class EntityWriter extends FilterInputStream implements Runnable {
+
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    private final HttpEntity entity;
+    private final PipedOutputStream out;
+    private volatile IOException failure;
+
+    private EntityWriter(HttpEntity entity, PipedInputStream in) throws IOException {
+      super(in);
+      this.entity = entity;
+      this.out = new PipedOutputStream(in);
+    }
+
+    static InputStream start(HttpEntity entity, Executor executor) throws IOException {
+      EntityWriter writer = new EntityWriter(entity, new PipedInputStream(PIPE_SIZE));
+      executor.execute(writer);
+      return writer;
+    }
+
+    @Override
+    public void run() {
+      try (OutputStream target = out) {
+        entity.writeTo(target);
+      } catch (IOException e) {
+        failure = e;
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      return checked(super.read());
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      return checked(super.read(b, off, len));
+    }
+
+    private int checked(int result) throws IOException {
+      if (result < 0 && failure != null) {
+        throw failure;
+      }
+      return result;
+    }
+  }
+}
@@ -1,27 +1,42 @@
 package net.sourceforge.jwbf;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.Nullable;
 import javax.servlet.MultipartConfigElement;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.MultipartConfig;
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.Part;
 
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.NetworkConnector;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.joda.time.DateTime;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Iterables;
@@ -37,6 +52,16 @@ public class JettyServer extends Server implements AutoCloseable {
     super(0);
   }
 
+  /** Serves HTTP/2 without TLS next to HTTP/1.1; clients reach it with an h2c upgrade. */
+  public JettyServer withH2c() {
+    HttpConfiguration config = new HttpConfiguration();
+    ServerConnector connector =
+        new ServerConnector(
+            this, new HttpConnectionFactory(config), new HTTP2CServerConnectionFactory(config));
+    setConnectors(new Connector[] {connector});
+    return this;
+  }
+
   public JettyServer started(ContextHandler handler) {
     setHandler(handler);
     startSilent();
@@ -136,6 +161,156 @@ public class JettyServer extends Server implements AutoCloseable {
     };
   }
 
+  /**
+   * Answers the first requests with 503 and <code>Retry-After: 0</code>, all following with the
+   * query string of the request.
+   */
+  public static ContextHandler busyHandler(final int busyResponses) {
+    final AtomicInteger count = new AtomicInteger();
+    return new ContextHandler() {
+      @Override
+      public void doHandle(
+          String arg0, Request request, HttpServletRequest arg2, HttpServletResponse response)
+          throws IOException, ServletException {
+        if (count.incrementAndGet() <= busyResponses) {
+          response.setHeader(HttpHeaders.RETRY_AFTER, "0");
+          response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        } else {
+          response.getWriter().print(request.getQueryString());
+          response.setStatus(HttpServletResponse.SC_OK);
+        }
+        request.setHandled(true);
+      }
+    };
+  }
+
+  /** Answers with the text and an ETag, or with 304 if the client sends the same ETag. */
+  public static ContextHandler etagHandler(final String etag, final String text) {
+    return new ContextHandler() {
+      @Override
+      public void doHandle(
+          String arg0, Request request, HttpServletRequest arg2, HttpServletResponse response)
+          throws IOException, ServletException {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, must-revalidate, max-age=0");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+          response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        } else {
+          response.getWriter().print(text);
+          response.setStatus(HttpServletResponse.SC_OK);
+        }
+        request.setHandled(true);
+      }
+    };
+  }
+
+  /** Answers with the gzip encoded text, if the client accepts it. */
+  public static ContextHandler gzipHandler(final String text) {
+    return new ContextHandler() {
+      @Override
+      public void doHandle(
+          String arg0, Request request, HttpServletRequest arg2, HttpServletResponse response)
+          throws IOException, ServletException {
+        String acceptEncoding = Strings.nullToEmpty(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (acceptEncoding.contains("gzip")) {
+          response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+          try (OutputStream out = new GZIPOutputStream(response.getOutputStream())) {
+            out.write(bytes);
+          }
+        } else {
+          response.getOutputStream().write(bytes);
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        request.setHandled(true);
+      }
+    };
+  }
+
+  /** Answers with the given text only after the given number of requests are open concurrently. */
+  public static ContextHandler barrierHandler(final int parties, final String text) {
+    final CyclicBarrier barrier = new CyclicBarrier(parties);
+    return new ContextHandler() {
+      @Override
+      public void doHandle(
+          String arg0, Request request, HttpServletRequest arg2, HttpServletResponse response)
+          throws IOException, ServletException {
+        try {
+          barrier.await(5, TimeUnit.SECONDS);
+          response.getWriter().print(text);
+          response.setStatus(HttpServletResponse.SC_OK);
+        } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+          response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+        request.setHandled(true);
+      }
+    };
+  }
+
+  /**
+   * A POST logs in the user of its query parameter <code>user</code> by a session cookie; a GET
+   * answers with that user or <code>anonymous</code> as a private response, like the MediaWiki
+   * API.
+   */
+  public static ContextHandler sessionHandler() {
+    return new ContextHandler() {
+      @Override
+      public void doHandle(
+          String arg0, Request request, HttpServletRequest arg2, HttpServletResponse response)
+          throws IOException, ServletException {
+        if (request.getMethod().equals("POST")) {
+          response.addHeader(
+              HttpHeaders.SET_COOKIE, "session=" + request.getParameter("user") + "; Path=/");
+        } else {
+          String user = "anonymous";
+          for (Cookie cookie : nullToEmpty(request.getCookies())) {
+            if (cookie.getName().equals("session")) {
+              user = cookie.getValue();
+            }
+          }
+          response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=60");
+          response.setHeader(HttpHeaders.VARY, "Accept-Encoding, Cookie");
+          response.getWriter().print(user);
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        request.setHandled(true);
+      }
+    };
+  }
+
+  private static Cookie[] nullToEmpty(Cookie[] cookies) {
+    if (cookies == null) {
+      return new Cookie[0];
+    }
+    return cookies;
+  }
+
+  /**
+   * Answers with the protocol and the client port of a request. The first request is answered at
+   * once, all others only after the given number of them are open concurrently.
+   */
+  public static ContextHandler connectionHandler(final int parties) {
+    final CyclicBarrier barrier = new CyclicBarrier(parties);
+    final AtomicInteger requests = new AtomicInteger();
+    return new ContextHandler() {
+      @Override
+      public void doHandle(
+          String arg0, Request request, HttpServletRequest arg2, HttpServletResponse response)
+          throws IOException, ServletException {
+        try {
+          if (requests.getAndIncrement() > 0) {
+            barrier.await(5, TimeUnit.SECONDS);
+          }
+          response.getWriter().print(request.getProtocol() + " " + request.getRemotePort());
+          response.setStatus(HttpServletResponse.SC_OK);
+        } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+          response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+        request.setHandled(true);
+      }
+    };
+  }
+
   public static String entry(String key, String value) {
     return key + "=" + value + "";
   }
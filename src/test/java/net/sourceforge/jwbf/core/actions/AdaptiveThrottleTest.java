@@ -0,0 +1,184 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+
+public class AdaptiveThrottleTest {
+
+  private final Ticker ticker =
+      new Ticker() {
+        @Override
+        public long read() {
+          return 0;
+        }
+      };
+
+  private final Random noJitter =
+      new Random() {
+        @Override
+        public double nextDouble() {
+          return 0;
+        }
+      };
+
+  private AdaptiveThrottle newThrottle(AdaptiveThrottle.Builder builder) {
+    return new AdaptiveThrottle(builder, ticker, noJitter);
+  }
+
+  @Test
+  public void testWithMaxlag() {
+    // GIVEN
+    AdaptiveThrottle testee = newThrottle(AdaptiveThrottle.builder());
+
+    // WHEN/THEN
+    assertEquals("/api.php?maxlag=5", testee.withMaxlag("/api.php"));
+    assertEquals("/api.php?action=query&maxlag=5", testee.withMaxlag("/api.php?action=query"));
+    assertEquals("/api.php?maxlag=1", testee.withMaxlag("/api.php?maxlag=1"));
+    assertEquals("/index.php?title=A", testee.withMaxlag("/index.php?title=A"));
+  }
+
+  @Test
+  public void testWithMaxlag_disabled() {
+    // GIVEN
+    AdaptiveThrottle testee = newThrottle(AdaptiveThrottle.builder().withMaxlag(0));
+
+    // WHEN/THEN
+    assertEquals("/api.php", testee.withMaxlag("/api.php"));
+  }
+
+  @Test
+  public void testIsThrottled() {
+    // GIVEN
+    HttpResponse lagged = response(200);
+    lagged.addHeader(AdaptiveThrottle.DATABASE_LAG, "7");
+
+    // WHEN/THEN
+    assertFalse(AdaptiveThrottle.isThrottled(response(200)));
+    assertFalse(AdaptiveThrottle.isThrottled(response(500)));
+    assertTrue(AdaptiveThrottle.isThrottled(response(503)));
+    assertTrue(AdaptiveThrottle.isThrottled(response(429)));
+    assertTrue(AdaptiveThrottle.isThrottled(lagged));
+  }
+
+  @Test
+  public void testRetryAfterMillis() {
+    // GIVEN
+    HttpResponse seconds = response(503);
+    seconds.addHeader("Retry-After", "5");
+    HttpResponse invalid = response(503);
+    invalid.addHeader("Retry-After", "soon");
+    HttpResponse date = response(503);
+    Date inOneMinute = new Date(System.currentTimeMillis() + 60000);
+    date.addHeader("Retry-After", DateUtils.formatDate(inOneMinute));
+
+    // WHEN/THEN
+    assertEquals(Optional.of(5000L), AdaptiveThrottle.retryAfterMillis(seconds));
+    assertEquals(Optional.absent(), AdaptiveThrottle.retryAfterMillis(invalid));
+    assertEquals(Optional.absent(), AdaptiveThrottle.retryAfterMillis(response(503)));
+    long fromDate = AdaptiveThrottle.retryAfterMillis(date).get();
+    assertTrue(fromDate > 50000 && fromDate <= 60000);
+  }
+
+  @Test
+  public void testPauseMillis() {
+    // GIVEN
+    AdaptiveThrottle testee =
+        newThrottle(AdaptiveThrottle.builder().withDefaultBackoff(1, TimeUnit.SECONDS));
+
+    // WHEN/THEN
+    assertEquals(3000, testee.pauseMillis(Optional.of(3000L), 1));
+    assertEquals(1000, testee.pauseMillis(Optional.<Long>absent(), 1));
+    assertEquals(4000, testee.pauseMillis(Optional.<Long>absent(), 3));
+  }
+
+  @Test
+  public void testPauseMillis_jitter() {
+    // GIVEN
+    AdaptiveThrottle testee =
+        new AdaptiveThrottle(
+            AdaptiveThrottle.builder(),
+            ticker,
+            new Random() {
+              @Override
+              public double nextDouble() {
+                return 0.5;
+              }
+            });
+
+    // WHEN
+    long pause = testee.pauseMillis(Optional.of(1000L), 1);
+
+    // THEN
+    assertEquals(1125, pause);
+  }
+
+  @Test
+  public void testTryAcquire() {
+    // GIVEN
+    AdaptiveThrottle testee =
+        newThrottle(AdaptiveThrottle.builder().withDefaultBackoff(1, TimeUnit.SECONDS));
+
+    // WHEN / THEN
+    assertEquals(0, testee.tryAcquire());
+
+    // WHEN
+    testee.onThrottled(response(503), 1);
+
+    // THEN
+    assertEquals(TimeUnit.SECONDS.toNanos(1), testee.tryAcquire());
+  }
+
+  @Test
+  public void testRate() {
+    // GIVEN
+    AdaptiveThrottle testee =
+        newThrottle(
+            AdaptiveThrottle.builder() //
+                .withMaxRate(8)
+                .withMinRate(1)
+                .withRampUpFactor(2));
+    HttpResponse busy = response(503);
+    busy.addHeader("Retry-After", "0");
+
+    // WHEN
+    testee.onThrottled(busy, 1);
+    testee.onThrottled(busy, 2);
+
+    // THEN
+    assertEquals(2, testee.getRate(), 0.001);
+
+    // WHEN
+    testee.onThrottled(busy, 3);
+    testee.onThrottled(busy, 4);
+
+    // THEN
+    assertEquals(1, testee.getRate(), 0.001);
+
+    // WHEN
+    testee.onSuccess();
+    testee.onSuccess();
+    testee.onSuccess();
+    testee.onSuccess();
+
+    // THEN
+    assertEquals(8, testee.getRate(), 0.001);
+  }
+
+  private static HttpResponse response(int code) {
+    return new BasicHttpResponse(HttpVersion.HTTP_1_1, code, "");
+  }
+}
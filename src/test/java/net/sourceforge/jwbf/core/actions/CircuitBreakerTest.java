@@ -0,0 +1,116 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+public class CircuitBreakerTest {
+
+  private long now = 0;
+
+  private final Ticker ticker =
+      new Ticker() {
+        @Override
+        public long read() {
+          return now;
+        }
+      };
+
+  private final List<String> changes = Lists.newArrayList();
+
+  private final CircuitBreaker testee =
+      new CircuitBreaker(
+          "host",
+          2,
+          100,
+          ticker,
+          new CircuitBreaker.StateListener() {
+            @Override
+            public void stateChanged(
+                String host, CircuitBreaker.State from, CircuitBreaker.State to) {
+              changes.add(host + " " + from + "->" + to);
+            }
+          });
+
+  @Test
+  public void testOpen() {
+    // GIVEN
+    testee.onFailure();
+    assertTrue(testee.allowRequest());
+
+    // WHEN
+    testee.onFailure();
+
+    // THEN
+    assertEquals(CircuitBreaker.State.OPEN, testee.getState());
+    assertFalse(testee.allowRequest());
+    assertEquals(ImmutableList.of("host CLOSED->OPEN"), changes);
+  }
+
+  @Test
+  public void testSuccess_resets_failures() {
+    // GIVEN
+    testee.onFailure();
+    testee.onSuccess();
+
+    // WHEN
+    testee.onFailure();
+
+    // THEN
+    assertEquals(CircuitBreaker.State.CLOSED, testee.getState());
+    assertEquals(ImmutableList.of(), changes);
+  }
+
+  @Test
+  public void testHalfOpen_success() {
+    // GIVEN
+    testee.onFailure();
+    testee.onFailure();
+    now = 100;
+
+    // WHEN
+    assertTrue(testee.allowRequest());
+
+    // THEN
+    assertEquals(CircuitBreaker.State.HALF_OPEN, testee.getState());
+    assertFalse(testee.allowRequest());
+
+    // WHEN
+    testee.onSuccess();
+
+    // THEN
+    assertEquals(CircuitBreaker.State.CLOSED, testee.getState());
+    assertTrue(testee.allowRequest());
+    assertEquals(
+        ImmutableList.of("host CLOSED->OPEN", "host OPEN->HALF_OPEN", "host HALF_OPEN->CLOSED"),
+        changes);
+  }
+
+  @Test
+  public void testHalfOpen_failure() {
+    // GIVEN
+    testee.onFailure();
+    testee.onFailure();
+    now = 100;
+    assertTrue(testee.allowRequest());
+
+    // WHEN
+    testee.onFailure();
+
+    // THEN
+    assertEquals(CircuitBreaker.State.OPEN, testee.getState());
+    assertFalse(testee.allowRequest());
+    now = 199;
+    assertFalse(testee.allowRequest());
+    now = 200;
+    assertTrue(testee.allowRequest());
+  }
+}
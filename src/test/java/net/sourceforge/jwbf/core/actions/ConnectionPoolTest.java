@@ -0,0 +1,76 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ConnectionPoolTest {
+
+  @Test
+  public void testDefaults() {
+    // GIVEN/WHEN
+    try (ConnectionPool testee = ConnectionPool.builder().build()) {
+
+      // THEN
+      assertEquals(20, testee.getMaxTotal());
+      assertEquals(5, testee.getMaxPerRoute());
+      assertTrue(testee.isEvicting());
+    }
+  }
+
+  @Test
+  public void testSizes() {
+    // GIVEN/WHEN
+    try (ConnectionPool testee =
+        ConnectionPool.builder() //
+            .withMaxTotal(40)
+            .withMaxPerRoute(8)
+            .withTimeToLive(5, TimeUnit.MINUTES)
+            .withMaxIdleTime(10, TimeUnit.SECONDS)
+            .build()) {
+
+      // THEN
+      assertEquals(40, testee.getMaxTotal());
+      assertEquals(8, testee.getMaxPerRoute());
+    }
+  }
+
+  @Test
+  public void testWithoutIdleEviction() {
+    // GIVEN/WHEN
+    try (ConnectionPool testee = ConnectionPool.builder().withoutIdleEviction().build()) {
+
+      // THEN
+      assertFalse(testee.isEvicting());
+    }
+  }
+
+  @Test
+  public void testClose() {
+    // GIVEN
+    ConnectionPool testee = ConnectionPool.builder().build();
+
+    // WHEN
+    testee.close();
+
+    // THEN
+    assertFalse(testee.isEvicting());
+  }
+
+  @Test
+  public void testInvalidSize() {
+    try {
+      // WHEN
+      ConnectionPool.builder().withMaxPerRoute(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("maxPerRoute must be positive", e.getMessage());
+    }
+  }
+}
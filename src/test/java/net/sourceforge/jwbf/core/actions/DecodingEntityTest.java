@@ -0,0 +1,104 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.entity.ByteArrayEntity;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class DecodingEntityTest {
+
+  private static final byte[] TEXT =
+      "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  public void testGzip() throws IOException {
+    // GIVEN
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(TEXT);
+    }
+    DecodingEntity testee = new DecodingEntity(entityOf(out.toByteArray(), "gzip"));
+
+    // WHEN
+    byte[] result = read(testee);
+
+    // THEN
+    assertEquals(
+        new String(TEXT, StandardCharsets.UTF_8), new String(result, StandardCharsets.UTF_8));
+    assertEquals(out.size(), testee.getWireBytes());
+    assertEquals(TEXT.length, testee.getDecodedBytes());
+    assertNull(testee.getContentEncoding());
+  }
+
+  @Test
+  public void testDeflate() throws IOException {
+    // GIVEN
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DeflaterOutputStream deflate = new DeflaterOutputStream(out)) {
+      deflate.write(TEXT);
+    }
+    DecodingEntity testee = new DecodingEntity(entityOf(out.toByteArray(), "deflate"));
+
+    // WHEN
+    byte[] result = read(testee);
+
+    // THEN
+    assertEquals(TEXT.length, result.length);
+    assertEquals(out.size(), testee.getWireBytes());
+    assertEquals(TEXT.length, testee.getDecodedBytes());
+  }
+
+  @Test
+  public void testIdentity() throws IOException {
+    // GIVEN
+    DecodingEntity testee = new DecodingEntity(entityOf(TEXT, null));
+
+    // WHEN
+    InputStream content = testee.getContent();
+    ByteStreams.toByteArray(content);
+
+    // THEN
+    assertSame(content, testee.getContent());
+    assertEquals(TEXT.length, testee.getWireBytes());
+    assertEquals(TEXT.length, testee.getDecodedBytes());
+  }
+
+  @Test
+  public void testUnsupported() throws IOException {
+    // GIVEN
+    DecodingEntity testee = new DecodingEntity(entityOf(TEXT, "br"));
+
+    try {
+      // WHEN
+      testee.getContent();
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("unsupported content encoding: br", e.getMessage());
+    }
+  }
+
+  private static ByteArrayEntity entityOf(byte[] bytes, String encoding) {
+    ByteArrayEntity entity = new ByteArrayEntity(bytes);
+    entity.setContentEncoding(encoding);
+    return entity;
+  }
+
+  private static byte[] read(DecodingEntity entity) throws IOException {
+    try (InputStream in = entity.getContent()) {
+      return ByteStreams.toByteArray(in);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.Files;
+
+public class FileRegionBodyTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testWriteTo() throws IOException {
+    // GIVEN
+    byte[] bytes = new byte[FileRegionBody.BUFFER_SIZE * 3];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) i;
+    }
+    File file = folder.newFile("a.bin");
+    Files.write(bytes, file);
+    int offset = 7;
+    int length = FileRegionBody.BUFFER_SIZE * 2 + 3;
+    FileRegionBody testee = new FileRegionBody(new FileRegion(file, offset, length));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // WHEN
+    testee.writeTo(out);
+
+    // THEN
+    byte[] expected = new byte[length];
+    System.arraycopy(bytes, offset, expected, 0, length);
+    assertArrayEquals(expected, out.toByteArray());
+    assertEquals(length, testee.getContentLength());
+    assertEquals("a.bin", testee.getFilename());
+  }
+
+  @Test(expected = IOException.class)
+  public void testWriteTo_beyond_end() throws IOException {
+    // GIVEN
+    File file = folder.newFile("a.bin");
+    Files.write(new byte[] {1, 2, 3}, file);
+    FileRegionBody testee = new FileRegionBody(new FileRegion(file, 2, 5));
+
+    // WHEN
+    testee.writeTo(new ByteArrayOutputStream());
+  }
+}
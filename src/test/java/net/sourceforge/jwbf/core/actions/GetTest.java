@@ -41,6 +41,18 @@ public class GetTest {
     assertNotEquals(a.hashCode(), b.hashCode());
   }
 
+  @Test
+  public void testRequestId() {
+    // GIVEN
+    Get a = new Get("http://localhost/wiki/");
+    Get b = new Get("http://localhost/wiki/");
+
+    // WHEN/THEN
+    assertEquals(a, b);
+    assertNotEquals(a.getRequestId(), b.getRequestId());
+    assertEquals(a.getRequestId(), a.getRequestId());
+  }
+
   @Test
   public void testToString() {
     assertEquals("http://localhost/wiki/ UTF-8", new Get("http://localhost/wiki/").toString());
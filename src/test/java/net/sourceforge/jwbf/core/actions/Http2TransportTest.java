@@ -0,0 +1,244 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+import net.sourceforge.jwbf.GAssert;
+import net.sourceforge.jwbf.JettyServer;
+
+public class Http2TransportTest {
+
+  private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testBuild_unavailable() {
+    Assume.assumeTrue(!Http2Transport.isAvailable());
+    try {
+      // WHEN
+      Http2Transport.builder().build();
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("the HTTP/2 transport requires Java 11 or higher", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testBuilder_arguments() {
+    Http2Transport.Builder testee = Http2Transport.builder();
+    try {
+      testee.withRequestTimeout(0, TimeUnit.SECONDS);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("duration must be positive", e.getMessage());
+    }
+    try {
+      testee.withUserAgent("");
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("userAgent must not be empty", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testGet() throws Exception {
+    Assume.assumeTrue(Http2Transport.isAvailable());
+    try (JettyServer server = new JettyServer().started(JettyServer.gzipHandler("a text"))) {
+      // GIVEN
+      HttpActionClient testee =
+          HttpActionClient.builder() //
+              .withUrl(server.getTestUrl()) //
+              .withTransport(Http2Transport.builder().build()) //
+              .build();
+
+      // WHEN
+      String result = testee.get(new Get(server.getTestUrl()));
+
+      // THEN
+      assertEquals("a text\n", result);
+    }
+  }
+
+  @Test
+  public void testPost() throws Exception {
+    Assume.assumeTrue(Http2Transport.isAvailable());
+    try (JettyServer server = new JettyServer().started(JettyServer.echoHandler())) {
+      // GIVEN
+      String url = server.getTestUrl();
+      HttpActionClient testee =
+          HttpActionClient.builder() //
+              .withUrl(url) //
+              .withTransport(Http2Transport.builder().withCompression(false).build()) //
+              .build();
+      Post post =
+          RequestBuilder.of(url) //
+              .param("b", "c") //
+              .postParam("a", "ä") //
+              .buildPost();
+
+      // WHEN
+      String result = testee.post(post);
+
+      // THEN
+      assertEquals("b=c\na=%C3%A4\n", result);
+    }
+  }
+
+  @Test
+  public void testExecuteAsync() throws Exception {
+    Assume.assumeTrue(Http2Transport.isAvailable());
+    try (JettyServer server = new JettyServer().started(JettyServer.textHandler("async"))) {
+      // GIVEN
+      AsyncHttpTransport testee =
+          Http2Transport.builder().withRequestTimeout(5, TimeUnit.SECONDS).build();
+
+      // WHEN
+      HttpResponse result =
+          testee.executeAsync(new HttpGet(server.getTestUrl())).get(5, TimeUnit.SECONDS);
+
+      // THEN
+      assertEquals(200, result.getStatusLine().getStatusCode());
+      assertEquals("async", EntityUtils.toString(result.getEntity()));
+    }
+  }
+
+  @Test
+  public void testPost_fileIsStreamed() throws Exception {
+    Assume.assumeTrue(Http2Transport.isAvailable());
+    try (JettyServer server = new JettyServer().started(JettyServer.echoHandler())) {
+      // GIVEN
+      File file = folder.newFile("a.txt");
+      Files.asCharSink(file, StandardCharsets.UTF_8).write(Strings.repeat("abcdefgh", 32 * 1024));
+      String url = server.getTestUrl();
+      HttpActionClient testee =
+          HttpActionClient.builder() //
+              .withUrl(url) //
+              .withTransport(Http2Transport.builder().withCompression(false).build()) //
+              .build();
+      Post post =
+          RequestBuilder.of(url) //
+              .postParam("file", new FileRegion(file, 8, 128 * 1024)) //
+              .buildPost();
+
+      // WHEN
+      String result = testee.post(post);
+
+      // THEN
+      // larger than the pipe of the writer
+      GAssert.assertEndsWith("\n" + Strings.repeat("abcdefgh", 16 * 1024) + "\n", result);
+    }
+  }
+
+  @Test
+  public void testPost_concurrentBodiesShareBoundedWriters() throws Exception {
+    Assume.assumeTrue(Http2Transport.isAvailable());
+    try (JettyServer server = new JettyServer().started(JettyServer.echoHandler())) {
+      // GIVEN
+      File file = folder.newFile("b.txt");
+      Files.asCharSink(file, StandardCharsets.UTF_8).write(Strings.repeat("abcdefgh", 16 * 1024));
+      String url = server.getTestUrl();
+      final HttpActionClient testee =
+          HttpActionClient.builder() //
+              .withUrl(url) //
+              .withTransport(Http2Transport.builder().withCompression(false).build()) //
+              .build();
+      ExecutorService posters = Executors.newFixedThreadPool(20);
+      List<Future<String>> results = Lists.newArrayList();
+
+      // WHEN
+      try {
+        for (int i = 0; i < 20; i++) {
+          final Post post =
+              RequestBuilder.of(url) //
+                  .postParam("file", new FileRegion(file, 0, 64 * 1024)) //
+                  .buildPost();
+          results.add(
+              posters.submit(
+                  new Callable<String>() {
+                    @Override
+                    public String call() {
+                      return testee.post(post);
+                    }
+                  }));
+        }
+
+        // THEN
+        for (Future<String> result : results) {
+          GAssert.assertEndsWith(
+              "\n" + Strings.repeat("abcdefgh", 8 * 1024) + "\n",
+              result.get(10, TimeUnit.SECONDS));
+        }
+      } finally {
+        posters.shutdownNow();
+      }
+      int writers = 0;
+      for (Thread thread : Thread.getAllStackTraces().keySet()) {
+        if (thread.getName().startsWith("jwbf-request-body")) {
+          assertTrue(thread.getName(), thread.getName().matches("jwbf-request-body-\\d+"));
+          assertTrue(thread.isDaemon());
+          writers++;
+        }
+      }
+      assertTrue("writers: " + writers, writers <= 8);
+    }
+  }
+
+  @Test
+  public void testExecuteAsync_multiplexedOverH2c() throws Exception {
+    Assume.assumeTrue(Http2Transport.isAvailable());
+    int concurrent = 4;
+    try (JettyServer server =
+        new JettyServer().withH2c().started(JettyServer.connectionHandler(concurrent))) {
+      // GIVEN
+      AsyncHttpTransport testee =
+          Http2Transport.builder().withRequestTimeout(10, TimeUnit.SECONDS).build();
+      // the server answers the request, which upgrades the connection, still with HTTP/1.1
+      String upgrade = textOf(testee.executeAsync(new HttpGet(server.getTestUrl())));
+      String port = upgrade.replace("HTTP/1.1 ", "");
+
+      // WHEN
+      List<CompletableFuture<HttpResponse>> responses = Lists.newArrayList();
+      for (int i = 0; i < concurrent; i++) {
+        responses.add(testee.executeAsync(new HttpGet(server.getTestUrl())));
+      }
+
+      // THEN
+      GAssert.assertStartsWith("HTTP/1.1 ", upgrade);
+      for (CompletableFuture<HttpResponse> response : responses) {
+        assertEquals(HTTP_2, response.get(10, TimeUnit.SECONDS).getProtocolVersion());
+        // all requests are open at once on the connection of the upgrade
+        assertEquals("HTTP/2.0 " + port, textOf(response));
+      }
+    }
+  }
+
+  private static String textOf(CompletableFuture<HttpResponse> response) throws Exception {
+    return EntityUtils.toString(response.get(10, TimeUnit.SECONDS).getEntity());
+  }
+}
@@ -3,12 +3,15 @@ package net.sourceforge.jwbf.core.actions;
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Range;
 import com.google.common.io.ByteSource;
+import com.google.common.io.CharStreams;
 import net.sourceforge.jwbf.GAssert;
 import net.sourceforge.jwbf.JWBF;
 import net.sourceforge.jwbf.JettyServer;
@@ -16,12 +19,16 @@ import net.sourceforge.jwbf.Logging;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
 import org.apache.http.util.VersionInfo;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -29,11 +36,24 @@ import org.mockito.Mockito;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import static com.google.common.net.HttpHeaders.*;
@@ -136,7 +156,7 @@ public class HttpActionClientTest {
   }
 
   @Test
-  public void testPostEncoding() {
+  public void testPostEncoding() throws IOException {
     JettyServer server = new JettyServer();
     try {
       // GIVEN
@@ -166,7 +186,7 @@ public class HttpActionClientTest {
       ImmutableList<String> expected =
           ImmutableList.<String>builder() //
               .add("b=c") //
-              .addAll(multipartOf("a", utf8RawData)) //
+              .add("a=" + URLEncoder.encode(utf8RawData, "UTF-8")) //
               .add("") //
               .build();
 
@@ -202,9 +222,7 @@ public class HttpActionClientTest {
       ImmutableList<String> expected =
           ImmutableList.<String>builder()
               .add("b=c&b=e") // b = [c, e]
-              .addAll(multipartOf("b", "c")) //
-              .addAll(multipartOf("b", "e")) //
-              .addAll(multipartOf("a", "b")) //
+              .add("b=c&b=e&a=b") //
               .add("") //
               .build();
 
@@ -215,16 +233,6 @@ public class HttpActionClientTest {
     }
   }
 
-  private List<String> multipartOf(String key, String value) {
-    return ImmutableList.<String>builder() //
-        .add("Content-Disposition: form-data; name=\"" + key + "\"") //
-        .add("Content-Type: */*; charset=UTF-8") //
-        .add("Content-Transfer-Encoding: 8bit") //
-        .add("") //
-        .add(value) //
-        .build();
-  }
-
   @Test
   public void testGet_headers() {
     JettyServer server = new JettyServer();
@@ -485,7 +493,7 @@ public class HttpActionClientTest {
               .add(entry(ACCEPT_ENCODING, "gzip,deflate")) //
               .add(entry(CONNECTION, "keep-alive")) //
               .add(entry(CONTENT_LENGTH, "???")) //
-              .add(entry(CONTENT_TYPE, "multipart/form-data; boundary=????")) //
+              .add(entry(CONTENT_TYPE, "application/x-www-form-urlencoded; charset=UTF-8")) //
               .add(entry(HOST, "localhost:????")) //
               .add(entry(USER_AGENT, userAgentString("Unknown/Unknown "))) //
               .add("") //
@@ -726,6 +734,93 @@ public class HttpActionClientTest {
     }
   }
 
+  @Test
+  public void testNewEntity_form() throws IOException {
+    // GIVEN
+    testee = HttpActionClient.of("http://localhost/");
+    ImmutableMultimap<String, Object> params =
+        ImmutableMultimap.<String, Object>of("a", "b c", "d", "\u00e4");
+
+    // WHEN
+    HttpEntity entity = testee.newEntity(params, Charsets.UTF_8);
+
+    // THEN
+    assertEquals(
+        "application/x-www-form-urlencoded; charset=UTF-8", entity.getContentType().getValue());
+    assertEquals("a=b+c&d=%C3%A4", EntityUtils.toString(entity));
+  }
+
+  @Test
+  public void testNewEntity_multipart_for_files() {
+    // GIVEN
+    testee = HttpActionClient.of("http://localhost/");
+    ImmutableMultimap<String, Object> params =
+        ImmutableMultimap.<String, Object>of("a", "b", "file", new File("."));
+
+    // WHEN
+    HttpEntity entity = testee.newEntity(params, Charsets.UTF_8);
+
+    // THEN
+    GAssert.assertStartsWith("multipart/form-data; boundary=", entity.getContentType().getValue());
+  }
+
+  @Test
+  public void testNewEntity_multipart_for_long_texts() {
+    // GIVEN
+    testee = HttpActionClient.of("http://localhost/");
+    String text = Strings.repeat("a", HttpActionClient.FORM_MAX_CHARS);
+    ImmutableMultimap<String, Object> params =
+        ImmutableMultimap.<String, Object>of("text", text, "summary", "s");
+
+    // WHEN
+    HttpEntity entity = testee.newEntity(params, Charsets.UTF_8);
+
+    // THEN
+    GAssert.assertStartsWith("multipart/form-data; boundary=", entity.getContentType().getValue());
+  }
+
+  @Test
+  public void testNewEntity_unsupported() {
+    // GIVEN
+    testee = HttpActionClient.of("http://localhost/");
+    ImmutableMultimap<String, Object> params = ImmutableMultimap.<String, Object>of("a", 1);
+
+    try {
+      // WHEN
+      testee.newEntity(params, Charsets.UTF_8);
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // THEN
+      GAssert.assertStartsWith("No Handler found for java.lang.Integer", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testNewEntity_form_is_smaller_than_multipart() throws IOException {
+    // GIVEN
+    testee = HttpActionClient.of("http://localhost/");
+    ImmutableMultimap<String, Object> edit =
+        ImmutableMultimap.<String, Object>builder()
+            .put("text", Strings.repeat("Some wiki text. ", 20))
+            .put("summary", "bulk edit")
+            .put("basetimestamp", "2019-01-01T00:00:00Z")
+            .put("starttimestamp", "2019-01-01T00:00:00Z")
+            .put("bot", "")
+            .put("token", "0123456789abcdef0123456789abcdef+\\")
+            .build();
+    MultipartEntityBuilder multipart = MultipartEntityBuilder.create();
+    for (Map.Entry<String, Collection<Object>> entry : edit.asMap().entrySet()) {
+      testee.applyToEntityBuilder(entry.getKey(), entry.getValue(), Charsets.UTF_8, multipart);
+    }
+
+    // WHEN
+    long formBytes = EntityUtils.toByteArray(testee.newEntity(edit, Charsets.UTF_8)).length;
+    long multipartBytes = EntityUtils.toByteArray(multipart.build()).length;
+
+    // THEN
+    assertTrue(formBytes + " < " + multipartBytes, formBytes * 3 < multipartBytes * 2);
+  }
+
   @Test
   public void testApplyToEntityBuilder_filterNullElements() {
     // GIVEN
@@ -779,7 +874,7 @@ public class HttpActionClientTest {
     } catch (UnsupportedOperationException e) {
       // THEN
       assertEquals(
-          "No Handler found for java.lang.Object. Only String or File is accepted, "
+          "No Handler found for java.lang.Object. Only String, File or FileRegion is accepted, "
               + "because http parameters knows no other types.",
           e.getMessage());
     }
@@ -808,4 +903,740 @@ public class HttpActionClientTest {
       server.stopSilent();
     }
   }
+
+  @Test
+  public void testPerformActionAsync() throws Exception {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      server.setHandler(JettyServer.textHandler("a"));
+      server.startSilent();
+      final List<Runnable> tasks = new ArrayList<>();
+      Executor executor =
+          new Executor() {
+            @Override
+            public void execute(Runnable command) {
+              tasks.add(command);
+            }
+          };
+      testee =
+          HttpActionClient.builder() //
+              .withUrl(server.getTestUrl()) //
+              .withExecutor(executor) //
+              .build();
+      Get get = new RequestBuilder("/").buildGet();
+      ResponseHandler<String> handler =
+          ContentProcessableBuilder.create(testee).withActions(get, get).<String>build();
+
+      // WHEN
+      CompletableFuture<String> result = testee.performActionAsync(handler);
+
+      // THEN
+      assertFalse(result.isDone());
+      assertEquals(1, tasks.size());
+      tasks.remove(0).run();
+      assertEquals(1, tasks.size());
+      tasks.remove(0).run();
+      assertTrue(result.isDone());
+      assertEquals(ImmutableList.of("a\n", "a\n"), handler.responeses);
+      assertTrue(tasks.isEmpty());
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testPerformActionAsync_asyncTransport() throws Exception {
+    // GIVEN
+    final List<String> requests = new ArrayList<>();
+    AsyncHttpTransport transport =
+        new AsyncHttpTransport() {
+          @Override
+          public HttpResponse execute(HttpUriRequest request) {
+            throw new AssertionError("must not block");
+          }
+
+          @Override
+          public CompletableFuture<HttpResponse> executeAsync(HttpUriRequest request) {
+            requests.add(request.getMethod());
+            CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+            if (requests.size() == 1) {
+              future.completeExceptionally(new ConnectException("down"));
+              return future;
+            }
+            int code = requests.size() == 2 ? 503 : 200;
+            BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, code, "");
+            response.setEntity(new StringEntity("b", Charsets.UTF_8));
+            future.complete(response);
+            return future;
+          }
+        };
+    RetryPolicy retryPolicy = fastRetries().build();
+    testee =
+        HttpActionClient.builder() //
+            .withUrl("http://localhost/")
+            .withTransport(transport)
+            .withRetryPolicy(retryPolicy)
+            .build();
+    Get get = new RequestBuilder("/api.php").buildGet();
+    ResponseHandler<String> handler =
+        ContentProcessableBuilder.create(testee).withActions(get, get).<String>build();
+
+    // WHEN
+    CompletableFuture<String> result = testee.performActionAsync(handler);
+
+    // THEN
+    result.get(10, TimeUnit.SECONDS);
+    assertEquals(ImmutableList.of("b\n", "b\n"), handler.responeses);
+    assertEquals(ImmutableList.of("GET", "GET", "GET", "GET"), requests);
+    assertEquals(2, retryPolicy.getRetries());
+  }
+
+  @Test
+  public void testPerformActionAsync_asyncTransport_fail() throws Exception {
+    // GIVEN
+    AsyncHttpTransport transport = mock(AsyncHttpTransport.class);
+    BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 404, "Not Found");
+    response.setEntity(new StringEntity("", Charsets.UTF_8));
+    when(transport.executeAsync(Mockito.any(HttpUriRequest.class)))
+        .thenReturn(CompletableFuture.<HttpResponse>completedFuture(response));
+    testee =
+        HttpActionClient.builder() //
+            .withUrl("http://localhost/")
+            .withTransport(transport)
+            .build();
+    Get get = new RequestBuilder("/api.php").buildGet();
+
+    try {
+      // WHEN
+      testee
+          .performActionAsync(ContentProcessableBuilder.create(testee).withActions(get).build())
+          .get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      // THEN
+      GAssert.assertStartsWith("invalid status: HTTP/1.1 404 Not Found", e.getCause().getMessage());
+      Mockito.verify(transport, Mockito.never()).execute(Mockito.any(HttpUriRequest.class));
+    }
+  }
+
+  @Test
+  public void testDefaultExecutor_isBounded() {
+    // WHEN
+    ThreadPoolExecutor executor = HttpActionClient.DEFAULT_EXECUTOR;
+
+    // THEN
+    assertEquals(HttpActionClient.DEFAULT_ASYNC_THREADS, executor.getMaximumPoolSize());
+    assertTrue(executor.allowsCoreThreadTimeOut());
+  }
+
+  @Test
+  public void testDefaultExecutor_sizedByMaxPerRoute() {
+    // GIVEN
+    HttpActionClient.Builder builder =
+        HttpActionClient.builder() //
+            .withUrl("http://localhost/") //
+            .withMaxConnectionsPerRoute(7);
+
+    // WHEN
+    testee = builder.build();
+
+    // THEN
+    assertEquals(7, ((ThreadPoolExecutor) testee.getExecutor()).getMaximumPoolSize());
+    // the default of ConnectionPool
+    assertEquals(
+        5,
+        ((ThreadPoolExecutor) HttpActionClient.of("http://localhost/").getExecutor())
+            .getMaximumPoolSize());
+    assertEquals(
+        HttpActionClient.APACHE_DEFAULT_MAX_PER_ROUTE,
+        ((ThreadPoolExecutor)
+                new HttpActionClient(HttpClientBuilder.create(), JWBF.newURL("http://localhost/"))
+                    .getExecutor())
+            .getMaximumPoolSize());
+  }
+
+  @Test
+  public void testDefaultExecutor_sharedByClients() {
+    // GIVEN
+    HttpActionClient.Builder builder =
+        HttpActionClient.builder() //
+            .withUrl("http://localhost/") //
+            .withMaxConnectionsPerRoute(7);
+    HttpActionClient.Builder other =
+        HttpActionClient.builder() //
+            .withUrl("http://other/") //
+            .withMaxConnectionsPerRoute(7);
+
+    // WHEN
+    Executor first = builder.build().getExecutor();
+    Executor second = other.build().getExecutor();
+
+    // THEN
+    assertSame(first, second);
+    assertSame(HttpActionClient.defaultExecutor(7), first);
+    assertSame(
+        HttpActionClient.DEFAULT_EXECUTOR,
+        HttpActionClient.defaultExecutor(HttpActionClient.DEFAULT_ASYNC_THREADS));
+  }
+
+  @Test
+  public void testPerformActionAsync_fail() throws InterruptedException {
+    // GIVEN
+    testee = HttpActionClient.of("http://localhost/");
+    ContentProcessable action = mock(ContentProcessable.class);
+    when(action.hasMoreMessages()).thenReturn(Boolean.TRUE);
+    when(action.getNextMessage()).thenReturn(mock(HttpAction.class));
+
+    try {
+      // WHEN
+      testee.performActionAsync(action).get();
+      fail();
+    } catch (ExecutionException e) {
+      // THEN
+      assertEquals("httpAction should be GET or POST", e.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void testPerformAction_concurrent() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    try (JettyServer server = new JettyServer().started(JettyServer.barrierHandler(2, "b"))) {
+      // GIVEN
+      testee = HttpActionClient.of(server.getTestUrl());
+      Callable<ImmutableList<String>> call =
+          new Callable<ImmutableList<String>>() {
+            @Override
+            public ImmutableList<String> call() {
+              Get get = new RequestBuilder("/").buildGet();
+              return ContentProcessableBuilder.create(testee) //
+                  .withActions(get)
+                  .<String>build()
+                  .get();
+            }
+          };
+
+      // WHEN
+      Future<ImmutableList<String>> first = pool.submit(call);
+      Future<ImmutableList<String>> second = pool.submit(call);
+
+      // THEN
+      assertEquals(ImmutableList.of("b\n"), first.get(10, TimeUnit.SECONDS));
+      assertEquals(ImmutableList.of("b\n"), second.get(10, TimeUnit.SECONDS));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSharedConnectionPool() throws Exception {
+    try (ConnectionPool pool = ConnectionPool.builder().withMaxTotal(4).build();
+        JettyServer first = new JettyServer().started(JettyServer.textHandler("first"));
+        JettyServer second = new JettyServer().started(JettyServer.textHandler("second"))) {
+      // GIVEN
+      HttpActionClient firstClient =
+          HttpActionClient.builder() //
+              .withUrl(first.getTestUrl())
+              .withConnectionPool(pool)
+              .build();
+      HttpActionClient secondClient =
+          HttpActionClient.builder() //
+              .withUrl(second.getTestUrl())
+              .withConnectionPool(pool)
+              .build();
+
+      // WHEN
+      String firstText = firstClient.get(new Get(first.getTestUrl()));
+      String secondText = secondClient.get(new Get(second.getTestUrl()));
+
+      // THEN
+      assertEquals("first\n", firstText);
+      assertEquals("second\n", secondText);
+    }
+  }
+
+  @Test
+  public void testSharedConnectionPool_with_pool_settings() {
+    // GIVEN
+    HttpActionClient.Builder builder =
+        HttpActionClient.builder() //
+            .withUrl("http://localhost/")
+            .withConnectionPool(ConnectionPool.builder().build())
+            .withMaxConnectionsPerRoute(4);
+
+    try {
+      // WHEN
+      builder.build();
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("pool settings must be applied to the shared connection pool", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testTransport() {
+    // GIVEN
+    final List<String> requests = new ArrayList<>();
+    HttpTransport transport =
+        new HttpTransport() {
+          @Override
+          public HttpResponse execute(HttpUriRequest request) throws IOException {
+            requests.add(request.getMethod() + " " + request.getURI());
+            BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+            response.setEntity(new StringEntity("b", Charsets.UTF_8));
+            return response;
+          }
+        };
+    testee =
+        HttpActionClient.builder() //
+            .withUrl("http://localhost/wiki/")
+            .withTransport(transport)
+            .build();
+
+    Get get = new RequestBuilder("/api.php").param("a", "1").buildGet();
+
+    // WHEN
+    ImmutableList<String> result =
+        ContentProcessableBuilder.create(testee).withActions(get).<String>build().get();
+
+    // THEN
+    assertEquals(ImmutableList.of("b\n"), result);
+    assertEquals(ImmutableList.of("GET http://localhost/wiki/api.php?a=1"), requests);
+  }
+
+  @Test
+  public void testTransport_with_pool_settings() {
+    // GIVEN
+    HttpActionClient.Builder builder =
+        HttpActionClient.builder() //
+            .withUrl("http://localhost/")
+            .withTransport(mock(HttpTransport.class))
+            .withMaxConnectionsTotal(4);
+
+    try {
+      // WHEN
+      builder.build();
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("pool settings can not be applied to a custom transport", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testCache() throws Exception {
+    try (JettyServer server =
+        new JettyServer().started(JettyServer.etagHandler("\"r1\"", "cached"))) {
+      // GIVEN
+      ResponseCache cache = ResponseCache.builder().build();
+      testee =
+          HttpActionClient.builder() //
+              .withUrl(server.getTestUrl())
+              .withCache(cache)
+              .build();
+      Get get = new RequestBuilder("/api.php").param("action", "query").buildGet();
+
+      // WHEN
+      ImmutableList<String> first =
+          ContentProcessableBuilder.create(testee).withActions(get).<String>build().get();
+      ImmutableList<String> second =
+          ContentProcessableBuilder.create(testee).withActions(get).<String>build().get();
+
+      // THEN
+      assertEquals(ImmutableList.of("cached\n"), first);
+      assertEquals(first, second);
+      assertEquals(1, cache.getMisses());
+      assertEquals(1, cache.getRevalidations());
+      assertEquals(0, cache.getHits());
+    }
+  }
+
+  @Test
+  public void testCache_keptApartBySessionCookies() throws Exception {
+    try (JettyServer server = new JettyServer().started(JettyServer.sessionHandler())) {
+      // GIVEN
+      ResponseCache cache = ResponseCache.builder().build();
+      HttpActionClient alice =
+          HttpActionClient.builder().withUrl(server.getTestUrl()).withCache(cache).build();
+      HttpActionClient bob =
+          HttpActionClient.builder().withUrl(server.getTestUrl()).withCache(cache).build();
+      String url = server.getTestUrl() + "api.php";
+      Get get = RequestBuilder.of(url).param("action", "query").buildGet();
+
+      // WHEN
+      String anonymous = alice.get(get);
+      alice.post(RequestBuilder.of(url).param("user", "alice").buildPost());
+      bob.post(RequestBuilder.of(url).param("user", "bob").buildPost());
+      ImmutableList<String> results =
+          ImmutableList.of(alice.get(get), bob.get(get), alice.get(get), bob.get(get));
+
+      // THEN
+      assertEquals("anonymous\n", anonymous);
+      assertEquals(ImmutableList.of("alice\n", "bob\n", "alice\n", "bob\n"), results);
+      assertEquals(3, cache.getMisses());
+      assertEquals(2, cache.getHits());
+    }
+  }
+
+  @Test
+  public void testSocketTimeout() throws Exception {
+    try (JettyServer server = new JettyServer().started(JettyServer.barrierHandler(2, "b"))) {
+      // GIVEN
+      testee =
+          HttpActionClient.builder() //
+              .withUrl(server.getTestUrl())
+              .withMaxConnectionsPerRoute(10)
+              .withMaxConnectionsTotal(10)
+              .withConnectTimeout(1, TimeUnit.SECONDS)
+              .withConnectionRequestTimeout(1, TimeUnit.SECONDS)
+              .withSocketTimeout(200, TimeUnit.MILLISECONDS)
+              .build();
+
+      try {
+        // WHEN
+        testee.get(new Get(server.getTestUrl()));
+        fail();
+      } catch (IllegalStateException e) {
+        // THEN
+        assertEquals(SocketTimeoutException.class, e.getCause().getClass());
+      }
+    }
+  }
+
+  @Test
+  public void testMaxKeepAliveStrategy() {
+    // GIVEN
+    HttpActionClient.MaxKeepAliveStrategy testee = new HttpActionClient.MaxKeepAliveStrategy(5000);
+    HttpResponse withoutHeader = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    HttpResponse longHeader = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    longHeader.addHeader("Keep-Alive", "timeout=60");
+    HttpResponse shortHeader = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    shortHeader.addHeader("Keep-Alive", "timeout=2");
+
+    // WHEN/THEN
+    assertEquals(5000, testee.getKeepAliveDuration(withoutHeader, null));
+    assertEquals(5000, testee.getKeepAliveDuration(longHeader, null));
+    assertEquals(2000, testee.getKeepAliveDuration(shortHeader, null));
+  }
+
+  @Test
+  public void testPerformAction_stream() throws Exception {
+    try (JettyServer server = new JettyServer().started(JettyServer.textHandler("a\nb"))) {
+      // GIVEN
+      testee = HttpActionClient.of(server.getTestUrl());
+      final Get get = new RequestBuilder("/").buildGet();
+      final List<String> lines = new ArrayList<>();
+      StreamAction action =
+          new StreamAction() {
+            @Override
+            public String processReturningStream(Reader reader, HttpAction action)
+                throws IOException {
+              lines.addAll(CharStreams.readLines(reader));
+              return "streamed";
+            }
+
+            @Override
+            public String processReturningText(String s, HttpAction action) {
+              throw new AssertionError("text processing not expected");
+            }
+
+            @Override
+            public HttpAction getNextMessage() {
+              return get;
+            }
+          };
+
+      // WHEN
+      String result = testee.performAction(action);
+
+      // THEN
+      assertEquals("streamed", result);
+      assertEquals(ImmutableList.of("a", "b"), lines);
+    }
+  }
+
+  @Test
+  public void testCompression() throws Exception {
+    String text = Strings.repeat("compressible text ", 100);
+    try (JettyServer server = new JettyServer().started(JettyServer.gzipHandler(text))) {
+      // GIVEN
+      testee = HttpActionClient.of(server.getTestUrl());
+      Get get = new RequestBuilder("/").buildGet();
+      ResponseHandler<String> handler =
+          ContentProcessableBuilder.create(testee).withActions(get).<String>build();
+
+      // WHEN
+      ImmutableList<String> result = handler.get();
+
+      // THEN
+      assertEquals(ImmutableList.of(text + "\n"), result);
+      TrafficCounter.Traffic traffic = testee.getTrafficCounter().get(handler.getClass());
+      assertEquals(1, traffic.getResponses());
+      assertEquals(text.length(), traffic.getUncompressedBytes());
+      assertTrue(traffic.getCompressedBytes() < text.length() / 10);
+    }
+  }
+
+  @Test
+  public void testCompression_disabled() throws Exception {
+    String text = Strings.repeat("compressible text ", 100);
+    try (JettyServer server = new JettyServer().started(JettyServer.gzipHandler(text))) {
+      // GIVEN
+      testee =
+          HttpActionClient.builder() //
+              .withUrl(server.getTestUrl())
+              .withCompression(false)
+              .build();
+
+      // WHEN
+      String result = testee.get(new Get(server.getTestUrl()));
+
+      // THEN
+      assertEquals(text + "\n", result);
+      TrafficCounter.Traffic traffic = testee.getTrafficCounter().get(Get.class);
+      assertEquals(text.length(), traffic.getCompressedBytes());
+      assertEquals(text.length(), traffic.getUncompressedBytes());
+    }
+  }
+
+  @Test
+  public void testAdaptiveThrottle() throws Exception {
+    try (JettyServer server = new JettyServer().started(JettyServer.busyHandler(2))) {
+      // GIVEN
+      AdaptiveThrottle throttle = AdaptiveThrottle.builder().withMaxRate(100).build();
+      testee =
+          HttpActionClient.builder() //
+              .withUrl(server.getTestUrl())
+              .withThrottle(throttle)
+              .build();
+      Get get = new RequestBuilder("/api.php").param("action", "query").buildGet();
+      ResponseHandler<String> handler =
+          ContentProcessableBuilder.create(testee).withActions(get).<String>build();
+
+      // WHEN
+      ImmutableList<String> result = handler.get();
+
+      // THEN
+      assertEquals(ImmutableList.of("action=query&maxlag=5\n"), result);
+      assertTrue(throttle.getRate() < 100);
+    }
+  }
+
+  @Test
+  public void testAdaptiveThrottle_retries_exhausted() throws Exception {
+    try (JettyServer server = new JettyServer().started(JettyServer.busyHandler(3))) {
+      // GIVEN
+      testee =
+          HttpActionClient.builder() //
+              .withUrl(server.getTestUrl())
+              .withThrottle(AdaptiveThrottle.builder().withMaxRetries(2).build())
+              .build();
+      Get get = new RequestBuilder("/api.php").buildGet();
+      ResponseHandler<String> handler =
+          ContentProcessableBuilder.create(testee).withActions(get).<String>build();
+
+      try {
+        // WHEN
+        handler.get();
+        fail();
+      } catch (IllegalStateException e) {
+        // THEN
+        GAssert.assertStartsWith(
+            "invalid status: HTTP/1.1 503 Service Unavailable", e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testRequestsPerUnit_doesNotRetry() throws Exception {
+    try (JettyServer server = new JettyServer().started(JettyServer.busyHandler(1))) {
+      // GIVEN
+      testee =
+          HttpActionClient.builder() //
+              .withUrl(server.getTestUrl())
+              .withRequestsPerUnit(10, TimeUnit.SECONDS)
+              .build();
+      Get get = new RequestBuilder("/api.php").buildGet();
+      ResponseHandler<String> handler =
+          ContentProcessableBuilder.create(testee).withActions(get).<String>build();
+
+      try {
+        // WHEN
+        handler.get();
+        fail();
+      } catch (IllegalStateException e) {
+        // THEN
+        GAssert.assertStartsWith(
+            "invalid status: HTTP/1.1 503 Service Unavailable", e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testRetryPolicy() throws Exception {
+    try (JettyServer server = new JettyServer().started(JettyServer.busyHandler(2))) {
+      // GIVEN
+      RetryPolicy retryPolicy = fastRetries().build();
+      testee =
+          HttpActionClient.builder() //
+              .withUrl(server.getTestUrl())
+              .withRetryPolicy(retryPolicy)
+              .build();
+      Get get = new RequestBuilder("/api.php").param("action", "query").buildGet();
+      ResponseHandler<String> handler =
+          ContentProcessableBuilder.create(testee).withActions(get).<String>build();
+
+      // WHEN
+      ImmutableList<String> result = handler.get();
+
+      // THEN
+      assertEquals(ImmutableList.of("action=query\n"), result);
+      assertEquals(2, retryPolicy.getRetries());
+      assertEquals(CircuitBreaker.State.CLOSED, getOnlyState(retryPolicy));
+    }
+  }
+
+  @Test
+  public void testRetryPolicy_post_is_not_repeated() throws Exception {
+    try (JettyServer server = new JettyServer().started(JettyServer.busyHandler(1))) {
+      // GIVEN
+      RetryPolicy retryPolicy = fastRetries().build();
+      testee =
+          HttpActionClient.builder() //
+              .withUrl(server.getTestUrl())
+              .withRetryPolicy(retryPolicy)
+              .build();
+      Post post = new RequestBuilder("/api.php").postParam("a", "b").buildPost();
+      ResponseHandler<String> handler =
+          ContentProcessableBuilder.create(testee).withActions(post).<String>build();
+
+      try {
+        // WHEN
+        handler.get();
+        fail();
+      } catch (IllegalStateException e) {
+        // THEN
+        GAssert.assertStartsWith(
+            "invalid status: HTTP/1.1 503 Service Unavailable", e.getMessage());
+        assertEquals(0, retryPolicy.getRetries());
+      }
+    }
+  }
+
+  @Test
+  public void testRetryPolicy_circuit_breaker() throws Exception {
+    try (JettyServer server = new JettyServer().started(JettyServer.busyHandler(10))) {
+      // GIVEN
+      RetryPolicy retryPolicy =
+          fastRetries() //
+              .withMaxRetries(1)
+              .withCircuitBreaker(2, 1, TimeUnit.MINUTES)
+              .build();
+      testee =
+          HttpActionClient.builder() //
+              .withUrl(server.getTestUrl())
+              .withRetryPolicy(retryPolicy)
+              .build();
+      Get get = new RequestBuilder("/api.php").buildGet();
+      try {
+        ContentProcessableBuilder.create(testee).withActions(get).<String>build().get();
+        fail();
+      } catch (IllegalStateException e) {
+        GAssert.assertStartsWith("invalid status: HTTP/1.1 503", e.getMessage());
+      }
+
+      try {
+        // WHEN
+        ContentProcessableBuilder.create(testee).withActions(get).<String>build().get();
+        fail();
+      } catch (IllegalStateException e) {
+        // THEN
+        GAssert.assertStartsWith("circuit breaker is open for localhost:", e.getMessage());
+        assertEquals(1, retryPolicy.getRetries());
+        assertEquals(1, retryPolicy.getRejected());
+        assertEquals(1, retryPolicy.getStateChanges(CircuitBreaker.State.OPEN));
+        assertEquals(CircuitBreaker.State.OPEN, getOnlyState(retryPolicy));
+      }
+    }
+  }
+
+  @Test
+  public void testRetryPolicy_half_open_breaker_recovers_after_maxlag() throws Exception {
+    // GIVEN
+    final List<String> requests = new ArrayList<>();
+    HttpTransport transport =
+        new HttpTransport() {
+          @Override
+          public HttpResponse execute(HttpUriRequest request) throws IOException {
+            requests.add(request.getMethod());
+            if (requests.size() == 1) {
+              throw new ConnectException("down");
+            }
+            BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+            if (requests.size() == 2) {
+              response.addHeader(AdaptiveThrottle.DATABASE_LAG, "7");
+              response.addHeader(RETRY_AFTER, "0");
+            }
+            response.setEntity(new StringEntity("ok", Charsets.UTF_8));
+            return response;
+          }
+        };
+    RetryPolicy retryPolicy =
+        fastRetries() //
+            .withMaxRetries(0)
+            .withCircuitBreaker(1, 1, TimeUnit.MILLISECONDS)
+            .build();
+    testee =
+        HttpActionClient.builder() //
+            .withUrl("http://localhost/")
+            .withTransport(transport)
+            .withRetryPolicy(retryPolicy)
+            .withThrottle(AdaptiveThrottle.builder().withMaxRetries(1).build())
+            .build();
+    Get get = new RequestBuilder("/api.php").buildGet();
+    try {
+      ContentProcessableBuilder.create(testee).withActions(get).<String>build().get();
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals(CircuitBreaker.State.OPEN, getOnlyState(retryPolicy));
+    }
+    Thread.sleep(5);
+
+    // WHEN
+    ImmutableList<String> result =
+        ContentProcessableBuilder.create(testee).withActions(get).<String>build().get();
+
+    // THEN
+    assertEquals(ImmutableList.of("ok\n"), result);
+    assertEquals(3, requests.size());
+    assertEquals(0, retryPolicy.getRejected());
+    assertEquals(CircuitBreaker.State.CLOSED, getOnlyState(retryPolicy));
+  }
+
+  private static RetryPolicy.Builder fastRetries() {
+    return RetryPolicy.builder().withBackoff(1, 1, TimeUnit.MILLISECONDS);
+  }
+
+  private static CircuitBreaker.State getOnlyState(RetryPolicy retryPolicy) {
+    return Iterables.getOnlyElement(retryPolicy.getCircuitStates().values());
+  }
+
+  private abstract static class StreamAction
+      implements ContentProcessable, ReturningStreamProcessor {
+
+    private boolean hasMore = true;
+
+    @Override
+    public boolean hasMoreMessages() {
+      boolean b = hasMore;
+      hasMore = false;
+      return b;
+    }
+
+    @Override
+    public boolean isSelfExecuter() {
+      return false;
+    }
+  }
 }
@@ -2,11 +2,15 @@ package net.sourceforge.jwbf.core.actions;
 
 import static net.sourceforge.jwbf.core.actions.RequestBuilder.HashCodeEqualsMemoizingSupplier;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Ignore;
 import org.junit.Test;
 
+import com.google.common.base.Splitter;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMultimap;
@@ -250,6 +254,59 @@ public class RequestBuilderTest {
     GAssert.assertEquals(expected, params);
   }
 
+  @Test
+  public void testBuild_manyParams() {
+    // GIVEN
+    RequestBuilder builder = new RequestBuilder("/a");
+    for (int i = 0; i < 1000; i++) {
+      builder.param("k" + (i % 100), "v" + (i % 200));
+    }
+
+    // WHEN
+    String result = builder.build();
+
+    // THEN
+    assertEquals(200, Splitter.on('&').splitToList(result).size());
+    GAssert.assertStartsWith("/a?k0=v0&k0=v100&k10=v10&k10=v110&k11=v11", result);
+  }
+
+  @Test
+  public void testBuild_readsSuppliersOnce() {
+    // GIVEN
+    final AtomicInteger reads = new AtomicInteger();
+    Supplier<String> supplier =
+        new Supplier<String>() {
+          @Override
+          public String get() {
+            return "v" + reads.incrementAndGet();
+          }
+        };
+    Get get = new RequestBuilder("/a").param("a", supplier).param("b", "c").buildGet();
+
+    // WHEN
+    String first = get.getRequest();
+    String second = get.getRequest();
+
+    // THEN
+    assertEquals("/a?a=v1&b=c", first);
+    assertSame(first, second);
+    assertEquals(1, reads.get());
+  }
+
+  @Test
+  public void testBuild_laterChangesAreNotVisible() {
+    // GIVEN
+    RequestBuilder builder = new RequestBuilder("/a").param("a", "b").postParam("c", "d");
+    Post post = builder.buildPost();
+
+    // WHEN
+    builder.param("e", "f").postParam("g", "h");
+
+    // THEN
+    assertEquals("/a?a=b UTF-8 {c=[d]}", post.toString());
+    assertEquals("/a?a=b&e=f", builder.build());
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testMemoizer_only_compare_with_same_type() {
     // GIVEN
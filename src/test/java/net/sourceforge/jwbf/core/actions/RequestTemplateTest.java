@@ -0,0 +1,105 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class RequestTemplateTest {
+
+  private final RequestBuilder builder =
+      new RequestBuilder("/api.php").param("list", "allpages").param("action", "query");
+
+  @Test
+  public void testBuildGet() {
+    // GIVEN
+    RequestTemplate testee = builder.buildTemplate();
+
+    // WHEN
+    Get result = testee.buildGet();
+
+    // THEN
+    assertEquals("/api.php?action=query&list=allpages", result.getRequest());
+    assertEquals("/api.php?action=query&list=allpages", testee.toString());
+  }
+
+  @Test
+  public void testBuildGet_sameAsBuilder() {
+    // GIVEN
+    RequestTemplate testee = builder.buildTemplate();
+    String[] keys = {"a", "action", "b", "list", "m", "z"};
+
+    for (String key : keys) {
+      // WHEN
+      Get result = testee.buildGet(key, "c%7Cd");
+
+      // THEN
+      Get expected = builder.buildGet().toBuilder().param(key, "c%7Cd").buildGet();
+      assertEquals(expected.getRequest(), result.getRequest());
+      assertEquals(expected, result);
+    }
+  }
+
+  @Test
+  public void testBuildGet_withoutParams() {
+    // GIVEN
+    RequestTemplate testee = new RequestBuilder("/api.php").buildTemplate();
+
+    // WHEN
+    Get result = testee.buildGet("a", "b");
+
+    // THEN
+    assertEquals("/api.php?a=b", result.getRequest());
+  }
+
+  @Test
+  public void testBuildGet_duplicate() {
+    // GIVEN
+    RequestTemplate testee = builder.buildTemplate();
+
+    // WHEN
+    Get result = testee.buildGet("list", "allpages");
+
+    // THEN
+    assertEquals("/api.php?action=query&list=allpages", result.getRequest());
+  }
+
+  @Test
+  public void testBuildGet_toBuilder() {
+    // GIVEN
+    RequestTemplate testee = builder.buildTemplate();
+
+    // WHEN
+    RequestBuilder result = testee.buildGet("apfrom", "B").toBuilder();
+
+    // THEN
+    assertEquals("/api.php?action=query&apfrom=B&list=allpages", result.build());
+  }
+
+  @Test
+  public void testBuildGet_builderChangesAreNotVisible() {
+    // GIVEN
+    RequestTemplate testee = builder.buildTemplate();
+
+    // WHEN
+    builder.param("b", "c");
+
+    // THEN
+    assertEquals("/api.php?action=query&list=allpages", testee.buildGet().getRequest());
+  }
+
+  @Test
+  public void testBuildGet_emptyValue() {
+    // GIVEN
+    RequestTemplate testee = builder.buildTemplate();
+
+    try {
+      // WHEN
+      testee.buildGet("a", "");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("value must not be empty", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,381 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Function;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+public class ResponseCacheTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final Clock clock = Clock.fixed(Instant.ofEpochMilli(1000000), ZoneOffset.UTC);
+
+  private final List<HttpResponse> responses = Lists.newArrayList();
+  private final List<String> ifNoneMatch = Lists.newArrayList();
+
+  private final Function<HttpRequestBase, HttpResponse> network =
+      new Function<HttpRequestBase, HttpResponse>() {
+        @Override
+        public HttpResponse apply(HttpRequestBase input) {
+          if (input.containsHeader(HttpHeaders.IF_NONE_MATCH)) {
+            ifNoneMatch.add(input.getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue());
+          }
+          return responses.remove(0);
+        }
+      };
+
+  private static HttpResponse response(int code, String body, String... headers) {
+    BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, code, "");
+    for (int i = 0; i < headers.length; i += 2) {
+      response.addHeader(headers[i], headers[i + 1]);
+    }
+    if (body != null) {
+      response.setEntity(new StringEntity(body, "UTF-8"));
+    }
+    return response;
+  }
+
+  private String get(ResponseCache testee, String url) throws IOException {
+    return get(testee, url, "");
+  }
+
+  private String get(ResponseCache testee, String url, String session) throws IOException {
+    HttpResponse response = testee.execute(new HttpGet(url), session, network);
+    return EntityUtils.toString(response.getEntity());
+  }
+
+  @Test
+  public void testFresh() throws IOException {
+    // GIVEN
+    ResponseCache testee = new ResponseCache(ResponseCache.builder(), clock);
+    responses.add(response(200, "a", HttpHeaders.CACHE_CONTROL, "max-age=60"));
+
+    // WHEN
+    String first = get(testee, "http://localhost/a");
+    String second = get(testee, "http://localhost/a");
+
+    // THEN
+    assertEquals("a", first);
+    assertEquals("a", second);
+    assertEquals(1, testee.getMisses());
+    assertEquals(1, testee.getHits());
+  }
+
+  @Test
+  public void testRevalidate() throws IOException {
+    // GIVEN
+    ResponseCache testee = new ResponseCache(ResponseCache.builder(), clock);
+    responses.add(
+        response(200, "a", HttpHeaders.ETAG, "\"1\"", HttpHeaders.CACHE_CONTROL, "no-cache"));
+    responses.add(response(304, null, HttpHeaders.CACHE_CONTROL, "max-age=60"));
+
+    // WHEN
+    String first = get(testee, "http://localhost/a");
+    String second = get(testee, "http://localhost/a");
+    String third = get(testee, "http://localhost/a");
+
+    // THEN
+    assertEquals("a", first);
+    assertEquals("a", second);
+    assertEquals("a", third);
+    assertEquals(ImmutableList.of("\"1\""), ifNoneMatch);
+    assertEquals(1, testee.getMisses());
+    assertEquals(1, testee.getRevalidations());
+    assertEquals(1, testee.getHits());
+  }
+
+  @Test
+  public void testNotCacheable() throws IOException {
+    // GIVEN
+    ResponseCache testee = new ResponseCache(ResponseCache.builder(), clock);
+    responses.add(response(200, "a", HttpHeaders.CACHE_CONTROL, "no-store, max-age=60"));
+    responses.add(response(200, "b"));
+    responses.add(response(500, "c", HttpHeaders.CACHE_CONTROL, "max-age=60"));
+    responses.add(response(200, "d"));
+
+    // WHEN/THEN
+    assertEquals("a", get(testee, "http://localhost/a"));
+    assertEquals("b", get(testee, "http://localhost/a"));
+    assertEquals("c", get(testee, "http://localhost/c"));
+    assertEquals("d", get(testee, "http://localhost/c"));
+    assertEquals(4, testee.getMisses());
+  }
+
+  @Test
+  public void testMaxEntryBytes() throws IOException {
+    // GIVEN
+    ResponseCache testee = new ResponseCache(ResponseCache.builder().withMaxEntryBytes(3), clock);
+    BasicHttpResponse large = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "");
+    large.addHeader(HttpHeaders.CACHE_CONTROL, "max-age=60");
+    large.setEntity(new InputStreamEntity(new ByteArrayInputStream("abcdef".getBytes()), -1));
+    responses.add(large);
+    responses.add(response(200, "x", HttpHeaders.CACHE_CONTROL, "max-age=60"));
+
+    // WHEN/THEN
+    assertEquals("abcdef", get(testee, "http://localhost/a"));
+    assertEquals("x", get(testee, "http://localhost/a"));
+    assertEquals("x", get(testee, "http://localhost/a"));
+    assertEquals(2, testee.getMisses());
+  }
+
+  @Test
+  public void testMaxMemoryBytes() throws IOException {
+    // GIVEN
+    ResponseCache testee =
+        new ResponseCache(ResponseCache.builder().withMaxMemoryBytes(300), clock);
+    String body = Strings.repeat("a", 150);
+    responses.add(response(200, body, HttpHeaders.CACHE_CONTROL, "max-age=60"));
+    responses.add(response(200, body, HttpHeaders.CACHE_CONTROL, "max-age=60"));
+    responses.add(response(200, body, HttpHeaders.CACHE_CONTROL, "max-age=60"));
+
+    // WHEN
+    get(testee, "http://localhost/a");
+    get(testee, "http://localhost/b");
+    get(testee, "http://localhost/a");
+
+    // THEN
+    assertEquals(3, testee.getMisses());
+  }
+
+  @Test
+  public void testDisk() throws IOException {
+    // GIVEN
+    File directory = folder.newFolder();
+    ResponseCache.Builder builder = ResponseCache.builder().withDirectory(directory, 1000);
+    responses.add(response(200, "a", HttpHeaders.CACHE_CONTROL, "max-age=60"));
+    get(new ResponseCache(builder, clock), "http://localhost/a");
+
+    // WHEN
+    ResponseCache testee = new ResponseCache(builder, clock);
+    String result = get(testee, "http://localhost/a");
+
+    // THEN
+    assertEquals("a", result);
+    assertEquals(1, testee.getHits());
+    assertEquals(1, directory.listFiles().length);
+
+    // WHEN
+    testee.clear();
+
+    // THEN
+    assertEquals(0, directory.listFiles().length);
+  }
+
+  @Test
+  public void testDisk_evict() throws IOException {
+    // GIVEN
+    File directory = folder.newFolder();
+    ResponseCache testee =
+        new ResponseCache(ResponseCache.builder().withDirectory(directory, 500), clock);
+    String body = Strings.repeat("a", 200);
+    for (String name : ImmutableList.of("a", "b", "c")) {
+      responses.add(response(200, body, HttpHeaders.CACHE_CONTROL, "max-age=60"));
+
+      // WHEN
+      get(testee, "http://localhost/" + name);
+    }
+
+    // THEN
+    long total = 0;
+    for (File file : directory.listFiles()) {
+      total += file.length();
+    }
+    assertTrue(total + " <= 500", total <= 500);
+  }
+
+  @Test
+  public void testDisk_evictLeastRecentlyUsed() throws IOException {
+    // GIVEN
+    File directory = folder.newFolder();
+    ResponseCache.Builder builder = ResponseCache.builder().withDirectory(directory, 800);
+    ResponseCache testee = new ResponseCache(builder, clock);
+    String body = Strings.repeat("a", 200);
+    for (String name : ImmutableList.of("a", "b", "c")) {
+      responses.add(response(200, body, HttpHeaders.CACHE_CONTROL, "max-age=60"));
+      get(testee, "http://localhost/" + name);
+    }
+    // a is read from disk by a new cache, so b is the least recently used file
+    ResponseCache restarted = new ResponseCache(builder, clock);
+    get(restarted, "http://localhost/a");
+    responses.add(response(200, body, HttpHeaders.CACHE_CONTROL, "max-age=60"));
+
+    // WHEN
+    get(restarted, "http://localhost/d");
+
+    // THEN
+    assertEquals(3, directory.listFiles().length);
+    ResponseCache fresh = new ResponseCache(builder, clock);
+    responses.add(response(200, "b2", HttpHeaders.CACHE_CONTROL, "max-age=60"));
+    assertEquals(body, get(fresh, "http://localhost/a"));
+    assertEquals("b2", get(fresh, "http://localhost/b"));
+  }
+
+  @Test
+  public void testSessionDependentResponses_areNotShared() throws IOException {
+    // GIVEN
+    ResponseCache testee = new ResponseCache(ResponseCache.builder(), clock);
+    responses.add(response(200, "u1", HttpHeaders.CACHE_CONTROL, "private, max-age=60"));
+    responses.add(response(200, "u2", HttpHeaders.CACHE_CONTROL, "private, max-age=60"));
+    responses.add(
+        response(200, "t1", HttpHeaders.CACHE_CONTROL, "max-age=60", HttpHeaders.VARY, "Cookie"));
+    responses.add(
+        response(200, "t2", HttpHeaders.CACHE_CONTROL, "max-age=60", HttpHeaders.VARY, "Cookie"));
+    responses.add(response(200, "w1", HttpHeaders.CACHE_CONTROL, "max-age=60"));
+    responses.add(response(200, "w2", HttpHeaders.CACHE_CONTROL, "max-age=60"));
+    HttpGet authorized = new HttpGet("http://localhost/w");
+    authorized.addHeader(HttpHeaders.AUTHORIZATION, "Bearer x");
+
+    // WHEN/THEN
+    assertEquals("u1", get(testee, "http://localhost/userinfo"));
+    assertEquals("u2", get(testee, "http://localhost/userinfo"));
+    assertEquals("t1", get(testee, "http://localhost/tokens"));
+    assertEquals("t2", get(testee, "http://localhost/tokens"));
+    assertEquals("w1", EntityUtils.toString(testee.execute(authorized, network).getEntity()));
+    assertEquals("w2", get(testee, "http://localhost/w"));
+    assertEquals(0, testee.getHits());
+  }
+
+  @Test
+  public void testSessionDependentResponses_areStoredPerSession() throws IOException {
+    // GIVEN
+    ResponseCache testee = new ResponseCache(ResponseCache.builder(), clock);
+    responses.add(response(200, "u1", HttpHeaders.CACHE_CONTROL, "private, max-age=60"));
+    responses.add(
+        response(200, "u2", HttpHeaders.CACHE_CONTROL, "max-age=60", HttpHeaders.VARY, "Cookie"));
+    responses.add(response(200, "anonymous", HttpHeaders.CACHE_CONTROL, "private, max-age=60"));
+
+    // WHEN/THEN
+    assertEquals("u1", get(testee, "http://localhost/userinfo", "s1"));
+    assertEquals("u2", get(testee, "http://localhost/userinfo", "s2"));
+    assertEquals("u1", get(testee, "http://localhost/userinfo", "s1"));
+    assertEquals("u2", get(testee, "http://localhost/userinfo", "s2"));
+    assertEquals("anonymous", get(testee, "http://localhost/userinfo"));
+    assertEquals(2, testee.getHits());
+    assertEquals(3, testee.getMisses());
+  }
+
+  @Test
+  public void testWriteToDisk_leavesNoTemporaryFiles() throws IOException {
+    // GIVEN
+    File directory = folder.newFolder();
+    ResponseCache testee =
+        new ResponseCache(ResponseCache.builder().withDirectory(directory, 1024 * 1024), clock);
+    responses.add(response(200, "a1", HttpHeaders.CACHE_CONTROL, "max-age=60"));
+    responses.add(response(200, "a2", HttpHeaders.CACHE_CONTROL, "max-age=60"));
+
+    // WHEN
+    get(testee, "http://localhost/a");
+    get(testee, "http://localhost/a", "s1");
+
+    // THEN
+    String[] names = directory.list();
+    assertEquals(2, names.length);
+    for (String name : names) {
+      assertFalse(name, name.endsWith(".tmp"));
+    }
+  }
+
+  @Test
+  public void testIndexDisk_deletesOnlyStaleTemporaryFiles() throws IOException {
+    // GIVEN
+    Clock later = Clock.offset(clock, Duration.ofDays(1));
+    File directory = folder.newFolder();
+    File stale = new File(directory, "stale.tmp");
+    File young = new File(directory, "young.tmp");
+    Files.write(new byte[] {1}, stale);
+    Files.write(new byte[] {1}, young);
+    stale.setLastModified(later.millis() - TimeUnit.HOURS.toMillis(2));
+    young.setLastModified(later.millis() - TimeUnit.MINUTES.toMillis(1));
+
+    // WHEN
+    new ResponseCache(ResponseCache.builder().withDirectory(directory, 1024), later);
+
+    // THEN
+    assertFalse(stale.exists());
+    assertTrue(young.exists());
+  }
+
+  @Test
+  public void testFreshnessMillis() {
+    assertEquals(60000, freshnessMillis("Cache-Control", "max-age=60"));
+    assertEquals(50000, freshnessMillis("Cache-Control", "private, max-age=60", "Age", "10"));
+    assertEquals(0, freshnessMillis("Cache-Control", "no-cache, max-age=60"));
+    assertEquals(
+        30000,
+        freshnessMillis(
+            "Date", "Thu, 01 Jan 2015 00:00:00 GMT", "Expires", "Thu, 01 Jan 2015 00:00:30 GMT"));
+    assertEquals(0, freshnessMillis());
+  }
+
+  @Test
+  public void testFreshnessMillis_expiresWithoutDate() {
+    // GIVEN
+    HttpResponse res =
+        response(200, "", "Expires", DateUtils.formatDate(new Date(clock.millis() + 30000)));
+
+    // WHEN
+    long result = ResponseCache.freshnessMillis(res, clock.millis());
+
+    // THEN
+    assertEquals(30000, result);
+  }
+
+  @Test
+  public void testIsCacheable() {
+    assertTrue(isCacheable(false, HttpHeaders.ETAG, "\"1\""));
+    assertTrue(isCacheable(false, "Cache-Control", "max-age=1"));
+    assertFalse(isCacheable(false));
+    assertFalse(isCacheable(false, HttpHeaders.ETAG, "\"1\"", "Cache-Control", "no-store"));
+    assertFalse(isCacheable(false, HttpHeaders.ETAG, "\"1\"", "Cache-Control", "private"));
+    assertFalse(isCacheable(false, HttpHeaders.ETAG, "\"1\"", "Vary", "Accept-Encoding, Cookie"));
+    assertFalse(isCacheable(false, HttpHeaders.ETAG, "\"1\"", "Vary", "authorization"));
+    assertTrue(isCacheable(false, HttpHeaders.ETAG, "\"1\"", "Vary", "Accept-Encoding"));
+  }
+
+  @Test
+  public void testIsCacheable_session() {
+    assertTrue(isCacheable(true, HttpHeaders.ETAG, "\"1\"", "Cache-Control", "private"));
+    assertTrue(isCacheable(true, HttpHeaders.ETAG, "\"1\"", "Vary", "Cookie, Authorization"));
+    assertFalse(isCacheable(true, HttpHeaders.ETAG, "\"1\"", "Vary", "*"));
+    assertFalse(isCacheable(true, HttpHeaders.ETAG, "\"1\"", "Cache-Control", "no-store"));
+  }
+
+  private long freshnessMillis(String... headers) {
+    return ResponseCache.freshnessMillis(response(200, "", headers), clock.millis());
+  }
+
+  private boolean isCacheable(boolean session, String... headers) {
+    return ResponseCache.isCacheable(response(200, "", headers), session, clock.millis());
+  }
+}
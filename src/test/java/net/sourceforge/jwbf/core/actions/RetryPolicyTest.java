@@ -0,0 +1,118 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.junit.Test;
+
+import com.google.common.collect.Range;
+
+public class RetryPolicyTest {
+
+  private final HttpRequestBase get = new HttpGet("http://localhost/api.php");
+  private final HttpRequestBase post = new HttpPost("http://localhost/api.php");
+
+  private static RetryPolicy.Builder fastRetries() {
+    return RetryPolicy.builder().withBackoff(1, 1, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  public void testRetryAfter_get() {
+    // GIVEN
+    RetryPolicy testee = fastRetries().withMaxRetries(2).build();
+    IOException e = new SocketTimeoutException();
+
+    // WHEN/THEN
+    assertTrue(testee.retryAfter("host", get, e, 1));
+    assertTrue(testee.retryAfter("host", get, 502, 2));
+    assertFalse(testee.retryAfter("host", get, e, 3));
+    assertEquals(2, testee.getRetries());
+  }
+
+  @Test
+  public void testRetryAfter_post() {
+    // GIVEN
+    RetryPolicy testee = fastRetries().build();
+
+    // WHEN/THEN
+    assertFalse(testee.retryAfter("host", post, new SocketTimeoutException(), 1));
+    assertFalse(testee.retryAfter("host", post, 500, 1));
+    assertTrue(testee.retryAfter("host", post, new ConnectException(), 1));
+  }
+
+  @Test
+  public void testRetryAfter_post_with_post_retries() {
+    // GIVEN
+    RetryPolicy testee = fastRetries().withPostRetries(true).build();
+
+    // WHEN/THEN
+    assertTrue(testee.retryAfter("host", post, new SocketTimeoutException(), 1));
+    assertTrue(testee.retryAfter("host", post, 500, 1));
+  }
+
+  @Test
+  public void testIsRetryStatus() {
+    // GIVEN
+    RetryPolicy testee = RetryPolicy.builder().build();
+
+    // WHEN/THEN
+    assertTrue(testee.isRetryStatus(500));
+    assertTrue(testee.isRetryStatus(503));
+    assertFalse(testee.isRetryStatus(404));
+    assertFalse(RetryPolicy.builder().withRetryStatusCodes(502).build().isRetryStatus(500));
+  }
+
+  @Test
+  public void testBackoffMillis() {
+    // GIVEN
+    RetryPolicy testee =
+        RetryPolicy.builder().withBackoff(100, 1000, TimeUnit.MILLISECONDS).build();
+
+    // WHEN/THEN
+    assertTrue(Range.closed(50L, 100L).contains(testee.backoffMillis(1)));
+    assertTrue(Range.closed(200L, 400L).contains(testee.backoffMillis(3)));
+    assertTrue(Range.closed(500L, 1000L).contains(testee.backoffMillis(30)));
+  }
+
+  @Test
+  public void testCircuitBreaker() {
+    // GIVEN
+    RetryPolicy testee =
+        fastRetries().withMaxRetries(0).withCircuitBreaker(1, 1, TimeUnit.HOURS).build();
+
+    // WHEN
+    testee.retryAfter("a", get, 500, 1);
+
+    // THEN
+    assertFalse(testee.allowRequest("a"));
+    assertTrue(testee.allowRequest("b"));
+    assertEquals(1, testee.getRejected());
+    assertEquals(1, testee.getStateChanges(CircuitBreaker.State.OPEN));
+    assertEquals(CircuitBreaker.State.OPEN, testee.getCircuitStates().get("a"));
+    assertEquals(CircuitBreaker.State.CLOSED, testee.getCircuitStates().get("b"));
+  }
+
+  @Test
+  public void testNone() {
+    // GIVEN
+    RetryPolicy testee = RetryPolicy.none();
+
+    // WHEN
+    for (int i = 0; i < 10; i++) {
+      assertFalse(testee.retryAfter("host", get, 500, 1));
+    }
+
+    // THEN
+    assertTrue(testee.allowRequest("host"));
+    assertTrue(testee.getCircuitStates().isEmpty());
+  }
+}
@@ -0,0 +1,43 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class TrafficCounterTest {
+
+  @Test
+  public void testAdd() {
+    // GIVEN
+    TrafficCounter testee = new TrafficCounter();
+
+    // WHEN
+    testee.add(Get.class, 10, 50);
+    testee.add(Get.class, 20, 100);
+    testee.add(Post.class, 5, 5);
+
+    // THEN
+    TrafficCounter.Traffic get = testee.get(Get.class);
+    assertEquals(2, get.getResponses());
+    assertEquals(30, get.getCompressedBytes());
+    assertEquals(150, get.getUncompressedBytes());
+    assertEquals("2 responses, 30/150 bytes", get.toString());
+    assertEquals(
+        ImmutableList.of(Get.class.getName(), Post.class.getName()),
+        testee.snapshot().keySet().asList());
+  }
+
+  @Test
+  public void testGet_unknown() {
+    // GIVEN
+    TrafficCounter testee = new TrafficCounter();
+
+    // WHEN
+    TrafficCounter.Traffic traffic = testee.get(Get.class);
+
+    // THEN
+    assertEquals(0, traffic.getResponses());
+  }
+}
@@ -0,0 +1,42 @@
+package net.sourceforge.jwbf.core.actions.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.sourceforge.jwbf.core.actions.RequestBuilder;
+
+public class HttpActionTest {
+
+  @Test
+  public void testGetRequestId_default() {
+    // GIVEN
+    HttpAction first = newAction();
+    HttpAction second = newAction();
+
+    // WHEN
+    long firstId = first.getRequestId();
+
+    // THEN
+    assertEquals(firstId, first.getRequestId());
+    assertNotEquals(firstId, second.getRequestId());
+    assertTrue(firstId < 0);
+    assertTrue(RequestBuilder.of("http://localhost/").buildGet().getRequestId() > 0);
+  }
+
+  private static HttpAction newAction() {
+    return new HttpAction() {
+      @Override
+      public String getRequest() {
+        return "/";
+      }
+
+      @Override
+      public String getCharset() {
+        return "UTF-8";
+      }
+    };
+  }
+}
@@ -7,6 +7,27 @@ import org.junit.Test;
 
 public class CheckedTest {
 
+  @Test
+  public void testNonNull() {
+    // WHEN
+    String result = Checked.nonNull("a", "first");
+
+    // THEN
+    assertEquals("a", result);
+  }
+
+  @Test
+  public void testNonNull_null() {
+    try {
+      // WHEN
+      Checked.nonNull(null, "first");
+      fail();
+    } catch (NullPointerException e) {
+      // THEN
+      assertEquals("first must not be null", e.getMessage());
+    }
+  }
+
   @Test
   public void testNonBlank() {
 
@@ -1,13 +1,23 @@
 package net.sourceforge.jwbf.mapper;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URL;
 import java.util.Map;
 
 import javax.annotation.Nonnull;
@@ -17,12 +27,16 @@ import org.junit.Test;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
 
 import net.sourceforge.jwbf.JWBF;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 
 public class JsonMapperTest {
 
@@ -46,6 +60,194 @@ public class JsonMapperTest {
     assertEquals("Main Page", siteInfoData.getMainpage());
   }
 
+  @Test
+  public void testRead() throws IOException {
+    // GIVEN
+    URL json = Resources.getResource("mediawiki/v1-22/siteinfo.json");
+
+    // WHEN
+    SiteInfoData siteInfoData;
+    try (Reader reader = Resources.asCharSource(json, Charsets.UTF_8).openStream()) {
+      siteInfoData = testee.read(reader, SiteInfoData.class);
+    }
+
+    // THEN
+    assertEquals("Main Page", siteInfoData.getMainpage());
+  }
+
+  @Test
+  public void testRead_with_text_function() {
+    // GIVEN
+    JsonMapper.ToJsonFunction textFunction =
+        new JsonMapper.ToJsonFunction() {
+
+          @Nonnull
+          @Override
+          public Object toJson(@Nonnull String jsonString, Class<?> clazz) {
+            return jsonString;
+          }
+        };
+    testee = new JsonMapper(textFunction);
+
+    // WHEN
+    String result = testee.read(new StringReader("{\"a\":1}"), String.class);
+
+    // THEN
+    assertEquals("{\"a\":1}", result);
+  }
+
+  @Test
+  public void testRead_bytes() throws IOException {
+    // GIVEN
+    byte[] json = Resources.toByteArray(Resources.getResource("mediawiki/v1-22/siteinfo.json"));
+
+    // WHEN
+    SiteInfoData siteInfoData = testee.read(json, SiteInfoData.class);
+
+    // THEN
+    assertEquals("Main Page", siteInfoData.getMainpage());
+  }
+
+  @Test
+  public void testRead_stream() throws IOException {
+    // GIVEN
+    URL json = Resources.getResource("mediawiki/v1-22/siteinfo.json");
+
+    // WHEN
+    SiteInfoData siteInfoData;
+    try (InputStream in = Resources.asByteSource(json).openStream()) {
+      siteInfoData = testee.read(in, SiteInfoData.class);
+    }
+
+    // THEN
+    assertEquals("Main Page", siteInfoData.getMainpage());
+  }
+
+  @Test
+  public void testRead_stream_with_text_function() {
+    // GIVEN
+    JsonMapper.ToJsonFunction textFunction =
+        new JsonMapper.ToJsonFunction() {
+
+          @Nonnull
+          @Override
+          public Object toJson(@Nonnull String jsonString, Class<?> clazz) {
+            return jsonString;
+          }
+        };
+    testee = new JsonMapper(textFunction);
+    byte[] json = "{\"a\":\"\u00e4\"}".getBytes(Charsets.UTF_8);
+
+    // WHEN
+    String fromStream = testee.read(new ByteArrayInputStream(json), String.class);
+    String fromBytes = testee.read(json, String.class);
+
+    // THEN
+    assertEquals("{\"a\":\"\u00e4\"}", fromStream);
+    assertEquals("{\"a\":\"\u00e4\"}", fromBytes);
+  }
+
+  @Test
+  public void testReaderOf_cached() {
+    // GIVEN
+    JsonMapper.JacksonToJsonFunction function = new JsonMapper.JacksonToJsonFunction();
+
+    // WHEN
+    ObjectReader first = function.readerOf(SiteInfoData.class);
+    ObjectReader second = function.readerOf(SiteInfoData.class);
+
+    // THEN
+    assertSame(first, second);
+    assertNotSame(first, function.readerOf(Map.class));
+    assertFalse(first.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+  }
+
+  @Test
+  public void testStream() {
+    // GIVEN
+    String json =
+        "{\"continue\":{\"a\":{\"b\":1},\"continue\":\"-||\"},"
+            + "\"warnings\":{\"query\":[{\"*\":\"x\"}]},"
+            + "\"query\":{\"list\":[1,2,3],\"info\":{\"total\":3,\"none\":null}}}";
+    JsonPath<Integer> list = JsonPath.of(Integer.class, "query", "list");
+    JsonPath<Integer> total = JsonPath.of(Integer.class, "query", "info", "total");
+    JsonPath<String> none = JsonPath.of(String.class, "query", "info", "none");
+    JsonPath<String> continueToken = JsonPath.of(String.class, "continue", "continue");
+    JsonPath<String> missing = JsonPath.of(String.class, "query", "missing");
+
+    // WHEN
+    testee.stream(json, list, total, none, continueToken, missing);
+
+    // THEN
+    assertEquals(ImmutableList.of(1, 2, 3), list.values());
+    assertEquals(ImmutableList.of(3), total.values());
+    assertEquals(ImmutableList.of(), none.values());
+    assertEquals(ImmutableList.of("-||"), continueToken.values());
+    assertEquals(ImmutableList.of(), missing.values());
+  }
+
+  @Test
+  public void testStream_sameAsGet() {
+    // GIVEN
+    String content =
+        getContent(JWBF.urlToFile(Resources.getResource("mediawiki/v1-22/siteinfo.json")));
+    JsonPath<String> mainpage = JsonPath.of(String.class, "query", "general", "mainpage");
+
+    // WHEN
+    testee.stream(content, mainpage);
+
+    // THEN
+    String expected = testee.get(content, SiteInfoData.class).getMainpage();
+    assertEquals(ImmutableList.of(expected), mainpage.values());
+  }
+
+  @Test
+  public void testStream_error() {
+    // GIVEN
+    String json = "{\"error\":{\"code\":\"badtoken\",\"info\":\"Invalid token\"}}";
+
+    try {
+      // WHEN
+      testee.stream(json, JsonPath.of(String.class, "query", "list"));
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("badtoken", e.getCode());
+      assertEquals("Invalid token", e.getValue());
+    }
+  }
+
+  @Test
+  public void testStream_invalid() {
+    // GIVEN
+    JsonPath<Integer> list = JsonPath.of(Integer.class, "query", "list");
+
+    try {
+      // WHEN
+      testee.stream("{\"query\":{\"list\":[1,", list);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertTrue(e.getCause() instanceof JsonProcessingException);
+    }
+  }
+
+  @Test
+  public void testStream_duplicatePaths() {
+    // GIVEN
+    JsonPath<Integer> list = JsonPath.of(Integer.class, "query", "list");
+    JsonPath<String> sameList = JsonPath.of(String.class, "query", "list");
+
+    try {
+      // WHEN
+      testee.stream("{\"query\":{\"list\":[1]}}", list, sameList);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("duplicate json path [query, list]", e.getMessage());
+    }
+  }
+
   @Test
   public void testNullInput() {
     try {
@@ -87,12 +289,13 @@ public class JsonMapperTest {
           @Override
           ObjectMapper newObjectMapper() {
             ObjectMapper mock = mock(ObjectMapper.class);
+            ObjectReader reader = mock(ObjectReader.class);
             try {
-              doThrow(JsonProcessingException.class).when(mock)
-                  .readValue(isA(String.class), isA(Class.class));
-            } catch (JsonProcessingException e) {
+              doThrow(JsonProcessingException.class).when(reader).readValue(isA(String.class));
+            } catch (IOException e) {
               fail();
             }
+            doReturn(reader).when(mock).readerFor(Object.class);
             return mock;
           }
         };
@@ -2,15 +2,27 @@ package net.sourceforge.jwbf.mapper;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.Reader;
+import java.io.StringReader;
+
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+
 import org.junit.Test;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.Resources;
 
 import net.sourceforge.jwbf.TestHelper;
 import net.sourceforge.jwbf.mediawiki.actions.queries.BaseQueryTest;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 
 public class XmlConverterTest {
 
@@ -95,4 +107,213 @@ public class XmlConverterTest {
     // THEN
     assertEquals("test", first.get().getText());
   }
+
+  @Test
+  public void testGetRootElement_reader() {
+    // GIVEN
+    Reader xml = new StringReader(" \n <?xml version=\"1.0\"?><api><a>test</a></api>");
+
+    // WHEN
+    XmlElement root = XmlConverter.getRootElement(xml);
+
+    // THEN
+    assertEquals("test", XmlConverter.getChildOpt(root, "a").get().getText());
+  }
+
+  @Test
+  public void testGetRootElement_reader_empty() {
+    // GIVEN
+    Reader xml = new StringReader("  ");
+
+    try {
+      // WHEN
+      XmlConverter.getRootElement(xml);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("no valid xml", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testGetRootElement_reader_apiError() {
+    // GIVEN
+    Reader xml = new StringReader("<api><error code=\"c\" info=\"i\" /></api>");
+
+    try {
+      // WHEN
+      XmlConverter.getRootElement(xml);
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("c", e.getCode());
+    }
+  }
+
+  @Test
+  public void testMapChildren() {
+    // GIVEN
+    String xml = TestHelper.textOf(Resources.getResource("mediawiki/any/embeddedin_1.xml"));
+
+    // WHEN
+    ImmutableList<String> result =
+        XmlConverter.mapChildren(
+            xml, XmlAttributes.toAttributeValue("title"), "query", "embeddedin", "ei");
+
+    // THEN
+    assertEquals(
+        ImmutableList.of(
+            "User:AxelBoldt", "User:Piotr Gasiorowski", "User:RobLa", "User:Taral", "User:Ap"),
+        result);
+  }
+
+  @Test
+  public void testMapChildren_onlyAtPath() {
+    // GIVEN
+    String xml =
+        " \n <?xml version=\"1.0\"?><api><p t=\"0\"/><query><p t=\"1\"/><list>"
+            + "<p t=\"2\"><p t=\"3\"/></p><x><p t=\"4\"/></x><p t=\"5\"/></list>"
+            + "<list><p t=\"6\"/></list></query><list><p t=\"7\"/></list></api>";
+
+    // WHEN
+    ImmutableList<String> result =
+        XmlConverter.mapChildren(xml, XmlAttributes.toAttributeValue("t"), "query", "list", "p");
+
+    // THEN
+    assertEquals(ImmutableList.of("2", "5", "6"), result);
+  }
+
+  @Test
+  public void testMapChildren_missing() {
+    // GIVEN
+    String xml = BaseQueryTest.emptyXml();
+
+    // WHEN
+    ImmutableList<String> result =
+        XmlConverter.mapChildren(xml, XmlAttributes.toAttributeValue("t"), "query", "list");
+
+    // THEN
+    assertEquals(ImmutableList.of(), result);
+  }
+
+  @Test
+  public void testMapChildren_apiError() {
+    // GIVEN
+    String xml = "<api><error code=\"c\" info=\"i\" /></api>";
+
+    try {
+      // WHEN
+      XmlConverter.mapChildren(xml, XmlAttributes.toAttributeValue("t"), "query");
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("c", e.getCode());
+      assertEquals("i", e.getValue());
+    }
+  }
+
+  @Test
+  public void testMapChildren_invalid() {
+    // GIVEN
+    String xml = "<api><query>";
+
+    try {
+      // WHEN
+      XmlConverter.mapChildren(xml, XmlAttributes.toAttributeValue("t"), "query", "list");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("no valid xml", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testMapChildren_sameAsDocument() {
+    // GIVEN
+    StringBuilder builder = new StringBuilder("<api><query><allpages>");
+    for (int i = 0; i < 10000; i++) {
+      builder.append("<p pageid=\"").append(i).append("\" ns=\"0\" title=\"T &amp; ");
+      builder.append(i).append("\"><sub title=\"x\"/></p>");
+    }
+    String xml = builder.append("</allpages></query></api>").toString();
+
+    // WHEN
+    ImmutableList<String> streamed =
+        XmlConverter.mapChildren(
+            xml, XmlAttributes.toAttributeValue("title"), "query", "allpages", "p");
+
+    // THEN
+    ImmutableList.Builder<String> expected = ImmutableList.builder();
+    for (XmlElement p : XmlConverter.getChildOpt(xml, "query", "allpages").get().getChildren("p")) {
+      expected.add(p.getAttributeValue("title"));
+    }
+    assertEquals(expected.build(), streamed);
+    assertEquals("T & 9999", streamed.get(9999));
+  }
+
+  @Test
+  public void testEvaluateXpath() {
+    // GIVEN
+    String xml = "<api><query><random><page id=\"1\" title=\"Test\"/></random></query></api>";
+
+    // WHEN
+    String result = XmlConverter.evaluateXpath(xml, "/api/query/random/page/@title");
+
+    // THEN
+    assertEquals("Test", result);
+  }
+
+  @Test
+  public void testEvaluateXpath_node() {
+    // GIVEN
+    String xml = "<api><query><random><page id=\"1\" title=\"Test\"/></random></query></api>";
+    Node node = XmlConverter.toXpathNode(xml);
+
+    // WHEN
+    String title = XmlConverter.evaluateXpath(node, "/api/query/random/page/@title");
+    String id = XmlConverter.evaluateXpath(node, "/api/query/random/page/@id");
+    String missing = XmlConverter.evaluateXpath(node, "/api/query/missing/@id");
+
+    // THEN
+    assertEquals("Test", title);
+    assertEquals("1", id);
+    assertEquals("", missing);
+  }
+
+  @Test
+  public void testEvaluateXpath_compiledOnce() {
+    // GIVEN
+    String xpath = "/api/query/random/page/@title";
+
+    // WHEN
+    XPathExpression first = Xpaths.compile(xpath);
+    XPathExpression second = Xpaths.compile(xpath);
+
+    // THEN
+    assertSame(first, second);
+  }
+
+  @Test
+  public void testEvaluateXpath_invalidExpression() {
+    try {
+      // WHEN
+      XmlConverter.evaluateXpath("<api/>", "/api/[");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertTrue(e.getCause() instanceof XPathExpressionException);
+    }
+  }
+
+  @Test
+  public void testEvaluateXpath_invalidXml() {
+    try {
+      // WHEN
+      XmlConverter.evaluateXpath("<api>", "/api");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertTrue(e.getCause() instanceof SAXException);
+    }
+  }
 }
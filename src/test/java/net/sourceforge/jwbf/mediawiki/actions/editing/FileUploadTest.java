@@ -1,13 +1,27 @@
 package net.sourceforge.jwbf.mediawiki.actions.editing;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 
 import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.core.actions.FileRegion;
+import net.sourceforge.jwbf.core.actions.Post;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
@@ -15,6 +29,8 @@ import net.sourceforge.jwbf.mediawiki.contentRep.SimpleFile;
 
 public class FileUploadTest {
 
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
   @Test
   public void testException() {
     // GIVEN
@@ -44,4 +60,81 @@ public class FileUploadTest {
           e.getMessage());
     }
   }
+
+  @Test
+  public void testChunkedUpload() throws IOException {
+    // GIVEN
+    File file = folder.newFile("a.txt");
+    Files.asCharSink(file, StandardCharsets.UTF_8).write("0123456789");
+    MediaWikiBot bot = mock(MediaWikiBot.class);
+    when(bot.isLoggedIn()).thenReturn(true);
+    FileUpload testee = new FileUpload(new SimpleFile(file), bot, 4);
+
+    // WHEN
+    HttpAction token = testee.getNextMessage();
+    testee.processReturningText(TestHelper.anyWikiResponse("intoken.xml"), token);
+    Post first = (Post) testee.getNextMessage();
+    testee.processReturningText(chunkResponse("Continue", "offset=\"4\""), first);
+    Post second = (Post) testee.getNextMessage();
+    testee.processReturningText(chunkResponse("Continue", "offset=\"8\""), second);
+    Post third = (Post) testee.getNextMessage();
+    testee.processReturningText(chunkResponse("Success", ""), third);
+    Post publish = (Post) testee.getNextMessage();
+    testee.processReturningText(
+        "<api><upload result=\"Success\" filename=\"a.txt\" /></api>", publish);
+
+    // THEN
+    assertFalse(testee.hasMoreMessages());
+    assertEquals(
+        "/api.php?action=upload&filename=a.txt&filesize=10&format=xml&ignorewarnings=true"
+            + "&offset=0&stash=1",
+        first.getRequest());
+    assertEquals(
+        ImmutableList.of(new FileRegion(file, 0, 4)), first.getParams().get("chunk").asList());
+    assertEquals(
+        "/api.php?action=upload&filekey=k.txt&filename=a.txt&filesize=10&format=xml"
+            + "&ignorewarnings=true&offset=4&stash=1",
+        second.getRequest());
+    assertEquals(
+        ImmutableList.of(new FileRegion(file, 8, 2)), third.getParams().get("chunk").asList());
+    assertEquals(
+        "/api.php?action=upload&filekey=k.txt&filename=a.txt&format=xml&ignorewarnings=true",
+        publish.getRequest());
+    assertTrue(publish.getParams().containsKey("token"));
+  }
+
+  @Test
+  public void testChunkedUpload_resume() throws IOException {
+    // GIVEN
+    File file = folder.newFile("a.txt");
+    Files.asCharSink(file, StandardCharsets.UTF_8).write("0123456789");
+    MediaWikiBot bot = mock(MediaWikiBot.class);
+    when(bot.isLoggedIn()).thenReturn(true);
+    FileUpload testee = new FileUpload(new SimpleFile(file), bot, 4);
+    HttpAction token = testee.getNextMessage();
+    testee.processReturningText(TestHelper.anyWikiResponse("intoken.xml"), token);
+    Post first = (Post) testee.getNextMessage();
+    testee.processReturningText(chunkResponse("Continue", "offset=\"4\""), first);
+    Post second = (Post) testee.getNextMessage();
+
+    try {
+      testee.processReturningText(TestHelper.anyWikiResponse("uploadError.xml"), second);
+      fail();
+    } catch (ApiException e) {
+      // WHEN
+      HttpAction resumed = testee.getNextMessage();
+
+      // THEN
+      assertSame(second, resumed);
+      assertTrue(testee.hasMoreMessages());
+    }
+  }
+
+  private static String chunkResponse(String result, String offset) {
+    return "<?xml version=\"1.0\"?><api><upload result=\""
+        + result
+        + "\" filekey=\"k.txt\" "
+        + offset
+        + " /></api>";
+  }
 }
@@ -10,6 +10,7 @@ import org.junit.Test;
 import net.sourceforge.jwbf.TestHelper;
 import net.sourceforge.jwbf.core.actions.ParamTuple;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.editing.GetApiToken.Intoken;
 
 public class GetApiTokenTest {
@@ -49,6 +50,25 @@ public class GetApiTokenTest {
     }
   }
 
+  @Test
+  public void testProcessReturningText_otherAction() {
+    // GIVEN
+    testee = new GetApiToken(Intoken.EDIT, "test");
+    HttpAction other = new GetApiToken(Intoken.EDIT, "test").popAction();
+    String xml = TestHelper.anyWikiResponse("intoken.xml");
+
+    // WHEN
+    testee.processReturningText(xml, other);
+
+    // THEN
+    try {
+      testee.get().token();
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("The argument 'token' is missing", e.getMessage());
+    }
+  }
+
   @Test
   public void testGetToken() {
     // GIVEN
@@ -80,4 +100,63 @@ public class GetApiTokenTest {
         "/api.php?action=query&format=xml&intoken=move&prop=info&titles=" + title,
         first.getRequest());
   }
+
+  @Test
+  public void testProcessReturningText_json() {
+    // GIVEN
+    testee = new GetApiToken(Intoken.EDIT, "test", MediaWiki.Version.MW1_25);
+    String json = TestHelper.wikiResponse(MediaWiki.Version.MW1_25, "intoken.json");
+
+    // WHEN
+    testee.processReturningText(json, testee.popAction());
+
+    // THEN
+    ParamTuple<String> token = new ParamTuple("token", "e0691d5329779f0c01b1b286cd44a278+\\");
+    assertEquals(token, testee.get().token());
+  }
+
+  @Test
+  public void testProcessReturningText_jsonTokenOfOtherType() {
+    // GIVEN
+    testee = new GetApiToken(Intoken.EDIT, "test", MediaWiki.Version.MW1_25);
+    String json = "{\"query\":{\"pages\":[{\"title\":\"test\",\"edittoken\":{}}]}}";
+
+    // WHEN
+    testee.processReturningText(json, testee.popAction());
+
+    try {
+      testee.get().token();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("The argument 'token' is missing", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testGetNextMessage_json() {
+    // GIVEN
+    testee = new GetApiToken(Intoken.MOVE, "test", MediaWiki.Version.MW1_25);
+
+    // WHEN
+    HttpAction first = testee.popAction();
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&format=json&formatversion=2&intoken=move&prop=info&titles=test",
+        first.getRequest());
+  }
+
+  @Test
+  public void testGetNextMessage_xmlBeforeVersion2() {
+    // GIVEN
+    testee = new GetApiToken(Intoken.MOVE, "test", MediaWiki.Version.MW1_24);
+
+    // WHEN
+    HttpAction first = testee.popAction();
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&format=xml&intoken=move&prop=info&titles=test", first.getRequest());
+  }
 }
@@ -1,9 +1,21 @@
 package net.sourceforge.jwbf.mediawiki.actions.editing;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
 
 import org.junit.Test;
 
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+
 public class GetRevisionTest {
 
   @Test
@@ -18,4 +30,91 @@ public class GetRevisionTest {
         "user%7Cids", //
         GetRevision.getDataProperties(GetRevision.IDS | GetRevision.USER | GetRevision.IDS));
   }
+
+  @Test
+  public void testProcessReturningStream() {
+    // GIVEN
+    GetRevision testee = new GetRevision(ImmutableList.of("A"), GetRevision.CONTENT);
+    HttpAction action = testee.getNextMessage();
+    String xml =
+        "<api><query><pages><page title=\"A\"><revisions>"
+            + "<rev revid=\"7\" user=\"U\">text of A</rev>"
+            + "</revisions></page></pages></query></api>";
+
+    // WHEN
+    testee.processReturningStream(new StringReader(xml), action);
+
+    // THEN
+    SimpleArticle article = testee.getArticle();
+    assertEquals("A", article.getTitle());
+    assertEquals("text of A", article.getText());
+    assertEquals("7", article.getRevisionId());
+    assertEquals("U", article.getEditor());
+  }
+
+  @Test
+  public void testGetNextMessage_json() {
+    // GIVEN
+    GetRevision testee =
+        new GetRevision(MediaWiki.Version.MW1_25, ImmutableList.of("A"), GetRevision.CONTENT);
+
+    // WHEN
+    String request = testee.getNextMessage().getRequest();
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&format=json&formatversion=2&prop=revisions"
+            + "&rvlimit=1&rvprop=content&rvdir=older&titles=A",
+        request);
+  }
+
+  @Test
+  public void testProcessReturningText_json() {
+    // GIVEN
+    GetRevision testee = newJsonTestee();
+    String json = TestHelper.wikiResponse(MediaWiki.Version.MW1_25, "revisions.json");
+
+    // WHEN
+    testee.processReturningText(json, testee.getNextMessage());
+
+    // THEN
+    assertRevisions(testee.asListOpt());
+  }
+
+  @Test
+  public void testProcessReturningStream_json() {
+    // GIVEN
+    GetRevision testee = newJsonTestee();
+    String json = TestHelper.wikiResponse(MediaWiki.Version.MW1_25, "revisions.json");
+
+    // WHEN
+    testee.processReturningStream(new StringReader(json), testee.getNextMessage());
+
+    // THEN
+    assertRevisions(testee.asListOpt());
+  }
+
+  private static GetRevision newJsonTestee() {
+    int properties =
+        GetRevision.CONTENT
+            | GetRevision.COMMENT
+            | GetRevision.USER
+            | GetRevision.TIMESTAMP
+            | GetRevision.IDS
+            | GetRevision.FLAGS;
+    return new GetRevision(MediaWiki.Version.MW1_25, ImmutableList.of("A", "B"), properties);
+  }
+
+  private static void assertRevisions(ImmutableList<Optional<SimpleArticle>> articles) {
+    assertEquals(2, articles.size());
+    assertFalse(articles.get(0).isPresent());
+    SimpleArticle b = articles.get(1).get();
+    assertEquals("B", b.getTitle());
+    assertEquals("#REDIRECT [[Any]]", b.getText());
+    assertEquals("13560", b.getRevisionId());
+    assertEquals("#REDIRECT [[Whatever]]", b.getEditSummary());
+    assertEquals("Any", b.getEditor());
+    assertEquals("2005-12-16T09:57:30Z", b.getEditTimestamp().toInstant().toString());
+    assertTrue(b.isMinorEdit());
+  }
 }
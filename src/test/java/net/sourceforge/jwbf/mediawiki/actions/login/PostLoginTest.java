@@ -0,0 +1,84 @@
+package net.sourceforge.jwbf.mediawiki.actions.login;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.core.actions.Post;
+import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+
+public class PostLoginTest {
+
+  @Test
+  public void testProcessAllReturningText_json() {
+    // GIVEN
+    PostLogin testee = new PostLogin("Hunsu", "password", null, Version.MW1_25);
+    Post first = (Post) testee.getNextMessage();
+
+    // WHEN
+    testee.processAllReturningText(TestHelper.wikiResponse(Version.MW1_25, "login_needtoken.json"));
+    assertTrue(testee.hasMoreMessages());
+    Post second = (Post) testee.getNextMessage();
+    testee.processAllReturningText(TestHelper.wikiResponse(Version.MW1_25, "login_valid.json"));
+
+    // THEN
+    assertEquals("/api.php?action=login&format=json&formatversion=2", first.getRequest());
+    assertFalse(first.getParams().containsKey("lgtoken"));
+    assertEquals(
+        ImmutableList.<Object>of("b5780b6e2f27e20b450921d9461010b4"),
+        second.getParams().get("lgtoken").asList());
+    assertFalse(testee.hasMoreMessages());
+    assertTrue(testee.getLoginData().isLoggedIn());
+    assertEquals("Hunsu", testee.getLoginData().getUserName());
+  }
+
+  @Test
+  public void testProcessAllReturningText_jsonWithoutResult() {
+    // GIVEN
+    PostLogin testee = new PostLogin("Hunsu", "password", null, Version.MW1_25);
+
+    try {
+      // WHEN
+      testee.processAllReturningText("{\"login\":{\"lgusername\":\"Hunsu\"}}");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertTrue(e.getMessage(), e.getMessage().contains("login result must not be null"));
+    }
+  }
+
+  @Test
+  public void testProcessAllReturningText_jsonWithoutLogin() {
+    // GIVEN
+    PostLogin testee = new PostLogin("Hunsu", "password", null, Version.MW1_25);
+
+    try {
+      // WHEN
+      testee.processAllReturningText("{\"batchcomplete\":true}");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("a login response must contain a login", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testProcessAllReturningText_xml() {
+    // GIVEN
+    PostLogin testee = new PostLogin("Hunsu", "password", null, Version.MW1_24);
+
+    // WHEN
+    testee.processAllReturningText(TestHelper.anyWikiResponse("login_valid.xml"));
+
+    // THEN
+    assertEquals("/api.php?action=login&format=xml", testee.getNextMessage().getRequest());
+    assertTrue(testee.getLoginData().isLoggedIn());
+    assertEquals("Hunsu", testee.getLoginData().getUserName());
+  }
+}
@@ -29,6 +29,9 @@ public class GetVersionIntegTest extends MocoIntegTest {
   public void testSiteInfo() {
     // GIVEN
     // /api.php?action=query&format=xml&meta=siteinfoWithProperties
+    server
+        .request(SiteInfoIntegTest.newSiteInfoMatcherBuilder().build()) //
+        .response(mwFileOf(version(), "siteinfo.xml"));
     server
         .request(SiteInfoIntegTest.newSiteinfoWithProperties()) //
         .response(mwFileOf(version(), "siteinfo_detail.xml"));
@@ -0,0 +1,52 @@
+package net.sourceforge.jwbf.mediawiki.actions.meta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
+import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+
+public class GetVersionTest {
+
+  @Test
+  public void testGetVersion_newerThanKnown() {
+    // GIVEN
+    GetVersion testee = new GetVersion();
+    testee.processAllReturningText(TestHelper.anyWikiResponse("siteinfo_mw1_35.xml"));
+
+    // WHEN
+    Version version = testee.getVersion();
+
+    // THEN
+    assertEquals("MediaWiki 1.35.0", testee.getGenerator());
+    assertEquals(Version.DEVELOPMENT, version);
+    assertTrue(ApiRequestBuilder.isJsonVersion2(version));
+    assertEquals(
+        "/api.php?action=query&format=json&formatversion=2&meta=siteinfo"
+            + "&siprop=general%7Cnamespaces%7Cinterwikimap",
+        new Siteinfo(version).getNextMessage().getRequest());
+  }
+
+  @Test
+  public void testGetVersion() {
+    assertEquals(Version.MW1_24, versionOf("MediaWiki 1.24.0"));
+    assertEquals(Version.MW1_25, versionOf("MediaWiki 1.25.2"));
+    assertEquals(Version.MW1_19, versionOf("MediaWiki 1.19.24"));
+    assertEquals(Version.DEVELOPMENT, versionOf("MediaWiki 1.39.5"));
+    assertEquals(Version.DEVELOPMENT, versionOf("MediaWiki 2.0.0"));
+    assertEquals(Version.DEVELOPMENT, versionOf("MediaWiki 1.26wmf3"));
+    assertEquals(Version.UNKNOWN, versionOf("MediaWiki 1.13.5"));
+    assertEquals(Version.UNKNOWN, versionOf("MediaWiki"));
+    assertEquals(Version.UNKNOWN, versionOf(""));
+  }
+
+  private static Version versionOf(String generator) {
+    GetVersion testee = new GetVersion();
+    testee.processAllReturningText(
+        "<api><query><general generator=\"" + generator + "\" /></query></api>");
+    return testee.getVersion();
+  }
+}
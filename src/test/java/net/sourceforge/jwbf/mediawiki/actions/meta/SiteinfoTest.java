@@ -0,0 +1,85 @@
+package net.sourceforge.jwbf.mediawiki.actions.meta;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+
+public class SiteinfoTest {
+
+  @Test
+  public void testGetNextMessage_json() {
+    // GIVEN
+    Siteinfo testee = new Siteinfo(Version.MW1_25);
+
+    // WHEN
+    String request = testee.getNextMessage().getRequest();
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&format=json&formatversion=2&meta=siteinfo"
+            + "&siprop=general%7Cnamespaces%7Cinterwikimap",
+        request);
+  }
+
+  @Test
+  public void testProcessAllReturningText_jsonLikeXml() {
+    // GIVEN
+    Siteinfo xmlTestee = new Siteinfo(Version.MW1_24);
+    Siteinfo jsonTestee = new Siteinfo(Version.MW1_25);
+
+    // WHEN
+    xmlTestee.processAllReturningText(
+        TestHelper.wikiResponse(Version.MW1_25, "siteinfo_detail.xml"));
+    jsonTestee.processAllReturningText(
+        TestHelper.wikiResponse(Version.MW1_25, "siteinfo_detail.json"));
+
+    // THEN
+    assertEquals(Version.MW1_25, jsonTestee.getVersion());
+    assertEquals("MW_1_25", jsonTestee.getSitename());
+    assertEquals(xmlTestee.getGenerator(), jsonTestee.getGenerator());
+    assertEquals(xmlTestee.getBase(), jsonTestee.getBase());
+    assertEquals(xmlTestee.getCase(), jsonTestee.getCase());
+    assertEquals(xmlTestee.getMainpage(), jsonTestee.getMainpage());
+    assertEquals(18, jsonTestee.getNamespaces().size());
+    assertEquals("Category", jsonTestee.getNamespaces().get(14));
+    assertEquals(xmlTestee.getNamespaces(), jsonTestee.getNamespaces());
+    assertEquals(xmlTestee.getInterwikis(), jsonTestee.getInterwikis());
+  }
+
+  @Test
+  public void testProcessAllReturningText_jsonNamespaceWithoutId() {
+    // GIVEN
+    Siteinfo testee = new Siteinfo(Version.MW1_25);
+
+    try {
+      // WHEN
+      testee.processAllReturningText(
+          "{\"query\":{\"namespaces\":{\"14\":{\"name\":\"Category\"}}}}");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertTrue(e.getMessage(), e.getMessage().contains("namespace id must not be null"));
+    }
+  }
+
+  @Test
+  public void testProcessAllReturningText_jsonNamespaceIdOfOtherType() {
+    // GIVEN
+    Siteinfo testee = new Siteinfo(Version.MW1_25);
+
+    try {
+      // WHEN
+      testee.processAllReturningText(
+          "{\"query\":{\"namespaces\":{\"14\":{\"id\":\"cat\",\"name\":\"Category\"}}}}");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertTrue(e.getMessage(), e.getMessage().contains("Cannot deserialize value of type"));
+    }
+  }
+}
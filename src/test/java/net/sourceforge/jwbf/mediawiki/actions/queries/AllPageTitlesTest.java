@@ -2,6 +2,7 @@ package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -47,6 +48,34 @@ public class AllPageTitlesTest {
         allPagesRequest.getRequest());
   }
 
+  @Test
+  public void testGenerateRequest_withMaxLimit() {
+    // GIVEN
+    testee.withMaxLimit();
+
+    // WHEN
+    Get allPagesRequest = testee.generateRequest(Optional.<String>absent(), null, null, null);
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&apfilterredir=nonredirects&aplimit=max&format=xml&list=allpages", //
+        allPagesRequest.getRequest());
+  }
+
+  @Test
+  public void testGenerateRequest_withLimit() {
+    // GIVEN
+    testee.withLimit(5000);
+
+    // WHEN
+    Get allPagesRequest = testee.generateRequest(Optional.<String>absent(), null, null, null);
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&apfilterredir=nonredirects&aplimit=5000&format=xml&list=allpages",
+        allPagesRequest.getRequest());
+  }
+
   @Test
   public void testGenerateRequest_with_prefix() {
     // GIVEN
@@ -142,4 +171,67 @@ public class AllPageTitlesTest {
     // THEN
     assertTrue(result.isEmpty());
   }
+
+  @Test
+  public void testGenerateRequest_json() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+
+    // WHEN
+    Get allPagesRequest = testee.generateRequest(Optional.<String>absent(), null, null, null);
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&apfilterredir=nonredirects&aplimit=50&continue=-%7C%7C"
+            + "&format=json&formatversion=2&list=allpages",
+        allPagesRequest.getRequest());
+  }
+
+  @Test
+  public void testParsePage_json() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+    String json =
+        "{\"continue\":{\"apcontinue\":\"C\",\"continue\":\"-||\"},\"query\":{\"allpages\":["
+            + "{\"pageid\":1,\"ns\":0,\"title\":\"A\"},{\"pageid\":2,\"ns\":0,\"title\":\"B\"}]}}";
+
+    // WHEN
+    BaseQuery.Page<String> result = testee.parsePage(json);
+
+    // THEN
+    assertEquals(ImmutableList.of("A", "B"), result.getElements());
+    assertEquals(Optional.of("C"), result.getNextPageInfo());
+    assertEquals(ImmutableList.of("A", "B"), testee.parseElements(json));
+    assertEquals(Optional.of("C"), testee.parseHasMore(json));
+  }
+
+  @Test
+  public void testParsePage_jsonQueryContinue() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+    String json =
+        "{\"query-continue\":{\"allpages\":{\"apfrom\":\"C\"}},"
+            + "\"query\":{\"allpages\":[{\"pageid\":1,\"ns\":0,\"title\":\"A\"}]}}";
+
+    // WHEN
+    BaseQuery.Page<String> result = testee.parsePage(json);
+
+    // THEN
+    assertEquals(ImmutableList.of("A"), result.getElements());
+    assertEquals(Optional.of("C"), result.getNextPageInfo());
+  }
+
+  @Test
+  public void testParsePage_jsonLast() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+
+    // WHEN
+    BaseQuery.Page<String> result =
+        testee.parsePage("{\"batchcomplete\":true,\"query\":{\"allpages\":[]}}");
+
+    // THEN
+    assertTrue(result.getElements().isEmpty());
+    assertEquals(Optional.<String>absent(), result.getNextPageInfo());
+  }
 }
@@ -1,15 +1,19 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -25,4 +29,23 @@ public class BacklinkTitlesTest {
     // THEN
     assertTrue(result.isEmpty());
   }
+
+  @Test
+  public void testParsePage_json() {
+    // GIVEN
+    MediaWikiBot bot = mock(MediaWikiBot.class);
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+    BacklinkTitles backlinks = new BacklinkTitles(bot, "Main Page");
+    String json =
+        "{\"continue\":{\"blcontinue\":\"0|42\",\"continue\":\"-||\"},"
+            + "\"query\":{\"backlinks\":[{\"pageid\":7,\"ns\":2,\"title\":\"User:A\"}]}}";
+
+    // WHEN
+    BaseQuery.Page<String> result = backlinks.parsePage(json);
+
+    // THEN
+    assertEquals(ImmutableList.of("User:A"), result.getElements());
+    assertEquals(Optional.of("0|42"), result.getNextPageInfo());
+    assertTrue(backlinks.prepareNextRequest().getRequest().contains("format=json&formatversion=2"));
+  }
 }
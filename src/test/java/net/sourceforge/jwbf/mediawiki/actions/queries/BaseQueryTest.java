@@ -1,10 +1,12 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -14,8 +16,12 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Resources;
 
+import net.sourceforge.jwbf.TestHelper;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.mapper.XmlAttributes;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -87,6 +93,195 @@ public class BaseQueryTest {
     }
   }
 
+  @Test
+  public void testLimitOr() {
+    // GIVEN / WHEN / THEN
+    assertEquals("50", testee.limitOr(50));
+    assertEquals("7", testee.withLimit(7).limitOr(50));
+    assertEquals("max", testee.withMaxLimit().limitOr(50));
+  }
+
+  @Test
+  public void testWithLimit_invalid() {
+    try {
+      // WHEN
+      testee.withLimit(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("limit must be positive", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testIterator_keepsLimit() {
+    // GIVEN
+    AllPageTitles query = new AllPageTitles(Mockito.mock(MediaWikiBot.class));
+    query.withMaxLimit();
+
+    // WHEN
+    AllPageTitles result = (AllPageTitles) query.iterator();
+
+    // THEN
+    assertEquals("max", result.limitOr(50));
+  }
+
+  @Test
+  public void testParsePage_default() {
+    // GIVEN
+    Mockito.doReturn(ImmutableList.<Object>of("a")).when(testee).parseElements("x");
+    Mockito.doReturn(Optional.of("b")).when(testee).parseHasMore("x");
+
+    // WHEN
+    BaseQuery.Page<Object> result = testee.parsePage("x");
+
+    // THEN
+    assertEquals(ImmutableList.of("a"), result.getElements());
+    assertEquals(Optional.of("b"), result.getNextPageInfo());
+  }
+
+  @Test
+  public void testProcessAllReturningText_parsesPageOnce() {
+    // GIVEN
+    BaseQuery.Page<Object> page =
+        new BaseQuery.Page<Object>(ImmutableList.<Object>of("a"), Optional.of("b"));
+    Mockito.doReturn(page).when(testee).parsePage("x");
+
+    // WHEN
+    testee.new QueryAction().processAllReturningText("x");
+
+    // THEN
+    Mockito.verify(testee).parsePage("x");
+    Mockito.verify(testee, Mockito.never()).parseElements(Mockito.anyString());
+    Mockito.verify(testee, Mockito.never()).parseHasMore(Mockito.anyString());
+    assertEquals(Optional.of("b"), testee.nextPageInfoOpt());
+  }
+
+  @Test
+  public void testParseXmlPage_continue() {
+    // GIVEN
+    String xml =
+        "<api><continue blcontinue=\"0|3\" continue=\"-||\" /><query><backlinks>"
+            + "<bl pageid=\"1\" title=\"A\" /><bl pageid=\"2\" title=\"B\" />"
+            + "</backlinks></query></api>";
+
+    // WHEN
+    BaseQuery.Page<String> result = parseXmlPage(xml, "backlinks", "bl", "blcontinue");
+
+    // THEN
+    assertEquals(ImmutableList.of("A", "B"), result.getElements());
+    assertEquals(Optional.of("0|3"), result.getNextPageInfo());
+  }
+
+  @Test
+  public void testParseXmlPage_queryContinue() {
+    // GIVEN
+    String xml = TestHelper.textOf(Resources.getResource("mediawiki/any/embeddedin_1.xml"));
+
+    // WHEN
+    BaseQuery.Page<String> result = parseXmlPage(xml, "embeddedin", "ei", "eicontinue");
+
+    // THEN
+    assertEquals(5, result.getElements().size());
+    assertEquals("User:AxelBoldt", result.getElements().get(0));
+    assertEquals(Optional.of("10|Babel|37163"), result.getNextPageInfo());
+    assertEquals(
+        testee.parseXmlHasMore(xml, "embeddedin", "eicontinue", "eicontinue"),
+        result.getNextPageInfo());
+  }
+
+  @Test
+  public void testParseXmlPage_last() {
+    // GIVEN
+    String xml = "<api><query><backlinks><bl title=\"A\" /></backlinks></query></api>";
+
+    // WHEN
+    BaseQuery.Page<String> result = parseXmlPage(xml, "backlinks", "bl", "blcontinue");
+
+    // THEN
+    assertEquals(ImmutableList.of("A"), result.getElements());
+    assertEquals(Optional.<String>absent(), result.getNextPageInfo());
+  }
+
+  @Test
+  public void testIterate_skipsEmptyPagesWithContinuation() {
+    // GIVEN
+    AtomicInteger requests = new AtomicInteger();
+    MediaWikiBot bot = PagedQuery.newBot(requests, new AtomicInteger(-1));
+    BaseQuery<String> query = withEmptyPages(bot, ImmutableSet.of("1", "2"));
+
+    // WHEN
+    boolean hasNext = query.hasNext();
+    ImmutableList<String> result = ImmutableList.copyOf((Iterator<String>) query);
+
+    // THEN
+    assertTrue(hasNext);
+    assertEquals(ImmutableList.of("0a", "0b", "3a", "3b"), result);
+    assertEquals(PagedQuery.PAGES, requests.get());
+  }
+
+  @Test
+  public void testIterate_emptyPagesUntilTheLast() {
+    // GIVEN
+    AtomicInteger requests = new AtomicInteger();
+    MediaWikiBot bot = PagedQuery.newBot(requests, new AtomicInteger(-1));
+    BaseQuery<String> query = withEmptyPages(bot, ImmutableSet.of("0", "1", "2", "3"));
+
+    // WHEN
+    boolean hasNext = query.hasNext();
+
+    // THEN
+    assertFalse(hasNext);
+    assertEquals(PagedQuery.PAGES, requests.get());
+  }
+
+  /** @return a query, whose pages with the given numbers have no elements, but a continuation */
+  private static BaseQuery<String> withEmptyPages(
+      MediaWikiBot bot, final ImmutableSet<String> emptyPages) {
+    return new PagedQuery(bot) {
+      @Override
+      protected ImmutableList<String> parseElements(String s) {
+        if (emptyPages.contains(s)) {
+          return ImmutableList.of();
+        }
+        return super.parseElements(s);
+      }
+    };
+  }
+
+  private static BaseQuery.Page<String> parseXmlPage(
+      String xml, String elementName, String childName, String continueKey) {
+    BaseQuery<String> query =
+        new BaseQuery<String>(Mockito.mock(MediaWikiBot.class)) {
+          @Override
+          protected Iterator<String> copy() {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          protected HttpAction prepareNextRequest() {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          protected ImmutableList<String> parseElements(String s) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          protected Optional<String> parseHasMore(String s) {
+            throw new UnsupportedOperationException();
+          }
+        };
+    return query.parseXmlPage(
+        xml,
+        elementName,
+        childName,
+        XmlAttributes.toAttributeValue("title"),
+        continueKey,
+        continueKey);
+  }
+
   public static String emptyXml() {
     return "<empty />";
   }
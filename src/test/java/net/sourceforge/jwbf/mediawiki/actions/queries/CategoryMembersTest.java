@@ -1,6 +1,8 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
 
 import java.util.Iterator;
 
@@ -10,6 +12,7 @@ import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
@@ -44,4 +47,23 @@ public class CategoryMembersTest {
     // THEN
     assertTrue(result.isEmpty());
   }
+
+  @Test
+  public void testParsePage_json() {
+    // GIVEN
+    MediaWikiBot bot = Mockito.mock(MediaWikiBot.class);
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+    CategoryMembersFull members = new CategoryMembersFull(bot, "A");
+    String json =
+        "{\"continue\":{\"cmcontinue\":\"page|4|3\",\"continue\":\"-||\"},"
+            + "\"query\":{\"categorymembers\":[{\"pageid\":3,\"ns\":14,\"title\":\"B\"}]}}";
+
+    // WHEN
+    BaseQuery.Page<CategoryItem> result = members.parsePage(json);
+
+    // THEN
+    assertEquals(ImmutableList.of(new CategoryItem("B", 14, 3)), result.getElements());
+    assertEquals(Optional.of("page|4|3"), result.getNextPageInfo());
+    assertEquals(ImmutableList.of("B"), new CategoryMembersSimple(bot, "A").parseElements(json));
+  }
 }
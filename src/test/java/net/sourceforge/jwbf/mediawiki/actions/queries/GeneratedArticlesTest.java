@@ -0,0 +1,230 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.core.actions.HttpActionClient;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.actions.meta.GetVersion;
+import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
+import net.sourceforge.jwbf.mediawiki.actions.util.VersionException;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+
+public class GeneratedArticlesTest {
+
+  // the content of B exceeds the response; so its revision continues with the same batch
+  private static final String FIRST =
+      "{\"continue\":{\"rvcontinue\":\"2|12\",\"gcmcontinue\":\"page|43|3\","
+          + "\"continue\":\"gcmcontinue||\"},\"query\":{\"pages\":["
+          + "{\"pageid\":1,\"ns\":0,\"title\":\"A\",\"revisions\":[{\"revid\":11,"
+          + "\"user\":\"U\",\"timestamp\":\"2020-01-02T03:04:05Z\",\"comment\":\"c\","
+          + "\"minor\":true,\"slots\":{\"main\":{\"content\":\"a text\"}}}]},"
+          + "{\"pageid\":2,\"ns\":0,\"title\":\"B\"}]}}";
+  private static final String SECOND =
+      "{\"batchcomplete\":true,\"continue\":{\"gcmcontinue\":\"page|43|3\","
+          + "\"continue\":\"gcmcontinue||\"},\"query\":{\"pages\":["
+          + "{\"pageid\":1,\"ns\":0,\"title\":\"A\"},"
+          + "{\"pageid\":2,\"ns\":0,\"title\":\"B\",\"revisions\":[{\"revid\":12,"
+          + "\"user\":\"V\",\"timestamp\":\"2020-01-02T03:04:05Z\",\"comment\":\"\","
+          + "\"minor\":false,\"content\":\"b text\"}]}]}}";
+  private static final String LAST =
+      "{\"batchcomplete\":true,\"query\":{\"pages\":["
+          + "{\"pageid\":3,\"ns\":0,\"title\":\"C\",\"revisions\":[{\"revid\":13,"
+          + "\"user\":\"W\",\"timestamp\":\"2020-01-02T03:04:05Z\",\"comment\":\"\","
+          + "\"minor\":false,\"slots\":{\"main\":{\"content\":\"c text\"}}}]}]}}";
+
+  private final MediaWikiBot bot = mock(MediaWikiBot.class);
+
+  @Before
+  public void before() {
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+  }
+
+  @Test
+  public void testInit_olderVersion() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_24);
+
+    try {
+      // WHEN
+      new GeneratedArticles(bot, Generator.allPages());
+      fail();
+    } catch (VersionException e) {
+      // THEN
+      assertEquals("generated articles require MW1_25 or higher, but was MW1_24", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testInit_unknownVersion() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.UNKNOWN);
+
+    // WHEN
+    GeneratedArticles testee = new GeneratedArticles(bot, Generator.allPages());
+
+    // THEN
+    assertTrue(testee.prepareNextRequest().getRequest().contains("format=json&formatversion=2"));
+  }
+
+  @Test
+  public void testInit_modernGenerator() {
+    // GIVEN
+    HttpActionClient client = mock(HttpActionClient.class);
+    doAnswer(
+            new Answer<String>() {
+              @Override
+              public String answer(InvocationOnMock invocation) {
+                GetVersion action = (GetVersion) invocation.getArguments()[0];
+                return action.processAllReturningText(
+                    TestHelper.anyWikiResponse("siteinfo_mw1_35.xml"));
+              }
+            })
+        .when(client)
+        .performAction(isA(GetVersion.class));
+    MediaWikiBot modernBot = new MediaWikiBot(client);
+
+    // WHEN
+    GeneratedArticles testee = new GeneratedArticles(modernBot, Generator.allPages());
+
+    // THEN
+    assertEquals(MediaWiki.Version.DEVELOPMENT, modernBot.getVersion());
+    assertTrue(testee.prepareNextRequest().getRequest().contains("generator=allpages"));
+  }
+
+  @Test
+  public void testPrepareNextRequest() {
+    // GIVEN
+    GeneratedArticles testee =
+        new GeneratedArticles(bot, Generator.categoryMembers("Some cat", 0, 14));
+
+    // WHEN
+    HttpAction result = testee.prepareNextRequest();
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&continue=-%7C%7C&format=json&formatversion=2"
+            + "&gcmlimit=50&gcmnamespace=0%7C14&gcmtitle=Category%3ASome_cat"
+            + "&generator=categorymembers&prop=revisions"
+            + "&rvprop=ids%7Ctimestamp%7Cuser%7Ccomment%7Cflags%7Ccontent&rvslots=main",
+        result.getRequest());
+  }
+
+  @Test
+  public void testPrepareNextRequest_continue() {
+    // GIVEN
+    GeneratedArticles testee = new GeneratedArticles(bot, Generator.allPages());
+    testee.withMaxLimit();
+    testee.setNextPageInfo(testee.parsePage(FIRST).getNextPageInfo().get());
+
+    // WHEN
+    HttpAction result = testee.prepareNextRequest();
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&continue=gcmcontinue%7C%7C&format=json&formatversion=2"
+            + "&gapfilterredir=nonredirects&gaplimit=max&gcmcontinue=page%7C43%7C3"
+            + "&generator=allpages&prop=revisions"
+            + "&rvcontinue=2%7C12&rvprop=ids%7Ctimestamp%7Cuser%7Ccomment%7Cflags%7Ccontent"
+            + "&rvslots=main",
+        result.getRequest());
+  }
+
+  @Test
+  public void testParsePage_mergesRevisionsOfBatch() {
+    // GIVEN
+    GeneratedArticles testee = new GeneratedArticles(bot, Generator.backlinks("Main Page"));
+
+    // WHEN
+    BaseQuery.Page<SimpleArticle> first = testee.parsePage(FIRST);
+    BaseQuery.Page<SimpleArticle> second = testee.parsePage(SECOND);
+
+    // THEN
+    assertEquals(ImmutableList.<SimpleArticle>of(), first.getElements());
+    assertTrue(first.getNextPageInfo().isPresent());
+    assertEquals(
+        Optional.of("gcmcontinue=page%7C43%7C3&continue=gcmcontinue%7C%7C"),
+        second.getNextPageInfo());
+    ImmutableList<SimpleArticle> articles = second.getElements();
+    assertEquals(2, articles.size());
+    SimpleArticle a = articles.get(0);
+    assertEquals("A", a.getTitle());
+    assertEquals("a text", a.getText());
+    assertEquals("11", a.getRevisionId());
+    assertEquals("U", a.getEditor());
+    assertEquals("c", a.getEditSummary());
+    assertTrue(a.isMinorEdit());
+    SimpleArticle b = articles.get(1);
+    assertEquals("B", b.getTitle());
+    assertEquals("b text", b.getText());
+    assertEquals("12", b.getRevisionId());
+    assertFalse(b.isMinorEdit());
+  }
+
+  @Test
+  public void testParseElements() {
+    // GIVEN
+    GeneratedArticles testee = new GeneratedArticles(bot, Generator.embeddedIn("Template:T"));
+
+    // WHEN
+    ImmutableList<SimpleArticle> result = testee.parseElements(FIRST);
+
+    // THEN
+    assertEquals(2, result.size());
+    assertEquals("a text", result.get(0).getText());
+    assertEquals("", result.get(1).getText());
+    assertEquals(Optional.<String>absent(), testee.parseHasMore(LAST));
+  }
+
+  @Test
+  public void testIterate() {
+    // GIVEN
+    final List<String> requests = Lists.newArrayList();
+    final ImmutableList<String> responses = ImmutableList.of(FIRST, SECOND, LAST);
+    doAnswer(
+            new Answer<MWAction>() {
+              @Override
+              public MWAction answer(InvocationOnMock invocation) {
+                MWAction action = (MWAction) invocation.getArguments()[0];
+                HttpAction message = action.getNextMessage();
+                action.processReturningText(responses.get(requests.size()), message);
+                requests.add(message.getRequest());
+                return action;
+              }
+            })
+        .when(bot)
+        .getPerformedAction(any(MWAction.class));
+    GeneratedArticles testee = new GeneratedArticles(bot, Generator.categoryMembers("C"));
+
+    // WHEN
+    ImmutableList<SimpleArticle> result = ImmutableList.copyOf(testee.lazy());
+
+    // THEN
+    assertEquals(3, requests.size());
+    assertEquals(3, result.size());
+    assertEquals("b text", result.get(1).getText());
+    assertEquals("C", result.get(2).getTitle());
+    assertEquals("c text", result.get(2).getText());
+  }
+}
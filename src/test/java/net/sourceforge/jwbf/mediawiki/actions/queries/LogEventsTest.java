@@ -2,13 +2,18 @@ package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.google.common.base.Optional;
+
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import net.sourceforge.jwbf.mediawiki.contentRep.LogItem;
 
 @RunWith(MockitoJUnitRunner.class)
 public class LogEventsTest {
@@ -39,4 +44,26 @@ public class LogEventsTest {
       assertEquals("limit must be > 0, but was 0", e.getMessage());
     }
   }
+
+  @Test
+  public void testParsePage_json() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+    LogEvents testee = new LogEvents(bot, LogEvents.DELETE);
+    String json =
+        "{\"continue\":{\"lecontinue\":\"20200102030405|17\",\"continue\":\"-||\"},"
+            + "\"query\":{\"logevents\":[{\"logid\":18,\"ns\":0,\"title\":\"A\","
+            + "\"pageid\":0,\"type\":\"delete\",\"action\":\"delete\",\"user\":\"U\","
+            + "\"timestamp\":\"2020-01-02T03:04:05Z\",\"comment\":\"c\"}]}}";
+
+    // WHEN
+    BaseQuery.Page<LogItem> result = testee.parsePage(json);
+
+    // THEN
+    LogItem item = result.getElements().get(0);
+    assertEquals("A", item.getTitle());
+    assertEquals("delete", item.getType());
+    assertEquals("U", item.getUser());
+    assertEquals(Optional.of("20200102030405|17"), result.getNextPageInfo());
+  }
 }
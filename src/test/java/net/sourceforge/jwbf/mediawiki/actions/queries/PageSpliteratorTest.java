@@ -0,0 +1,133 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+
+public class PageSpliteratorTest {
+
+  private static final ImmutableList<String> ALL =
+      ImmutableList.of("0a", "0b", "1a", "1b", "2a", "2b", "3a", "3b");
+
+  private final AtomicInteger requests = new AtomicInteger();
+  private final MediaWikiBot bot = PagedQuery.newBot(requests, new AtomicInteger(-1));
+
+  @Test
+  public void testStream() {
+    // GIVEN
+    PagedQuery testee = new PagedQuery(bot);
+
+    // WHEN
+    ImmutableList<String> result = ImmutableList.copyOf(testee.stream().iterator());
+
+    // THEN
+    assertEquals(ALL, result);
+    assertEquals(PagedQuery.PAGES, requests.get());
+  }
+
+  @Test
+  public void testStream_lazy() {
+    // GIVEN
+    PagedQuery testee = new PagedQuery(bot);
+
+    // WHEN
+    String result = testee.stream().filter(Predicate.isEqual("1a")).findFirst().get();
+
+    // THEN
+    assertEquals("1a", result);
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void testParallelStream() {
+    // GIVEN
+    PagedQuery testee = new PagedQuery(bot);
+
+    // WHEN
+    String result = testee.parallelStream().map(toUpperCase()).collect(Collectors.joining());
+
+    // THEN
+    assertEquals("0A0B1A1B2A2B3A3B", result);
+    assertEquals(PagedQuery.PAGES, requests.get());
+  }
+
+  @Test
+  public void testTrySplit_pageBoundaries() {
+    // GIVEN
+    PageSpliterator<String> testee = new PageSpliterator<>(new PagedQuery(bot));
+    testee.tryAdvance(ignore());
+
+    // WHEN
+    Spliterator<String> rest = testee.trySplit();
+    Spliterator<String> second = testee.trySplit();
+
+    // THEN
+    assertEquals(1, rest.estimateSize());
+    assertEquals(2, second.estimateSize());
+    assertEquals(2, requests.get());
+    int sized = Spliterator.SIZED | Spliterator.SUBSIZED;
+    assertEquals(sized, rest.characteristics() & sized);
+    assertEquals(sized, second.characteristics() & sized);
+  }
+
+  @Test
+  public void testEstimateSize() {
+    // GIVEN
+    PageSpliterator<String> testee = new PageSpliterator<>(new PagedQuery(bot));
+
+    // WHEN / THEN
+    assertEquals(Long.MAX_VALUE, testee.estimateSize());
+    assertEquals(0, requests.get());
+    testee.tryAdvance(ignore());
+    assertEquals(1, testee.estimateSize());
+    testee.tryAdvance(ignore());
+    assertEquals(Long.MAX_VALUE, testee.estimateSize());
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  public void testTrySplit_lastPage() {
+    // GIVEN
+    PageSpliterator<String> testee = new PageSpliterator<>(new PagedQuery(bot));
+    for (int i = 0; i < PagedQuery.PAGES; i++) {
+      testee.trySplit();
+    }
+
+    // WHEN
+    Spliterator<String> result = testee.trySplit();
+
+    // THEN
+    assertNull(result);
+    assertEquals(0, testee.estimateSize());
+  }
+
+  private static Function<String, String> toUpperCase() {
+    return new Function<String, String>() {
+      @Override
+      public String apply(String s) {
+        return s.toUpperCase();
+      }
+    };
+  }
+
+  private static Consumer<String> ignore() {
+    return new Consumer<String>() {
+      @Override
+      public void accept(String s) {
+        // do nothing
+      }
+    };
+  }
+}
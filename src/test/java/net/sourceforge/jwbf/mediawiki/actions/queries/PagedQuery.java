@@ -0,0 +1,110 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import net.sourceforge.jwbf.core.actions.ContentProcessable;
+import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+
+/** Page n has the elements "na" and "nb"; the response of a page is its number. */
+class PagedQuery extends BaseQuery<String> {
+
+  static final int PAGES = 4;
+
+  PagedQuery(MediaWikiBot bot) {
+    super(bot);
+  }
+
+  /**
+   * Its stubs are lenient, because a test uses either the blocking or the async method.
+   *
+   * @param requests counts the performed requests
+   * @param failingPage number of the page, whose request fails
+   */
+  static MediaWikiBot newBot(final AtomicInteger requests, final AtomicInteger failingPage) {
+    MediaWikiBot bot = mock(MediaWikiBot.class);
+    lenient()
+        .doAnswer(
+            new Answer<ContentProcessable>() {
+              @Override
+              public ContentProcessable answer(InvocationOnMock invocation) {
+                ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+                return perform(action, requests, failingPage);
+              }
+            })
+        .when(bot)
+        .getPerformedAction(any(ContentProcessable.class));
+    lenient()
+        .doAnswer(
+            new Answer<CompletableFuture<ContentProcessable>>() {
+              @Override
+              public CompletableFuture<ContentProcessable> answer(InvocationOnMock invocation) {
+                ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+                CompletableFuture<ContentProcessable> result = new CompletableFuture<>();
+                try {
+                  result.complete(perform(action, requests, failingPage));
+                } catch (RuntimeException e) {
+                  result.completeExceptionally(e);
+                }
+                return result;
+              }
+            })
+        .when(bot)
+        .getPerformedActionAsync(any(ContentProcessable.class));
+    return bot;
+  }
+
+  private static ContentProcessable perform(
+      ContentProcessable action, AtomicInteger requests, AtomicInteger failingPage) {
+    HttpAction message = action.getNextMessage();
+    String request = message.getRequest();
+    String page = request.substring(request.indexOf('=') + 1);
+    requests.incrementAndGet();
+    if (page.equals(Integer.toString(failingPage.get()))) {
+      throw new IllegalStateException("fail " + page);
+    }
+    action.processReturningText(page, message);
+    return action;
+  }
+
+  @Override
+  protected Iterator<String> copy() {
+    return new PagedQuery(bot());
+  }
+
+  @Override
+  protected HttpAction prepareNextRequest() {
+    RequestBuilder requestBuilder = new RequestBuilder("/api.php");
+    if (hasNextPageInfo()) {
+      return requestBuilder.param("page", getNextPageInfo()).buildGet();
+    }
+    return requestBuilder.param("page", 0).buildGet();
+  }
+
+  @Override
+  protected ImmutableList<String> parseElements(String s) {
+    return ImmutableList.of(s + "a", s + "b");
+  }
+
+  @Override
+  protected Optional<String> parseHasMore(String s) {
+    int next = Integer.parseInt(s) + 1;
+    if (next < PAGES) {
+      return Optional.of(Integer.toString(next));
+    }
+    return Optional.absent();
+  }
+}
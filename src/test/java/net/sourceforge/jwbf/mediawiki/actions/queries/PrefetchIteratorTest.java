@@ -0,0 +1,160 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+
+public class PrefetchIteratorTest {
+
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger failingPage = new AtomicInteger(-1);
+  private final MediaWikiBot bot = PagedQuery.newBot(requests, failingPage);
+
+  @Test
+  public void testPrefetching() {
+    // GIVEN
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      PagedQuery testee = new PagedQuery(bot);
+
+      // WHEN
+      ImmutableList<String> result = ImmutableList.copyOf(testee.prefetching(executor, 2));
+
+      // THEN
+      assertEquals(ImmutableList.copyOf(testee.lazy()), result);
+      assertEquals(ImmutableList.of("0a", "0b", "1a", "1b", "2a", "2b", "3a", "3b"), result);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testPrefetching_defaultExecutor() {
+    // GIVEN
+    PagedQuery testee = new PagedQuery(bot);
+
+    // WHEN
+    ImmutableList<String> result = ImmutableList.copyOf(testee.prefetching(1));
+
+    // THEN
+    assertEquals(PagedQuery.PAGES * 2, result.size());
+    assertEquals(PagedQuery.PAGES, requests.get());
+  }
+
+  @Test
+  public void testDefaultExecutor_isBounded() {
+    // WHEN
+    ThreadPoolExecutor executor = BaseQuery.PREFETCH_EXECUTOR;
+
+    // THEN
+    assertEquals(BaseQuery.PREFETCH_THREADS, executor.getMaximumPoolSize());
+    assertEquals(BaseQuery.PREFETCH_QUEUE, executor.getQueue().remainingCapacity());
+    assertTrue(executor.allowsCoreThreadTimeOut());
+    assertTrue(executor.getRejectedExecutionHandler() instanceof CallerRunsPolicy);
+  }
+
+  @Test
+  public void testPrefetching_saturatedExecutor() {
+    // GIVEN
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(),
+            new CallerRunsPolicy());
+    final CountDownLatch release = new CountDownLatch(1);
+    executor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            Uninterruptibles.awaitUninterruptibly(release);
+          }
+        });
+    try {
+      PagedQuery testee = new PagedQuery(bot);
+
+      // WHEN
+      ImmutableList<String> result = ImmutableList.copyOf(testee.prefetching(executor, 2));
+
+      // THEN
+      assertEquals(PagedQuery.PAGES * 2, result.size());
+      assertEquals(PagedQuery.PAGES, requests.get());
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testPrefetching_boundedLookAhead() {
+    // GIVEN
+    PagedQuery testee = new PagedQuery(bot);
+    Iterator<String> iterator = testee.prefetching(MoreExecutors.directExecutor(), 2).iterator();
+
+    // WHEN
+    String first = iterator.next();
+
+    // THEN
+    assertEquals("0a", first);
+    assertEquals(3, requests.get()); // the current page and two pages ahead
+
+    // WHEN
+    iterator.next();
+    iterator.next();
+
+    // THEN
+    assertEquals(PagedQuery.PAGES, requests.get());
+  }
+
+  @Test
+  public void testPrefetching_failure() {
+    // GIVEN
+    failingPage.set(1);
+    Iterator<String> iterator =
+        new PagedQuery(bot).prefetching(MoreExecutors.directExecutor(), 1).iterator();
+    iterator.next();
+    iterator.next();
+
+    try {
+      // WHEN
+      iterator.next();
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("fail 1", e.getMessage());
+    }
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void testPrefetching_invalidDepth() {
+    try {
+      // WHEN
+      new PagedQuery(bot).prefetching(MoreExecutors.directExecutor(), 0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("depth must be positive", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,244 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+import net.sourceforge.jwbf.core.actions.ContentProcessable;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+
+public class QueryPublisherTest {
+
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger failingPage = new AtomicInteger(-1);
+  private final MediaWikiBot bot = PagedQuery.newBot(requests, failingPage);
+
+  @Test
+  public void testSubscribe_unbounded() {
+    // GIVEN
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new PagedQuery(bot).publisher().subscribe(subscriber);
+
+    // WHEN
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    // THEN
+    assertEquals(
+        ImmutableList.of("0a", "0b", "1a", "1b", "2a", "2b", "3a", "3b"), subscriber.items);
+    assertTrue(subscriber.completed);
+    assertEquals(PagedQuery.PAGES, requests.get());
+  }
+
+  @Test
+  public void testSubscribe_demandDrivesPagination() {
+    // GIVEN
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new PagedQuery(bot).publisher().subscribe(subscriber);
+    assertEquals(0, requests.get());
+
+    // WHEN
+    subscriber.subscription.request(1);
+
+    // THEN
+    assertEquals(ImmutableList.of("0a"), subscriber.items);
+    assertEquals(1, requests.get());
+
+    // WHEN
+    subscriber.subscription.request(2);
+
+    // THEN
+    assertEquals(ImmutableList.of("0a", "0b", "1a"), subscriber.items);
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void testSubscribe_cancel() {
+    // GIVEN
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new PagedQuery(bot).publisher().subscribe(subscriber);
+    subscriber.subscription.request(2);
+
+    // WHEN
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(10);
+
+    // THEN
+    assertEquals(ImmutableList.of("0a", "0b"), subscriber.items);
+    assertEquals(1, requests.get());
+    assertTrue(!subscriber.completed);
+  }
+
+  @Test
+  public void testSubscribe_cancelPendingFetch() {
+    // GIVEN
+    final List<CompletableFuture<ContentProcessable>> fetches = Lists.newArrayList();
+    MediaWikiBot pendingBot = mock(MediaWikiBot.class);
+    doAnswer(
+            new Answer<CompletableFuture<ContentProcessable>>() {
+              @Override
+              public CompletableFuture<ContentProcessable> answer(InvocationOnMock invocation) {
+                CompletableFuture<ContentProcessable> fetch = new CompletableFuture<>();
+                fetches.add(fetch);
+                return fetch;
+              }
+            })
+        .when(pendingBot)
+        .getPerformedActionAsync(any(ContentProcessable.class));
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new PagedQuery(pendingBot).publisher().subscribe(subscriber);
+    subscriber.subscription.request(1);
+
+    // WHEN
+    subscriber.subscription.cancel();
+
+    // THEN
+    assertTrue(Iterables.getOnlyElement(fetches).isCancelled());
+    assertTrue(subscriber.items.isEmpty());
+    assertNull(subscriber.failure);
+    assertTrue(!subscriber.completed);
+  }
+
+  @Test
+  public void testSubscribe_throwingOnNext() {
+    // GIVEN
+    RecordingSubscriber subscriber =
+        new RecordingSubscriber() {
+          @Override
+          public void onNext(String item) {
+            super.onNext(item);
+            throw new IllegalStateException("broken " + item);
+          }
+        };
+    new PagedQuery(bot).publisher().subscribe(subscriber);
+
+    // WHEN
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.subscription.request(1);
+
+    // THEN
+    assertEquals(ImmutableList.of("0a"), subscriber.items);
+    assertEquals("broken 0a", subscriber.failure.getMessage());
+    assertEquals(1, requests.get());
+    assertTrue(!subscriber.completed);
+  }
+
+  @Test
+  public void testSubscribe_requestInOnNext() {
+    // GIVEN
+    RecordingSubscriber subscriber =
+        new RecordingSubscriber() {
+          @Override
+          public void onNext(String item) {
+            super.onNext(item);
+            subscription.request(1);
+          }
+        };
+    new PagedQuery(bot).publisher().subscribe(subscriber);
+
+    // WHEN
+    subscriber.subscription.request(1);
+
+    // THEN
+    assertEquals(PagedQuery.PAGES * 2, subscriber.items.size());
+    assertTrue(subscriber.completed);
+  }
+
+  @Test
+  public void testSubscribe_failure() {
+    // GIVEN
+    failingPage.set(1);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new PagedQuery(bot).publisher().subscribe(subscriber);
+
+    // WHEN
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    // THEN
+    assertEquals(ImmutableList.of("0a", "0b"), subscriber.items);
+    assertEquals("fail 1", subscriber.failure.getMessage());
+    assertTrue(!subscriber.completed);
+  }
+
+  @Test
+  public void testSubscribe_invalidDemand() {
+    // GIVEN
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    new PagedQuery(bot).publisher().subscribe(subscriber);
+
+    // WHEN
+    subscriber.subscription.request(0);
+
+    // THEN
+    assertEquals("demand must be positive, but was 0", subscriber.failure.getMessage());
+    assertEquals(0, requests.get());
+  }
+
+  @Test
+  public void testSubscribe_eachSubscriptionReadsItsOwnQuery() {
+    // GIVEN
+    QueryPublisher<String> testee = new PagedQuery(bot).publisher();
+    RecordingSubscriber first = new RecordingSubscriber();
+    RecordingSubscriber second = new RecordingSubscriber();
+    testee.subscribe(first);
+    testee.subscribe(second);
+
+    // WHEN
+    first.subscription.request(Long.MAX_VALUE);
+    second.subscription.request(Long.MAX_VALUE);
+
+    // THEN
+    assertEquals(first.items, second.items);
+    assertNull(second.failure);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testSubscribe_nullSubscriber() {
+    // WHEN
+    new PagedQuery(bot).publisher().subscribe(null);
+  }
+
+  private static class RecordingSubscriber implements Subscriber<String> {
+
+    Subscription subscription;
+    final List<String> items = Lists.newArrayList();
+    Throwable failure;
+    boolean completed;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(String item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      failure = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
@@ -8,6 +8,7 @@ import net.sourceforge.jwbf.GAssert;
 import net.sourceforge.jwbf.TestHelper;
 import net.sourceforge.jwbf.mediawiki.ApiMatcherBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.MocoIntegTest;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import net.sourceforge.jwbf.mediawiki.contentRep.RecentChange;
 import org.junit.Test;
@@ -26,6 +27,7 @@ public class RecentChangesIntegTest extends AbstractIntegTest {
   private RequestMatcher embeddedinTwo =
       ApiMatcherBuilder.of() //
           .param("action", "query") //
+          .paramNewContinue(MediaWiki.Version.getLatest()) //
           .param("format", "xml") //
           .param("list", "recentchanges") //
           .param("rclimit", "50") //
@@ -33,16 +35,32 @@ public class RecentChangesIntegTest extends AbstractIntegTest {
           .param("rcprop", "user|userid|comment|flags|timestamp|title|ids|sizes|flags") //
           .build();
 
+  private RequestMatcher embeddedinTwoContinued =
+      ApiMatcherBuilder.of() //
+          .param("action", "query") //
+          .paramNewContinue(MediaWiki.Version.getLatest()) //
+          .param("format", "xml") //
+          .param("list", "recentchanges") //
+          .param("rclimit", "50") //
+          .param("rcnamespace", "0") //
+          .param("rcprop", "user|userid|comment|flags|timestamp|title|ids|sizes|flags") //
+          .param("rccontinue", "20190218182625|1131171779") //
+          .build();
+
   @Test
   public void test() {
 
     // GIVEN
+    MocoIntegTest.applySiteinfoXmlToServer(server, MediaWiki.Version.getLatest(), getClass());
     server.request(embeddedinTwo).response(TestHelper.anyWikiResponse("recentchanges_full_1.xml"));
+    server
+        .request(embeddedinTwoContinued)
+        .response(TestHelper.anyWikiResponse("recentchanges_full_2.xml"));
     MediaWikiBot bot = new MediaWikiBot(host());
 
     // WHEN
     RecentChanges testee = new RecentChanges(bot, MediaWiki.NS_MAIN);
-    List<RecentChange> resultList = testee.getCopyOf(15); // query-continue is not implemented
+    List<RecentChange> resultList = testee.getCopyOf(15);
 
     // THEN
     ImmutableList<RecentChange> expected =
@@ -64,7 +82,13 @@ public class RecentChangesIntegTest extends AbstractIntegTest {
                 "Uploading a photo of myself"),
             new RecentChange(ChangeType.NEW, 0, "Guardians", 60008351, 883961993, 0,
                 1131171819, "Rocket", 7611264, 0, 299, toDate("2019-02-18T18:26:39Z"),
-                "Redirecting to [[:Guardians of the Galaxy]]")
+                "Redirecting to [[:Guardians of the Galaxy]]"),
+            new RecentChange(ChangeType.EDIT, 0, "Infinity stone", 60008352, 883961980,
+                883961950, 1131171779, "Thanos", 31143093, 1200, 1350,
+                toDate("2019-02-18T18:26:25Z"), "Collect them all"),
+            new RecentChange(ChangeType.NEW, 0, "Groot", 60008353, 883961975, 0,
+                1131171770, "Rocket", 7611264, 0, 13, toDate("2019-02-18T18:26:20Z"),
+                "I am Groot")
         );
     GAssert.assertEquals(expected, ImmutableList.copyOf(resultList));
     assertEquals(resultList.size(), ImmutableSet.copyOf(resultList).size());
@@ -74,6 +98,7 @@ public class RecentChangesIntegTest extends AbstractIntegTest {
   public void testOne() {
 
     // GIVEN
+    MocoIntegTest.applySiteinfoXmlToServer(server, MediaWiki.Version.getLatest(), getClass());
     server.request(embeddedinTwo).response(TestHelper.anyWikiResponse("recentchanges_full_1.xml"));
     MediaWikiBot bot = new MediaWikiBot(host());
 
@@ -0,0 +1,93 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.google.common.base.Optional;
+
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import net.sourceforge.jwbf.mediawiki.contentRep.RecentChange;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RecentChangesTest {
+
+  @Mock private MediaWikiBot bot;
+  @Mock private MediaWikiBot jsonBot;
+
+  @Test
+  public void testPrepareNextRequest_xml() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_24);
+    RecentChanges testee = new RecentChanges(bot, MediaWiki.NS_MAIN);
+
+    // WHEN
+    String result = testee.prepareNextRequest().getRequest();
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&continue=-%7C%7C&format=xml&list=recentchanges&rclimit=50"
+            + "&rcnamespace=0"
+            + "&rcprop=user%7Cuserid%7Ccomment%7Cflags%7Ctimestamp%7Ctitle%7Cids%7Csizes%7Cflags",
+        result);
+  }
+
+  @Test
+  public void testPrepareNextRequest_continue() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+    RecentChanges testee = new RecentChanges(bot, MediaWiki.NS_CATEGORY);
+    testee.setNextPageInfo("20190218182625|1131171779");
+
+    // WHEN
+    String result = testee.prepareNextRequest().getRequest();
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&continue=-%7C%7C&format=json&formatversion=2"
+            + "&list=recentchanges&rccontinue=20190218182625%7C1131171779&rclimit=50"
+            + "&rcnamespace=14&rcprop=user%7Cuserid%7Ccomment%7Cflags%7Ctimestamp%7Ctitle"
+            + "%7Cids%7Csizes%7Cflags",
+        result);
+  }
+
+  @Test
+  public void testParsePage_json() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+    RecentChanges testee = new RecentChanges(bot);
+
+    // WHEN
+    BaseQuery.Page<RecentChange> result =
+        testee.parsePage(TestHelper.anyWikiResponse("recentchanges_full_1.json"));
+
+    // THEN
+    assertEquals(6, result.getElements().size());
+    assertEquals("User talk:Troll", result.getElements().get(0).getTitle());
+    assertEquals(Optional.of("20190218182625|1131171779"), result.getNextPageInfo());
+  }
+
+  @Test
+  public void testParsePage_xml() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_24);
+    RecentChanges testee = new RecentChanges(bot);
+    when(jsonBot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+    RecentChanges jsonTestee = new RecentChanges(jsonBot);
+    String json = TestHelper.anyWikiResponse("recentchanges_full_1.json");
+    String xml = TestHelper.anyWikiResponse("recentchanges_full_1.xml");
+
+    // WHEN
+    BaseQuery.Page<RecentChange> result = testee.parsePage(xml);
+
+    // THEN
+    assertEquals(Optional.of("20190218182625|1131171779"), result.getNextPageInfo());
+    assertEquals(jsonTestee.parsePage(json).getElements(), result.getElements());
+  }
+}
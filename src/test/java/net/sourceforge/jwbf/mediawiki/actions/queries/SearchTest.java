@@ -0,0 +1,72 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.core.contentRep.SearchResult;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+
+public class SearchTest {
+
+  private final String json = TestHelper.textOf("mediawiki/v1-23/search.json");
+
+  @Test
+  public void testParsePage() {
+    // GIVEN
+    Search testee = new Search(mock(MediaWikiBot.class), "meaning");
+
+    // WHEN
+    BaseQuery.Page<SearchResult> result = testee.parsePage(json);
+
+    // THEN
+    assertEquals(Optional.of("5"), result.getNextPageInfo());
+    assertEquals(193, testee.getTotalHits());
+    assertEquals("meeting", testee.getSuggestion());
+    ImmutableList<SearchResult> elements = result.getElements();
+    assertEquals(5, elements.size());
+    assertEquals("Design/WikiFont", elements.get(0).getTitle());
+    assertEquals(890, elements.get(0).getWordCount());
+  }
+
+  @Test
+  public void testParsePage_sameAsParseElements() {
+    // GIVEN
+    Search testee = new Search(mock(MediaWikiBot.class), "meaning");
+
+    // WHEN
+    BaseQuery.Page<SearchResult> result = testee.parsePage(json);
+
+    // THEN
+    ImmutableList<SearchResult> expected = testee.parseElements(json);
+    assertEquals(expected.size(), result.getElements().size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getTitle(), result.getElements().get(i).getTitle());
+      assertEquals(expected.get(i).getSnippet(), result.getElements().get(i).getSnippet());
+    }
+    assertEquals(testee.parseHasMore(json), result.getNextPageInfo());
+  }
+
+  @Test
+  public void testParsePage_lastPage() {
+    // GIVEN
+    Search testee = new Search(mock(MediaWikiBot.class), "meaning");
+    String lastPage =
+        "{\"batchcomplete\":\"\",\"query\":{\"searchinfo\":{\"totalhits\":1},"
+            + "\"search\":[{\"ns\":0,\"title\":\"A\"}]}}";
+
+    // WHEN
+    BaseQuery.Page<SearchResult> result = testee.parsePage(lastPage);
+
+    // THEN
+    assertEquals(Optional.<String>absent(), result.getNextPageInfo());
+    assertEquals(1, testee.getTotalHits());
+    assertEquals(null, testee.getSuggestion());
+    assertEquals("A", result.getElements().get(0).getTitle());
+  }
+}
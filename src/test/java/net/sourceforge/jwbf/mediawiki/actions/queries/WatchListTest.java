@@ -1,12 +1,21 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.util.Date;
 
 import org.joda.time.DateTime;
 import org.junit.Test;
 
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+
 public class WatchListTest {
 
   @Test
@@ -20,4 +29,50 @@ public class WatchListTest {
     // THEN
     assertEquals("2008-03-04T16:01:48Z", formattedDate);
   }
+
+  @Test
+  public void testParsePage() {
+    // GIVEN
+    MediaWikiBot bot = mock(MediaWikiBot.class);
+    when(bot.isLoggedIn()).thenReturn(true);
+    WatchList testee = WatchList.from(bot).build();
+    String json =
+        TestHelper.anyWikiResponse("watchlist.json")
+            .replaceFirst("\"query-continue\" : \\{\\s*\"watchlist\" : ", "\"continue\" : ")
+            .replaceFirst("\\}\\s*\\},", "},");
+
+    // WHEN
+    BaseQuery.Page<WatchResponse> result = testee.parsePage(json);
+
+    // THEN
+    assertEquals(Optional.of("20150106002349|704632061"), result.getNextPageInfo());
+    ImmutableList<WatchResponse> expected = testee.parseElements(json);
+    assertEquals(expected.size(), result.getElements().size());
+    assertEquals("Revenge (TV series)", result.getElements().get(0).getTitle());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getTitle(), result.getElements().get(i).getTitle());
+    }
+  }
+
+  @Test
+  public void testPrepareNextRequest_limitOfQueryTakesPrecedence() {
+    // GIVEN
+    MediaWikiBot bot = mock(MediaWikiBot.class);
+    when(bot.isLoggedIn()).thenReturn(true);
+    WatchList builderLimit = WatchList.from(bot).withLimit(10).build();
+    WatchList maxLimit = WatchList.from(bot).withLimit(10).build();
+    maxLimit.withMaxLimit();
+    WatchList queryLimit = WatchList.from(bot).withLimit(10).build();
+    queryLimit.withLimit(20);
+
+    // WHEN
+    String builderRequest = builderLimit.prepareNextRequest().getRequest();
+    String maxRequest = maxLimit.prepareNextRequest().getRequest();
+    String queryRequest = queryLimit.prepareNextRequest().getRequest();
+
+    // THEN
+    assertTrue(builderRequest, builderRequest.contains("wllimit=10"));
+    assertTrue(maxRequest, maxRequest.contains("wllimit=max"));
+    assertTrue(queryRequest, queryRequest.contains("wllimit=20"));
+  }
 }
@@ -18,35 +18,34 @@ import net.sourceforge.jwbf.Logging;
 import net.sourceforge.jwbf.TestHelper;
 import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
 import net.sourceforge.jwbf.mediawiki.ApiMatcherBuilder;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.MocoIntegTest;
 
 public class MediaWikiBotIntegTest extends AbstractIntegTest {
 
-  RequestMatcher revisions =
-      ApiMatcherBuilder.of() //
-          .param("action", "query") //
-          .param("format", "xml") //
-          .param("prop", "revisions") //
-          .param("rvlimit", "1") //
-          .param("rvprop", "content|comment|timestamp|user|ids|flags") //
-          .param("rvdir", "older") //
-          .param("titles", "A|B") //
-          .build();
-
-  RequestMatcher revision =
-      ApiMatcherBuilder.of() //
-          .param("action", "query") //
-          .param("format", "xml") //
-          .param("prop", "revisions") //
-          .param("rvlimit", "1") //
-          .param("rvprop", "content|comment|timestamp|user|ids|flags") //
-          .param("rvdir", "older") //
-          .param("titles", "B") //
-          .build();
+  RequestMatcher revisions = revisionsOf("A|B").param("format", "xml").build();
+
+  RequestMatcher revision = revisionsOf("B").param("format", "xml").build();
+
+  private static ApiMatcherBuilder revisionsOf(String titles) {
+    return ApiMatcherBuilder.of() //
+        .param("action", "query") //
+        .param("prop", "revisions") //
+        .param("rvlimit", "1") //
+        .param("rvprop", "content|comment|timestamp|user|ids|flags") //
+        .param("rvdir", "older") //
+        .param("titles", titles);
+  }
+
+  private void applySiteinfo(MediaWiki.Version version) {
+    MocoIntegTest.applySiteinfoXmlToServer(server, version, getClass());
+  }
 
   @Test
   public void testreadData() {
     // GIVEN
     Supplier<ImmutableList<String>> logLinesSupplier = Logging.newLogLinesSupplier();
+    applySiteinfo(MediaWiki.Version.getLatest());
     server.request(revisions).response(TestHelper.anyWikiResponse("revisions.xml"));
     MediaWikiBot testee = new MediaWikiBot(host());
 
@@ -64,6 +63,7 @@ public class MediaWikiBotIntegTest extends AbstractIntegTest {
   public void testReadDataOpt() {
     // GIVEN
     Supplier<ImmutableList<String>> logLinesSupplier = Logging.newLogLinesSupplier();
+    applySiteinfo(MediaWiki.Version.getLatest());
     server.request(revisions).response(TestHelper.anyWikiResponse("revisions.xml"));
     MediaWikiBot testee = new MediaWikiBot(host());
 
@@ -78,6 +78,28 @@ public class MediaWikiBotIntegTest extends AbstractIntegTest {
     GAssert.assertEquals(ImmutableList.of("[WARN] Article 'A' is missing"), logLinesSupplier.get());
   }
 
+  @Test
+  public void testReadDataOpt_json() {
+    // GIVEN
+    Supplier<ImmutableList<String>> logLinesSupplier = Logging.newLogLinesSupplier();
+    applySiteinfo(MediaWiki.Version.MW1_25);
+    server
+        .request(revisionsOf("A|B").param("format", "json").param("formatversion", "2").build())
+        .response(TestHelper.wikiResponse(MediaWiki.Version.MW1_25, "revisions.json"));
+    MediaWikiBot testee = new MediaWikiBot(host());
+
+    // WHEN
+    ImmutableList<Optional<SimpleArticle>> result = testee.readDataOpt("A", "B");
+
+    // THEN
+    SimpleArticle articleB = getSimpleArticle();
+    articleB.setMinorEdit(true);
+    ImmutableList<Optional<SimpleArticle>> expected =
+        ImmutableList.of(Optional.<SimpleArticle>absent(), Optional.of(articleB));
+    GAssert.assertEquals(expected, result);
+    GAssert.assertEquals(ImmutableList.of("[WARN] Article 'A' is missing"), logLinesSupplier.get());
+  }
+
   SimpleArticle getSimpleArticle() {
     SimpleArticle articleB = new SimpleArticle("B");
     articleB.setText("#REDIRECT [[Any]]");
@@ -91,6 +113,7 @@ public class MediaWikiBotIntegTest extends AbstractIntegTest {
   @Test
   public void testReadDataOpt_single_fail() {
     // GIVEN
+    applySiteinfo(MediaWiki.Version.getLatest());
     server.request(revision).response(TestHelper.anyWikiResponse("revisions.xml"));
     MediaWikiBot testee = new MediaWikiBot(host());
 
@@ -107,6 +130,7 @@ public class MediaWikiBotIntegTest extends AbstractIntegTest {
   @Test
   public void testReadDataOpt_single() {
     // GIVEN
+    applySiteinfo(MediaWiki.Version.getLatest());
     server.request(revision).response(TestHelper.anyWikiResponse("revision.xml"));
     MediaWikiBot testee = new MediaWikiBot(host());
 
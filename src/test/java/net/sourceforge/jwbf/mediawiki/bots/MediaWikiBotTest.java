@@ -3,14 +3,24 @@ package net.sourceforge.jwbf.mediawiki.bots;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -25,15 +35,18 @@ import com.google.inject.Injector;
 import net.sourceforge.jwbf.GAssert;
 import net.sourceforge.jwbf.JWBF;
 import net.sourceforge.jwbf.JettyServer;
+import net.sourceforge.jwbf.TestHelper;
 import net.sourceforge.jwbf.core.actions.ContentProcessable;
 import net.sourceforge.jwbf.core.actions.HttpActionClient;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
 import net.sourceforge.jwbf.core.bots.HttpBot;
 import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.core.contentRep.Userinfo;
 import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
 import net.sourceforge.jwbf.mediawiki.actions.editing.GetRevision;
 import net.sourceforge.jwbf.mediawiki.actions.editing.PostModifyContent;
 import net.sourceforge.jwbf.mediawiki.actions.login.PostLogin;
+import net.sourceforge.jwbf.mediawiki.actions.meta.GetUserinfo;
 import net.sourceforge.jwbf.mediawiki.actions.meta.GetVersion;
 import net.sourceforge.jwbf.mediawiki.actions.meta.Siteinfo;
 
@@ -132,6 +145,145 @@ public class MediaWikiBotTest {
     assertEquals(Version.UNKNOWN, version);
   }
 
+  @Test
+  public void testGetVersion_newerThanKnown() {
+    // GIVEN
+    answerVersionRequests("siteinfo_mw1_35.xml");
+
+    // WHEN
+    Version version = testee.getVersion();
+
+    // THEN
+    assertEquals(Version.DEVELOPMENT, version);
+  }
+
+  @Test
+  public void testGetVersion_requestedOnce() {
+    // GIVEN
+    testee.getVersion();
+
+    // WHEN
+    testee.getVersion();
+
+    // THEN
+    verify(client, times(1)).performAction(isA(GetVersion.class));
+  }
+
+  @Test
+  public void testGetUserinfo_requestedAgainAfterLogin() {
+    // GIVEN
+    mockValidLogin("username", client);
+    Userinfo anonymous = testee.getUserinfo();
+    assertSame(anonymous, testee.getUserinfo());
+
+    // WHEN
+    testee.login("username", "pw");
+    Userinfo result = testee.getUserinfo();
+
+    // THEN
+    assertNotSame(anonymous, result);
+    verify(client, times(2)).performAction(isA(GetUserinfo.class));
+  }
+
+  @Test
+  public void testGetVersion_whileUserinfoIsRequested() throws Exception {
+    // GIVEN
+    CountDownLatch requested = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    blockUserinfoRequests(requested, release);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Userinfo> userinfo = executor.submit(getUserinfo());
+      assertTrue(requested.await(5, TimeUnit.SECONDS));
+
+      // WHEN
+      Version version =
+          executor
+              .submit(
+                  new Callable<Version>() {
+                    @Override
+                    public Version call() {
+                      return testee.getVersion();
+                    }
+                  })
+              .get(5, TimeUnit.SECONDS);
+
+      // THEN
+      assertEquals(Version.UNKNOWN, version);
+      assertFalse(userinfo.isDone());
+      release.countDown();
+      assertNotNull(userinfo.get(5, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testGetUserinfo_requestedBeforeLoginIsNotKept() throws Exception {
+    // GIVEN
+    mockValidLogin("username", client);
+    CountDownLatch requested = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    blockUserinfoRequests(requested, release);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Userinfo> anonymous = executor.submit(getUserinfo());
+      assertTrue(requested.await(5, TimeUnit.SECONDS));
+      testee.login("username", "pw");
+      release.countDown();
+      anonymous.get(5, TimeUnit.SECONDS);
+
+      // WHEN
+      testee.getUserinfo();
+
+      // THEN
+      verify(client, times(2)).performAction(isA(GetUserinfo.class));
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  private void answerVersionRequests(final String siteinfoFilename) {
+    doAnswer(
+            new Answer<String>() {
+              @Override
+              public String answer(InvocationOnMock invocation) {
+                GetVersion action = (GetVersion) invocation.getArguments()[0];
+                return action.processAllReturningText(
+                    TestHelper.anyWikiResponse(siteinfoFilename));
+              }
+            })
+        .when(client)
+        .performAction(isA(GetVersion.class));
+  }
+
+  /** Each userinfo request signals requested and waits for release. */
+  private void blockUserinfoRequests(
+      final CountDownLatch requested, final CountDownLatch release) {
+    doAnswer(
+            new Answer<String>() {
+              @Override
+              public String answer(InvocationOnMock invocation) throws InterruptedException {
+                requested.countDown();
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+                return null;
+              }
+            })
+        .when(client)
+        .performAction(isA(GetUserinfo.class));
+  }
+
+  private Callable<Userinfo> getUserinfo() {
+    return new Callable<Userinfo>() {
+      @Override
+      public Userinfo call() {
+        return testee.getUserinfo();
+      }
+    };
+  }
+
   @Test
   public void testWriteContent_not_logged_in() {
     // GIVEN